@@ -177,7 +177,8 @@ class JSONMethodCodec implements MethodCodec {
 ///  * [bool]s
 ///  * [num]s
 ///  * [String]s
-///  * [Uint8List]s, [Int32List]s, [Int64List]s, [Float64List]s
+///  * [Uint8List]s, [Int32List]s, [Int64List]s, [Float32List]s,
+///    [Float64List]s
 ///  * [List]s of supported values
 ///  * [Map]s from supported values to supported values
 ///
@@ -195,6 +196,7 @@ class JSONMethodCodec implements MethodCodec {
 ///  * [Uint8List]\: `byte[]`
 ///  * [Int32List]\: `int[]`
 ///  * [Int64List]\: `long[]`
+///  * [Float32List]\: `float[]`
 ///  * [Float64List]\: `double[]`
 ///  * [List]\: `java.util.ArrayList`
 ///  * [Map]\: `java.util.HashMap`
@@ -207,7 +209,7 @@ class JSONMethodCodec implements MethodCodec {
 ///    32-bit two's complement; `NSNumber numberWithLong:` otherwise
 ///  * [double]\: `NSNumber numberWithDouble:`
 ///  * [String]\: `NSString`
-///  * [Uint8List], [Int32List], [Int64List], [Float64List]\:
+///  * [Uint8List], [Int32List], [Int64List], [Float32List], [Float64List]\:
 ///    `FlutterStandardTypedData`
 ///  * [List]\: `NSArray`
 ///  * [Map]\: `NSDictionary`
@@ -240,12 +242,13 @@ class StandardMessageCodec implements MessageCodec<dynamic> {
   // * Strings are encoded using their UTF-8 representation. First the length
   //   of that in bytes is encoded using the expanding format, then follows the
   //   UTF-8 encoding itself.
-  // * Uint8Lists, Int32Lists, Int64Lists, and Float64Lists are encoded by first
-  //   encoding the list's element count in the expanding format, then the
-  //   smallest number of zero bytes needed to align the position in the full
-  //   message with a multiple of the number of bytes per element, then the
-  //   encoding of the list elements themselves, end-to-end with no additional
-  //   type information, using two's complement or IEEE 754 as applicable.
+  // * Uint8Lists, Int32Lists, Int64Lists, Float32Lists, and Float64Lists are
+  //   encoded by first encoding the list's element count in the expanding
+  //   format, then the smallest number of zero bytes needed to align the
+  //   position in the full message with a multiple of the number of bytes per
+  //   element, then the encoding of the list elements themselves, end-to-end
+  //   with no additional type information, using two's complement or IEEE 754
+  //   as applicable.
   // * Lists are encoded by first encoding their length in the expanding format,
   //   then follows the recursive encoding of each element value, including the
   //   type byte (Lists are assumed to be heterogeneous).
@@ -266,6 +269,7 @@ class StandardMessageCodec implements MessageCodec<dynamic> {
   static const int _valueFloat64List = 11;
   static const int _valueList = 12;
   static const int _valueMap = 13;
+  static const int _valueFloat32List = 14;
 
   /// Creates a [MessageCodec] using the Flutter standard binary encoding.
   const StandardMessageCodec();
@@ -339,6 +343,10 @@ class StandardMessageCodec implements MessageCodec<dynamic> {
       buffer.putUint8(_valueInt64List);
       writeSize(buffer, value.length);
       buffer.putInt64List(value);
+    } else if (value is Float32List) {
+      buffer.putUint8(_valueFloat32List);
+      writeSize(buffer, value.length);
+      buffer.putFloat32List(value);
     } else if (value is Float64List) {
       buffer.putUint8(_valueFloat64List);
       writeSize(buffer, value.length);
@@ -422,6 +430,10 @@ class StandardMessageCodec implements MessageCodec<dynamic> {
         final int length = readSize(buffer);
         result = buffer.getInt64List(length);
         break;
+      case _valueFloat32List:
+        final int length = readSize(buffer);
+        result = buffer.getFloat32List(length);
+        break;
       case _valueFloat64List:
         final int length = readSize(buffer);
         result = buffer.getFloat64List(length);
@@ -78,6 +78,13 @@ class WriteBuffer {
         .addAll(list.buffer.asUint8List(list.offsetInBytes, 8 * list.length));
   }
 
+  /// Write all the values from a [Float32List] into the buffer.
+  void putFloat32List(Float32List list) {
+    _alignTo(4);
+    _buffer
+        .addAll(list.buffer.asUint8List(list.offsetInBytes, 4 * list.length));
+  }
+
   /// Write all the values from a [Float64List] into the buffer.
   void putFloat64List(Float64List list) {
     _alignTo(8);
@@ -185,6 +192,15 @@ class ReadBuffer {
     return list;
   }
 
+  /// Reads the given number of Float32s from the buffer.
+  Float32List getFloat32List(int length) {
+    _alignTo(4);
+    final Float32List list =
+        data.buffer.asFloat32List(data.offsetInBytes + _position, length);
+    _position += 4 * length;
+    return list;
+  }
+
   /// Reads the given number of Float64s from the buffer.
   Float64List getFloat64List(int length) {
     _alignTo(8);
@@ -9,6 +9,10 @@ import androidx.annotation.NonNull;
 /**
  * Port of {@link android.util.Log} that only logs in {@link io.flutter.BuildConfig#DEBUG} mode and
  * internally filters logs based on a {@link #logLevel}.
+ *
+ * <p>The arguments of a log call are evaluated even when the message is filtered out. Verbose and
+ * debug messages that are built from several parts on a hot path should therefore be guarded with
+ * {@link #isLoggable(int)}, so that they are only built when they are logged.
  */
 public class Log {
   private static int logLevel = android.util.Log.DEBUG;
@@ -23,6 +27,24 @@ public class Log {
     Log.logLevel = logLevel;
   }
 
+  /**
+   * Returns true if messages of the given {@code level} are logged.
+   *
+   * <p>Warnings and errors are always logged. Messages of lower priority are only logged in {@link
+   * io.flutter.BuildConfig#DEBUG} mode, and only if they pass the {@link #setLogLevel(int)} cutoff.
+   * Since {@link io.flutter.BuildConfig#DEBUG} is a compile-time constant, this method is a
+   * constant {@code false} for those levels in profile and release builds, and code that is
+   * guarded by it is removed when the app is optimized.
+   *
+   * <p>See {@link android.util.Log} for log level constants.
+   */
+  public static boolean isLoggable(int level) {
+    if (level >= android.util.Log.WARN) {
+      return true;
+    }
+    return BuildConfig.DEBUG && logLevel <= level;
+  }
+
   public static void v(@NonNull String tag, @NonNull String message) {
     if (BuildConfig.DEBUG && logLevel <= android.util.Log.VERBOSE) {
       android.util.Log.v(tag, message);
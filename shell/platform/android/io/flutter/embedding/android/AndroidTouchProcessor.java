@@ -6,8 +6,6 @@ import android.view.MotionEvent;
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import io.flutter.embedding.engine.renderer.FlutterRenderer;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 /** Sends touch information from Android to Flutter in a format that Flutter understands. */
 public class AndroidTouchProcessor {
@@ -22,7 +20,7 @@ public class AndroidTouchProcessor {
     PointerChange.MOVE,
     PointerChange.UP
   })
-  private @interface PointerChange {
+  @interface PointerChange {
     int CANCEL = 0;
     int ADD = 1;
     int REMOVE = 2;
@@ -40,7 +38,7 @@ public class AndroidTouchProcessor {
     PointerDeviceKind.INVERTED_STYLUS,
     PointerDeviceKind.UNKNOWN
   })
-  private @interface PointerDeviceKind {
+  @interface PointerDeviceKind {
     int TOUCH = 0;
     int MOUSE = 1;
     int STYLUS = 2;
@@ -50,23 +48,48 @@ public class AndroidTouchProcessor {
 
   // Must match the PointerSignalKind enum in pointer.dart.
   @IntDef({PointerSignalKind.NONE, PointerSignalKind.SCROLL, PointerSignalKind.UNKNOWN})
-  private @interface PointerSignalKind {
+  @interface PointerSignalKind {
     int NONE = 0;
     int SCROLL = 1;
     int UNKNOWN = 2;
   }
 
-  // Must match the unpacking code in hooks.dart.
-  private static final int POINTER_DATA_FIELD_COUNT = 28;
-  private static final int BYTES_PER_FIELD = 8;
+  /**
+   * Policies with which {@link AndroidTouchProcessor} may coalesce the pointer data of several
+   * {@link MotionEvent}s before sending it to Flutter, see {@link
+   * #setPointerCoalescingPolicy(int)}.
+   */
+  @IntDef({
+    PointerCoalescingPolicy.NONE,
+    PointerCoalescingPolicy.BATCH_MOVES,
+    PointerCoalescingPolicy.LATEST_MOVE
+  })
+  public @interface PointerCoalescingPolicy {
+    /** Every {@link MotionEvent} is sent to Flutter as soon as it is received. */
+    int NONE = 0;
+    /**
+     * Moves that are received within a frame are sent to Flutter together, in a single packet, at
+     * the next frame or with the next event that is not a move, whichever comes first.
+     */
+    int BATCH_MOVES = 1;
+    /**
+     * Like {@link #BATCH_MOVES}, but only the most recent move of each pointer that is received
+     * within a frame is sent to Flutter. This limits the rate of moves to one per pointer and
+     * frame.
+     */
+    int LATEST_MOVE = 2;
+  }
 
   // This value must match the value in framework's platform_view.dart.
   // This flag indicates whether the original Android pointer events were batched together.
   private static final int POINTER_DATA_FLAG_BATCHED = 1;
 
-  @NonNull private final FlutterRenderer renderer;
+  // Reused for every event to avoid allocating a direct ByteBuffer per MotionEvent.
+  @NonNull private final PointerDataPacket packet = new PointerDataPacket();
+
+  @NonNull private final PointerDataCoalescer coalescer;
 
-  private static final int _POINTER_BUTTON_PRIMARY = 1;
+  private boolean forwardsHistoricalSamples = false;
 
   /**
    * Constructs an {@code AndroidTouchProcessor} that will send touch event data to the Flutter
@@ -75,19 +98,85 @@ public class AndroidTouchProcessor {
   // TODO(mattcarroll): consider moving packet behavior to a FlutterInteractionSurface instead of
   // FlutterRenderer
   public AndroidTouchProcessor(@NonNull FlutterRenderer renderer) {
-    this.renderer = renderer;
+    this.coalescer = new PointerDataCoalescer(renderer);
+  }
+
+  /**
+   * Sets whether the historical samples that Android batches into each {@link
+   * MotionEvent#ACTION_MOVE} are sent to Flutter.
+   *
+   * <p>Android delivers at most one {@link MotionEvent#ACTION_MOVE} per frame, and coalesces all
+   * samples that arrived since the previous one into its history. By default only the most recent
+   * sample is sent to Flutter. Apps that need every sample of a high-rate input device, like a
+   * drawing app with a stylus, can enable this to also receive the historical samples. They are
+   * sent in the same packet as the current sample, oldest first, and marked as batched so that
+   * platform views can reassemble the original Android event.
+   *
+   * <p>Disabled by default.
+   */
+  public void setForwardsHistoricalSamples(boolean forwardsHistoricalSamples) {
+    this.forwardsHistoricalSamples = forwardsHistoricalSamples;
+  }
+
+  /**
+   * Returns whether historical {@link MotionEvent} samples are sent to Flutter, see {@link
+   * #setForwardsHistoricalSamples(boolean)}.
+   */
+  public boolean getForwardsHistoricalSamples() {
+    return forwardsHistoricalSamples;
+  }
+
+  /**
+   * Sets the {@link PointerCoalescingPolicy} with which pointer data is sent to Flutter.
+   *
+   * <p>Every packet of pointer data that is sent to Flutter crosses from Java into the engine, and
+   * is then processed on the UI thread. Under heavy multi-touch, coalescing the moves of several
+   * {@link MotionEvent}s into a single packet reduces that work, at the cost of delaying moves by
+   * up to one frame. Pointers going down or up are never delayed.
+   *
+   * <p>Defaults to {@link PointerCoalescingPolicy#NONE}. Changing the policy sends all pointer data
+   * that is being held back.
+   */
+  public void setPointerCoalescingPolicy(@PointerCoalescingPolicy int policy) {
+    coalescer.setPolicy(policy);
+  }
+
+  /** Returns the current {@link PointerCoalescingPolicy}. */
+  @PointerCoalescingPolicy
+  public int getPointerCoalescingPolicy() {
+    return coalescer.getPolicy();
+  }
+
+  /** Sends all pointer data that is being held back by the {@link PointerCoalescingPolicy}. */
+  public void flushPendingPointerData() {
+    coalescer.flush();
+  }
+
+  /** Returns the number of {@link MotionEvent}s that have been converted into pointer data. */
+  public long getReceivedEventCount() {
+    return coalescer.getReceivedPacketCount();
+  }
+
+  /**
+   * Returns the number of pointer data packets that have been sent to Flutter. This is less than
+   * {@link #getReceivedEventCount()} when events are coalesced.
+   */
+  public long getDispatchedPacketCount() {
+    return coalescer.getDispatchedPacketCount();
   }
 
   /** Sends the given {@link MotionEvent} data to Flutter in a format that Flutter understands. */
   public boolean onTouchEvent(@NonNull MotionEvent event) {
     int pointerCount = event.getPointerCount();
+    int maskedAction = event.getActionMasked();
+    int historySize =
+        forwardsHistoricalSamples && maskedAction == MotionEvent.ACTION_MOVE
+            ? event.getHistorySize()
+            : 0;
 
-    // Prepare a data packet of the appropriate size and order.
-    ByteBuffer packet =
-        ByteBuffer.allocateDirect(pointerCount * POINTER_DATA_FIELD_COUNT * BYTES_PER_FIELD);
-    packet.order(ByteOrder.LITTLE_ENDIAN);
+    // Prepare the reusable data packet for this event's pointers.
+    packet.reset(pointerCount * (historySize + 1));
 
-    int maskedAction = event.getActionMasked();
     int pointerChange = getPointerChangeForAction(event.getActionMasked());
     boolean updateForSinglePointer =
         maskedAction == MotionEvent.ACTION_DOWN || maskedAction == MotionEvent.ACTION_POINTER_DOWN;
@@ -97,7 +186,7 @@ public class AndroidTouchProcessor {
                 || maskedAction == MotionEvent.ACTION_POINTER_UP);
     if (updateForSinglePointer) {
       // ACTION_DOWN and ACTION_POINTER_DOWN always apply to a single pointer only.
-      addPointerForIndex(event, event.getActionIndex(), pointerChange, 0, packet);
+      packet.addPointer(event, event.getActionIndex(), pointerChange, 0);
     } else if (updateForMultiplePointers) {
       // ACTION_UP and ACTION_POINTER_UP may contain position updates for other pointers.
       // We are converting these updates to move events here in order to preserve this data.
@@ -105,28 +194,33 @@ public class AndroidTouchProcessor {
       // the original Android event later, should it need to forward it to a PlatformView.
       for (int p = 0; p < pointerCount; p++) {
         if (p != event.getActionIndex() && event.getToolType(p) == MotionEvent.TOOL_TYPE_FINGER) {
-          addPointerForIndex(event, p, PointerChange.MOVE, POINTER_DATA_FLAG_BATCHED, packet);
+          packet.addPointer(event, p, PointerChange.MOVE, POINTER_DATA_FLAG_BATCHED);
         }
       }
       // It's important that we're sending the UP event last. This allows PlatformView
       // to correctly batch everything back into the original Android event if needed.
-      addPointerForIndex(event, event.getActionIndex(), pointerChange, 0, packet);
+      packet.addPointer(event, event.getActionIndex(), pointerChange, 0);
     } else {
       // ACTION_MOVE may not actually mean all pointers have moved
       // but it's the responsibility of a later part of the system to
       // ignore 0-deltas if desired.
+      for (int h = 0; h < historySize; h++) {
+        for (int p = 0; p < pointerCount; p++) {
+          packet.addHistoricalPointer(event, p, h, pointerChange, POINTER_DATA_FLAG_BATCHED);
+        }
+      }
       for (int p = 0; p < pointerCount; p++) {
-        addPointerForIndex(event, p, pointerChange, 0, packet);
+        packet.addPointer(event, p, pointerChange, 0);
       }
     }
 
     // Verify that the packet is the expected size.
-    if (packet.position() % (POINTER_DATA_FIELD_COUNT * BYTES_PER_FIELD) != 0) {
+    if (packet.getPosition() % PointerDataPacket.BYTES_PER_POINTER != 0) {
       throw new AssertionError("Packet position is not on field boundary");
     }
 
     // Send the packet to Flutter.
-    renderer.dispatchPointerDataPacket(packet, packet.position());
+    coalescer.dispatch(packet, maskedAction == MotionEvent.ACTION_MOVE);
 
     return true;
   }
@@ -152,120 +246,17 @@ public class AndroidTouchProcessor {
     }
 
     int pointerChange = getPointerChangeForAction(event.getActionMasked());
-    ByteBuffer packet =
-        ByteBuffer.allocateDirect(
-            event.getPointerCount() * POINTER_DATA_FIELD_COUNT * BYTES_PER_FIELD);
-    packet.order(ByteOrder.LITTLE_ENDIAN);
+    packet.reset(event.getPointerCount());
 
     // ACTION_HOVER_MOVE always applies to a single pointer only.
-    addPointerForIndex(event, event.getActionIndex(), pointerChange, 0, packet);
-    if (packet.position() % (POINTER_DATA_FIELD_COUNT * BYTES_PER_FIELD) != 0) {
+    packet.addPointer(event, event.getActionIndex(), pointerChange, 0);
+    if (packet.getPosition() % PointerDataPacket.BYTES_PER_POINTER != 0) {
       throw new AssertionError("Packet position is not on field boundary.");
     }
-    renderer.dispatchPointerDataPacket(packet, packet.position());
+    coalescer.dispatch(packet, event.getActionMasked() == MotionEvent.ACTION_HOVER_MOVE);
     return true;
   }
 
-  // TODO(mattcarroll): consider creating a PointerPacket class instead of using a procedure that
-  // mutates inputs.
-  private void addPointerForIndex(
-      MotionEvent event, int pointerIndex, int pointerChange, int pointerData, ByteBuffer packet) {
-    if (pointerChange == -1) {
-      return;
-    }
-
-    int pointerKind = getPointerDeviceTypeForToolType(event.getToolType(pointerIndex));
-
-    int signalKind =
-        event.getActionMasked() == MotionEvent.ACTION_SCROLL
-            ? PointerSignalKind.SCROLL
-            : PointerSignalKind.NONE;
-
-    long timeStamp = event.getEventTime() * 1000; // Convert from milliseconds to microseconds.
-
-    packet.putLong(timeStamp); // time_stamp
-    packet.putLong(pointerChange); // change
-    packet.putLong(pointerKind); // kind
-    packet.putLong(signalKind); // signal_kind
-    packet.putLong(event.getPointerId(pointerIndex)); // device
-    packet.putLong(0); // pointer_identifier, will be generated in pointer_data_packet_converter.cc.
-    packet.putDouble(event.getX(pointerIndex)); // physical_x
-    packet.putDouble(event.getY(pointerIndex)); // physical_y
-    packet.putDouble(
-        0.0); // physical_delta_x, will be generated in pointer_data_packet_converter.cc.
-    packet.putDouble(
-        0.0); // physical_delta_y, will be generated in pointer_data_packet_converter.cc.
-
-    long buttons;
-    if (pointerKind == PointerDeviceKind.MOUSE) {
-      buttons = event.getButtonState() & 0x1F;
-      // TODO(dkwingsmt): Remove this fix after implementing touchpad gestures
-      // https://github.com/flutter/flutter/issues/23604#issuecomment-524471152
-      if (buttons == 0
-          && event.getSource() == InputDevice.SOURCE_MOUSE
-          && (pointerChange == PointerChange.DOWN || pointerChange == PointerChange.MOVE)) {
-        buttons = _POINTER_BUTTON_PRIMARY;
-      }
-    } else if (pointerKind == PointerDeviceKind.STYLUS) {
-      buttons = (event.getButtonState() >> 4) & 0xF;
-    } else {
-      buttons = 0;
-    }
-    packet.putLong(buttons); // buttons
-
-    packet.putLong(0); // obscured
-
-    packet.putLong(0); // synthesized
-
-    packet.putDouble(event.getPressure(pointerIndex)); // pressure
-    double pressureMin = 0.0;
-    double pressureMax = 1.0;
-    if (event.getDevice() != null) {
-      InputDevice.MotionRange pressureRange =
-          event.getDevice().getMotionRange(MotionEvent.AXIS_PRESSURE);
-      if (pressureRange != null) {
-        pressureMin = pressureRange.getMin();
-        pressureMax = pressureRange.getMax();
-      }
-    }
-    packet.putDouble(pressureMin); // pressure_min
-    packet.putDouble(pressureMax); // pressure_max
-
-    if (pointerKind == PointerDeviceKind.STYLUS) {
-      packet.putDouble(event.getAxisValue(MotionEvent.AXIS_DISTANCE, pointerIndex)); // distance
-      packet.putDouble(0.0); // distance_max
-    } else {
-      packet.putDouble(0.0); // distance
-      packet.putDouble(0.0); // distance_max
-    }
-
-    packet.putDouble(event.getSize(pointerIndex)); // size
-
-    packet.putDouble(event.getToolMajor(pointerIndex)); // radius_major
-    packet.putDouble(event.getToolMinor(pointerIndex)); // radius_minor
-
-    packet.putDouble(0.0); // radius_min
-    packet.putDouble(0.0); // radius_max
-
-    packet.putDouble(event.getAxisValue(MotionEvent.AXIS_ORIENTATION, pointerIndex)); // orientation
-
-    if (pointerKind == PointerDeviceKind.STYLUS) {
-      packet.putDouble(event.getAxisValue(MotionEvent.AXIS_TILT, pointerIndex)); // tilt
-    } else {
-      packet.putDouble(0.0); // tilt
-    }
-
-    packet.putLong(pointerData); // platformData
-
-    if (signalKind == PointerSignalKind.SCROLL) {
-      packet.putDouble(-event.getAxisValue(MotionEvent.AXIS_HSCROLL)); // scroll_delta_x
-      packet.putDouble(-event.getAxisValue(MotionEvent.AXIS_VSCROLL)); // scroll_delta_y
-    } else {
-      packet.putDouble(0.0); // scroll_delta_x
-      packet.putDouble(0.0); // scroll_delta_x
-    }
-  }
-
   @PointerChange
   private int getPointerChangeForAction(int maskedAction) {
     // Primary pointer:
@@ -297,21 +288,4 @@ public class AndroidTouchProcessor {
     }
     return -1;
   }
-
-  @PointerDeviceKind
-  private int getPointerDeviceTypeForToolType(int toolType) {
-    switch (toolType) {
-      case MotionEvent.TOOL_TYPE_FINGER:
-        return PointerDeviceKind.TOUCH;
-      case MotionEvent.TOOL_TYPE_STYLUS:
-        return PointerDeviceKind.STYLUS;
-      case MotionEvent.TOOL_TYPE_MOUSE:
-        return PointerDeviceKind.MOUSE;
-      case MotionEvent.TOOL_TYPE_ERASER:
-        return PointerDeviceKind.INVERTED_STYLUS;
-      default:
-        // MotionEvent.TOOL_TYPE_UNKNOWN will reach here.
-        return PointerDeviceKind.UNKNOWN;
-    }
-  }
 }
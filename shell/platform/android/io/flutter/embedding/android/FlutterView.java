@@ -94,6 +94,12 @@ public class FlutterView extends FrameLayout {
   @Nullable private TextInputPlugin textInputPlugin;
   @Nullable private AndroidKeyProcessor androidKeyProcessor;
   @Nullable private AndroidTouchProcessor androidTouchProcessor;
+  // Applied to every AndroidTouchProcessor, which is created anew for each attached FlutterEngine.
+  private boolean forwardsHistoricalSamples = false;
+
+  @AndroidTouchProcessor.PointerCoalescingPolicy
+  private int pointerCoalescingPolicy = AndroidTouchProcessor.PointerCoalescingPolicy.NONE;
+
   @Nullable private AccessibilityBridge accessibilityBridge;
 
   // Directly implemented View behavior that communicates with Flutter.
@@ -359,16 +365,18 @@ public class FlutterView extends FrameLayout {
   @Override
   protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
     super.onSizeChanged(width, height, oldWidth, oldHeight);
-    Log.v(
-        TAG,
-        "Size changed. Sending Flutter new viewport metrics. FlutterView was "
-            + oldWidth
-            + " x "
-            + oldHeight
-            + ", it is now "
-            + width
-            + " x "
-            + height);
+    if (Log.isLoggable(android.util.Log.VERBOSE)) {
+      Log.v(
+          TAG,
+          "Size changed. Sending Flutter new viewport metrics. FlutterView was "
+              + oldWidth
+              + " x "
+              + oldHeight
+              + ", it is now "
+              + width
+              + " x "
+              + height);
+    }
     viewportMetrics.width = width;
     viewportMetrics.height = height;
     sendViewportMetricsToFlutter();
@@ -415,30 +423,32 @@ public class FlutterView extends FrameLayout {
       viewportMetrics.systemGestureInsetLeft = systemGestureInsets.left;
     }
 
-    Log.v(
-        TAG,
-        "Updating window insets (onApplyWindowInsets()):\n"
-            + "Status bar insets: Top: "
-            + viewportMetrics.paddingTop
-            + ", Left: "
-            + viewportMetrics.paddingLeft
-            + ", Right: "
-            + viewportMetrics.paddingRight
-            + "\n"
-            + "Keyboard insets: Bottom: "
-            + viewportMetrics.viewInsetBottom
-            + ", Left: "
-            + viewportMetrics.viewInsetLeft
-            + ", Right: "
-            + viewportMetrics.viewInsetRight
-            + "System Gesture Insets - Left: "
-            + viewportMetrics.systemGestureInsetLeft
-            + ", Top: "
-            + viewportMetrics.systemGestureInsetTop
-            + ", Right: "
-            + viewportMetrics.systemGestureInsetRight
-            + ", Bottom: "
-            + viewportMetrics.viewInsetBottom);
+    if (Log.isLoggable(android.util.Log.VERBOSE)) {
+      Log.v(
+          TAG,
+          "Updating window insets (onApplyWindowInsets()):\n"
+              + "Status bar insets: Top: "
+              + viewportMetrics.paddingTop
+              + ", Left: "
+              + viewportMetrics.paddingLeft
+              + ", Right: "
+              + viewportMetrics.paddingRight
+              + "\n"
+              + "Keyboard insets: Bottom: "
+              + viewportMetrics.viewInsetBottom
+              + ", Left: "
+              + viewportMetrics.viewInsetLeft
+              + ", Right: "
+              + viewportMetrics.viewInsetRight
+              + "System Gesture Insets - Left: "
+              + viewportMetrics.systemGestureInsetLeft
+              + ", Top: "
+              + viewportMetrics.systemGestureInsetTop
+              + ", Right: "
+              + viewportMetrics.systemGestureInsetRight
+              + ", Bottom: "
+              + viewportMetrics.viewInsetBottom);
+    }
 
     sendViewportMetricsToFlutter();
 
@@ -468,22 +478,24 @@ public class FlutterView extends FrameLayout {
       viewportMetrics.viewInsetBottom = insets.bottom;
       viewportMetrics.viewInsetLeft = 0;
 
-      Log.v(
-          TAG,
-          "Updating window insets (fitSystemWindows()):\n"
-              + "Status bar insets: Top: "
-              + viewportMetrics.paddingTop
-              + ", Left: "
-              + viewportMetrics.paddingLeft
-              + ", Right: "
-              + viewportMetrics.paddingRight
-              + "\n"
-              + "Keyboard insets: Bottom: "
-              + viewportMetrics.viewInsetBottom
-              + ", Left: "
-              + viewportMetrics.viewInsetLeft
-              + ", Right: "
-              + viewportMetrics.viewInsetRight);
+      if (Log.isLoggable(android.util.Log.VERBOSE)) {
+        Log.v(
+            TAG,
+            "Updating window insets (fitSystemWindows()):\n"
+                + "Status bar insets: Top: "
+                + viewportMetrics.paddingTop
+                + ", Left: "
+                + viewportMetrics.paddingLeft
+                + ", Right: "
+                + viewportMetrics.paddingRight
+                + "\n"
+                + "Keyboard insets: Bottom: "
+                + viewportMetrics.viewInsetBottom
+                + ", Left: "
+                + viewportMetrics.viewInsetLeft
+                + ", Right: "
+                + viewportMetrics.viewInsetRight);
+      }
 
       sendViewportMetricsToFlutter();
       return true;
@@ -574,6 +586,66 @@ public class FlutterView extends FrameLayout {
     return super.onKeyDown(keyCode, event);
   }
 
+  /**
+   * Sets whether the historical samples that Android batches into each {@link
+   * MotionEvent#ACTION_MOVE} are sent to Flutter, see {@link
+   * AndroidTouchProcessor#setForwardsHistoricalSamples(boolean)}.
+   *
+   * <p>Disabled by default. The setting is kept across attachments to {@link FlutterEngine}s.
+   */
+  public void setForwardsHistoricalSamples(boolean forwardsHistoricalSamples) {
+    this.forwardsHistoricalSamples = forwardsHistoricalSamples;
+    if (androidTouchProcessor != null) {
+      androidTouchProcessor.setForwardsHistoricalSamples(forwardsHistoricalSamples);
+    }
+  }
+
+  /**
+   * Returns whether historical {@link MotionEvent} samples are sent to Flutter, see {@link
+   * #setForwardsHistoricalSamples(boolean)}.
+   */
+  public boolean getForwardsHistoricalSamples() {
+    return forwardsHistoricalSamples;
+  }
+
+  /**
+   * Sets the {@link AndroidTouchProcessor.PointerCoalescingPolicy} with which pointer data is sent
+   * to Flutter, see {@link AndroidTouchProcessor#setPointerCoalescingPolicy(int)}.
+   *
+   * <p>Defaults to {@link AndroidTouchProcessor.PointerCoalescingPolicy#NONE}. The setting is kept
+   * across attachments to {@link FlutterEngine}s.
+   */
+  public void setPointerCoalescingPolicy(
+      @AndroidTouchProcessor.PointerCoalescingPolicy int pointerCoalescingPolicy) {
+    this.pointerCoalescingPolicy = pointerCoalescingPolicy;
+    if (androidTouchProcessor != null) {
+      androidTouchProcessor.setPointerCoalescingPolicy(pointerCoalescingPolicy);
+    }
+  }
+
+  /** Returns the current {@link AndroidTouchProcessor.PointerCoalescingPolicy}. */
+  @AndroidTouchProcessor.PointerCoalescingPolicy
+  public int getPointerCoalescingPolicy() {
+    return pointerCoalescingPolicy;
+  }
+
+  /**
+   * Returns the number of {@link MotionEvent}s that were sent to Flutter since this {@code
+   * FlutterView} was last attached to a {@link FlutterEngine}.
+   */
+  public long getReceivedPointerEventCount() {
+    return androidTouchProcessor == null ? 0 : androidTouchProcessor.getReceivedEventCount();
+  }
+
+  /**
+   * Returns the number of pointer data packets that were sent to Flutter since this {@code
+   * FlutterView} was last attached to a {@link FlutterEngine}. This is less than {@link
+   * #getReceivedPointerEventCount()} when events are coalesced.
+   */
+  public long getDispatchedPointerPacketCount() {
+    return androidTouchProcessor == null ? 0 : androidTouchProcessor.getDispatchedPacketCount();
+  }
+
   /**
    * Invoked by Android when a user touch event occurs.
    *
@@ -709,6 +781,8 @@ public class FlutterView extends FrameLayout {
     androidKeyProcessor =
         new AndroidKeyProcessor(this.flutterEngine.getKeyEventChannel(), textInputPlugin);
     androidTouchProcessor = new AndroidTouchProcessor(this.flutterEngine.getRenderer());
+    androidTouchProcessor.setForwardsHistoricalSamples(forwardsHistoricalSamples);
+    androidTouchProcessor.setPointerCoalescingPolicy(pointerCoalescingPolicy);
     accessibilityBridge =
         new AccessibilityBridge(
             this,
@@ -788,6 +862,9 @@ public class FlutterView extends FrameLayout {
     textInputPlugin.getInputMethodManager().restartInput(this);
     textInputPlugin.destroy();
 
+    // Deliver any pointer data that is still waiting for the next frame.
+    androidTouchProcessor.flushPendingPointerData();
+
     // Instruct our FlutterRenderer that we are no longer interested in being its RenderSurface.
     FlutterRenderer flutterRenderer = flutterEngine.getRenderer();
     isFlutterUiDisplayed = false;
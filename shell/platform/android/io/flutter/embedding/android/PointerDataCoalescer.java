@@ -0,0 +1,139 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.android;
+
+import android.view.Choreographer;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import io.flutter.embedding.engine.renderer.FlutterRenderer;
+
+/**
+ * Stage of {@link AndroidTouchProcessor}'s input pipeline that sits between the encoding of a
+ * {@link PointerDataPacket} and {@link FlutterRenderer#dispatchPointerDataPacket(
+ * java.nio.ByteBuffer, int)}, which crosses into the engine.
+ *
+ * <p>With {@link AndroidTouchProcessor.PointerCoalescingPolicy#NONE}, every packet is dispatched as
+ * soon as it is received. With any other policy, packets that only move pointers are held back
+ * until the next frame callback of the {@link Choreographer}, and everything that was held back is
+ * dispatched to the engine as a single packet. Packets that change the set of pointers, like a down
+ * or an up, are never held back: they are appended to the pending packet, which is then dispatched
+ * immediately, so the order of pointer records and the boundaries between gestures are preserved.
+ *
+ * <p>Android delivers input at the start of a frame, before the frame's animation callbacks, so
+ * moves that are held back are usually dispatched during the same frame in which they were
+ * received.
+ *
+ * <p>All methods must be called on the main thread.
+ */
+final class PointerDataCoalescer {
+  @NonNull private final FlutterRenderer renderer;
+  @NonNull private final PointerDataPacket pendingPacket = new PointerDataPacket();
+
+  @NonNull
+  private final Choreographer.FrameCallback frameCallback =
+      new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+          isFrameCallbackScheduled = false;
+          flush();
+        }
+      };
+
+  @Nullable private Choreographer choreographer;
+  @AndroidTouchProcessor.PointerCoalescingPolicy private int policy;
+  private boolean isFrameCallbackScheduled = false;
+  private long receivedPacketCount = 0;
+  private long dispatchedPacketCount = 0;
+
+  PointerDataCoalescer(@NonNull FlutterRenderer renderer) {
+    this.renderer = renderer;
+    this.policy = AndroidTouchProcessor.PointerCoalescingPolicy.NONE;
+    pendingPacket.reset(0);
+  }
+
+  /** Sets the policy with which packets are coalesced, dispatching all pending pointer data. */
+  void setPolicy(@AndroidTouchProcessor.PointerCoalescingPolicy int policy) {
+    flush();
+    this.policy = policy;
+  }
+
+  @AndroidTouchProcessor.PointerCoalescingPolicy
+  int getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Hands the contents of {@code packet} to this coalescer.
+   *
+   * <p>{@code packet} is copied or dispatched before this method returns, so the caller may reuse
+   * it afterwards.
+   *
+   * @param packet the pointer data of a single {@link android.view.MotionEvent}.
+   * @param isMoveOnly whether {@code packet} only moves pointers that are already known to Flutter,
+   *     and may therefore be coalesced with the moves of later events.
+   */
+  void dispatch(@NonNull PointerDataPacket packet, boolean isMoveOnly) {
+    receivedPacketCount++;
+    if (policy == AndroidTouchProcessor.PointerCoalescingPolicy.NONE) {
+      dispatchToRenderer(packet);
+      return;
+    }
+
+    if (isMoveOnly && policy == AndroidTouchProcessor.PointerCoalescingPolicy.LATEST_MOVE) {
+      // The pending packet only ever holds moves. A move reports the current position of the
+      // pointers it describes, so it supersedes the pending moves of the same pointers. Moves of
+      // other pointers, like the hovering of a mouse during a touch, are kept.
+      pendingPacket.removeSupersededPointers(packet);
+    }
+    pendingPacket.append(packet);
+
+    if (isMoveOnly) {
+      scheduleFlush();
+    } else {
+      flush();
+    }
+  }
+
+  /** Dispatches all pending pointer data to the engine. */
+  void flush() {
+    if (pendingPacket.getPointerCount() == 0) {
+      return;
+    }
+    dispatchToRenderer(pendingPacket);
+    pendingPacket.reset(0);
+  }
+
+  /** Returns the number of packets that were handed to {@link #dispatch}. */
+  long getReceivedPacketCount() {
+    return receivedPacketCount;
+  }
+
+  /** Returns the number of packets that were dispatched to the engine. */
+  long getDispatchedPacketCount() {
+    return dispatchedPacketCount;
+  }
+
+  private void dispatchToRenderer(@NonNull PointerDataPacket packet) {
+    dispatchedPacketCount++;
+    renderer.dispatchPointerDataPacket(packet.getBuffer(), packet.getPosition());
+  }
+
+  private void scheduleFlush() {
+    if (isFrameCallbackScheduled) {
+      return;
+    }
+    if (choreographer == null) {
+      choreographer = Choreographer.getInstance();
+    }
+    isFrameCallbackScheduled = true;
+    choreographer.postFrameCallback(frameCallback);
+  }
+
+  @VisibleForTesting
+  boolean isFlushScheduled() {
+    return isFrameCallbackScheduled;
+  }
+}
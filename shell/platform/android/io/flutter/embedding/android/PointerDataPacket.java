@@ -0,0 +1,344 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.android;
+
+import android.view.InputDevice;
+import android.view.MotionEvent;
+import androidx.annotation.NonNull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reusable builder of pointer data packets, the binary format in which {@link
+ * AndroidTouchProcessor} hands pointer events to Flutter's engine.
+ *
+ * <p>A packet is a sequence of pointer records of {@link #POINTER_DATA_FIELD_COUNT} 8-byte fields
+ * each, laid out to match the unpacking code in hooks.dart. The packet owns a single direct {@link
+ * ByteBuffer} that is reused for every event and only reallocated when an event carries more
+ * pointers than any event before it. This is safe because the engine copies the packet before
+ * {@link io.flutter.embedding.engine.FlutterJNI#dispatchPointerDataPacket(ByteBuffer, int)}
+ * returns.
+ *
+ * <p>Typical usage is to {@link #reset(int)} the packet for an incoming {@link MotionEvent}, {@link
+ * #addPointer(MotionEvent, int, int, int)} once per pointer record, and then dispatch {@link
+ * #getBuffer()} up to {@link #getPosition()}.
+ */
+final class PointerDataPacket {
+  // Must match the unpacking code in hooks.dart.
+  static final int POINTER_DATA_FIELD_COUNT = 28;
+  static final int BYTES_PER_FIELD = 8;
+  static final int BYTES_PER_POINTER = POINTER_DATA_FIELD_COUNT * BYTES_PER_FIELD;
+
+  // Byte offsets of the fields that identify which pointer a record describes, and how.
+  private static final int CHANGE_OFFSET = 1 * BYTES_PER_FIELD;
+  private static final int KIND_OFFSET = 2 * BYTES_PER_FIELD;
+  private static final int DEVICE_OFFSET = 4 * BYTES_PER_FIELD;
+
+  private static final int POINTER_BUTTON_PRIMARY = 1;
+
+  // History position that refers to the current sample of a MotionEvent, rather than a historical
+  // one.
+  private static final int CURRENT_SAMPLE = -1;
+
+  @NonNull private ByteBuffer buffer;
+
+  PointerDataPacket() {
+    this(1);
+  }
+
+  PointerDataPacket(int initialPointerCapacity) {
+    buffer = allocate(initialPointerCapacity);
+  }
+
+  /**
+   * Clears this packet and makes sure that it can hold at least {@code pointerCount} pointer
+   * records.
+   */
+  void reset(int pointerCount) {
+    ensureCapacity(pointerCount);
+    buffer.clear();
+  }
+
+  /**
+   * Makes sure that at least {@code additionalPointerCount} more pointer records fit into this
+   * packet, without losing the records that were already added.
+   */
+  void ensureAdditionalCapacity(int additionalPointerCount) {
+    final int requiredPointerCount = getPointerCount() + additionalPointerCount;
+    if (requiredPointerCount * BYTES_PER_POINTER > buffer.capacity()) {
+      final ByteBuffer oldBuffer = buffer;
+      buffer = allocate(Math.max(requiredPointerCount, getPointerCapacity() * 2));
+      oldBuffer.flip();
+      buffer.put(oldBuffer);
+    }
+  }
+
+  /** Appends all pointer records of {@code other} to this packet. */
+  void append(@NonNull PointerDataPacket other) {
+    ensureAdditionalCapacity(other.getPointerCount());
+    final ByteBuffer otherData = other.buffer.duplicate();
+    otherData.flip();
+    buffer.put(otherData);
+  }
+
+  /**
+   * Removes the pointer records that {@code other} supersedes from this packet, which are those
+   * with the same change, device kind and device as a record of {@code other}. The remaining
+   * records keep their order.
+   */
+  void removeSupersededPointers(@NonNull PointerDataPacket other) {
+    final int pointerCount = getPointerCount();
+    int keptCount = 0;
+    for (int i = 0; i < pointerCount; i++) {
+      final int offset = i * BYTES_PER_POINTER;
+      if (other.containsPointer(
+          buffer.getLong(offset + CHANGE_OFFSET),
+          buffer.getLong(offset + KIND_OFFSET),
+          buffer.getLong(offset + DEVICE_OFFSET))) {
+        continue;
+      }
+      if (keptCount != i) {
+        final int keptOffset = keptCount * BYTES_PER_POINTER;
+        for (int field = 0; field < BYTES_PER_POINTER; field += BYTES_PER_FIELD) {
+          buffer.putLong(keptOffset + field, buffer.getLong(offset + field));
+        }
+      }
+      keptCount++;
+    }
+    buffer.position(keptCount * BYTES_PER_POINTER);
+  }
+
+  /** Returns the buffer that backs this packet, positioned at the end of the packet's data. */
+  @NonNull
+  ByteBuffer getBuffer() {
+    return buffer;
+  }
+
+  /** Returns the number of bytes of pointer data in this packet. */
+  int getPosition() {
+    return buffer.position();
+  }
+
+  /** Returns the number of pointer records in this packet. */
+  int getPointerCount() {
+    return buffer.position() / BYTES_PER_POINTER;
+  }
+
+  /** Returns the number of pointer records that fit into this packet without reallocating. */
+  int getPointerCapacity() {
+    return buffer.capacity() / BYTES_PER_POINTER;
+  }
+
+  /**
+   * Appends a pointer record that describes the pointer at {@code pointerIndex} of the given {@code
+   * event}.
+   *
+   * <p>Does nothing if {@code pointerChange} is -1, which {@link AndroidTouchProcessor} uses for
+   * actions that have no Flutter equivalent.
+   */
+  void addPointer(
+      @NonNull MotionEvent event,
+      int pointerIndex,
+      @AndroidTouchProcessor.PointerChange int pointerChange,
+      int pointerData) {
+    addPointer(event, pointerIndex, CURRENT_SAMPLE, pointerChange, pointerData);
+  }
+
+  /**
+   * Appends a pointer record that describes the historical sample {@code historyPos} of the pointer
+   * at {@code pointerIndex} of the given {@code event}.
+   *
+   * <p>Android batches samples that arrive between frames into a single {@link
+   * MotionEvent#ACTION_MOVE}, see {@link MotionEvent#getHistorySize()}. Historical samples are
+   * ordered from oldest to newest, and all of them are older than the event's current sample.
+   */
+  void addHistoricalPointer(
+      @NonNull MotionEvent event,
+      int pointerIndex,
+      int historyPos,
+      @AndroidTouchProcessor.PointerChange int pointerChange,
+      int pointerData) {
+    addPointer(event, pointerIndex, historyPos, pointerChange, pointerData);
+  }
+
+  private void addPointer(
+      @NonNull MotionEvent event,
+      int pointerIndex,
+      int historyPos,
+      @AndroidTouchProcessor.PointerChange int pointerChange,
+      int pointerData) {
+    if (pointerChange == -1) {
+      return;
+    }
+    ensureAdditionalCapacity(1);
+
+    final boolean isCurrent = historyPos == CURRENT_SAMPLE;
+
+    int pointerKind = getPointerDeviceTypeForToolType(event.getToolType(pointerIndex));
+
+    int signalKind =
+        event.getActionMasked() == MotionEvent.ACTION_SCROLL
+            ? AndroidTouchProcessor.PointerSignalKind.SCROLL
+            : AndroidTouchProcessor.PointerSignalKind.NONE;
+
+    long eventTime = isCurrent ? event.getEventTime() : event.getHistoricalEventTime(historyPos);
+    long timeStamp = eventTime * 1000; // Convert from milliseconds to microseconds.
+
+    buffer.putLong(timeStamp); // time_stamp
+    buffer.putLong(pointerChange); // change
+    buffer.putLong(pointerKind); // kind
+    buffer.putLong(signalKind); // signal_kind
+    buffer.putLong(event.getPointerId(pointerIndex)); // device
+    buffer.putLong(0); // pointer_identifier, will be generated in pointer_data_packet_converter.cc.
+    buffer.putDouble(
+        isCurrent
+            ? event.getX(pointerIndex)
+            : event.getHistoricalX(pointerIndex, historyPos)); // physical_x
+    buffer.putDouble(
+        isCurrent
+            ? event.getY(pointerIndex)
+            : event.getHistoricalY(pointerIndex, historyPos)); // physical_y
+    buffer.putDouble(
+        0.0); // physical_delta_x, will be generated in pointer_data_packet_converter.cc.
+    buffer.putDouble(
+        0.0); // physical_delta_y, will be generated in pointer_data_packet_converter.cc.
+
+    long buttons;
+    if (pointerKind == AndroidTouchProcessor.PointerDeviceKind.MOUSE) {
+      buttons = event.getButtonState() & 0x1F;
+      // TODO(dkwingsmt): Remove this fix after implementing touchpad gestures
+      // https://github.com/flutter/flutter/issues/23604#issuecomment-524471152
+      if (buttons == 0
+          && event.getSource() == InputDevice.SOURCE_MOUSE
+          && (pointerChange == AndroidTouchProcessor.PointerChange.DOWN
+              || pointerChange == AndroidTouchProcessor.PointerChange.MOVE)) {
+        buttons = POINTER_BUTTON_PRIMARY;
+      }
+    } else if (pointerKind == AndroidTouchProcessor.PointerDeviceKind.STYLUS) {
+      buttons = (event.getButtonState() >> 4) & 0xF;
+    } else {
+      buttons = 0;
+    }
+    buffer.putLong(buttons); // buttons
+
+    buffer.putLong(0); // obscured
+
+    buffer.putLong(0); // synthesized
+
+    buffer.putDouble(
+        isCurrent
+            ? event.getPressure(pointerIndex)
+            : event.getHistoricalPressure(pointerIndex, historyPos)); // pressure
+    double pressureMin = 0.0;
+    double pressureMax = 1.0;
+    if (event.getDevice() != null) {
+      InputDevice.MotionRange pressureRange =
+          event.getDevice().getMotionRange(MotionEvent.AXIS_PRESSURE);
+      if (pressureRange != null) {
+        pressureMin = pressureRange.getMin();
+        pressureMax = pressureRange.getMax();
+      }
+    }
+    buffer.putDouble(pressureMin); // pressure_min
+    buffer.putDouble(pressureMax); // pressure_max
+
+    if (pointerKind == AndroidTouchProcessor.PointerDeviceKind.STYLUS) {
+      buffer.putDouble(
+          getAxisValue(event, MotionEvent.AXIS_DISTANCE, pointerIndex, historyPos)); // distance
+      buffer.putDouble(0.0); // distance_max
+    } else {
+      buffer.putDouble(0.0); // distance
+      buffer.putDouble(0.0); // distance_max
+    }
+
+    buffer.putDouble(
+        isCurrent
+            ? event.getSize(pointerIndex)
+            : event.getHistoricalSize(pointerIndex, historyPos)); // size
+
+    buffer.putDouble(
+        isCurrent
+            ? event.getToolMajor(pointerIndex)
+            : event.getHistoricalToolMajor(pointerIndex, historyPos)); // radius_major
+    buffer.putDouble(
+        isCurrent
+            ? event.getToolMinor(pointerIndex)
+            : event.getHistoricalToolMinor(pointerIndex, historyPos)); // radius_minor
+
+    buffer.putDouble(0.0); // radius_min
+    buffer.putDouble(0.0); // radius_max
+
+    buffer.putDouble(
+        getAxisValue(
+            event, MotionEvent.AXIS_ORIENTATION, pointerIndex, historyPos)); // orientation
+
+    if (pointerKind == AndroidTouchProcessor.PointerDeviceKind.STYLUS) {
+      buffer.putDouble(
+          getAxisValue(event, MotionEvent.AXIS_TILT, pointerIndex, historyPos)); // tilt
+    } else {
+      buffer.putDouble(0.0); // tilt
+    }
+
+    buffer.putLong(pointerData); // platformData
+
+    if (signalKind == AndroidTouchProcessor.PointerSignalKind.SCROLL) {
+      buffer.putDouble(-event.getAxisValue(MotionEvent.AXIS_HSCROLL)); // scroll_delta_x
+      buffer.putDouble(-event.getAxisValue(MotionEvent.AXIS_VSCROLL)); // scroll_delta_y
+    } else {
+      buffer.putDouble(0.0); // scroll_delta_x
+      buffer.putDouble(0.0); // scroll_delta_x
+    }
+  }
+
+  private boolean containsPointer(long change, long kind, long device) {
+    final int pointerCount = getPointerCount();
+    for (int i = 0; i < pointerCount; i++) {
+      final int offset = i * BYTES_PER_POINTER;
+      if (buffer.getLong(offset + CHANGE_OFFSET) == change
+          && buffer.getLong(offset + KIND_OFFSET) == kind
+          && buffer.getLong(offset + DEVICE_OFFSET) == device) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void ensureCapacity(int pointerCount) {
+    if (pointerCount * BYTES_PER_POINTER > buffer.capacity()) {
+      buffer = allocate(Math.max(pointerCount, getPointerCapacity() * 2));
+    }
+  }
+
+  @NonNull
+  private static ByteBuffer allocate(int pointerCount) {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(pointerCount * BYTES_PER_POINTER);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    return buffer;
+  }
+
+  private static float getAxisValue(
+      @NonNull MotionEvent event, int axis, int pointerIndex, int historyPos) {
+    return historyPos == CURRENT_SAMPLE
+        ? event.getAxisValue(axis, pointerIndex)
+        : event.getHistoricalAxisValue(axis, pointerIndex, historyPos);
+  }
+
+  @AndroidTouchProcessor.PointerDeviceKind
+  private static int getPointerDeviceTypeForToolType(int toolType) {
+    switch (toolType) {
+      case MotionEvent.TOOL_TYPE_FINGER:
+        return AndroidTouchProcessor.PointerDeviceKind.TOUCH;
+      case MotionEvent.TOOL_TYPE_STYLUS:
+        return AndroidTouchProcessor.PointerDeviceKind.STYLUS;
+      case MotionEvent.TOOL_TYPE_MOUSE:
+        return AndroidTouchProcessor.PointerDeviceKind.MOUSE;
+      case MotionEvent.TOOL_TYPE_ERASER:
+        return AndroidTouchProcessor.PointerDeviceKind.INVERTED_STYLUS;
+      default:
+        // MotionEvent.TOOL_TYPE_UNKNOWN will reach here.
+        return AndroidTouchProcessor.PointerDeviceKind.UNKNOWN;
+    }
+  }
+}
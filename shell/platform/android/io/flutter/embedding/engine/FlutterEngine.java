@@ -16,6 +16,7 @@ import io.flutter.embedding.engine.plugins.broadcastreceiver.BroadcastReceiverCo
 import io.flutter.embedding.engine.plugins.contentprovider.ContentProviderControlSurface;
 import io.flutter.embedding.engine.plugins.service.ServiceControlSurface;
 import io.flutter.embedding.engine.renderer.FlutterRenderer;
+import io.flutter.embedding.engine.renderer.FlutterUiDisplayListener;
 import io.flutter.embedding.engine.renderer.RenderSurface;
 import io.flutter.embedding.engine.systemchannels.AccessibilityChannel;
 import io.flutter.embedding.engine.systemchannels.KeyEventChannel;
@@ -67,6 +68,9 @@ import java.util.Set;
 public class FlutterEngine {
   private static final String TAG = "FlutterEngine";
 
+  // GeneratedPluginRegistrant.registerWith(), see findPluginRegistrationMethod().
+  @Nullable private static volatile Method pluginRegistrationMethod;
+
   @NonNull private final FlutterJNI flutterJNI;
   @NonNull private final FlutterRenderer renderer;
   @NonNull private final DartExecutor dartExecutor;
@@ -86,6 +90,28 @@ public class FlutterEngine {
   // Platform Views.
   @NonNull private final PlatformViewsController platformViewsController;
 
+  // Startup tracing.
+  @NonNull private final StartupTrace startupTrace = new StartupTrace();
+
+  @NonNull
+  private final FlutterUiDisplayListener firstFrameListener =
+      new FlutterUiDisplayListener() {
+        private boolean isFirstFrameRecorded = false;
+
+        @Override
+        public void onFlutterUiDisplayed() {
+          StartupTrace.Phase dartEntrypoint = startupTrace.getPhase(StartupTrace.DART_ENTRYPOINT);
+          if (isFirstFrameRecorded || dartEntrypoint == null) {
+            return;
+          }
+          isFirstFrameRecorded = true;
+          startupTrace.recordPhase(StartupTrace.FIRST_FRAME, dartEntrypoint.getStartMillis());
+        }
+
+        @Override
+        public void onFlutterUiNoLongerDisplayed() {}
+      };
+
   // Engine Lifecycle.
   @NonNull private final Set<EngineLifecycleListener> engineLifecycleListeners = new HashSet<>();
 
@@ -200,20 +226,27 @@ public class FlutterEngine {
       @NonNull PlatformViewsController platformViewsController,
       @Nullable String[] dartVmArgs,
       boolean automaticallyRegisterPlugins) {
+    startupTrace.beginPhase(StartupTrace.ENGINE_CONSTRUCTION);
     this.flutterJNI = flutterJNI;
+    startupTrace.beginPhase(StartupTrace.FLUTTER_LOADER);
     flutterLoader.startInitialization(context.getApplicationContext());
     flutterLoader.ensureInitializationComplete(context, dartVmArgs);
+    startupTrace.endPhase(StartupTrace.FLUTTER_LOADER);
 
     flutterJNI.addEngineLifecycleListener(engineLifecycleListener);
+    startupTrace.beginPhase(StartupTrace.ATTACH_TO_JNI);
     attachToJni();
+    startupTrace.endPhase(StartupTrace.ATTACH_TO_JNI);
 
-    this.dartExecutor = new DartExecutor(flutterJNI, context.getAssets());
+    this.dartExecutor = new DartExecutor(flutterJNI, context.getAssets(), startupTrace);
     this.dartExecutor.onAttachedToJNI();
 
     // TODO(mattcarroll): FlutterRenderer is temporally coupled to attach(). Remove that coupling if
     // possible.
     this.renderer = new FlutterRenderer(flutterJNI);
+    this.renderer.addIsDisplayingFlutterUiListener(firstFrameListener);
 
+    startupTrace.beginPhase(StartupTrace.SYSTEM_CHANNELS);
     accessibilityChannel = new AccessibilityChannel(dartExecutor, flutterJNI);
     keyEventChannel = new KeyEventChannel(dartExecutor);
     lifecycleChannel = new LifecycleChannel(dartExecutor);
@@ -223,16 +256,24 @@ public class FlutterEngine {
     settingsChannel = new SettingsChannel(dartExecutor);
     systemChannel = new SystemChannel(dartExecutor);
     textInputChannel = new TextInputChannel(dartExecutor);
+    startupTrace.endPhase(StartupTrace.SYSTEM_CHANNELS);
 
+    startupTrace.beginPhase(StartupTrace.PLATFORM_VIEWS_CONTROLLER);
     this.platformViewsController = platformViewsController;
     this.platformViewsController.onAttachedToJNI();
+    startupTrace.endPhase(StartupTrace.PLATFORM_VIEWS_CONTROLLER);
 
+    startupTrace.beginPhase(StartupTrace.PLUGIN_REGISTRY);
     this.pluginRegistry =
         new FlutterEnginePluginRegistry(context.getApplicationContext(), this, flutterLoader);
+    startupTrace.endPhase(StartupTrace.PLUGIN_REGISTRY);
 
     if (automaticallyRegisterPlugins) {
+      startupTrace.beginPhase(StartupTrace.PLUGIN_REGISTRATION);
       registerPlugins();
+      startupTrace.endPhase(StartupTrace.PLUGIN_REGISTRATION);
     }
+    startupTrace.endPhase(StartupTrace.ENGINE_CONSTRUCTION);
   }
 
   private void attachToJni() {
@@ -266,10 +307,10 @@ public class FlutterEngine {
    */
   private void registerPlugins() {
     try {
-      Class<?> generatedPluginRegistrant =
-          Class.forName("io.flutter.plugins.GeneratedPluginRegistrant");
-      Method registrationMethod =
-          generatedPluginRegistrant.getDeclaredMethod("registerWith", FlutterEngine.class);
+      Method registrationMethod = findPluginRegistrationMethod();
+      if (registrationMethod == null) {
+        throw new ClassNotFoundException("io.flutter.plugins.GeneratedPluginRegistrant");
+      }
       registrationMethod.invoke(null, this);
     } catch (Exception e) {
       Log.w(
@@ -280,6 +321,30 @@ public class FlutterEngine {
     }
   }
 
+  /**
+   * Returns the {@code registerWith} method of the app's GeneratedPluginRegistrant, or null if it
+   * cannot be found.
+   *
+   * <p>The reflective lookup is done once per process, and may be done ahead of time on any thread,
+   * see {@link FlutterEngineBuilder}.
+   */
+  @Nullable
+  /* package */ static Method findPluginRegistrationMethod() {
+    Method registrationMethod = pluginRegistrationMethod;
+    if (registrationMethod == null) {
+      try {
+        Class<?> generatedPluginRegistrant =
+            Class.forName("io.flutter.plugins.GeneratedPluginRegistrant");
+        registrationMethod =
+            generatedPluginRegistrant.getDeclaredMethod("registerWith", FlutterEngine.class);
+        pluginRegistrationMethod = registrationMethod;
+      } catch (Exception e) {
+        return null;
+      }
+    }
+    return registrationMethod;
+  }
+
   /**
    * Cleans up all components within this {@code FlutterEngine} and destroys the associated Dart
    * Isolate. All state held by the Dart Isolate, such as the Flutter Elements tree, is lost.
@@ -312,6 +377,15 @@ public class FlutterEngine {
     engineLifecycleListeners.remove(listener);
   }
 
+  /**
+   * The {@link StartupTrace} that records how long each phase of this {@code FlutterEngine}'s
+   * startup took, from its construction until Flutter displayed its first frame.
+   */
+  @NonNull
+  public StartupTrace getStartupTrace() {
+    return startupTrace;
+  }
+
   /**
    * The Dart execution context associated with this {@code FlutterEngine}.
    *
@@ -414,6 +488,14 @@ public class FlutterEngine {
     return platformViewsController;
   }
 
+  /**
+   * Returns true if this {@code FlutterEngine} is currently attached to an Android component, like
+   * an {@code Activity} or a {@code Service}, i.e., if it is in use.
+   */
+  /* package */ boolean isAttachedToComponent() {
+    return pluginRegistry.isAttachedToComponent();
+  }
+
   @NonNull
   public ActivityControlSurface getActivityControlSurface() {
     return pluginRegistry;
@@ -0,0 +1,259 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.engine;
+
+import android.content.Context;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import io.flutter.Log;
+import io.flutter.embedding.engine.loader.FlutterLoader;
+import io.flutter.embedding.engine.systemchannels.AccessibilityChannel;
+import io.flutter.embedding.engine.systemchannels.KeyEventChannel;
+import io.flutter.embedding.engine.systemchannels.LifecycleChannel;
+import io.flutter.embedding.engine.systemchannels.LocalizationChannel;
+import io.flutter.embedding.engine.systemchannels.NavigationChannel;
+import io.flutter.embedding.engine.systemchannels.PlatformChannel;
+import io.flutter.embedding.engine.systemchannels.SettingsChannel;
+import io.flutter.embedding.engine.systemchannels.SystemChannel;
+import io.flutter.embedding.engine.systemchannels.TextInputChannel;
+import io.flutter.plugin.common.JSONMessageCodec;
+import io.flutter.plugin.common.JSONMethodCodec;
+import io.flutter.plugin.common.StandardMessageCodec;
+import io.flutter.plugin.common.StandardMethodCodec;
+import io.flutter.plugin.common.StringCodec;
+import io.flutter.plugin.platform.PlatformViewsController;
+import java.util.concurrent.Executor;
+
+/**
+ * Builds a {@link FlutterEngine} without blocking the main thread for the time it takes the Flutter
+ * loader to finish, and delivers it to a {@link Callback} on the main thread.
+ *
+ * <p>Constructing a {@link FlutterEngine} directly blocks the main thread until the Flutter native
+ * library is loaded and the app's resources are extracted, and then loads and initializes the
+ * classes of every system channel, codec and plugin. During app launch, that is time in which the
+ * first {@code Activity} frame cannot be drawn. {@link #build(Callback)} instead:
+ *
+ * <ol>
+ *   <li>waits for the {@link FlutterLoader} on a background thread,
+ *   <li>concurrently, loads and initializes the classes that the engine's construction needs, and
+ *       looks up the app's {@code GeneratedPluginRegistrant}, on a background thread,
+ *   <li>once both are done, constructs the {@link FlutterEngine} in a single message on the main
+ *       thread and hands it to the {@link Callback}.
+ * </ol>
+ *
+ * <p>Attaching to the native engine and registering channel handlers remain on the main thread: the
+ * native shell adopts the {@link Looper} of the thread that attaches to it as its platform thread,
+ * and channel handlers are confined to the main thread. What remains on the main thread is
+ * therefore the inherent cost of creating the shell, not waiting or class loading.
+ *
+ * <p>{@link #build(Callback)} must be called on the main thread. A {@code FlutterEngineBuilder} can
+ * be used to build any number of engines.
+ */
+public class FlutterEngineBuilder {
+  private static final String TAG = "FlutterEngineBuilder";
+
+  /** Creates the {@link FlutterJNI} of each built {@link FlutterEngine}. */
+  @VisibleForTesting
+  /* package */ interface FlutterJNIFactory {
+    @NonNull
+    FlutterJNI createFlutterJNI();
+  }
+
+  /** Receives the {@link FlutterEngine} that was built by {@link #build(Callback)}. */
+  public interface Callback {
+    /** Invoked on the main thread once {@code flutterEngine} is constructed. */
+    void onFlutterEngineBuilt(@NonNull FlutterEngine flutterEngine);
+  }
+
+  @NonNull private final Context applicationContext;
+  @NonNull private final Executor backgroundExecutor;
+  @NonNull private final FlutterJNIFactory flutterJNIFactory;
+  @NonNull private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  @NonNull private FlutterLoader flutterLoader = FlutterLoader.getInstance();
+  @Nullable private String[] dartVmArgs;
+  private boolean automaticallyRegisterPlugins = true;
+
+  /** Creates a builder for {@link FlutterEngine}s that run in the given {@code context}. */
+  public FlutterEngineBuilder(@NonNull Context context) {
+    this(
+        context,
+        AsyncTask.THREAD_POOL_EXECUTOR,
+        new FlutterJNIFactory() {
+          @NonNull
+          @Override
+          public FlutterJNI createFlutterJNI() {
+            return new FlutterJNI();
+          }
+        });
+  }
+
+  @VisibleForTesting
+  /* package */ FlutterEngineBuilder(
+      @NonNull Context context,
+      @NonNull Executor backgroundExecutor,
+      @NonNull FlutterJNIFactory flutterJNIFactory) {
+    this.applicationContext = context.getApplicationContext();
+    this.backgroundExecutor = backgroundExecutor;
+    this.flutterJNIFactory = flutterJNIFactory;
+  }
+
+  /**
+   * Sets the {@link FlutterLoader} that initializes Flutter, {@link FlutterLoader#getInstance()} by
+   * default.
+   */
+  @NonNull
+  public FlutterEngineBuilder setFlutterLoader(@NonNull FlutterLoader flutterLoader) {
+    this.flutterLoader = flutterLoader;
+    return this;
+  }
+
+  /**
+   * Sets the Dart VM arguments, see {@link FlutterEngine#FlutterEngine(Context, String[])}.
+   *
+   * <p>If the Dart VM has already started, the given arguments will have no effect.
+   */
+  @NonNull
+  public FlutterEngineBuilder setDartVmArgs(@Nullable String[] dartVmArgs) {
+    this.dartVmArgs = dartVmArgs;
+    return this;
+  }
+
+  /**
+   * Sets whether the app's plugins are registered with the built {@link FlutterEngine}, {@code
+   * true} by default.
+   */
+  @NonNull
+  public FlutterEngineBuilder setAutomaticallyRegisterPlugins(
+      boolean automaticallyRegisterPlugins) {
+    this.automaticallyRegisterPlugins = automaticallyRegisterPlugins;
+    return this;
+  }
+
+  /**
+   * Starts building a {@link FlutterEngine}, and returns immediately.
+   *
+   * <p>{@code callback} is invoked on the main thread once the engine is ready. Errors that prevent
+   * the engine from being constructed are thrown on the main thread, as they would be by the
+   * {@link FlutterEngine} constructor.
+   */
+  public void build(@NonNull Callback callback) {
+    if (Looper.myLooper() != Looper.getMainLooper()) {
+      throw new IllegalStateException("build must be called on the main thread");
+    }
+    final PendingBuild build =
+        new PendingBuild(
+            flutterLoader,
+            dartVmArgs == null ? null : dartVmArgs.clone(),
+            automaticallyRegisterPlugins,
+            callback);
+
+    // Returns quickly, the loader does its work on background threads.
+    flutterLoader.startInitialization(applicationContext);
+    flutterLoader.ensureInitializationCompleteAsync(
+        applicationContext,
+        build.dartVmArgs,
+        mainHandler,
+        new Runnable() {
+          @Override
+          public void run() {
+            build.onStepComplete();
+          }
+        });
+    backgroundExecutor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            preloadEngineClasses(build.automaticallyRegisterPlugins);
+            mainHandler.post(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    build.onStepComplete();
+                  }
+                });
+          }
+        });
+  }
+
+  /**
+   * Loads and initializes the classes that {@link FlutterEngine}'s constructor needs, so that the
+   * main thread does not have to.
+   */
+  private static void preloadEngineClasses(boolean includePluginRegistrant) {
+    final long startMillis = SystemClock.uptimeMillis();
+    Class<?>[] classes = {
+      FlutterEnginePluginRegistry.class,
+      PlatformViewsController.class,
+      AccessibilityChannel.class,
+      KeyEventChannel.class,
+      LifecycleChannel.class,
+      LocalizationChannel.class,
+      NavigationChannel.class,
+      PlatformChannel.class,
+      SettingsChannel.class,
+      SystemChannel.class,
+      TextInputChannel.class,
+      JSONMessageCodec.class,
+      JSONMethodCodec.class,
+      StandardMessageCodec.class,
+      StandardMethodCodec.class,
+      StringCodec.class
+    };
+    ClassLoader classLoader = FlutterEngineBuilder.class.getClassLoader();
+    for (Class<?> cls : classes) {
+      try {
+        Class.forName(cls.getName(), true, classLoader);
+      } catch (ClassNotFoundException e) {
+        // Cannot happen for classes that are referenced above.
+      }
+    }
+    if (includePluginRegistrant) {
+      FlutterEngine.findPluginRegistrationMethod();
+    }
+    long elapsedMillis = SystemClock.uptimeMillis() - startMillis;
+    Log.v(TAG, "Preloaded engine classes in " + elapsedMillis + "ms.");
+  }
+
+  /** The state of a single {@link #build(Callback)} invocation. Only accessed on the main thread. */
+  private final class PendingBuild {
+    @NonNull private final FlutterLoader flutterLoader;
+    @Nullable private final String[] dartVmArgs;
+    private final boolean automaticallyRegisterPlugins;
+    @NonNull private final Callback callback;
+    // Waiting for the FlutterLoader, and for preloadEngineClasses().
+    private int pendingStepCount = 2;
+
+    PendingBuild(
+        @NonNull FlutterLoader flutterLoader,
+        @Nullable String[] dartVmArgs,
+        boolean automaticallyRegisterPlugins,
+        @NonNull Callback callback) {
+      this.flutterLoader = flutterLoader;
+      this.dartVmArgs = dartVmArgs;
+      this.automaticallyRegisterPlugins = automaticallyRegisterPlugins;
+      this.callback = callback;
+    }
+
+    void onStepComplete() {
+      pendingStepCount--;
+      if (pendingStepCount > 0) {
+        return;
+      }
+      FlutterEngine flutterEngine =
+          new FlutterEngine(
+              applicationContext,
+              flutterLoader,
+              flutterJNIFactory.createFlutterJNI(),
+              dartVmArgs,
+              automaticallyRegisterPlugins);
+      callback.onFlutterEngineBuilt(flutterEngine);
+    }
+  }
+}
@@ -7,7 +7,10 @@ package io.flutter.embedding.engine;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,6 +24,10 @@ import java.util.Map;
  * internally when instructed to use a cached {@link FlutterEngine} based on a given ID. See {@link
  * io.flutter.embedding.android.FlutterActivity.CachedEngineIntentBuilder} and {@link
  * io.flutter.embedding.android.FlutterFragment#withCachedEngine(String)} for related APIs.
+ *
+ * <p>The cache keeps track of how often {@link #get(String)} found a {@link FlutterEngine}, and of
+ * the order in which its {@link FlutterEngine}s were last used. {@link FlutterEnginePool} uses both
+ * to pre-warm engines and to evict the least recently used ones under memory pressure.
  */
 public class FlutterEngineCache {
   private static FlutterEngineCache instance;
@@ -38,7 +45,13 @@ public class FlutterEngineCache {
     return instance;
   }
 
-  private final Map<String, FlutterEngine> cachedEngines = new HashMap<>();
+  // Iterates from the least recently to the most recently accessed engine.
+  private final Map<String, FlutterEngine> cachedEngines =
+      new LinkedHashMap<>(16, 0.75f, /*accessOrder=*/ true);
+  // The same engines as cachedEngines, for lookups that must not count as an access.
+  private final Map<String, FlutterEngine> enginesById = new HashMap<>();
+  private long hitCount = 0;
+  private long missCount = 0;
 
   @VisibleForTesting
   /* package */ FlutterEngineCache() {}
@@ -48,7 +61,7 @@ public class FlutterEngineCache {
    * {@code engineId}.
    */
   public boolean contains(@NonNull String engineId) {
-    return cachedEngines.containsKey(engineId);
+    return enginesById.containsKey(engineId);
   }
 
   /**
@@ -57,7 +70,43 @@ public class FlutterEngineCache {
    */
   @Nullable
   public FlutterEngine get(@NonNull String engineId) {
-    return cachedEngines.get(engineId);
+    FlutterEngine engine = cachedEngines.get(engineId);
+    if (engine != null) {
+      hitCount++;
+    } else {
+      missCount++;
+    }
+    return engine;
+  }
+
+  /** Returns the number of calls to {@link #get(String)} that found a {@link FlutterEngine}. */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Returns the number of calls to {@link #get(String)} that did not find a {@link FlutterEngine}.
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Returns the {@link FlutterEngine} associated with the given {@code engineId}, without counting
+   * a hit or a miss, and without marking the {@link FlutterEngine} as recently used.
+   */
+  @Nullable
+  /* package */ FlutterEngine peek(@NonNull String engineId) {
+    return enginesById.get(engineId);
+  }
+
+  /**
+   * Returns the IDs of all {@link FlutterEngine}s in this cache, ordered from the least recently
+   * used to the most recently used.
+   */
+  @NonNull
+  /* package */ List<String> getEngineIdsByLeastRecentUse() {
+    return new ArrayList<>(cachedEngines.keySet());
   }
 
   /**
@@ -70,8 +119,10 @@ public class FlutterEngineCache {
   public void put(@NonNull String engineId, @Nullable FlutterEngine engine) {
     if (engine != null) {
       cachedEngines.put(engineId, engine);
+      enginesById.put(engineId, engine);
     } else {
       cachedEngines.remove(engineId);
+      enginesById.remove(engineId);
     }
   }
 
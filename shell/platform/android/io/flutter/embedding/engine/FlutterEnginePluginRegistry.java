@@ -17,6 +17,7 @@ import androidx.lifecycle.Lifecycle;
 import io.flutter.Log;
 import io.flutter.embedding.engine.loader.FlutterLoader;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
+import io.flutter.embedding.engine.plugins.LazyFlutterPlugin;
 import io.flutter.embedding.engine.plugins.PluginRegistry;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
 import io.flutter.embedding.engine.plugins.activity.ActivityControlSurface;
@@ -48,6 +49,11 @@ class FlutterEnginePluginRegistry
   @NonNull
   private final Map<Class<? extends FlutterPlugin>, FlutterPlugin> plugins = new HashMap<>();
 
+  // Plugins that are registered, but not yet instantiated.
+  @NonNull
+  private final Map<Class<? extends FlutterPlugin>, LazyFlutterPlugin> lazyPlugins =
+      new HashMap<>();
+
   // Standard FlutterPlugin
   @NonNull private final FlutterEngine flutterEngine;
   @NonNull private final FlutterPlugin.FlutterPluginBinding pluginBinding;
@@ -188,18 +194,111 @@ class FlutterEnginePluginRegistry
     }
   }
 
+  @Override
+  public void add(@NonNull final LazyFlutterPlugin lazyPlugin) {
+    final Class<? extends FlutterPlugin> pluginClass = lazyPlugin.getPluginClass();
+    if (has(pluginClass)) {
+      Log.w(
+          TAG,
+          "Attempted to register lazy plugin ("
+              + pluginClass.getName()
+              + ") but it was "
+              + "already registered with this FlutterEngine ("
+              + flutterEngine
+              + ").");
+      return;
+    }
+
+    // A plugin that is aware of the Android component that we are attached to is needed right
+    // away, so there is nothing to be gained from deferring it.
+    if (isAwareOfAttachedComponent(pluginClass)) {
+      add(lazyPlugin.createPlugin());
+      return;
+    }
+
+    Log.v(TAG, "Adding lazy plugin: " + pluginClass.getName());
+    lazyPlugins.put(pluginClass, lazyPlugin);
+    Runnable initializer =
+        new Runnable() {
+          @Override
+          public void run() {
+            instantiateLazyPlugin(pluginClass);
+          }
+        };
+    for (String channel : lazyPlugin.getChannelNames()) {
+      flutterEngine.getDartExecutor().setMessageHandlerInitializer(channel, initializer);
+    }
+  }
+
   @Override
   public boolean has(@NonNull Class<? extends FlutterPlugin> pluginClass) {
-    return plugins.containsKey(pluginClass);
+    return plugins.containsKey(pluginClass) || lazyPlugins.containsKey(pluginClass);
   }
 
   @Override
   public FlutterPlugin get(@NonNull Class<? extends FlutterPlugin> pluginClass) {
+    instantiateLazyPlugin(pluginClass);
     return plugins.get(pluginClass);
   }
 
+  /** Returns true if a plugin of the given type is registered, but not yet instantiated. */
+  boolean isLazyPluginPending(@NonNull Class<? extends FlutterPlugin> pluginClass) {
+    return lazyPlugins.containsKey(pluginClass);
+  }
+
+  /**
+   * Instantiates and attaches the lazy plugin of the given type, if one is registered and was not
+   * instantiated yet.
+   */
+  private void instantiateLazyPlugin(@NonNull Class<? extends FlutterPlugin> pluginClass) {
+    LazyFlutterPlugin lazyPlugin = removeLazyPlugin(pluginClass);
+    if (lazyPlugin != null) {
+      Log.v(TAG, "Instantiating lazy plugin: " + pluginClass.getName());
+      add(lazyPlugin.createPlugin());
+    }
+  }
+
+  /**
+   * Instantiates all lazy plugins whose type implements the given Android component awareness
+   * interface, e.g., {@link ActivityAware}.
+   */
+  private void instantiateLazyPluginsAwareOf(@NonNull Class<?> awareInterface) {
+    if (lazyPlugins.isEmpty()) {
+      return;
+    }
+    for (Class<? extends FlutterPlugin> pluginClass : new HashSet<>(lazyPlugins.keySet())) {
+      if (awareInterface.isAssignableFrom(pluginClass)) {
+        instantiateLazyPlugin(pluginClass);
+      }
+    }
+  }
+
+  @Nullable
+  private LazyFlutterPlugin removeLazyPlugin(@NonNull Class<? extends FlutterPlugin> pluginClass) {
+    LazyFlutterPlugin lazyPlugin = lazyPlugins.remove(pluginClass);
+    if (lazyPlugin != null) {
+      for (String channel : lazyPlugin.getChannelNames()) {
+        flutterEngine.getDartExecutor().setMessageHandlerInitializer(channel, null);
+      }
+    }
+    return lazyPlugin;
+  }
+
+  private boolean isAwareOfAttachedComponent(@NonNull Class<? extends FlutterPlugin> pluginClass) {
+    return (isAttachedToActivity() && ActivityAware.class.isAssignableFrom(pluginClass))
+        || (isAttachedToService() && ServiceAware.class.isAssignableFrom(pluginClass))
+        || (isAttachedToBroadcastReceiver()
+            && BroadcastReceiverAware.class.isAssignableFrom(pluginClass))
+        || (isAttachedToContentProvider()
+            && ContentProviderAware.class.isAssignableFrom(pluginClass));
+  }
+
   @Override
   public void remove(@NonNull Class<? extends FlutterPlugin> pluginClass) {
+    if (removeLazyPlugin(pluginClass) != null) {
+      Log.v(TAG, "Removing lazy plugin: " + pluginClass.getName());
+      return;
+    }
     FlutterPlugin plugin = plugins.get(pluginClass);
     if (plugin != null) {
       Log.v(TAG, "Removing plugin: " + plugin);
@@ -265,6 +364,7 @@ class FlutterEnginePluginRegistry
   public void removeAll() {
     // We copy the keys to a new set so that we can mutate the set while using
     // the keys.
+    remove(new HashSet<>(lazyPlugins.keySet()));
     remove(new HashSet<>(plugins.keySet()));
     plugins.clear();
   }
@@ -281,6 +381,17 @@ class FlutterEnginePluginRegistry
     }
   }
 
+  /**
+   * Returns true if the {@link FlutterEngine} is attached to an {@link Activity}, {@link Service},
+   * {@link BroadcastReceiver}, or {@link ContentProvider}.
+   */
+  boolean isAttachedToComponent() {
+    return isAttachedToActivity()
+        || isAttachedToService()
+        || isAttachedToBroadcastReceiver()
+        || isAttachedToContentProvider();
+  }
+
   // -------- Start ActivityControlSurface -------
   private boolean isAttachedToActivity() {
     return activity != null;
@@ -297,6 +408,10 @@ class FlutterEnginePluginRegistry
     // If we were already attached to an Android component, detach from it.
     detachFromAndroidComponent();
 
+    // Lazy ActivityAware plugins are instantiated now, and then notified along with all other
+    // ActivityAware plugins below.
+    instantiateLazyPluginsAwareOf(ActivityAware.class);
+
     this.activity = activity;
     this.activityPluginBinding = new FlutterEngineActivityPluginBinding(activity, lifecycle);
 
@@ -444,6 +559,7 @@ class FlutterEnginePluginRegistry
     Log.v(TAG, "Attaching to a Service: " + service);
     // If we were already attached to an Android component, detach from it.
     detachFromAndroidComponent();
+    instantiateLazyPluginsAwareOf(ServiceAware.class);
 
     this.service = service;
     this.servicePluginBinding = new FlutterEngineServicePluginBinding(service, lifecycle);
@@ -498,6 +614,7 @@ class FlutterEnginePluginRegistry
     Log.v(TAG, "Attaching to BroadcastReceiver: " + broadcastReceiver);
     // If we were already attached to an Android component, detach from it.
     detachFromAndroidComponent();
+    instantiateLazyPluginsAwareOf(BroadcastReceiverAware.class);
 
     this.broadcastReceiver = broadcastReceiver;
     this.broadcastReceiverPluginBinding =
@@ -540,6 +657,7 @@ class FlutterEnginePluginRegistry
     Log.v(TAG, "Attaching to ContentProvider: " + contentProvider);
     // If we were already attached to an Android component, detach from it.
     detachFromAndroidComponent();
+    instantiateLazyPluginsAwareOf(ContentProviderAware.class);
 
     this.contentProvider = contentProvider;
     this.contentProviderPluginBinding =
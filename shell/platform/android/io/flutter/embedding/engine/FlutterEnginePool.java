@@ -0,0 +1,309 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.engine;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Looper;
+import android.os.MessageQueue;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import io.flutter.Log;
+import io.flutter.embedding.engine.dart.DartExecutor;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Pre-warms {@link FlutterEngine}s into a {@link FlutterEngineCache}, and evicts them again when
+ * the system runs low on memory.
+ *
+ * <p>{@link #prewarm(String, DartExecutor.DartEntrypoint)} schedules the creation of a {@link
+ * FlutterEngine} with the given ID. Engines are created one at a time whenever the main thread is
+ * idle, optionally start executing a Dart entrypoint, and are then placed into the {@link
+ * FlutterEngineCache}. From there, {@link io.flutter.embedding.android.FlutterActivity} and {@link
+ * io.flutter.embedding.android.FlutterFragment} pick them up by ID, like any other cached engine.
+ *
+ * <p>An engine is idle when it is not attached to an Android component, like an {@code Activity}
+ * or a {@code Service}. When the system reports memory pressure through {@link
+ * #onTrimMemory(int)}, the pool destroys idle engines that it created, least recently used first.
+ * The pool never touches engines that it did not create, nor engines that are in use. At most
+ * {@link #getMaxIdleEngines()} idle engines are kept at any time.
+ *
+ * <p>The pool registers itself for memory callbacks with the application context. Call {@link
+ * #destroy()} to unregister it and to destroy all idle engines that it created.
+ *
+ * <p>All methods must be called on the main thread.
+ */
+public class FlutterEnginePool implements ComponentCallbacks2 {
+  private static final String TAG = "FlutterEnginePool";
+
+  /** Creates the {@link FlutterEngine}s of a {@link FlutterEnginePool}. */
+  @VisibleForTesting
+  /* package */ interface EngineFactory {
+    @NonNull
+    FlutterEngine createEngine(@NonNull Context context);
+  }
+
+  @NonNull private final Context applicationContext;
+  @NonNull private final FlutterEngineCache cache;
+  @NonNull private final EngineFactory engineFactory;
+  private final int maxIdleEngines;
+
+  @NonNull private final Queue<PendingEngine> pendingEngines = new ArrayDeque<>();
+  @NonNull private final Set<String> pooledEngineIds = new HashSet<>();
+  private boolean isIdleHandlerRegistered = false;
+  private long createdEngineCount = 0;
+  private long evictedEngineCount = 0;
+  private long trimmedEngineCount = 0;
+  private int lastTrimMemoryLevel = 0;
+
+  @NonNull
+  private final MessageQueue.IdleHandler idleHandler =
+      new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+          PendingEngine pendingEngine = pendingEngines.poll();
+          if (pendingEngine != null) {
+            createEngine(pendingEngine);
+          }
+          isIdleHandlerRegistered = !pendingEngines.isEmpty();
+          return isIdleHandlerRegistered;
+        }
+      };
+
+  /**
+   * Creates a pool that places up to {@code maxIdleEngines} idle {@link FlutterEngine}s into the
+   * {@link FlutterEngineCache} singleton.
+   */
+  public FlutterEnginePool(@NonNull Context context, int maxIdleEngines) {
+    this(
+        context,
+        FlutterEngineCache.getInstance(),
+        new EngineFactory() {
+          @NonNull
+          @Override
+          public FlutterEngine createEngine(@NonNull Context context) {
+            return new FlutterEngine(context);
+          }
+        },
+        maxIdleEngines);
+  }
+
+  @VisibleForTesting
+  /* package */ FlutterEnginePool(
+      @NonNull Context context,
+      @NonNull FlutterEngineCache cache,
+      @NonNull EngineFactory engineFactory,
+      int maxIdleEngines) {
+    this.applicationContext = context.getApplicationContext();
+    this.cache = cache;
+    this.engineFactory = engineFactory;
+    this.maxIdleEngines = maxIdleEngines;
+    applicationContext.registerComponentCallbacks(this);
+  }
+
+  /**
+   * Schedules the creation of a {@link FlutterEngine} that is cached with the given {@code
+   * engineId} once the main thread is idle.
+   *
+   * <p>If {@code dartEntrypoint} is non-null, the new engine starts executing it right away.
+   *
+   * <p>Does nothing if an engine with the given {@code engineId} is already cached or scheduled.
+   */
+  public void prewarm(
+      @NonNull String engineId, @Nullable DartExecutor.DartEntrypoint dartEntrypoint) {
+    if (cache.contains(engineId) || isPending(engineId)) {
+      return;
+    }
+    pendingEngines.add(new PendingEngine(engineId, dartEntrypoint));
+    if (!isIdleHandlerRegistered) {
+      isIdleHandlerRegistered = true;
+      Looper.myQueue().addIdleHandler(idleHandler);
+    }
+  }
+
+  /**
+   * Creates all {@link FlutterEngine}s that were scheduled with {@link #prewarm(String,
+   * DartExecutor.DartEntrypoint)} right away, instead of waiting for the main thread to become
+   * idle.
+   */
+  public void prewarmNow() {
+    if (isIdleHandlerRegistered) {
+      Looper.myQueue().removeIdleHandler(idleHandler);
+      isIdleHandlerRegistered = false;
+    }
+    for (PendingEngine pendingEngine; (pendingEngine = pendingEngines.poll()) != null; ) {
+      createEngine(pendingEngine);
+    }
+  }
+
+  /** Returns the maximum number of idle engines that this pool keeps. */
+  public int getMaxIdleEngines() {
+    return maxIdleEngines;
+  }
+
+  /** Returns the number of engines that this pool created and that are still cached. */
+  public int getEngineCount() {
+    int count = 0;
+    for (String engineId : pooledEngineIds) {
+      if (cache.contains(engineId)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Returns the number of engines that this pool created so far. */
+  public long getCreatedEngineCount() {
+    return createdEngineCount;
+  }
+
+  /**
+   * Returns the number of engines that this pool created, that are still cached, and that are not
+   * attached to an Android component. These engines hold on to memory without being used.
+   */
+  public int getIdleEngineCount() {
+    int count = 0;
+    for (String engineId : pooledEngineIds) {
+      FlutterEngine engine = cache.peek(engineId);
+      if (engine != null && !engine.isAttachedToComponent()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Returns the number of engines that this pool evicted and destroyed so far. */
+  public long getEvictedEngineCount() {
+    return evictedEngineCount;
+  }
+
+  /**
+   * Returns the number of engines that this pool evicted and destroyed because the system reported
+   * memory pressure, see {@link #onTrimMemory(int)} and {@link #onLowMemory()}.
+   */
+  public long getTrimmedEngineCount() {
+    return trimmedEngineCount;
+  }
+
+  /** Returns the level of the most recent {@link #onTrimMemory(int)} call, or 0 if none. */
+  public int getLastTrimMemoryLevel() {
+    return lastTrimMemoryLevel;
+  }
+
+  /**
+   * Returns the number of times that a {@link FlutterEngine} was found in the {@link
+   * FlutterEngineCache}, see {@link FlutterEngineCache#getHitCount()}.
+   */
+  public long getHitCount() {
+    return cache.getHitCount();
+  }
+
+  /**
+   * Returns the number of times that a {@link FlutterEngine} was not found in the {@link
+   * FlutterEngineCache}, see {@link FlutterEngineCache#getMissCount()}.
+   */
+  public long getMissCount() {
+    return cache.getMissCount();
+  }
+
+  /**
+   * Unregisters this pool from memory callbacks, cancels pending pre-warming, and destroys all
+   * idle engines that this pool created.
+   */
+  public void destroy() {
+    applicationContext.unregisterComponentCallbacks(this);
+    if (isIdleHandlerRegistered) {
+      Looper.myQueue().removeIdleHandler(idleHandler);
+      isIdleHandlerRegistered = false;
+    }
+    pendingEngines.clear();
+    evictIdleEngines(0);
+    pooledEngineIds.clear();
+  }
+
+  @Override
+  public void onTrimMemory(int level) {
+    lastTrimMemoryLevel = level;
+    if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+      trimmedEngineCount += evictIdleEngines(0);
+    } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+      trimmedEngineCount += evictIdleEngines(Math.min(1, maxIdleEngines));
+    }
+  }
+
+  @Override
+  public void onLowMemory() {
+    trimmedEngineCount += evictIdleEngines(0);
+  }
+
+  @Override
+  public void onConfigurationChanged(@NonNull Configuration newConfig) {}
+
+  private boolean isPending(@NonNull String engineId) {
+    for (PendingEngine pendingEngine : pendingEngines) {
+      if (pendingEngine.engineId.equals(engineId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void createEngine(@NonNull PendingEngine pendingEngine) {
+    if (cache.contains(pendingEngine.engineId)) {
+      return;
+    }
+    Log.v(TAG, "Pre-warming FlutterEngine '" + pendingEngine.engineId + "'");
+    FlutterEngine engine = engineFactory.createEngine(applicationContext);
+    if (pendingEngine.dartEntrypoint != null) {
+      engine.getDartExecutor().executeDartEntrypoint(pendingEngine.dartEntrypoint);
+    }
+    cache.put(pendingEngine.engineId, engine);
+    pooledEngineIds.add(pendingEngine.engineId);
+    createdEngineCount++;
+    evictIdleEngines(maxIdleEngines);
+  }
+
+  // Destroys the least recently used idle engines of this pool until at most maxIdleEngines idle
+  // engines remain, and returns the number of destroyed engines.
+  private int evictIdleEngines(int maxIdleEngines) {
+    int idleEngineCount = getIdleEngineCount();
+    int evictedCount = 0;
+    for (String engineId : cache.getEngineIdsByLeastRecentUse()) {
+      if (idleEngineCount <= maxIdleEngines) {
+        break;
+      }
+      if (!pooledEngineIds.contains(engineId)) {
+        continue;
+      }
+      FlutterEngine engine = cache.peek(engineId);
+      if (engine == null || engine.isAttachedToComponent()) {
+        continue;
+      }
+      Log.v(TAG, "Evicting idle FlutterEngine '" + engineId + "'");
+      cache.remove(engineId);
+      pooledEngineIds.remove(engineId);
+      engine.destroy();
+      evictedEngineCount++;
+      evictedCount++;
+      idleEngineCount--;
+    }
+    return evictedCount;
+  }
+
+  private static class PendingEngine {
+    @NonNull final String engineId;
+    @Nullable final DartExecutor.DartEntrypoint dartEntrypoint;
+
+    PendingEngine(@NonNull String engineId, @Nullable DartExecutor.DartEntrypoint dartEntrypoint) {
+      this.engineId = engineId;
+      this.dartEntrypoint = dartEntrypoint;
+    }
+  }
+}
@@ -623,17 +623,40 @@ public class FlutterJNI {
   }
 
   // Called by native.
-  // TODO(mattcarroll): determine if message is nonull or nullable
+  // The message is a direct ByteBuffer over native memory that stays valid until
+  // cleanupMessageData() is invoked with the given messageData.
   @SuppressWarnings("unused")
   private void handlePlatformMessage(
-      @NonNull final String channel, byte[] message, final int replyId) {
+      @NonNull final String channel,
+      @Nullable ByteBuffer message,
+      final int replyId,
+      final long messageData) {
     if (platformMessageHandler != null) {
-      platformMessageHandler.handleMessageFromDart(channel, message, replyId);
+      platformMessageHandler.handleMessageFromDart(channel, message, replyId, messageData);
+    } else {
+      cleanupMessageData(messageData);
     }
     // TODO(mattcarroll): log dropped messages when in debug mode
     // (https://github.com/flutter/flutter/issues/25391)
   }
 
+  /**
+   * Releases the native memory behind a message that was passed to {@link
+   * PlatformMessageHandler#handleMessageFromDart(String, ByteBuffer, int, long)}.
+   *
+   * <p>The {@link ByteBuffer} that was handed out with the message must not be accessed after this
+   * method is invoked. Passing a {@code messageData} of zero is a no-op.
+   *
+   * <p>This method may be invoked from any thread.
+   */
+  public void cleanupMessageData(long messageData) {
+    if (messageData != 0) {
+      nativeCleanupMessageData(messageData);
+    }
+  }
+
+  private native void nativeCleanupMessageData(long messageData);
+
   // Called by native to respond to a platform message that we sent.
   // TODO(mattcarroll): determine if reply is nonull or nullable
   @SuppressWarnings("unused")
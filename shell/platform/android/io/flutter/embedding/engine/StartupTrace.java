@@ -0,0 +1,183 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.engine;
+
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.util.TraceSection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records when each phase of a {@link FlutterEngine}'s startup began and ended.
+ *
+ * <p>The phases that the embedding records are named by the constants of this class. Apps may
+ * record phases of their own, for example to measure the startup cost of their own plugins.
+ * Recorded phases can be queried with {@link #getPhase(String)} and {@link #getPhases()}, which
+ * makes it possible to enforce startup time budgets in production and to catch regressions in, for
+ * example, plugin registration.
+ *
+ * <p>Phases recorded with {@link #beginPhase(String)} and {@link #endPhase(String)} are also
+ * emitted as systrace sections, named after the phase with a "Flutter:" prefix.
+ *
+ * <p>All times are in milliseconds of {@link SystemClock#uptimeMillis()}.
+ */
+public final class StartupTrace {
+  /**
+   * Waiting for {@link io.flutter.embedding.engine.loader.FlutterLoader} to initialize. See {@link
+   * io.flutter.embedding.engine.loader.FlutterLoader#getInitializationTimings()} for a breakdown.
+   */
+  public static final String FLUTTER_LOADER = "FlutterLoader";
+  /** The whole of the {@link FlutterEngine} constructor, including all phases below. */
+  public static final String ENGINE_CONSTRUCTION = "FlutterEngine";
+  /** Attaching the {@link FlutterEngine} to its native counterpart. */
+  public static final String ATTACH_TO_JNI = "AttachToJni";
+  /** Creating the {@link io.flutter.embedding.engine.systemchannels system channels}. */
+  public static final String SYSTEM_CHANNELS = "SystemChannels";
+  /** Attaching the {@link io.flutter.plugin.platform.PlatformViewsController}. */
+  public static final String PLATFORM_VIEWS_CONTROLLER = "PlatformViewsController";
+  /** Creating the {@link FlutterEngine}'s plugin registry. */
+  public static final String PLUGIN_REGISTRY = "PluginRegistry";
+  /** Automatically registering plugins with the GeneratedPluginRegistrant. */
+  public static final String PLUGIN_REGISTRATION = "GeneratedPluginRegistrant";
+  /** Handing the Dart entrypoint or callback to the engine. */
+  public static final String DART_ENTRYPOINT = "DartEntrypoint";
+  /** From the start of {@link #DART_ENTRYPOINT} until Flutter displayed its first frame. */
+  public static final String FIRST_FRAME = "FirstFrame";
+
+  private static final String SECTION_PREFIX = "Flutter:";
+
+  @NonNull private final Map<String, Phase> phases = new LinkedHashMap<>();
+
+  /**
+   * Records the start of the phase called {@code name}, and begins a systrace section for it.
+   *
+   * <p>Must be followed by a call to {@link #endPhase(String)} with the same {@code name}, on the
+   * same thread. Phases that are begun within other phases must end before the outer phase.
+   * Beginning a phase that was already recorded replaces the earlier record.
+   */
+  public void beginPhase(@NonNull String name) {
+    synchronized (phases) {
+      phases.remove(name);
+      phases.put(name, new Phase(name, SystemClock.uptimeMillis()));
+    }
+    TraceSection.begin(SECTION_PREFIX + name);
+  }
+
+  /** Records the end of the phase called {@code name}, and ends its systrace section. */
+  public void endPhase(@NonNull String name) {
+    TraceSection.end();
+    synchronized (phases) {
+      final Phase phase = phases.get(name);
+      if (phase != null) {
+        phase.endMillis = SystemClock.uptimeMillis();
+      }
+    }
+  }
+
+  /**
+   * Records that the phase called {@code name} began at {@code startMillis} and ends now.
+   *
+   * <p>Unlike {@link #beginPhase(String)}, this may be used for phases that span several threads
+   * or messages of the main looper. No systrace section is emitted.
+   */
+  public void recordPhase(@NonNull String name, long startMillis) {
+    final Phase phase = new Phase(name, startMillis);
+    phase.endMillis = SystemClock.uptimeMillis();
+    synchronized (phases) {
+      phases.remove(name);
+      phases.put(name, phase);
+    }
+  }
+
+  /** Returns the phase called {@code name}, or null if it has not begun. */
+  @Nullable
+  public Phase getPhase(@NonNull String name) {
+    synchronized (phases) {
+      final Phase phase = phases.get(name);
+      return phase == null ? null : phase.copy();
+    }
+  }
+
+  /** Returns all recorded phases, in the order in which they began. */
+  @NonNull
+  public List<Phase> getPhases() {
+    synchronized (phases) {
+      final List<Phase> result = new ArrayList<>(phases.size());
+      for (Phase phase : phases.values()) {
+        result.add(phase.copy());
+      }
+      return result;
+    }
+  }
+
+  @Override
+  @NonNull
+  public String toString() {
+    final StringBuilder builder = new StringBuilder("StartupTrace{");
+    boolean first = true;
+    for (Phase phase : getPhases()) {
+      if (!first) {
+        builder.append(", ");
+      }
+      first = false;
+      builder.append(phase);
+    }
+    return builder.append('}').toString();
+  }
+
+  /** A phase of startup, see {@link StartupTrace}. */
+  public static final class Phase {
+    @NonNull private final String name;
+    private final long startMillis;
+    private long endMillis = -1;
+
+    Phase(@NonNull String name, long startMillis) {
+      this.name = name;
+      this.startMillis = startMillis;
+    }
+
+    @NonNull
+    public String getName() {
+      return name;
+    }
+
+    /** Returns the time at which this phase began. */
+    public long getStartMillis() {
+      return startMillis;
+    }
+
+    /** Returns the time at which this phase ended, or -1 if it is still running. */
+    public long getEndMillis() {
+      return endMillis;
+    }
+
+    /** Returns whether this phase has ended. */
+    public boolean isComplete() {
+      return endMillis >= 0;
+    }
+
+    /** Returns how long this phase took, or -1 if it is still running. */
+    public long getDurationMillis() {
+      return isComplete() ? endMillis - startMillis : -1;
+    }
+
+    @NonNull
+    private Phase copy() {
+      final Phase copy = new Phase(name, startMillis);
+      copy.endMillis = endMillis;
+      return copy;
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+      return name + "=" + (isComplete() ? getDurationMillis() + "ms" : "running");
+    }
+  }
+}
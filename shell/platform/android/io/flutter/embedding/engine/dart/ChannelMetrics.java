@@ -0,0 +1,198 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.engine.dart;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A snapshot of the traffic on a single channel, as recorded by a {@link DartExecutor} while
+ * channel metrics are enabled, see {@link DartExecutor#setChannelMetricsEnabled(boolean)}.
+ *
+ * <p>Messages are counted in both directions. Byte volumes include the replies that travel in
+ * either direction, so that a channel that receives small requests and answers them with large
+ * replies shows up as one that sends many bytes.
+ */
+public final class ChannelMetrics {
+  @NonNull private final String channel;
+  private final long sentMessageCount;
+  private final long sentBytes;
+  private final long receivedMessageCount;
+  private final long receivedBytes;
+  @NonNull private final Histogram handlerTime;
+  @NonNull private final Histogram replyLatency;
+
+  ChannelMetrics(
+      @NonNull String channel,
+      long sentMessageCount,
+      long sentBytes,
+      long receivedMessageCount,
+      long receivedBytes,
+      @NonNull Histogram handlerTime,
+      @NonNull Histogram replyLatency) {
+    this.channel = channel;
+    this.sentMessageCount = sentMessageCount;
+    this.sentBytes = sentBytes;
+    this.receivedMessageCount = receivedMessageCount;
+    this.receivedBytes = receivedBytes;
+    this.handlerTime = handlerTime;
+    this.replyLatency = replyLatency;
+  }
+
+  /** The name of the channel. */
+  @NonNull
+  public String getChannel() {
+    return channel;
+  }
+
+  /** The number of messages that were sent from Android to Dart. */
+  public long getSentMessageCount() {
+    return sentMessageCount;
+  }
+
+  /** The number of bytes of messages and replies that were sent from Android to Dart. */
+  public long getSentBytes() {
+    return sentBytes;
+  }
+
+  /** The number of messages that were received by Android from Dart. */
+  public long getReceivedMessageCount() {
+    return receivedMessageCount;
+  }
+
+  /** The number of bytes of messages and replies that were received by Android from Dart. */
+  public long getReceivedBytes() {
+    return receivedBytes;
+  }
+
+  /** The time that the channel's handler spent in {@code onMessage} for each received message. */
+  @NonNull
+  public Histogram getHandlerTime() {
+    return handlerTime;
+  }
+
+  /**
+   * The time from sending a message to Dart until its reply was received, for every message that
+   * was sent with a reply callback.
+   */
+  @NonNull
+  public Histogram getReplyLatency() {
+    return replyLatency;
+  }
+
+  @Override
+  @NonNull
+  public String toString() {
+    return channel
+        + ": sent "
+        + sentMessageCount
+        + " messages ("
+        + sentBytes
+        + " bytes), received "
+        + receivedMessageCount
+        + " messages ("
+        + receivedBytes
+        + " bytes), handler time "
+        + handlerTime
+        + ", reply latency "
+        + replyLatency;
+  }
+
+  /**
+   * A histogram of durations with exponentially growing buckets.
+   *
+   * <p>Bucket 0 counts durations below 1 microsecond, and bucket {@code i > 0} counts durations of
+   * at least {@code 2^(i-1)} and less than {@code 2^i} microseconds. The last bucket also counts
+   * all longer durations.
+   */
+  public static final class Histogram {
+    /** The number of buckets of every {@code Histogram}. */
+    public static final int BUCKET_COUNT = 32;
+
+    @NonNull private final long[] bucketCounts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    Histogram(@NonNull long[] bucketCounts, long count, long totalNanos, long maxNanos) {
+      this.bucketCounts = bucketCounts;
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+    }
+
+    /** Returns the index of the bucket that counts a duration of {@code nanos}. */
+    static int bucketFor(long nanos) {
+      final long micros = nanos / 1000;
+      // 0 for micros == 0, and floor(log2(micros)) + 1 otherwise.
+      final int bucket = 64 - Long.numberOfLeadingZeros(micros);
+      return bucket < BUCKET_COUNT ? bucket : BUCKET_COUNT - 1;
+    }
+
+    /** The number of recorded durations. */
+    public long getCount() {
+      return count;
+    }
+
+    /** The sum of all recorded durations, in nanoseconds. */
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    /** The longest recorded duration, in nanoseconds. */
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    /** The mean of all recorded durations, in nanoseconds, or 0 if there are none. */
+    public long getMeanNanos() {
+      return count == 0 ? 0 : totalNanos / count;
+    }
+
+    /** The number of durations that were counted by the bucket at {@code index}. */
+    public long getBucketCount(int index) {
+      return bucketCounts[index];
+    }
+
+    /**
+     * Returns an upper bound of the given {@code percentile} of the recorded durations, in
+     * nanoseconds, or 0 if there are none.
+     *
+     * <p>The bound is the upper end of the bucket that contains the percentile, but never more than
+     * {@link #getMaxNanos()}.
+     *
+     * @param percentile a value between 0 and 100.
+     */
+    public long getPercentileNanos(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      final long rank = (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100);
+      long seen = 0;
+      for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+        seen += bucketCounts[i];
+        if (seen >= rank && seen > 0) {
+          return Math.min((1L << i) * 1000, maxNanos);
+        }
+      }
+      return maxNanos;
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+      return "[count: "
+          + count
+          + ", mean: "
+          + getMeanNanos() / 1000
+          + "us, p50: "
+          + getPercentileNanos(50) / 1000
+          + "us, p99: "
+          + getPercentileNanos(99) / 1000
+          + "us, max: "
+          + maxNanos / 1000
+          + "us]";
+    }
+  }
+}
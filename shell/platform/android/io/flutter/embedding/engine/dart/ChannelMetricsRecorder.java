@@ -0,0 +1,149 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.engine.dart;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugin.common.BinaryMessenger;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accumulates {@link ChannelMetrics} for the channels of a {@link DartMessenger}.
+ *
+ * <p>{@link DartMessenger} only holds a {@code ChannelMetricsRecorder} while metrics are enabled,
+ * so disabled metrics cost a single field read per message. All methods may be called from any
+ * thread. Each channel's numbers are guarded by their own lock, so that channels that are used
+ * from different threads do not contend.
+ */
+final class ChannelMetricsRecorder {
+  @NonNull
+  private final ConcurrentHashMap<String, ChannelRecord> records = new ConcurrentHashMap<>();
+
+  /** Records a message of {@code bytes} bytes sent from Android to Dart. */
+  void onMessageSent(@NonNull String channel, int bytes) {
+    final ChannelRecord record = recordFor(channel);
+    synchronized (record) {
+      record.sentMessageCount++;
+      record.sentBytes += bytes;
+    }
+  }
+
+  /** Records a reply of {@code bytes} bytes sent from Android to Dart. */
+  void onReplySent(@NonNull String channel, int bytes) {
+    final ChannelRecord record = recordFor(channel);
+    synchronized (record) {
+      record.sentBytes += bytes;
+    }
+  }
+
+  /** Records a message of {@code bytes} bytes received by Android from Dart. */
+  void onMessageReceived(@NonNull String channel, int bytes) {
+    final ChannelRecord record = recordFor(channel);
+    synchronized (record) {
+      record.receivedMessageCount++;
+      record.receivedBytes += bytes;
+    }
+  }
+
+  /** Records that a handler of {@code channel} spent {@code nanos} in {@code onMessage}. */
+  void onMessageHandled(@NonNull String channel, long nanos) {
+    final ChannelRecord record = recordFor(channel);
+    synchronized (record) {
+      record.handlerTime.add(nanos);
+    }
+  }
+
+  /**
+   * Returns a {@link BinaryMessenger.BinaryReply} that records the size and latency of the reply to
+   * a message that is sent on {@code channel} now, and then forwards the reply to {@code callback}.
+   */
+  @NonNull
+  BinaryMessenger.BinaryReply timeReply(
+      @NonNull final String channel, @NonNull final BinaryMessenger.BinaryReply callback) {
+    final long sentNanos = System.nanoTime();
+    return new BinaryMessenger.BinaryReply() {
+      @Override
+      public void reply(@Nullable ByteBuffer reply) {
+        final long latencyNanos = System.nanoTime() - sentNanos;
+        final ChannelRecord record = recordFor(channel);
+        synchronized (record) {
+          record.replyLatency.add(latencyNanos);
+          record.receivedBytes += reply == null ? 0 : reply.remaining();
+        }
+        callback.reply(reply);
+      }
+    };
+  }
+
+  /** Returns a snapshot of the metrics of every channel that had traffic, keyed by channel. */
+  @NonNull
+  Map<String, ChannelMetrics> snapshot() {
+    final Map<String, ChannelMetrics> metrics = new HashMap<>();
+    for (Map.Entry<String, ChannelRecord> entry : records.entrySet()) {
+      final ChannelRecord record = entry.getValue();
+      synchronized (record) {
+        metrics.put(
+            entry.getKey(),
+            new ChannelMetrics(
+                entry.getKey(),
+                record.sentMessageCount,
+                record.sentBytes,
+                record.receivedMessageCount,
+                record.receivedBytes,
+                record.handlerTime.snapshot(),
+                record.replyLatency.snapshot()));
+      }
+    }
+    return metrics;
+  }
+
+  @NonNull
+  private ChannelRecord recordFor(@NonNull String channel) {
+    ChannelRecord record = records.get(channel);
+    if (record == null) {
+      final ChannelRecord newRecord = new ChannelRecord();
+      record = records.putIfAbsent(channel, newRecord);
+      if (record == null) {
+        record = newRecord;
+      }
+    }
+    return record;
+  }
+
+  /** The mutable metrics of a single channel. Guarded by the instance's own lock. */
+  private static final class ChannelRecord {
+    long sentMessageCount;
+    long sentBytes;
+    long receivedMessageCount;
+    long receivedBytes;
+    @NonNull final HistogramRecord handlerTime = new HistogramRecord();
+    @NonNull final HistogramRecord replyLatency = new HistogramRecord();
+  }
+
+  /** The mutable counterpart of {@link ChannelMetrics.Histogram}. */
+  private static final class HistogramRecord {
+    @NonNull private final long[] bucketCounts = new long[ChannelMetrics.Histogram.BUCKET_COUNT];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    void add(long nanos) {
+      bucketCounts[ChannelMetrics.Histogram.bucketFor(nanos)]++;
+      count++;
+      totalNanos += nanos;
+      if (nanos > maxNanos) {
+        maxNanos = nanos;
+      }
+    }
+
+    @NonNull
+    ChannelMetrics.Histogram snapshot() {
+      return new ChannelMetrics.Histogram(bucketCounts.clone(), count, totalNanos, maxNanos);
+    }
+  }
+}
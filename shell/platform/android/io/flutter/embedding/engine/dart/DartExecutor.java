@@ -10,11 +10,13 @@ import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
 import io.flutter.Log;
 import io.flutter.embedding.engine.FlutterJNI;
+import io.flutter.embedding.engine.StartupTrace;
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.StringCodec;
 import io.flutter.view.FlutterCallbackInformation;
 import io.flutter.view.FlutterMain;
 import java.nio.ByteBuffer;
+import java.util.Map;
 
 /**
  * Configures, bootstraps, and starts executing Dart code.
@@ -42,6 +44,7 @@ public class DartExecutor implements BinaryMessenger {
   private boolean isApplicationRunning = false;
   @Nullable private String isolateServiceId;
   @Nullable private IsolateServiceIdListener isolateServiceIdListener;
+  @Nullable private final StartupTrace startupTrace;
 
   private final BinaryMessenger.BinaryMessageHandler isolateChannelMessageHandler =
       new BinaryMessenger.BinaryMessageHandler() {
@@ -55,8 +58,20 @@ public class DartExecutor implements BinaryMessenger {
       };
 
   public DartExecutor(@NonNull FlutterJNI flutterJNI, @NonNull AssetManager assetManager) {
+    this(flutterJNI, assetManager, null);
+  }
+
+  /**
+   * Same as {@link #DartExecutor(FlutterJNI, AssetManager)}, but records the execution of Dart code
+   * as the {@link StartupTrace#DART_ENTRYPOINT} phase of the given {@code startupTrace}.
+   */
+  public DartExecutor(
+      @NonNull FlutterJNI flutterJNI,
+      @NonNull AssetManager assetManager,
+      @Nullable StartupTrace startupTrace) {
     this.flutterJNI = flutterJNI;
     this.assetManager = assetManager;
+    this.startupTrace = startupTrace;
     this.dartMessenger = new DartMessenger(flutterJNI);
     dartMessenger.setMessageHandler("flutter/isolate", isolateChannelMessageHandler);
     this.binaryMessenger = new DefaultBinaryMessenger(dartMessenger);
@@ -119,8 +134,16 @@ public class DartExecutor implements BinaryMessenger {
 
     Log.v(TAG, "Executing Dart entrypoint: " + dartEntrypoint);
 
-    flutterJNI.runBundleAndSnapshotFromLibrary(
-        dartEntrypoint.pathToBundle, dartEntrypoint.dartEntrypointFunctionName, null, assetManager);
+    beginStartupPhase();
+    try {
+      flutterJNI.runBundleAndSnapshotFromLibrary(
+          dartEntrypoint.pathToBundle,
+          dartEntrypoint.dartEntrypointFunctionName,
+          null,
+          assetManager);
+    } finally {
+      endStartupPhase();
+    }
 
     isApplicationRunning = true;
   }
@@ -140,15 +163,32 @@ public class DartExecutor implements BinaryMessenger {
 
     Log.v(TAG, "Executing Dart callback: " + dartCallback);
 
-    flutterJNI.runBundleAndSnapshotFromLibrary(
-        dartCallback.pathToBundle,
-        dartCallback.callbackHandle.callbackName,
-        dartCallback.callbackHandle.callbackLibraryPath,
-        dartCallback.androidAssetManager);
+    beginStartupPhase();
+    try {
+      flutterJNI.runBundleAndSnapshotFromLibrary(
+          dartCallback.pathToBundle,
+          dartCallback.callbackHandle.callbackName,
+          dartCallback.callbackHandle.callbackLibraryPath,
+          dartCallback.androidAssetManager);
+    } finally {
+      endStartupPhase();
+    }
 
     isApplicationRunning = true;
   }
 
+  private void beginStartupPhase() {
+    if (startupTrace != null) {
+      startupTrace.beginPhase(StartupTrace.DART_ENTRYPOINT);
+    }
+  }
+
+  private void endStartupPhase() {
+    if (startupTrace != null) {
+      startupTrace.endPhase(StartupTrace.DART_ENTRYPOINT);
+    }
+  }
+
   /**
    * Returns a {@link BinaryMessenger} that can be used to send messages to, and receive messages
    * from, Dart code that this {@code DartExecutor} is executing.
@@ -162,7 +202,6 @@ public class DartExecutor implements BinaryMessenger {
   /** @deprecated Use {@link #getBinaryMessenger()} instead. */
   @Deprecated
   @Override
-  @UiThread
   public void send(@NonNull String channel, @Nullable ByteBuffer message) {
     binaryMessenger.send(channel, message);
   }
@@ -170,7 +209,6 @@ public class DartExecutor implements BinaryMessenger {
   /** @deprecated Use {@link #getBinaryMessenger()} instead. */
   @Deprecated
   @Override
-  @UiThread
   public void send(
       @NonNull String channel,
       @Nullable ByteBuffer message,
@@ -178,6 +216,17 @@ public class DartExecutor implements BinaryMessenger {
     binaryMessenger.send(channel, message, callback);
   }
 
+  /** @deprecated Use {@link #getBinaryMessenger()} instead. */
+  @Deprecated
+  @Override
+  public void send(
+      @NonNull String channel,
+      @Nullable ByteBuffer message,
+      @Nullable BinaryMessenger.BinaryReply callback,
+      long timeoutMillis) {
+    binaryMessenger.send(channel, message, callback, timeoutMillis);
+  }
+
   /** @deprecated Use {@link #getBinaryMessenger()} instead. */
   @Deprecated
   @Override
@@ -186,8 +235,119 @@ public class DartExecutor implements BinaryMessenger {
       @NonNull String channel, @Nullable BinaryMessenger.BinaryMessageHandler handler) {
     binaryMessenger.setMessageHandler(channel, handler);
   }
+
+  /** @deprecated Use {@link #getBinaryMessenger()} instead. */
+  @Deprecated
+  @Override
+  @UiThread
+  @NonNull
+  public BinaryMessenger.TaskQueue makeBackgroundTaskQueue() {
+    return binaryMessenger.makeBackgroundTaskQueue();
+  }
+
+  /** @deprecated Use {@link #getBinaryMessenger()} instead. */
+  @Deprecated
+  @Override
+  @UiThread
+  public void setMessageHandler(
+      @NonNull String channel,
+      @Nullable BinaryMessenger.BinaryMessageHandler handler,
+      @Nullable BinaryMessenger.TaskQueue taskQueue) {
+    binaryMessenger.setMessageHandler(channel, handler, taskQueue);
+  }
   // ------ END BinaryMessenger -----
 
+  /**
+   * Registers an {@code initializer} that is run when a message arrives on {@code channel} while no
+   * handler is registered for that channel.
+   *
+   * <p>The {@code initializer} is run on the main thread, at most once, right before the message
+   * would otherwise be answered with an empty reply. It is expected to register a handler for
+   * {@code channel}, which then receives the message. This allows setting up the handlers of a
+   * channel lazily, when the channel is first used.
+   *
+   * @param channel the name of the channel.
+   * @param initializer a {@link Runnable} that registers a handler for {@code channel}, or null to
+   *     remove a previously registered initializer.
+   */
+  @UiThread
+  public void setMessageHandlerInitializer(
+      @NonNull String channel, @Nullable Runnable initializer) {
+    dartMessenger.setMessageHandlerInitializer(channel, initializer);
+  }
+
+  /**
+   * Enables or disables the recording of per-channel {@link ChannelMetrics}.
+   *
+   * <p>While enabled, every message, reply and handler invocation on every channel is counted and
+   * timed, which makes it possible to find the channels that flood the main thread. Metrics are
+   * disabled by default, in which case recording costs a single field read per message. Disabling
+   * metrics discards everything that was recorded. May be called from any thread.
+   */
+  public void setChannelMetricsEnabled(boolean enabled) {
+    dartMessenger.setChannelMetricsEnabled(enabled);
+  }
+
+  /** Returns whether per-channel {@link ChannelMetrics} are being recorded. */
+  public boolean isChannelMetricsEnabled() {
+    return dartMessenger.isChannelMetricsEnabled();
+  }
+
+  /**
+   * Returns a snapshot of the {@link ChannelMetrics} of every channel that had traffic since
+   * metrics were enabled with {@link #setChannelMetricsEnabled(boolean)}, keyed by channel name.
+   *
+   * <p>Returns an empty map while metrics are disabled. May be called from any thread.
+   */
+  @NonNull
+  public Map<String, ChannelMetrics> getChannelMetrics() {
+    return dartMessenger.getChannelMetrics();
+  }
+
+  /**
+   * Sets a timeout for the replies to messages that are sent on {@code channel}.
+   *
+   * <p>If Dart does not reply to a message on {@code channel} within {@code timeoutMillis}, the
+   * message's reply callback is invoked with a null reply and a warning is logged, so that callers
+   * waiting for the reply are not left hanging and the pending reply is not leaked. Messages that
+   * are sent with an explicit timeout, see {@link BinaryMessenger#send(String, ByteBuffer,
+   * BinaryMessenger.BinaryReply, long)}, use that timeout instead. May be called from any thread.
+   *
+   * @param channel the name of the channel.
+   * @param timeoutMillis the timeout, or 0 to wait for replies on {@code channel} indefinitely.
+   */
+  public void setReplyTimeout(@NonNull String channel, long timeoutMillis) {
+    dartMessenger.setReplyTimeout(channel, timeoutMillis);
+  }
+
+  /**
+   * Limits the number of messages on {@code channel} whose replies may be pending at once.
+   *
+   * <p>Messages that are sent while the limit is reached are held back, and are sent in order as
+   * Dart replies to earlier messages, or as their replies time out. This keeps a producer that
+   * sends faster than Dart can handle from piling up unbounded work in the engine. Messages without
+   * a reply callback do not count towards the limit, but are held back behind earlier messages to
+   * preserve the order of the channel. May be called from any thread.
+   *
+   * @param channel the name of the channel.
+   * @param maxPendingReplies the limit, or 0 to remove the limit and send held back messages.
+   */
+  public void setMaxPendingReplies(@NonNull String channel, int maxPendingReplies) {
+    dartMessenger.setMaxPendingReplies(channel, maxPendingReplies);
+  }
+
+  /**
+   * Returns a human-readable report of the replies that Dart has not yet sent, for debugging.
+   *
+   * <p>The report lists the number of pending replies per channel, along with the number of
+   * messages that are held back by {@link #setMaxPendingReplies(String, int)}, followed by the
+   * {@code maxEntries} messages that have been waiting for a reply the longest.
+   */
+  @NonNull
+  public String getPendingReplyDiagnostics(int maxEntries) {
+    return dartMessenger.getPendingReplyDiagnostics(maxEntries);
+  }
+
   /**
    * Returns the number of pending channel callback replies.
    *
@@ -195,14 +355,12 @@ public class DartExecutor implements BinaryMessenger {
    * ByteBuffer, io.flutter.plugin.common.BinaryMessenger.BinaryReply)}, developers can optionally
    * specify a reply callback if they expect a reply from the Flutter application.
    *
-   * <p>This method tracks all the pending callbacks that are waiting for response, and is supposed
-   * to be called from the main thread (as other methods). Calling from a different thread could
-   * possibly capture an indeterministic internal state, so don't do it.
+   * <p>This method tracks all the pending callbacks that are waiting for response. It may be
+   * called from any thread.
    *
    * <p>Currently, it's mainly useful for a testing framework like Espresso to determine whether all
    * the async channel callbacks are handled and the app is idle.
    */
-  @UiThread
   public int getPendingChannelResponseCount() {
     return dartMessenger.getPendingChannelResponseCount();
   }
@@ -334,7 +492,6 @@ public class DartExecutor implements BinaryMessenger {
      *     bytes
      */
     @Override
-    @UiThread
     public void send(@NonNull String channel, @Nullable ByteBuffer message) {
       messenger.send(channel, message, null);
     }
@@ -349,7 +506,6 @@ public class DartExecutor implements BinaryMessenger {
      * @param callback a callback invoked when the Dart application responds to the message
      */
     @Override
-    @UiThread
     public void send(
         @NonNull String channel,
         @Nullable ByteBuffer message,
@@ -357,6 +513,26 @@ public class DartExecutor implements BinaryMessenger {
       messenger.send(channel, message, callback);
     }
 
+    /**
+     * Sends the given {@code messages} from Android to Dart over the given {@code channel} and then
+     * has the provided {@code callback} invoked when the Dart side responds, or with a null reply
+     * once {@code timeoutMillis} have passed without a response.
+     *
+     * @param channel the name of the logical channel used for the message.
+     * @param message the message payload, a direct-allocated {@link ByteBuffer} with the message
+     *     bytes between position zero and current position, or null.
+     * @param callback a callback invoked when the Dart application responds to the message
+     * @param timeoutMillis the time to wait for the response, or 0 to wait without a timeout.
+     */
+    @Override
+    public void send(
+        @NonNull String channel,
+        @Nullable ByteBuffer message,
+        @Nullable BinaryMessenger.BinaryReply callback,
+        long timeoutMillis) {
+      messenger.send(channel, message, callback, timeoutMillis);
+    }
+
     /**
      * Sets the given {@link io.flutter.plugin.common.BinaryMessenger.BinaryMessageHandler} as the
      * singular handler for all incoming messages received from the Dart side of this Dart execution
@@ -371,5 +547,35 @@ public class DartExecutor implements BinaryMessenger {
         @NonNull String channel, @Nullable BinaryMessenger.BinaryMessageHandler handler) {
       messenger.setMessageHandler(channel, handler);
     }
+
+    /**
+     * Creates a {@link BinaryMessenger.TaskQueue} whose handlers run serially on a background
+     * thread.
+     */
+    @Override
+    @UiThread
+    @NonNull
+    public BinaryMessenger.TaskQueue makeBackgroundTaskQueue() {
+      return messenger.makeBackgroundTaskQueue();
+    }
+
+    /**
+     * Sets the given {@link io.flutter.plugin.common.BinaryMessenger.BinaryMessageHandler} as the
+     * singular handler for all incoming messages received from the Dart side of this Dart execution
+     * context, to be invoked on the given {@code taskQueue}.
+     *
+     * @param channel the name of the channel.
+     * @param handler a {@link BinaryMessageHandler} to be invoked on incoming messages, or null.
+     * @param taskQueue a {@link BinaryMessenger.TaskQueue} to invoke {@code handler} on, or null
+     *     for the main thread.
+     */
+    @Override
+    @UiThread
+    public void setMessageHandler(
+        @NonNull String channel,
+        @Nullable BinaryMessenger.BinaryMessageHandler handler,
+        @Nullable BinaryMessenger.TaskQueue taskQueue) {
+      messenger.setMessageHandler(channel, handler, taskQueue);
+    }
   }
 }
@@ -4,15 +4,29 @@
 
 package io.flutter.embedding.engine.dart;
 
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
 import io.flutter.Log;
 import io.flutter.embedding.engine.FlutterJNI;
 import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.DirectByteBufferPool;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -21,37 +35,120 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * <p>See {@link BinaryMessenger}, which sends messages from Android to Dart
  *
  * <p>See {@link PlatformMessageHandler}, which handles messages to Android from Dart
+ *
+ * <p>Incoming messages are handled on the main thread, unless their handler was registered with a
+ * {@link BinaryMessenger.TaskQueue} from {@link #makeBackgroundTaskQueue()}. Such handlers run on
+ * a background thread, serially per {@link BinaryMessenger.TaskQueue}, and their replies are
+ * forwarded to the engine on the main thread.
+ *
+ * <p>Messages may be sent from any thread. Pending reply callbacks are kept in a thread-safe {@link
+ * PendingReplies} table, and messages sent off the main thread are forwarded to the engine on the
+ * main thread.
  */
 class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
   private static final String TAG = "DartMessenger";
 
   @NonNull private final FlutterJNI flutterJNI;
-  @NonNull private final Map<String, BinaryMessenger.BinaryMessageHandler> messageHandlers;
-  @NonNull private final Map<Integer, BinaryMessenger.BinaryReply> pendingReplies;
-  private int nextReplyId = 1;
+  @NonNull private final Executor backgroundExecutor;
+  @NonNull private final Handler mainHandler;
+  @NonNull private final Map<String, HandlerInfo> messageHandlers;
+  @NonNull private final Map<String, Runnable> messageHandlerInitializers;
+  @NonNull private final PendingReplies pendingReplies;
+  // Only consulted on send when non-empty, see setReplyTimeout() and setMaxPendingReplies().
+  @NonNull private final ConcurrentHashMap<String, Long> replyTimeouts = new ConcurrentHashMap<>();
+
+  @NonNull
+  private final ConcurrentHashMap<String, InFlightLimit> inFlightLimits = new ConcurrentHashMap<>();
+
+  // Null while channel metrics are disabled.
+  @Nullable private volatile ChannelMetricsRecorder metricsRecorder;
 
   DartMessenger(@NonNull FlutterJNI flutterJNI) {
+    this(flutterJNI, AsyncTask.THREAD_POOL_EXECUTOR);
+  }
+
+  @VisibleForTesting
+  DartMessenger(@NonNull FlutterJNI flutterJNI, @NonNull Executor backgroundExecutor) {
     this.flutterJNI = flutterJNI;
+    this.backgroundExecutor = backgroundExecutor;
+    this.mainHandler = new Handler(Looper.getMainLooper());
     this.messageHandlers = new HashMap<>();
-    this.pendingReplies = new HashMap<>();
+    this.messageHandlerInitializers = new HashMap<>();
+    this.pendingReplies = new PendingReplies();
+  }
+
+  @Override
+  @NonNull
+  public BinaryMessenger.TaskQueue makeBackgroundTaskQueue() {
+    return new SerialTaskQueue(backgroundExecutor);
   }
 
   @Override
   public void setMessageHandler(
       @NonNull String channel, @Nullable BinaryMessenger.BinaryMessageHandler handler) {
+    setMessageHandler(channel, handler, null);
+  }
+
+  @Override
+  public void setMessageHandler(
+      @NonNull String channel,
+      @Nullable BinaryMessenger.BinaryMessageHandler handler,
+      @Nullable BinaryMessenger.TaskQueue taskQueue) {
     if (handler == null) {
       Log.v(TAG, "Removing handler for channel '" + channel + "'");
       messageHandlers.remove(channel);
+      return;
+    }
+    if (taskQueue != null && !(taskQueue instanceof SerialTaskQueue)) {
+      throw new IllegalArgumentException(
+          "The given TaskQueue was not created by this BinaryMessenger's makeBackgroundTaskQueue().");
+    }
+    Log.v(TAG, "Setting handler for channel '" + channel + "'");
+    messageHandlers.put(channel, new HandlerInfo(handler, (SerialTaskQueue) taskQueue));
+  }
+
+  /**
+   * Registers an {@code initializer} that is run when a message arrives on {@code channel} while no
+   * handler is registered for it, see {@link DartExecutor#setMessageHandlerInitializer(String,
+   * Runnable)}.
+   */
+  void setMessageHandlerInitializer(@NonNull String channel, @Nullable Runnable initializer) {
+    if (initializer == null) {
+      messageHandlerInitializers.remove(channel);
     } else {
-      Log.v(TAG, "Setting handler for channel '" + channel + "'");
-      messageHandlers.put(channel, handler);
+      messageHandlerInitializers.put(channel, initializer);
     }
   }
 
+  /**
+   * Enables or disables the recording of {@link ChannelMetrics}. Enabling metrics that are already
+   * enabled has no effect; disabling them discards everything that was recorded.
+   */
+  void setChannelMetricsEnabled(boolean enabled) {
+    if (!enabled) {
+      metricsRecorder = null;
+    } else if (metricsRecorder == null) {
+      metricsRecorder = new ChannelMetricsRecorder();
+    }
+  }
+
+  /** Returns whether {@link ChannelMetrics} are being recorded. */
+  boolean isChannelMetricsEnabled() {
+    return metricsRecorder != null;
+  }
+
+  /**
+   * Returns a snapshot of the {@link ChannelMetrics} of every channel that had traffic since
+   * metrics were enabled, keyed by channel name, or an empty map while metrics are disabled.
+   */
+  @NonNull
+  Map<String, ChannelMetrics> getChannelMetrics() {
+    final ChannelMetricsRecorder recorder = metricsRecorder;
+    return recorder == null ? Collections.<String, ChannelMetrics>emptyMap() : recorder.snapshot();
+  }
+
   @Override
-  @UiThread
   public void send(@NonNull String channel, @NonNull ByteBuffer message) {
-    Log.v(TAG, "Sending message over channel '" + channel + "'");
     send(channel, message, null);
   }
 
@@ -60,51 +157,335 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
       @NonNull String channel,
       @Nullable ByteBuffer message,
       @Nullable BinaryMessenger.BinaryReply callback) {
-    Log.v(TAG, "Sending message with callback over channel '" + channel + "'");
-    int replyId = 0;
-    if (callback != null) {
-      replyId = nextReplyId++;
-      pendingReplies.put(replyId, callback);
+    send(channel, message, callback, 0);
+  }
+
+  @Override
+  public void send(
+      @NonNull String channel,
+      @Nullable ByteBuffer message,
+      @Nullable BinaryMessenger.BinaryReply callback,
+      long timeoutMillis) {
+    if (Log.isLoggable(android.util.Log.VERBOSE)) {
+      Log.v(TAG, "Sending message over channel '" + channel + "'");
+    }
+    final ChannelMetricsRecorder recorder = metricsRecorder;
+    if (recorder != null) {
+      recorder.onMessageSent(channel, message == null ? 0 : message.position());
+      if (callback != null) {
+        callback = recorder.timeReply(channel, callback);
+      }
+    }
+    if (callback != null && timeoutMillis <= 0 && !replyTimeouts.isEmpty()) {
+      final Long channelTimeoutMillis = replyTimeouts.get(channel);
+      if (channelTimeoutMillis != null) {
+        timeoutMillis = channelTimeoutMillis;
+      }
     }
+    final InFlightLimit inFlightLimit =
+        inFlightLimits.isEmpty() ? null : inFlightLimits.get(channel);
+    if (inFlightLimit != null
+        && !inFlightLimit.acquireOrEnqueue(
+            new QueuedMessage(channel, message, callback, timeoutMillis))) {
+      // Sent once Dart replies to earlier messages on this channel.
+      return;
+    }
+    dispatch(channel, message, callback, timeoutMillis, inFlightLimit);
+  }
+
+  /**
+   * Sends {@code message} to Dart. If it expects a reply, the reply frees the slot that the message
+   * took from {@code inFlightLimit}, if any.
+   */
+  private void dispatch(
+      @NonNull final String channel,
+      @Nullable final ByteBuffer message,
+      @Nullable BinaryMessenger.BinaryReply callback,
+      long timeoutMillis,
+      @Nullable InFlightLimit inFlightLimit) {
+    // Posting the timeout with a token of its own lets a timely reply cancel it, instead of
+    // leaving it queued on the main thread until it fires.
+    final Object timeoutToken = callback != null && timeoutMillis > 0 ? new Object() : null;
+    final int replyId =
+        callback == null ? 0 : pendingReplies.add(channel, callback, timeoutToken, inFlightLimit);
+    if (timeoutToken != null) {
+      mainHandler.postAtTime(
+          new Runnable() {
+            @Override
+            public void run() {
+              onReplyTimedOut(replyId);
+            }
+          },
+          timeoutToken,
+          SystemClock.uptimeMillis() + timeoutMillis);
+    }
+    // The engine only accepts messages on the main thread.
+    runOnMainThread(
+        new Runnable() {
+          @Override
+          public void run() {
+            dispatchMessageToDart(channel, message, replyId);
+          }
+        });
+  }
+
+  private void dispatchMessageToDart(
+      @NonNull String channel, @Nullable ByteBuffer message, int replyId) {
     if (message == null) {
       flutterJNI.dispatchEmptyPlatformMessage(channel, replyId);
     } else {
-      flutterJNI.dispatchPlatformMessage(channel, message, message.position(), replyId);
+      try {
+        flutterJNI.dispatchPlatformMessage(channel, message, message.position(), replyId);
+      } finally {
+        // The engine copies the message, so a pooled buffer can be reused right away.
+        if (DirectByteBufferPool.canBePooled(message)) {
+          DirectByteBufferPool.getInstance().release(message);
+        }
+      }
     }
   }
 
   @Override
   public void handleMessageFromDart(
-      @NonNull final String channel, @Nullable byte[] message, final int replyId) {
-    Log.v(TAG, "Received message from Dart over channel '" + channel + "'");
-    BinaryMessenger.BinaryMessageHandler handler = messageHandlers.get(channel);
-    if (handler != null) {
+      @NonNull final String channel,
+      @Nullable final ByteBuffer message,
+      final int replyId,
+      final long messageData) {
+    if (Log.isLoggable(android.util.Log.VERBOSE)) {
+      Log.v(TAG, "Received message from Dart over channel '" + channel + "'");
+    }
+    final ChannelMetricsRecorder recorder = metricsRecorder;
+    if (recorder != null) {
+      recorder.onMessageReceived(channel, message == null ? 0 : message.remaining());
+    }
+    final HandlerInfo handlerInfo = getOrInitializeHandler(channel);
+    if (handlerInfo == null) {
+      Log.v(TAG, "No registered handler for message. Responding to Dart with empty reply message.");
+      flutterJNI.invokePlatformMessageEmptyResponseCallback(replyId);
+      flutterJNI.cleanupMessageData(messageData);
+    } else if (handlerInfo.taskQueue == null) {
+      invokeHandler(channel, handlerInfo.handler, message, replyId, messageData);
+    } else {
+      Log.v(TAG, "Dispatching message to the handler's task queue.");
       try {
-        Log.v(TAG, "Deferring to registered handler to process message.");
-        final ByteBuffer buffer = (message == null ? null : ByteBuffer.wrap(message));
-        handler.onMessage(buffer, new Reply(flutterJNI, replyId));
-      } catch (Exception ex) {
-        Log.e(TAG, "Uncaught exception in binary message listener", ex);
+        handlerInfo.taskQueue.dispatch(
+            new Runnable() {
+              @Override
+              public void run() {
+                invokeHandler(channel, handlerInfo.handler, message, replyId, messageData);
+              }
+            });
+      } catch (RejectedExecutionException e) {
+        Log.e(TAG, "Could not dispatch message to the handler's task queue", e);
         flutterJNI.invokePlatformMessageEmptyResponseCallback(replyId);
+        flutterJNI.cleanupMessageData(messageData);
       }
+    }
+  }
+
+  @Nullable
+  private HandlerInfo getOrInitializeHandler(@NonNull String channel) {
+    HandlerInfo handlerInfo = messageHandlers.get(channel);
+    if (handlerInfo == null) {
+      final Runnable initializer = messageHandlerInitializers.remove(channel);
+      if (initializer != null) {
+        if (Log.isLoggable(android.util.Log.VERBOSE)) {
+          Log.v(TAG, "Initializing handler for channel '" + channel + "'");
+        }
+        initializer.run();
+        handlerInfo = messageHandlers.get(channel);
+      }
+    }
+    return handlerInfo;
+  }
+
+  private void invokeHandler(
+      @NonNull String channel,
+      @NonNull BinaryMessenger.BinaryMessageHandler handler,
+      @Nullable ByteBuffer message,
+      final int replyId,
+      long messageData) {
+    try {
+      Log.v(TAG, "Deferring to registered handler to process message.");
+      final ByteBuffer buffer;
+      if (message == null || handler instanceof BinaryMessenger.DirectBinaryMessageHandler) {
+        buffer = message == null ? null : message.asReadOnlyBuffer();
+      } else {
+        buffer = copyToHeap(message);
+        flutterJNI.cleanupMessageData(messageData);
+        messageData = 0;
+      }
+      final ChannelMetricsRecorder recorder = metricsRecorder;
+      if (recorder == null) {
+        handler.onMessage(buffer, new Reply(this, channel, replyId));
+      } else {
+        final long startNanos = System.nanoTime();
+        try {
+          handler.onMessage(buffer, new Reply(this, channel, replyId));
+        } finally {
+          recorder.onMessageHandled(channel, System.nanoTime() - startNanos);
+        }
+      }
+    } catch (Exception ex) {
+      Log.e(TAG, "Uncaught exception in binary message listener", ex);
+      runOnMainThread(
+          new Runnable() {
+            @Override
+            public void run() {
+              flutterJNI.invokePlatformMessageEmptyResponseCallback(replyId);
+            }
+          });
+    } finally {
+      // Direct handlers may only access the message while onMessage() runs.
+      flutterJNI.cleanupMessageData(messageData);
+    }
+  }
+
+  private void runOnMainThread(@NonNull Runnable runnable) {
+    if (Looper.myLooper() == mainHandler.getLooper()) {
+      runnable.run();
     } else {
-      Log.v(TAG, "No registered handler for message. Responding to Dart with empty reply message.");
-      flutterJNI.invokePlatformMessageEmptyResponseCallback(replyId);
+      mainHandler.post(runnable);
     }
   }
 
+  @NonNull
+  private static ByteBuffer copyToHeap(@NonNull ByteBuffer message) {
+    final ByteBuffer copy = ByteBuffer.allocate(message.remaining());
+    copy.put(message);
+    copy.flip();
+    return copy;
+  }
+
   @Override
   public void handlePlatformMessageResponse(int replyId, @Nullable byte[] reply) {
     Log.v(TAG, "Received message reply from Dart.");
-    BinaryMessenger.BinaryReply callback = pendingReplies.remove(replyId);
-    if (callback != null) {
+    final PendingReplies.PendingReply pendingReply = pendingReplies.remove(replyId);
+    if (pendingReply != null) {
+      if (pendingReply.timeoutToken != null) {
+        mainHandler.removeCallbacksAndMessages(pendingReply.timeoutToken);
+      }
       try {
         Log.v(TAG, "Invoking registered callback for reply from Dart.");
-        callback.reply(reply == null ? null : ByteBuffer.wrap(reply));
+        pendingReply.callback.reply(reply == null ? null : ByteBuffer.wrap(reply));
       } catch (Exception ex) {
         Log.e(TAG, "Uncaught exception in binary message reply handler", ex);
       }
+      releaseInFlightSlot(pendingReply.inFlightLimit);
+    }
+  }
+
+  private void onReplyTimedOut(int replyId) {
+    final PendingReplies.PendingReply pendingReply = pendingReplies.remove(replyId);
+    if (pendingReply == null) {
+      // Dart replied in time.
+      return;
+    }
+    Log.w(
+        TAG,
+        "Dart did not reply to a message on channel '"
+            + pendingReply.channel
+            + "' in time. Completing the reply with null.");
+    try {
+      pendingReply.callback.reply(null);
+    } catch (Exception ex) {
+      Log.e(TAG, "Uncaught exception in binary message reply handler", ex);
+    }
+    releaseInFlightSlot(pendingReply.inFlightLimit);
+  }
+
+  private void releaseInFlightSlot(@Nullable InFlightLimit inFlightLimit) {
+    if (inFlightLimit != null) {
+      dispatchAll(inFlightLimit.release(), inFlightLimit);
+    }
+  }
+
+  /**
+   * Sends the given held back {@code messages}, whose replies free the slots they took from {@code
+   * inFlightLimit}, if any.
+   */
+  private void dispatchAll(
+      @NonNull List<QueuedMessage> messages, @Nullable InFlightLimit inFlightLimit) {
+    for (QueuedMessage queued : messages) {
+      dispatch(
+          queued.channel, queued.message, queued.callback, queued.timeoutMillis, inFlightLimit);
+    }
+  }
+
+  /**
+   * Sets the timeout of replies to messages that are sent on {@code channel} without a timeout of
+   * their own, or removes it if {@code timeoutMillis} is not positive.
+   */
+  void setReplyTimeout(@NonNull String channel, long timeoutMillis) {
+    if (timeoutMillis > 0) {
+      replyTimeouts.put(channel, timeoutMillis);
+    } else {
+      replyTimeouts.remove(channel);
+    }
+  }
+
+  /**
+   * Limits the number of replies that may be pending on {@code channel}, or removes the limit if
+   * {@code maxPendingReplies} is not positive. Messages that would exceed the limit are held back,
+   * in order, until Dart replies to earlier messages.
+   */
+  void setMaxPendingReplies(@NonNull String channel, int maxPendingReplies) {
+    if (maxPendingReplies <= 0) {
+      final InFlightLimit inFlightLimit = inFlightLimits.remove(channel);
+      if (inFlightLimit != null) {
+        dispatchAll(inFlightLimit.removeAll(), null);
+      }
+      return;
     }
+    InFlightLimit inFlightLimit = inFlightLimits.get(channel);
+    if (inFlightLimit == null) {
+      final InFlightLimit newLimit = new InFlightLimit();
+      inFlightLimit = inFlightLimits.putIfAbsent(channel, newLimit);
+      if (inFlightLimit == null) {
+        inFlightLimit = newLimit;
+      }
+    }
+    dispatchAll(inFlightLimit.setMaxPendingReplies(maxPendingReplies), inFlightLimit);
+  }
+
+  /**
+   * Returns a human-readable report of the pending replies, grouped by channel, followed by the
+   * {@code maxEntries} replies that have been pending the longest.
+   */
+  @NonNull
+  String getPendingReplyDiagnostics(int maxEntries) {
+    final long nowMillis = SystemClock.uptimeMillis();
+    final List<PendingReplies.PendingReply> pending = pendingReplies.getOldest(Integer.MAX_VALUE);
+    // Channels in the order of their oldest pending reply.
+    final Map<String, int[]> countsByChannel = new LinkedHashMap<>();
+    for (PendingReplies.PendingReply pendingReply : pending) {
+      int[] count = countsByChannel.get(pendingReply.channel);
+      if (count == null) {
+        count = new int[1];
+        countsByChannel.put(pendingReply.channel, count);
+      }
+      count[0]++;
+    }
+
+    final StringBuilder report = new StringBuilder();
+    report.append(pending.size()).append(" pending replies\n");
+    for (Map.Entry<String, int[]> entry : countsByChannel.entrySet()) {
+      report.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()[0]);
+      report.append(" pending");
+      final InFlightLimit inFlightLimit = inFlightLimits.get(entry.getKey());
+      if (inFlightLimit != null) {
+        report.append(", ").append(inFlightLimit.getQueuedMessageCount()).append(" queued");
+      }
+      report.append("\n");
+    }
+    report.append("Oldest pending replies:\n");
+    for (int i = 0; i < pending.size() && i < maxEntries; i++) {
+      final PendingReplies.PendingReply pendingReply = pending.get(i);
+      report.append("  #").append(pendingReply.replyId);
+      report.append(" on ").append(pendingReply.channel);
+      report.append(", waiting for ").append(nowMillis - pendingReply.sentMillis).append("ms\n");
+    }
+    return report.toString();
   }
 
   /**
@@ -114,35 +495,239 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
    * ByteBuffer, io.flutter.plugin.common.BinaryMessenger.BinaryReply)}, developers can optionally
    * specify a reply callback if they expect a reply from the Flutter application.
    *
-   * <p>This method tracks all the pending callbacks that are waiting for response, and is supposed
-   * to be called from the main thread (as other methods). Calling from a different thread could
-   * possibly capture an indeterministic internal state, so don't do it.
+   * <p>This method tracks all the pending callbacks that are waiting for response. It may be
+   * called from any thread.
    */
-  @UiThread
   public int getPendingChannelResponseCount() {
     return pendingReplies.size();
   }
 
+  private static class HandlerInfo {
+    @NonNull final BinaryMessenger.BinaryMessageHandler handler;
+    @Nullable final SerialTaskQueue taskQueue;
+
+    HandlerInfo(
+        @NonNull BinaryMessenger.BinaryMessageHandler handler,
+        @Nullable SerialTaskQueue taskQueue) {
+      this.handler = handler;
+      this.taskQueue = taskQueue;
+    }
+  }
+
+  /**
+   * A {@link BinaryMessenger.TaskQueue} that runs its tasks one at a time, in submission order, on
+   * threads borrowed from a shared {@link Executor}.
+   */
+  private static class SerialTaskQueue implements BinaryMessenger.TaskQueue {
+    @NonNull private final Executor executor;
+    @NonNull private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    // Whether flushRunnable is submitted to the executor or running. The runnable is only submitted
+    // when this flips from false to true, so that a burst of messages takes up a single slot of the
+    // executor's work queue, which is bounded on older API levels.
+    @NonNull private final AtomicBoolean isFlushScheduled = new AtomicBoolean(false);
+
+    @NonNull
+    private final Runnable flushRunnable =
+        new Runnable() {
+          @Override
+          public void run() {
+            flush();
+          }
+        };
+
+    SerialTaskQueue(@NonNull Executor executor) {
+      this.executor = executor;
+    }
+
+    /**
+     * Queues the given {@code runnable}.
+     *
+     * @throws RejectedExecutionException if the executor rejected the queue's flush, in which case
+     *     {@code runnable} is not queued.
+     */
+    void dispatch(@NonNull Runnable runnable) {
+      queue.add(runnable);
+      scheduleFlush(runnable);
+    }
+
+    private void scheduleFlush(@Nullable Runnable runnable) {
+      if (!isFlushScheduled.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        executor.execute(flushRunnable);
+      } catch (RejectedExecutionException e) {
+        isFlushScheduled.set(false);
+        if (runnable != null) {
+          queue.remove(runnable);
+        }
+        throw e;
+      }
+    }
+
+    private void flush() {
+      // Only one flush is scheduled at a time, which keeps tasks ordered.
+      try {
+        for (Runnable runnable; (runnable = queue.poll()) != null; ) {
+          runnable.run();
+        }
+      } finally {
+        isFlushScheduled.set(false);
+        // Tasks that were queued after the loop above found the queue empty, but before the flag
+        // was cleared, did not schedule a flush of their own. Neither did the tasks behind a task
+        // that threw.
+        if (!queue.isEmpty()) {
+          scheduleFlush(null);
+        }
+      }
+    }
+  }
+
+  /** A message that is held back by an {@link InFlightLimit}. */
+  private static final class QueuedMessage {
+    @NonNull final String channel;
+    @Nullable final ByteBuffer message;
+    @Nullable final BinaryMessenger.BinaryReply callback;
+    final long timeoutMillis;
+
+    QueuedMessage(
+        @NonNull String channel,
+        @Nullable ByteBuffer message,
+        @Nullable BinaryMessenger.BinaryReply callback,
+        long timeoutMillis) {
+      this.channel = channel;
+      this.message = message;
+      this.callback = callback;
+      this.timeoutMillis = timeoutMillis;
+    }
+  }
+
+  /**
+   * Bounds the number of pending replies on a single channel, and holds back the messages that
+   * would exceed the bound.
+   *
+   * <p>Messages without a reply callback do not count towards the bound, but are still held back
+   * while earlier messages are, so that the channel's messages are sent in order. Only replies to
+   * messages that took a slot from this limit free one, see {@link
+   * PendingReplies.PendingReply#inFlightLimit}, so that replies to messages sent before the limit
+   * was set, or before it was removed and set again, do not.
+   */
+  static final class InFlightLimit {
+    @NonNull private final ArrayDeque<QueuedMessage> queue = new ArrayDeque<>();
+    private int maxPendingReplies;
+    private int pendingReplyCount;
+    // Set once the limit was removed from its channel, after which messages are no longer held
+    // back, even those of senders that looked the limit up before it was removed.
+    private boolean removed;
+
+    /**
+     * Returns true if {@code message} may be sent now, and otherwise holds it back until it is
+     * returned by {@link #release()}.
+     */
+    synchronized boolean acquireOrEnqueue(@NonNull QueuedMessage message) {
+      if (removed) {
+        return true;
+      }
+      if (queue.isEmpty()
+          && (message.callback == null || pendingReplyCount < maxPendingReplies)) {
+        if (message.callback != null) {
+          pendingReplyCount++;
+        }
+        return true;
+      }
+      queue.add(message);
+      return false;
+    }
+
+    /** Records a completed reply, and returns the held back messages that may now be sent. */
+    @NonNull
+    synchronized List<QueuedMessage> release() {
+      if (pendingReplyCount > 0) {
+        pendingReplyCount--;
+      }
+      return drain();
+    }
+
+    @NonNull
+    synchronized List<QueuedMessage> setMaxPendingReplies(int maxPendingReplies) {
+      this.maxPendingReplies = maxPendingReplies;
+      return drain();
+    }
+
+    /** Returns all held back messages, regardless of the bound, and stops holding any back. */
+    @NonNull
+    synchronized List<QueuedMessage> removeAll() {
+      removed = true;
+      final List<QueuedMessage> messages = new ArrayList<>(queue);
+      queue.clear();
+      return messages;
+    }
+
+    synchronized int getQueuedMessageCount() {
+      return queue.size();
+    }
+
+    @NonNull
+    private List<QueuedMessage> drain() {
+      if (queue.isEmpty()) {
+        return Collections.emptyList();
+      }
+      final List<QueuedMessage> messages = new ArrayList<>();
+      while (!queue.isEmpty()) {
+        final QueuedMessage next = queue.peek();
+        if (next.callback != null) {
+          if (pendingReplyCount >= maxPendingReplies) {
+            break;
+          }
+          pendingReplyCount++;
+        }
+        messages.add(queue.poll());
+      }
+      return messages;
+    }
+  }
+
   private static class Reply implements BinaryMessenger.BinaryReply {
-    @NonNull private final FlutterJNI flutterJNI;
+    @NonNull private final DartMessenger messenger;
+    @NonNull private final String channel;
     private final int replyId;
     private final AtomicBoolean done = new AtomicBoolean(false);
 
-    Reply(@NonNull FlutterJNI flutterJNI, int replyId) {
-      this.flutterJNI = flutterJNI;
+    Reply(@NonNull DartMessenger messenger, @NonNull String channel, int replyId) {
+      this.messenger = messenger;
+      this.channel = channel;
       this.replyId = replyId;
     }
 
     @Override
-    public void reply(@Nullable ByteBuffer reply) {
+    public void reply(@Nullable final ByteBuffer reply) {
       if (done.getAndSet(true)) {
         throw new IllegalStateException("Reply already submitted");
       }
-      if (reply == null) {
-        flutterJNI.invokePlatformMessageEmptyResponseCallback(replyId);
-      } else {
-        flutterJNI.invokePlatformMessageResponseCallback(replyId, reply, reply.position());
+      final ChannelMetricsRecorder recorder = messenger.metricsRecorder;
+      if (recorder != null && reply != null) {
+        recorder.onReplySent(channel, reply.position());
       }
+      // The engine only accepts replies on the main thread.
+      messenger.runOnMainThread(
+          new Runnable() {
+            @Override
+            public void run() {
+              final FlutterJNI flutterJNI = messenger.flutterJNI;
+              if (reply == null) {
+                flutterJNI.invokePlatformMessageEmptyResponseCallback(replyId);
+              } else {
+                try {
+                  flutterJNI.invokePlatformMessageResponseCallback(
+                      replyId, reply, reply.position());
+                } finally {
+                  if (DirectByteBufferPool.canBePooled(reply)) {
+                    DirectByteBufferPool.getInstance().release(reply);
+                  }
+                }
+              }
+            }
+          });
     }
   }
 }
@@ -0,0 +1,156 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.engine.dart;
+
+import android.os.SystemClock;
+import android.util.SparseArray;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugin.common.BinaryMessenger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe table of {@link BinaryMessenger.BinaryReply} callbacks that are waiting for Dart to
+ * respond to a message, keyed by reply ID.
+ *
+ * <p>Reply IDs are handed out sequentially and are never zero, because zero tells the engine that
+ * no reply is expected. The table is split into lock stripes, each of which is an int-keyed {@link
+ * SparseArray}, so that threads sending messages concurrently rarely contend and no keys are boxed.
+ * Since IDs increase monotonically, insertions hit the append fast path of {@link SparseArray}.
+ *
+ * <p>Each reply remembers the channel and time of the message it answers, so that replies that
+ * Dart never sends can be diagnosed, see {@link #getOldest(int)}.
+ */
+final class PendingReplies {
+  private static final int STRIPE_COUNT = 8; // Must be a power of two.
+
+  @NonNull private final SparseArray<PendingReply>[] stripes;
+  @NonNull private final AtomicInteger nextReplyId = new AtomicInteger(1);
+  @NonNull private final AtomicInteger size = new AtomicInteger(0);
+
+  @SuppressWarnings("unchecked")
+  PendingReplies() {
+    stripes = new SparseArray[STRIPE_COUNT];
+    for (int i = 0; i < STRIPE_COUNT; i++) {
+      stripes[i] = new SparseArray<>();
+    }
+  }
+
+  /**
+   * Stores the given {@code reply} to a message that is sent on {@code channel} now, and returns
+   * the ID that identifies it.
+   */
+  int add(@NonNull String channel, @NonNull BinaryMessenger.BinaryReply reply) {
+    return add(channel, reply, null, null);
+  }
+
+  /**
+   * Like {@link #add(String, BinaryMessenger.BinaryReply)}, but also remembers the {@code
+   * timeoutToken} that the callbacks which time out the reply are posted with, and the {@code
+   * inFlightLimit} that the message took a slot from.
+   */
+  int add(
+      @NonNull String channel,
+      @NonNull BinaryMessenger.BinaryReply reply,
+      @Nullable Object timeoutToken,
+      @Nullable DartMessenger.InFlightLimit inFlightLimit) {
+    int replyId = nextReplyId.getAndIncrement();
+    if (replyId == 0) {
+      // The counter wrapped around; zero is reserved for messages without a reply.
+      replyId = nextReplyId.getAndIncrement();
+    }
+    final SparseArray<PendingReply> stripe = stripeFor(replyId);
+    synchronized (stripe) {
+      stripe.append(
+          replyId, new PendingReply(replyId, channel, reply, timeoutToken, inFlightLimit));
+    }
+    size.incrementAndGet();
+    return replyId;
+  }
+
+  /**
+   * Removes and returns the reply that is identified by {@code replyId}, or null if there is no
+   * such reply.
+   */
+  @Nullable
+  PendingReply remove(int replyId) {
+    final SparseArray<PendingReply> stripe = stripeFor(replyId);
+    final PendingReply reply;
+    synchronized (stripe) {
+      final int index = stripe.indexOfKey(replyId);
+      if (index < 0) {
+        return null;
+      }
+      reply = stripe.valueAt(index);
+      stripe.removeAt(index);
+    }
+    size.decrementAndGet();
+    return reply;
+  }
+
+  /** Returns the number of replies that are currently pending. */
+  int size() {
+    return size.get();
+  }
+
+  /** Returns up to {@code maxCount} of the pending replies that have been waiting the longest. */
+  @NonNull
+  List<PendingReply> getOldest(int maxCount) {
+    final List<PendingReply> replies = new ArrayList<>();
+    for (SparseArray<PendingReply> stripe : stripes) {
+      synchronized (stripe) {
+        for (int i = 0; i < stripe.size(); i++) {
+          replies.add(stripe.valueAt(i));
+        }
+      }
+    }
+    Collections.sort(
+        replies,
+        new Comparator<PendingReply>() {
+          @Override
+          public int compare(PendingReply a, PendingReply b) {
+            return a.sentMillis < b.sentMillis ? -1 : (a.sentMillis == b.sentMillis ? 0 : 1);
+          }
+        });
+    return replies.size() <= maxCount ? replies : replies.subList(0, maxCount);
+  }
+
+  @NonNull
+  private SparseArray<PendingReply> stripeFor(int replyId) {
+    return stripes[replyId & (STRIPE_COUNT - 1)];
+  }
+
+  /** A reply callback that is waiting for Dart to respond to a message. */
+  static final class PendingReply {
+    final int replyId;
+    @NonNull final String channel;
+    @NonNull final BinaryMessenger.BinaryReply callback;
+    // SystemClock.uptimeMillis() when the message was sent.
+    final long sentMillis;
+    // The token of the callback that times the reply out, or null if it never times out.
+    @Nullable final Object timeoutToken;
+    // The limit that the message took a slot from, which the reply frees, or null if the message
+    // was sent while its channel had no limit.
+    @Nullable final DartMessenger.InFlightLimit inFlightLimit;
+
+    PendingReply(
+        int replyId,
+        @NonNull String channel,
+        @NonNull BinaryMessenger.BinaryReply callback,
+        @Nullable Object timeoutToken,
+        @Nullable DartMessenger.InFlightLimit inFlightLimit) {
+      this.replyId = replyId;
+      this.channel = channel;
+      this.callback = callback;
+      this.timeoutToken = timeoutToken;
+      this.inFlightLimit = inFlightLimit;
+      this.sentMillis = SystemClock.uptimeMillis();
+    }
+  }
+}
@@ -6,11 +6,22 @@ package io.flutter.embedding.engine.dart;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import java.nio.ByteBuffer;
 
 /** Handler that receives messages from Dart code. */
 public interface PlatformMessageHandler {
+  /**
+   * Handles a message sent from Dart over the given {@code channel}.
+   *
+   * <p>{@code message} is a direct {@link ByteBuffer} backed by native memory. The handler is
+   * responsible for calling {@link io.flutter.embedding.engine.FlutterJNI#cleanupMessageData(long)}
+   * with {@code messageData} once {@code message} is no longer accessed.
+   */
   void handleMessageFromDart(
-      @NonNull final String channel, @Nullable byte[] message, final int replyId);
+      @NonNull final String channel,
+      @Nullable ByteBuffer message,
+      final int replyId,
+      long messageData);
 
   void handlePlatformMessageResponse(int replyId, @Nullable byte[] reply);
 }
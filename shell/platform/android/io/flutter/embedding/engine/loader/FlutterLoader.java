@@ -13,15 +13,20 @@ import android.os.Handler;
 import android.os.Looper;
 import android.os.SystemClock;
 import android.util.Log;
-import android.view.WindowManager;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import io.flutter.BuildConfig;
 import io.flutter.embedding.engine.FlutterJNI;
 import io.flutter.util.PathUtils;
+import io.flutter.util.TraceSection;
 import io.flutter.view.VsyncWaiter;
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /** Finds Flutter resources in an application APK and also loads Flutter's native library. */
 public class FlutterLoader {
@@ -78,6 +83,12 @@ public class FlutterLoader {
   private boolean initialized = false;
   @Nullable private ResourceExtractor resourceExtractor;
   @Nullable private Settings settings;
+  @Nullable private ExecutorService executor;
+  @Nullable private Future<ApplicationInfo> configFuture;
+  @Nullable private Future<Void> libraryFuture;
+  @Nullable private Future<InitResult> initResultFuture;
+  @NonNull private final InitializationTimings timings = new InitializationTimings();
+  private long initStartTimestampMillis;
 
   /**
    * Starts initialization of the native system.
@@ -94,6 +105,17 @@ public class FlutterLoader {
    * <p>This loads the Flutter engine's native library to enable subsequent JNI calls. This also
    * starts locating and unpacking Dart resources packaged in the app's APK.
    *
+   * <p>Loading the native library, reading the app's configuration from its manifest, and
+   * unpacking resources all happen concurrently on background threads, so this method returns
+   * quickly. Once they are done, the paths that the engine is initialized with are resolved on a
+   * background thread as well. {@link #ensureInitializationComplete(Context, String[])} and {@link
+   * #ensureInitializationCompleteAsync(Context, String[], Handler, Runnable)} wait for all of this
+   * to finish. The time spent in each stage is reported by {@link #getInitializationTimings()}.
+   *
+   * <p>The engine's native code itself is not initialized until one of those methods is called,
+   * because it is initialized with the arguments that are passed to them, and it can only be
+   * initialized once.
+   *
    * <p>Calling this method multiple times has no effect.
    *
    * @param applicationContext The Android application context.
@@ -109,27 +131,73 @@ public class FlutterLoader {
     }
 
     // Ensure that the context is actually the application context.
-    applicationContext = applicationContext.getApplicationContext();
+    final Context appContext = applicationContext.getApplicationContext();
 
     this.settings = settings;
 
-    long initStartTimestampMillis = SystemClock.uptimeMillis();
-    initConfig(applicationContext);
-    initResources(applicationContext);
+    initStartTimestampMillis = SystemClock.uptimeMillis();
+    executor = Executors.newCachedThreadPool();
 
-    System.loadLibrary("flutter");
+    // Reads the app's configuration and then starts extracting the resources it names.
+    configFuture =
+        executor.submit(
+            new Callable<ApplicationInfo>() {
+              @Override
+              public ApplicationInfo call() {
+                TraceSection.begin("FlutterLoader#initConfig");
+                try {
+                  final long startMillis = SystemClock.uptimeMillis();
+                  final ApplicationInfo applicationInfo = getApplicationInfo(appContext);
+                  initConfig(applicationInfo);
+                  timings.configMillis = SystemClock.uptimeMillis() - startMillis;
+                  initResources(appContext);
+                  return applicationInfo;
+                } finally {
+                  TraceSection.end();
+                }
+              }
+            });
 
-    VsyncWaiter.getInstance(
-            (WindowManager) applicationContext.getSystemService(Context.WINDOW_SERVICE))
-        .init();
+    libraryFuture =
+        executor.submit(
+            new Callable<Void>() {
+              @Override
+              public Void call() {
+                final long startMillis = SystemClock.uptimeMillis();
+                TraceSection.begin("FlutterLoader#loadLibrary");
+                try {
+                  System.loadLibrary("flutter");
+                } finally {
+                  TraceSection.end();
+                }
+                timings.libraryLoadMillis = SystemClock.uptimeMillis() - startMillis;
+
+                // We record the initialization time using SystemClock because at the start of the
+                // initialization we have not yet loaded the native library to call into
+                // dart_tools_api.h. To get Timeline timestamp of the start of initialization we
+                // simply subtract the delta from the Timeline timestamp at the current moment (the
+                // assumption is that the overhead of the JNI call is negligible).
+                long initTimeMillis = SystemClock.uptimeMillis() - initStartTimestampMillis;
+                FlutterJNI.nativeRecordStartTimestamp(initTimeMillis);
+                return null;
+              }
+            });
+
+    // Resolves the paths for nativeInit once all other stages completed, so that
+    // ensureInitializationComplete() does not touch the disk on the main thread.
+    initResultFuture =
+        executor.submit(
+            new Callable<InitResult>() {
+              @Override
+              public InitResult call() throws Exception {
+                final ApplicationInfo applicationInfo = configFuture.get();
+                libraryFuture.get();
+                waitForResourceExtraction();
+                return new InitResult(appContext, applicationInfo);
+              }
+            });
 
-    // We record the initialization time using SystemClock because at the start of the
-    // initialization we have not yet loaded the native library to call into dart_tools_api.h.
-    // To get Timeline timestamp of the start of initialization we simply subtract the delta
-    // from the Timeline timestamp at the current moment (the assumption is that the overhead
-    // of the JNI call is negligible).
-    long initTimeMillis = SystemClock.uptimeMillis() - initStartTimestampMillis;
-    FlutterJNI.nativeRecordStartTimestamp(initTimeMillis);
+    VsyncWaiter.getInstance(appContext).init();
   }
 
   /**
@@ -154,17 +222,14 @@ public class FlutterLoader {
           "ensureInitializationComplete must be called after startInitialization");
     }
     try {
-      if (resourceExtractor != null) {
-        resourceExtractor.waitForCompletion();
-      }
+      InitResult result = initResultFuture.get();
 
       List<String> shellArgs = new ArrayList<>();
       shellArgs.add("--icu-symbol-prefix=_binary_icudtl_dat");
 
-      ApplicationInfo applicationInfo = getApplicationInfo(applicationContext);
       shellArgs.add(
           "--icu-native-lib-path="
-              + applicationInfo.nativeLibraryDir
+              + result.nativeLibraryDir
               + File.separator
               + DEFAULT_LIBRARY);
 
@@ -174,8 +239,7 @@ public class FlutterLoader {
 
       String kernelPath = null;
       if (BuildConfig.DEBUG || BuildConfig.JIT_RELEASE) {
-        String snapshotAssetPath =
-            PathUtils.getDataDirectory(applicationContext) + File.separator + flutterAssetsDir;
+        String snapshotAssetPath = result.dataDirectory + File.separator + flutterAssetsDir;
         kernelPath = snapshotAssetPath + File.separator + DEFAULT_KERNEL_BLOB;
         shellArgs.add("--" + SNAPSHOT_ASSET_PATH_KEY + "=" + snapshotAssetPath);
         shellArgs.add("--" + VM_SNAPSHOT_DATA_KEY + "=" + vmSnapshotData);
@@ -190,26 +254,34 @@ public class FlutterLoader {
             "--"
                 + AOT_SHARED_LIBRARY_NAME
                 + "="
-                + applicationInfo.nativeLibraryDir
+                + result.nativeLibraryDir
                 + File.separator
                 + aotSharedLibraryName);
       }
 
-      shellArgs.add("--cache-dir-path=" + PathUtils.getCacheDirectory(applicationContext));
+      shellArgs.add("--cache-dir-path=" + result.engineCachesPath);
       if (settings.getLogTag() != null) {
         shellArgs.add("--log-tag=" + settings.getLogTag());
       }
 
-      String appStoragePath = PathUtils.getFilesDir(applicationContext);
-      String engineCachesPath = PathUtils.getCacheDirectory(applicationContext);
-      FlutterJNI.nativeInit(
-          applicationContext,
-          shellArgs.toArray(new String[0]),
-          kernelPath,
-          appStoragePath,
-          engineCachesPath);
+      long nativeInitStartMillis = SystemClock.uptimeMillis();
+      TraceSection.begin("FlutterLoader#nativeInit");
+      try {
+        FlutterJNI.nativeInit(
+            applicationContext,
+            shellArgs.toArray(new String[0]),
+            kernelPath,
+            result.appStoragePath,
+            result.engineCachesPath);
+      } finally {
+        TraceSection.end();
+      }
+      long nativeInitEndMillis = SystemClock.uptimeMillis();
+      timings.nativeInitMillis = nativeInitEndMillis - nativeInitStartMillis;
+      timings.totalMillis = nativeInitEndMillis - initStartTimestampMillis;
 
       initialized = true;
+      executor.shutdown();
     } catch (Exception e) {
       Log.e(TAG, "Flutter initialization failed.", e);
       throw new RuntimeException(e);
@@ -237,26 +309,57 @@ public class FlutterLoader {
       callbackHandler.post(callback);
       return;
     }
-    new Thread(
-            new Runnable() {
-              @Override
-              public void run() {
-                if (resourceExtractor != null) {
-                  resourceExtractor.waitForCompletion();
-                }
-                new Handler(Looper.getMainLooper())
-                    .post(
-                        new Runnable() {
-                          @Override
-                          public void run() {
-                            ensureInitializationComplete(
-                                applicationContext.getApplicationContext(), args);
-                            callbackHandler.post(callback);
-                          }
-                        });
-              }
-            })
-        .start();
+    executor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              initResultFuture.get();
+            } catch (ExecutionException | InterruptedException e) {
+              // ensureInitializationComplete() reports the failure on the main thread.
+            }
+            new Handler(Looper.getMainLooper())
+                .post(
+                    new Runnable() {
+                      @Override
+                      public void run() {
+                        ensureInitializationComplete(
+                            applicationContext.getApplicationContext(), args);
+                        callbackHandler.post(callback);
+                      }
+                    });
+          }
+        });
+  }
+
+  /**
+   * Returns the time spent in each stage of initialization.
+   *
+   * <p>The returned object is updated as initialization progresses.
+   */
+  @NonNull
+  public InitializationTimings getInitializationTimings() {
+    return timings;
+  }
+
+  // The config values are read on a background thread, see startInitialization().
+  private void waitForConfig() {
+    if (configFuture == null) {
+      return;
+    }
+    try {
+      configFuture.get();
+    } catch (ExecutionException | InterruptedException e) {
+      // The default config values remain in place. ensureInitializationComplete() reports the
+      // failure.
+    }
+  }
+
+  private void waitForResourceExtraction() {
+    if (resourceExtractor != null) {
+      resourceExtractor.waitForCompletion();
+      timings.resourceExtractionMillis = resourceExtractor.getExtractionMillis();
+    }
   }
 
   @NonNull
@@ -274,8 +377,8 @@ public class FlutterLoader {
    * Initialize our Flutter config values by obtaining them from the manifest XML file, falling back
    * to default values.
    */
-  private void initConfig(@NonNull Context applicationContext) {
-    Bundle metadata = getApplicationInfo(applicationContext).metaData;
+  private void initConfig(@NonNull ApplicationInfo applicationInfo) {
+    Bundle metadata = applicationInfo.metaData;
 
     // There isn't a `<meta-data>` tag as a direct child of `<application>` in
     // `AndroidManifest.xml`.
@@ -318,6 +421,7 @@ public class FlutterLoader {
 
   @NonNull
   public String findAppBundlePath() {
+    waitForConfig();
     return flutterAssetsDir;
   }
 
@@ -330,6 +434,7 @@ public class FlutterLoader {
    */
   @NonNull
   public String getLookupKeyForAsset(@NonNull String asset) {
+    waitForConfig();
     return fullAssetPathFrom(asset);
   }
 
@@ -352,6 +457,67 @@ public class FlutterLoader {
     return flutterAssetsDir + File.separator + filePath;
   }
 
+  // The paths that the engine's native code is initialized with, see startInitialization().
+  private static final class InitResult {
+    @NonNull final String nativeLibraryDir;
+    @NonNull final String dataDirectory;
+    @NonNull final String appStoragePath;
+    @NonNull final String engineCachesPath;
+
+    InitResult(@NonNull Context applicationContext, @NonNull ApplicationInfo applicationInfo) {
+      nativeLibraryDir = applicationInfo.nativeLibraryDir;
+      dataDirectory = PathUtils.getDataDirectory(applicationContext);
+      appStoragePath = PathUtils.getFilesDir(applicationContext);
+      engineCachesPath = PathUtils.getCacheDirectory(applicationContext);
+    }
+  }
+
+  /**
+   * Durations of the stages of Flutter's initialization, in milliseconds.
+   *
+   * <p>Stages that have not completed yet report -1. The configuration, native library and resource
+   * extraction stages run concurrently, so their durations do not add up to the total.
+   */
+  public static class InitializationTimings {
+    volatile long configMillis = -1;
+    volatile long libraryLoadMillis = -1;
+    volatile long resourceExtractionMillis = -1;
+    volatile long nativeInitMillis = -1;
+    volatile long totalMillis = -1;
+
+    /** Time spent reading the app's configuration from its manifest. */
+    public long getConfigMillis() {
+      return configMillis;
+    }
+
+    /** Time spent loading Flutter's native library. */
+    public long getLibraryLoadMillis() {
+      return libraryLoadMillis;
+    }
+
+    /**
+     * Time spent extracting resources from the APK, or -1 if this build does not extract
+     * resources.
+     */
+    public long getResourceExtractionMillis() {
+      return resourceExtractionMillis;
+    }
+
+    /** Time spent initializing the engine's native code once all other stages completed. */
+    public long getNativeInitMillis() {
+      return nativeInitMillis;
+    }
+
+    /**
+     * Time from the start of {@link FlutterLoader#startInitialization(Context)} until the end of
+     * initialization, including any time that the app spent between starting and completing
+     * initialization.
+     */
+    public long getTotalMillis() {
+      return totalMillis;
+    }
+  }
+
   public static class Settings {
     private String logTag;
 
@@ -8,24 +8,53 @@ import static java.util.Arrays.asList;
 
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
 import android.os.AsyncTask;
 import android.os.Build;
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 import io.flutter.BuildConfig;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-
-/** A class to initialize the native code. */
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Extracts assets out of the APK that need to be cached as uncompressed files on disk.
+ *
+ * <p>Assets are extracted in parallel, one task per asset. Uncompressed assets are copied directly
+ * from the APK's file descriptor with {@link FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel)}, compressed assets are streamed through a buffer.
+ *
+ * <p>Extraction is incremental. A manifest in the data directory records the APK version that the
+ * assets were extracted from, and the length and CRC32 checksum of every extracted asset. When the
+ * APK version is unchanged and all assets are present, nothing is read from the APK. After an
+ * update, only assets whose checksum changed are written to disk again.
+ */
 class ResourceExtractor {
   private static final String TAG = "ResourceExtractor";
+  // Used by older versions of this class to record the extracted APK version. Only deleted now.
   private static final String TIMESTAMP_PREFIX = "res_timestamp-";
+  private static final String MANIFEST_FILE_NAME = "res_manifest";
+  private static final int BUFFER_SIZE = 64 * 1024;
   private static final String[] SUPPORTED_ABIS = getSupportedAbis();
 
   @SuppressWarnings("deprecation")
@@ -38,12 +67,13 @@ class ResourceExtractor {
     }
   }
 
-  private static class ExtractTask extends AsyncTask<Void, Void, Void> {
+  private static class ExtractTask implements Callable<Void> {
     @NonNull private final String mDataDirPath;
     @NonNull private final HashSet<String> mResources;
     @NonNull private final AssetManager mAssetManager;
     @NonNull private final String mPackageName;
     @NonNull private final PackageManager mPackageManager;
+    private volatile long mExtractionMillis = -1;
 
     ExtractTask(
         @NonNull String dataDirPath,
@@ -59,64 +89,166 @@ class ResourceExtractor {
     }
 
     @Override
-    protected Void doInBackground(Void... unused) {
+    public Void call() {
+      final long startMillis = SystemClock.uptimeMillis();
+      try {
+        extract();
+      } finally {
+        mExtractionMillis = SystemClock.uptimeMillis() - startMillis;
+      }
+      return null;
+    }
+
+    @WorkerThread
+    private void extract() {
       final File dataDir = new File(mDataDirPath);
+      deleteTimestamps(dataDir);
 
-      final String timestamp = checkTimestamp(dataDir, mPackageManager, mPackageName);
-      if (timestamp == null) {
-        return null;
+      final String version = getApkVersion(mPackageManager, mPackageName);
+      final Manifest previous = Manifest.read(dataDir);
+      if (previous != null && previous.isUpToDate(dataDir, version, mResources)) {
+        if (BuildConfig.DEBUG) {
+          Log.i(TAG, "Found extracted resources " + version);
+        }
+        return;
+      }
+      if (BuildConfig.DEBUG) {
+        Log.i(TAG, "Resource version mismatch " + version);
       }
 
-      deleteFiles(mDataDirPath, mResources);
+      // Files are about to change, so the manifest on disk no longer describes them. The previous
+      // manifest is still used to find assets that did not change.
+      new File(dataDir, MANIFEST_FILE_NAME).delete();
 
-      if (!extractAPK(dataDir)) {
-        return null;
+      final Manifest manifest = extractAPK(dataDir, version, previous);
+      if (manifest == null) {
+        return;
       }
 
-      if (timestamp != null) {
-        try {
-          new File(dataDir, timestamp).createNewFile();
-        } catch (IOException e) {
-          Log.w(TAG, "Failed to write resource timestamp");
-        }
+      try {
+        manifest.write(dataDir);
+      } catch (IOException e) {
+        Log.w(TAG, "Failed to write resource manifest");
       }
-
-      return null;
     }
 
-    /// Returns true if successfully unpacked APK resources,
-    /// otherwise deletes all resources and returns false.
+    /// Returns the manifest of the unpacked APK resources if successful,
+    /// otherwise deletes all resources and returns null.
     @WorkerThread
-    private boolean extractAPK(@NonNull File dataDir) {
-      for (String asset : mResources) {
-        try {
-          final String resource = "assets/" + asset;
-          final File output = new File(dataDir, asset);
-          if (output.exists()) {
-            continue;
-          }
-          if (output.getParentFile() != null) {
-            output.getParentFile().mkdirs();
+    @Nullable
+    private Manifest extractAPK(
+        @NonNull final File dataDir, @NonNull String version, @Nullable final Manifest previous) {
+      final Manifest manifest = new Manifest(version);
+      if (mResources.isEmpty()) {
+        return manifest;
+      }
+
+      final int threadCount =
+          Math.min(mResources.size(), Runtime.getRuntime().availableProcessors());
+      final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+      try {
+        final List<Future<Manifest.Entry>> entries = new ArrayList<>();
+        for (final String asset : mResources) {
+          entries.add(
+              executor.submit(
+                  new Callable<Manifest.Entry>() {
+                    @Override
+                    public Manifest.Entry call() throws IOException {
+                      return extractResource(
+                          dataDir, asset, previous == null ? null : previous.get(asset));
+                    }
+                  }));
+        }
+        for (Future<Manifest.Entry> entry : entries) {
+          manifest.put(entry.get());
+        }
+        return manifest;
+      } catch (ExecutionException | InterruptedException e) {
+        final Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+        Log.w(TAG, "Exception unpacking resources: " + cause.getMessage());
+        // The other tasks may still be writing, so they have to stop before their files can be
+        // deleted.
+        executor.shutdownNow();
+        boolean interrupted = e instanceof InterruptedException;
+        while (!executor.isTerminated()) {
+          try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+          } catch (InterruptedException awaitInterrupted) {
+            interrupted = true;
           }
+        }
+        deleteFiles(mDataDirPath, mResources);
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+        return null;
+      } finally {
+        executor.shutdownNow();
+      }
+    }
 
-          try (InputStream is = mAssetManager.open(asset);
-              OutputStream os = new FileOutputStream(output)) {
-            copy(is, os);
+    /// Extracts a single asset, unless the extracted file matches the given
+    /// entry of the previous manifest. Returns the asset's new manifest entry.
+    @WorkerThread
+    @NonNull
+    private Manifest.Entry extractResource(
+        @NonNull File dataDir, @NonNull String asset, @Nullable Manifest.Entry previous)
+        throws IOException {
+      final File output = new File(dataDir, asset);
+
+      AssetFileDescriptor fd = null;
+      try {
+        fd = mAssetManager.openFd(asset);
+      } catch (FileNotFoundException e) {
+        // The asset is either compressed or missing, both are handled below.
+      }
+
+      if (fd != null) {
+        try (FileInputStream is = fd.createInputStream()) {
+          final FileChannel in = is.getChannel();
+          final long offset = fd.getStartOffset();
+          final long length = fd.getLength();
+          final long checksum = checksum(in, offset, length);
+          if (isExtracted(output, previous, length, checksum)) {
+            return new Manifest.Entry(asset, length, checksum);
           }
-          if (BuildConfig.DEBUG) {
-            Log.i(TAG, "Extracted baseline resource " + resource);
+          prepareOutput(output);
+          try (FileOutputStream os = new FileOutputStream(output)) {
+            final FileChannel out = os.getChannel();
+            for (long transferred = 0; transferred < length; ) {
+              transferred += in.transferTo(offset + transferred, length - transferred, out);
+            }
           }
-        } catch (FileNotFoundException fnfe) {
-          continue;
-
-        } catch (IOException ioe) {
-          Log.w(TAG, "Exception unpacking resources: " + ioe.getMessage());
-          deleteFiles(mDataDirPath, mResources);
-          return false;
+          logExtracted(asset);
+          return new Manifest.Entry(asset, length, checksum);
+        } finally {
+          fd.close();
         }
       }
 
-      return true;
+      final long length;
+      final long checksum;
+      try (InputStream is = mAssetManager.open(asset)) {
+        final CRC32 crc = new CRC32();
+        length = checksum(is, crc);
+        checksum = crc.getValue();
+      } catch (FileNotFoundException e) {
+        // A file extracted from a previous version of the APK must not outlive the asset.
+        if (output.exists()) {
+          output.delete();
+        }
+        return Manifest.Entry.missing(asset);
+      }
+      if (isExtracted(output, previous, length, checksum)) {
+        return new Manifest.Entry(asset, length, checksum);
+      }
+      prepareOutput(output);
+      try (InputStream is = mAssetManager.open(asset);
+          OutputStream os = new FileOutputStream(output)) {
+        copy(is, os);
+      }
+      logExtracted(asset);
+      return new Manifest.Entry(asset, length, checksum);
     }
   }
 
@@ -126,6 +258,7 @@ class ResourceExtractor {
   @NonNull private final AssetManager mAssetManager;
   @NonNull private final HashSet<String> mResources;
   private ExtractTask mExtractTask;
+  private FutureTask<Void> mExtractFuture;
 
   ResourceExtractor(
       @NonNull String dataDirPath,
@@ -156,100 +289,249 @@ class ResourceExtractor {
     }
     mExtractTask =
         new ExtractTask(mDataDirPath, mResources, mPackageName, mPackageManager, mAssetManager);
-    mExtractTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    mExtractFuture = new FutureTask<>(mExtractTask);
+    AsyncTask.THREAD_POOL_EXECUTOR.execute(mExtractFuture);
     return this;
   }
 
+  /**
+   * Returns how long the last extraction took in milliseconds, or -1 if it has not completed yet.
+   */
+  long getExtractionMillis() {
+    return mExtractTask == null ? -1 : mExtractTask.mExtractionMillis;
+  }
+
   void waitForCompletion() {
-    if (mExtractTask == null) {
+    if (mExtractFuture == null) {
       return;
     }
 
     try {
-      mExtractTask.get();
+      mExtractFuture.get();
     } catch (CancellationException | ExecutionException | InterruptedException e) {
       deleteFiles(mDataDirPath, mResources);
     }
   }
 
-  private static String[] getExistingTimestamps(File dataDir) {
-    return dataDir.list(
-        new FilenameFilter() {
-          @Override
-          public boolean accept(File dir, String name) {
-            return name.startsWith(TIMESTAMP_PREFIX);
-          }
-        });
+  private static void deleteTimestamps(@NonNull File dataDir) {
+    final String[] existingTimestamps =
+        dataDir.list(
+            new FilenameFilter() {
+              @Override
+              public boolean accept(File dir, String name) {
+                return name.startsWith(TIMESTAMP_PREFIX);
+              }
+            });
+    if (existingTimestamps == null) {
+      return;
+    }
+    for (String timestamp : existingTimestamps) {
+      new File(dataDir, timestamp).delete();
+    }
   }
 
   private static void deleteFiles(@NonNull String dataDirPath, @NonNull HashSet<String> resources) {
     final File dataDir = new File(dataDirPath);
+    new File(dataDir, MANIFEST_FILE_NAME).delete();
     for (String resource : resources) {
       final File file = new File(dataDir, resource);
       if (file.exists()) {
         file.delete();
       }
     }
-    final String[] existingTimestamps = getExistingTimestamps(dataDir);
-    if (existingTimestamps == null) {
-      return;
-    }
-    for (String timestamp : existingTimestamps) {
-      new File(dataDir, timestamp).delete();
-    }
+    deleteTimestamps(dataDir);
   }
 
-  // Returns null if extracted resources are found and match the current APK version
-  // and update version if any, otherwise returns the current APK and update version.
-  private static String checkTimestamp(
-      @NonNull File dataDir, @NonNull PackageManager packageManager, @NonNull String packageName) {
+  // Returns the version of the APK and of its update, if any, that assets are extracted from.
+  @NonNull
+  private static String getApkVersion(
+      @NonNull PackageManager packageManager, @NonNull String packageName) {
     PackageInfo packageInfo = null;
 
     try {
       packageInfo = packageManager.getPackageInfo(packageName, 0);
     } catch (PackageManager.NameNotFoundException e) {
-      return TIMESTAMP_PREFIX;
+      return "";
     }
 
     if (packageInfo == null) {
-      return TIMESTAMP_PREFIX;
+      return "";
     }
 
-    String expectedTimestamp =
-        TIMESTAMP_PREFIX + getVersionCode(packageInfo) + "-" + packageInfo.lastUpdateTime;
+    return getVersionCode(packageInfo) + "-" + packageInfo.lastUpdateTime;
+  }
 
-    final String[] existingTimestamps = getExistingTimestamps(dataDir);
+  // Returns true if the output file was extracted from an asset with the given length and
+  // checksum.
+  private static boolean isExtracted(
+      @NonNull File output, @Nullable Manifest.Entry previous, long length, long checksum) {
+    return previous != null
+        && previous.length == length
+        && previous.checksum == checksum
+        && output.length() == length;
+  }
 
-    if (existingTimestamps == null) {
-      if (BuildConfig.DEBUG) {
-        Log.i(TAG, "No extracted resources found");
-      }
-      return expectedTimestamp;
+  private static void prepareOutput(@NonNull File output) {
+    if (output.getParentFile() != null) {
+      output.getParentFile().mkdirs();
     }
+  }
 
-    if (existingTimestamps.length == 1) {
-      if (BuildConfig.DEBUG) {
-        Log.i(TAG, "Found extracted resources " + existingTimestamps[0]);
-      }
+  private static void logExtracted(@NonNull String asset) {
+    if (BuildConfig.DEBUG) {
+      Log.i(TAG, "Extracted baseline resource assets/" + asset);
     }
+  }
 
-    if (existingTimestamps.length != 1 || !expectedTimestamp.equals(existingTimestamps[0])) {
-      if (BuildConfig.DEBUG) {
-        Log.i(TAG, "Resource version mismatch " + expectedTimestamp);
+  private static long checksum(@NonNull FileChannel in, long offset, long length)
+      throws IOException {
+    final CRC32 crc = new CRC32();
+    final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    for (long position = offset; position < offset + length; ) {
+      buffer.clear();
+      buffer.limit((int) Math.min(BUFFER_SIZE, offset + length - position));
+      final int read = in.read(buffer, position);
+      if (read < 0) {
+        throw new EOFException("Unexpected end of asset");
       }
-      return expectedTimestamp;
+      crc.update(buffer.array(), 0, read);
+      position += read;
     }
+    return crc.getValue();
+  }
 
-    return null;
+  private static long checksum(@NonNull InputStream in, @NonNull CRC32 crc) throws IOException {
+    byte[] buf = new byte[BUFFER_SIZE];
+    long length = 0;
+    for (int i; (i = in.read(buf)) >= 0; ) {
+      crc.update(buf, 0, i);
+      length += i;
+    }
+    return length;
   }
 
   private static void copy(@NonNull InputStream in, @NonNull OutputStream out) throws IOException {
-    byte[] buf = new byte[16 * 1024];
+    byte[] buf = new byte[BUFFER_SIZE];
     for (int i; (i = in.read(buf)) >= 0; ) {
       out.write(buf, 0, i);
     }
   }
 
+  /**
+   * Records the APK version that assets were extracted from, together with the length and checksum
+   * of every asset.
+   *
+   * <p>The manifest is a text file with the version on its first line, followed by one line per
+   * asset that holds the asset's checksum, length and name, separated by tabs. Assets that are not
+   * in the APK are recorded with a length of -1, and have no extracted file.
+   */
+  private static class Manifest {
+    @NonNull final String version;
+    @NonNull private final Map<String, Entry> entries = new HashMap<>();
+
+    Manifest(@NonNull String version) {
+      this.version = version;
+    }
+
+    @Nullable
+    Entry get(@NonNull String asset) {
+      return entries.get(asset);
+    }
+
+    void put(@NonNull Entry entry) {
+      entries.put(entry.asset, entry);
+    }
+
+    // Returns true if every resource was extracted from the given APK version and is unchanged
+    // on disk.
+    boolean isUpToDate(
+        @NonNull File dataDir, @NonNull String version, @NonNull Collection<String> resources) {
+      if (!this.version.equals(version)) {
+        return false;
+      }
+      for (String resource : resources) {
+        final Entry entry = entries.get(resource);
+        if (entry == null) {
+          return false;
+        }
+        final File file = new File(dataDir, resource);
+        if (entry.length >= 0 ? file.length() != entry.length : file.exists()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Nullable
+    static Manifest read(@NonNull File dataDir) {
+      final File file = new File(dataDir, MANIFEST_FILE_NAME);
+      if (!file.exists()) {
+        if (BuildConfig.DEBUG) {
+          Log.i(TAG, "No extracted resources found");
+        }
+        return null;
+      }
+      try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        final String version = reader.readLine();
+        if (version == null) {
+          return null;
+        }
+        final Manifest manifest = new Manifest(version);
+        for (String line; (line = reader.readLine()) != null; ) {
+          final String[] fields = line.split("\t", 3);
+          if (fields.length != 3) {
+            return null;
+          }
+          manifest.put(
+              new Entry(fields[2], Long.parseLong(fields[1]), Long.parseLong(fields[0], 16)));
+        }
+        return manifest;
+      } catch (IOException | NumberFormatException e) {
+        Log.w(TAG, "Failed to read resource manifest");
+        return null;
+      }
+    }
+
+    void write(@NonNull File dataDir) throws IOException {
+      // Write to a temporary file first, so that a partially written manifest is never read.
+      final File file = new File(dataDir, MANIFEST_FILE_NAME);
+      final File temp = new File(dataDir, MANIFEST_FILE_NAME + ".tmp");
+      try (Writer writer = new BufferedWriter(new FileWriter(temp))) {
+        writer.write(version);
+        writer.write('\n');
+        for (Entry entry : entries.values()) {
+          writer.write(Long.toHexString(entry.checksum));
+          writer.write('\t');
+          writer.write(Long.toString(entry.length));
+          writer.write('\t');
+          writer.write(entry.asset);
+          writer.write('\n');
+        }
+      }
+      if (!temp.renameTo(file)) {
+        temp.delete();
+        throw new IOException("Failed to rename " + temp);
+      }
+    }
+
+    static class Entry {
+      @NonNull final String asset;
+      final long length;
+      final long checksum;
+
+      Entry(@NonNull String asset, long length, long checksum) {
+        this.asset = asset;
+        this.length = length;
+        this.checksum = checksum;
+      }
+
+      @NonNull
+      static Entry missing(@NonNull String asset) {
+        return new Entry(asset, -1, 0);
+      }
+    }
+  }
+
   @SuppressWarnings("deprecation")
   private static String[] getSupportedAbis() {
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
@@ -0,0 +1,50 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.engine.plugins;
+
+import androidx.annotation.NonNull;
+import java.util.Set;
+
+/**
+ * Describes a {@link FlutterPlugin} that is only instantiated once it is needed.
+ *
+ * <p>Apps that register many plugins pay for the construction and {@link
+ * FlutterPlugin#onAttachedToEngine(FlutterPlugin.FlutterPluginBinding)} of every one of them while
+ * the {@link io.flutter.embedding.engine.FlutterEngine} starts up, even though most plugins are not
+ * used until much later, if at all. A {@code LazyFlutterPlugin} that is added with {@link
+ * PluginRegistry#add(LazyFlutterPlugin)} defers that work until either:
+ *
+ * <ul>
+ *   <li>Dart sends the first message on one of the plugin's {@link #getChannelNames()}, or
+ *   <li>the {@link io.flutter.embedding.engine.FlutterEngine} is attached to an Android component
+ *       that the plugin is aware of, e.g., an {@code Activity} for a plugin whose {@link
+ *       #getPluginClass()} implements {@link
+ *       io.flutter.embedding.engine.plugins.activity.ActivityAware}, or
+ *   <li>the plugin is looked up with {@link PluginRegistry#get(Class)}.
+ * </ul>
+ *
+ * <p>The plugin that is created by {@link #createPlugin()} must register a handler for each of the
+ * channels that are returned by {@link #getChannelNames()} in {@link
+ * FlutterPlugin#onAttachedToEngine(FlutterPlugin.FlutterPluginBinding)}, so that the message that
+ * caused its instantiation can be delivered to it.
+ */
+public interface LazyFlutterPlugin {
+  /**
+   * Returns the class of the {@link FlutterPlugin} that is returned by {@link #createPlugin()}.
+   *
+   * <p>The class identifies the plugin in the {@link PluginRegistry} before it is instantiated, and
+   * is inspected for the Android component awareness interfaces that it implements.
+   */
+  @NonNull
+  Class<? extends FlutterPlugin> getPluginClass();
+
+  /** Returns the names of the channels on which the plugin receives messages from Dart. */
+  @NonNull
+  Set<String> getChannelNames();
+
+  /** Creates the {@link FlutterPlugin}. Invoked at most once, on the main thread. */
+  @NonNull
+  FlutterPlugin createPlugin();
+}
@@ -22,6 +22,17 @@ public interface PluginRegistry {
    */
   void add(@NonNull Set<FlutterPlugin> plugins);
 
+  /**
+   * Registers the given {@code lazyPlugin} with the {@link
+   * io.flutter.embedding.engine.FlutterEngine} associated with this {@code PluginRegistry}, without
+   * instantiating it until it is needed, see {@link LazyFlutterPlugin}.
+   *
+   * <p>Registries that do not support lazy instantiation attach the plugin immediately.
+   */
+  default void add(@NonNull LazyFlutterPlugin lazyPlugin) {
+    add(lazyPlugin.createPlugin());
+  }
+
   /**
    * Returns true if a plugin of the given type is currently attached to the {@link
    * io.flutter.embedding.engine.FlutterEngine} associated with this {@code PluginRegistry}.
@@ -221,40 +221,42 @@ public class FlutterRenderer implements TextureRegistry {
 
   // TODO(mattcarroll): describe the native behavior that this invokes
   public void setViewportMetrics(@NonNull ViewportMetrics viewportMetrics) {
-    Log.v(
-        TAG,
-        "Setting viewport metrics\n"
-            + "Size: "
-            + viewportMetrics.width
-            + " x "
-            + viewportMetrics.height
-            + "\n"
-            + "Padding - L: "
-            + viewportMetrics.paddingLeft
-            + ", T: "
-            + viewportMetrics.paddingTop
-            + ", R: "
-            + viewportMetrics.paddingRight
-            + ", B: "
-            + viewportMetrics.paddingBottom
-            + "\n"
-            + "Insets - L: "
-            + viewportMetrics.viewInsetLeft
-            + ", T: "
-            + viewportMetrics.viewInsetTop
-            + ", R: "
-            + viewportMetrics.viewInsetRight
-            + ", B: "
-            + viewportMetrics.viewInsetBottom
-            + "\n"
-            + "System Gesture Insets - L: "
-            + viewportMetrics.systemGestureInsetLeft
-            + ", T: "
-            + viewportMetrics.systemGestureInsetTop
-            + ", R: "
-            + viewportMetrics.systemGestureInsetRight
-            + ", B: "
-            + viewportMetrics.viewInsetBottom);
+    if (Log.isLoggable(android.util.Log.VERBOSE)) {
+      Log.v(
+          TAG,
+          "Setting viewport metrics\n"
+              + "Size: "
+              + viewportMetrics.width
+              + " x "
+              + viewportMetrics.height
+              + "\n"
+              + "Padding - L: "
+              + viewportMetrics.paddingLeft
+              + ", T: "
+              + viewportMetrics.paddingTop
+              + ", R: "
+              + viewportMetrics.paddingRight
+              + ", B: "
+              + viewportMetrics.paddingBottom
+              + "\n"
+              + "Insets - L: "
+              + viewportMetrics.viewInsetLeft
+              + ", T: "
+              + viewportMetrics.viewInsetTop
+              + ", R: "
+              + viewportMetrics.viewInsetRight
+              + ", B: "
+              + viewportMetrics.viewInsetBottom
+              + "\n"
+              + "System Gesture Insets - L: "
+              + viewportMetrics.systemGestureInsetLeft
+              + ", T: "
+              + viewportMetrics.systemGestureInsetTop
+              + ", R: "
+              + viewportMetrics.systemGestureInsetRight
+              + ", B: "
+              + viewportMetrics.systemGestureInsetBottom);
+    }
 
     flutterJNI.setViewportMetrics(
         viewportMetrics.devicePixelRatio,
@@ -48,7 +48,9 @@ public class TextInputChannel {
 
           String method = call.method;
           Object args = call.arguments;
-          Log.v(TAG, "Received '" + method + "' message.");
+          if (Log.isLoggable(android.util.Log.VERBOSE)) {
+            Log.v(TAG, "Received '" + method + "' message.");
+          }
           switch (method) {
             case "TextInput.show":
               textInputMethodHandler.show();
@@ -129,23 +131,25 @@ public class TextInputChannel {
       int selectionEnd,
       int composingStart,
       int composingEnd) {
-    Log.v(
-        TAG,
-        "Sending message to update editing state: \n"
-            + "Text: "
-            + text
-            + "\n"
-            + "Selection start: "
-            + selectionStart
-            + "\n"
-            + "Selection end: "
-            + selectionEnd
-            + "\n"
-            + "Composing start: "
-            + composingStart
-            + "\n"
-            + "Composing end: "
-            + composingEnd);
+    if (Log.isLoggable(android.util.Log.VERBOSE)) {
+      Log.v(
+          TAG,
+          "Sending message to update editing state: \n"
+              + "Text: "
+              + text
+              + "\n"
+              + "Selection start: "
+              + selectionStart
+              + "\n"
+              + "Selection end: "
+              + selectionEnd
+              + "\n"
+              + "Composing start: "
+              + composingStart
+              + "\n"
+              + "Composing end: "
+              + composingEnd);
+    }
 
     HashMap<Object, Object> state = new HashMap<>();
     state.put("text", text);
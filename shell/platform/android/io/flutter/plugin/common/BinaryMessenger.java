@@ -18,7 +18,13 @@ import java.nio.ByteBuffer;
  * <p>{@code BinaryMessenger} is expected to be utilized from a single thread throughout the
  * duration of its existence. If created on the main thread, then all invocations should take place
  * on the main thread. If created on a background thread, then all invocations should take place on
- * that background thread.
+ * that background thread. The exception are the {@code send} methods of the {@code BinaryMessenger}
+ * provided by the Flutter embedding's {@link io.flutter.embedding.engine.dart.DartExecutor}, which
+ * may be invoked from any thread.
+ *
+ * <p>Handlers for channels that do expensive work can be moved off the main thread by registering
+ * them with a {@link TaskQueue}, see {@link #makeBackgroundTaskQueue()} and {@link
+ * #setMessageHandler(String, BinaryMessageHandler, TaskQueue)}.
  *
  * @see BasicMessageChannel , which supports message passing with Strings and semi-structured
  *     messages.
@@ -33,13 +39,13 @@ public interface BinaryMessenger {
    * @param message the message payload, a direct-allocated {@link ByteBuffer} with the message
    *     bytes between position zero and current position, or null.
    */
-  @UiThread
   void send(@NonNull String channel, @Nullable ByteBuffer message);
 
   /**
    * Sends a binary message to the Flutter application, optionally expecting a reply.
    *
-   * <p>Any uncaught exception thrown by the reply callback will be caught and logged.
+   * <p>Any uncaught exception thrown by the reply callback will be caught and logged. The reply
+   * callback is invoked on the main thread.
    *
    * @param channel the name {@link String} of the logical channel used for the message.
    * @param message the message payload, a direct-allocated {@link ByteBuffer} with the message
@@ -47,9 +53,35 @@ public interface BinaryMessenger {
    * @param callback a {@link BinaryReply} callback invoked when the Flutter application responds to
    *     the message, possibly null.
    */
-  @UiThread
   void send(@NonNull String channel, @Nullable ByteBuffer message, @Nullable BinaryReply callback);
 
+  /**
+   * Sends a binary message to the Flutter application, and gives up on its reply after {@code
+   * timeoutMillis}.
+   *
+   * <p>Behaves like {@link #send(String, ByteBuffer, BinaryReply)}, except that if the Flutter
+   * application does not respond within {@code timeoutMillis}, {@code callback} is invoked on the
+   * main thread with a null reply, and a response that arrives later is dropped. A null reply is
+   * also what the callback receives if the Flutter application has no handler for the channel.
+   *
+   * @param channel the name {@link String} of the logical channel used for the message.
+   * @param message the message payload, a direct-allocated {@link ByteBuffer} with the message
+   *     bytes between position zero and current position, or null.
+   * @param callback a {@link BinaryReply} callback invoked when the Flutter application responds to
+   *     the message or the timeout expires, possibly null.
+   * @param timeoutMillis the time to wait for the reply, or 0 to wait without a timeout.
+   * @throws UnsupportedOperationException if this {@code BinaryMessenger} does not support reply
+   *     timeouts.
+   */
+  default void send(
+      @NonNull String channel,
+      @Nullable ByteBuffer message,
+      @Nullable BinaryReply callback,
+      long timeoutMillis) {
+    throw new UnsupportedOperationException(
+        getClass().getName() + " does not support reply timeouts.");
+  }
+
   /**
    * Registers a handler to be invoked when the Flutter application sends a message to its host
    * platform.
@@ -66,6 +98,57 @@ public interface BinaryMessenger {
   @UiThread
   void setMessageHandler(@NonNull String channel, @Nullable BinaryMessageHandler handler);
 
+  /**
+   * Creates a {@link TaskQueue} that executes message handlers on a background thread.
+   *
+   * <p>Handlers registered with the same {@link TaskQueue} are executed serially, in the order in
+   * which their messages arrived. Handlers registered with different {@link TaskQueue}s may run
+   * concurrently.
+   *
+   * @throws UnsupportedOperationException if this {@code BinaryMessenger} cannot dispatch messages
+   *     to background threads.
+   */
+  @UiThread
+  @NonNull
+  default TaskQueue makeBackgroundTaskQueue() {
+    throw new UnsupportedOperationException(
+        getClass().getName() + " does not support background task queues.");
+  }
+
+  /**
+   * Registers a handler to be invoked on the given {@code taskQueue} when the Flutter application
+   * sends a message to its host platform.
+   *
+   * <p>Behaves like {@link #setMessageHandler(String, BinaryMessageHandler)}, except that incoming
+   * messages are handed to {@code handler} on the thread backing {@code taskQueue}, instead of the
+   * main thread. Messages received on a single channel are always handled in the order in which
+   * they were sent. The {@link BinaryReply} handed to the handler may be used from any thread.
+   *
+   * @param channel the name {@link String} of the channel.
+   * @param handler a {@link BinaryMessageHandler} to be invoked on incoming messages, or null.
+   * @param taskQueue a {@link TaskQueue} obtained from {@link #makeBackgroundTaskQueue()}, or null
+   *     to invoke {@code handler} on the main thread.
+   */
+  @UiThread
+  default void setMessageHandler(
+      @NonNull String channel,
+      @Nullable BinaryMessageHandler handler,
+      @Nullable TaskQueue taskQueue) {
+    if (taskQueue != null) {
+      throw new UnsupportedOperationException(
+          getClass().getName() + " does not support background task queues.");
+    }
+    setMessageHandler(channel, handler);
+  }
+
+  /**
+   * An opaque handle to a serial queue that message handlers can be executed on.
+   *
+   * <p>Instances are obtained from {@link BinaryMessenger#makeBackgroundTaskQueue()} and are only
+   * meaningful to the {@code BinaryMessenger} that created them.
+   */
+  interface TaskQueue {}
+
   /** Handler for incoming binary messages from Flutter. */
   interface BinaryMessageHandler {
     /**
@@ -78,13 +161,34 @@ public interface BinaryMessenger {
      * <p>Any uncaught exception thrown by this method will be caught by the messenger
      * implementation and logged, and a null reply message will be sent back to Flutter.
      *
+     * <p>This method is invoked on the main thread, unless the handler was registered with a {@link
+     * TaskQueue}.
+     *
      * @param message the message {@link ByteBuffer} payload, possibly null.
      * @param reply A {@link BinaryReply} used for submitting a reply back to Flutter.
      */
-    @UiThread
     void onMessage(@Nullable ByteBuffer message, @NonNull BinaryReply reply);
   }
 
+  /**
+   * A {@link BinaryMessageHandler} that receives incoming messages without copying them onto the
+   * Java heap.
+   *
+   * <p>By default, every incoming message is copied into a heap {@link ByteBuffer} before it is
+   * handed to a {@link BinaryMessageHandler}, so that handlers may hold on to the message for as
+   * long as they like. Handlers that implement {@code DirectBinaryMessageHandler} instead receive a
+   * read-only view of the message as a direct {@link ByteBuffer} that is backed by the engine's
+   * native copy of the message. This avoids a Java allocation proportional to the message size,
+   * which matters for channels that carry large payloads at a high rate.
+   *
+   * <p>The message {@link ByteBuffer} is only valid until {@link #onMessage(ByteBuffer,
+   * BinaryReply)} returns. Handlers must not retain the buffer, or any view derived from it, beyond
+   * that point, even if they submit their reply asynchronously. Bytes that are needed later must be
+   * copied out before returning. Accessing the buffer after {@code onMessage} has returned reads
+   * memory that has already been released.
+   */
+  interface DirectBinaryMessageHandler extends BinaryMessageHandler {}
+
   /**
    * Binary message reply callback. Used to submit a reply to an incoming message from Flutter. Also
    * used in the dual capacity to handle a reply received from Flutter after sending a message.
@@ -93,11 +197,13 @@ public interface BinaryMessenger {
     /**
      * Handles the specified reply.
      *
+     * <p>Replies to incoming messages may be submitted from any thread. Replies received from
+     * Flutter are delivered on the main thread.
+     *
      * @param reply the reply payload, a direct-allocated {@link ByteBuffer} or null. Senders of
      *     outgoing replies must place the reply bytes between position zero and current position.
      *     Reply receivers can read from the buffer directly.
      */
-    @UiThread
     void reply(@Nullable ByteBuffer reply);
   }
 }
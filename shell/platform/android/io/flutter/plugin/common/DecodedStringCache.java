@@ -0,0 +1,151 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugin.common;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Static singleton cache of the short map keys and method names decoded by {@link
+ * StandardMessageCodec}.
+ *
+ * <p>Messages on a channel tend to repeat the same keys, such as {@code "type"} or method argument
+ * names, and decoding each of them allocates a byte array and a new {@link String}. {@code
+ * DecodedStringCache} keeps recently decoded ASCII strings of up to {@link #MAX_CACHED_LENGTH}
+ * bytes, which are compared directly against the message buffer, so that a recurring key is decoded
+ * without allocating at all. A string that is not found only allocates the {@link String} itself.
+ * Returned strings are shared, and keep their hash code from one message to the next.
+ *
+ * <p>The cache is bounded: it has a fixed number of slots, each holding a single string, and a
+ * string that maps to an occupied slot replaces the string in it. The hit and miss counts tell
+ * whether the cache pays off for an app's traffic. {@link StandardMessageCodec} only decodes map
+ * keys and method names through the cache, so that it never retains other strings, such as the
+ * values of text input.
+ *
+ * <p>{@code DecodedStringCache} is thread-safe.
+ */
+public final class DecodedStringCache {
+  /** Strings whose UTF-8 encoding is longer than this many bytes are decoded without caching. */
+  public static final int MAX_CACHED_LENGTH = 32;
+
+  private static final int DEFAULT_SLOT_COUNT = 512;
+  private static final Charset UTF8 = Charset.forName("UTF8");
+
+  private static final DecodedStringCache instance = new DecodedStringCache(DEFAULT_SLOT_COUNT);
+
+  // Holds the bytes of a short string that is decoded from a buffer without a backing array, as a
+  // String can only be created from an array.
+  private static final ThreadLocal<byte[]> scratchBytes =
+      new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+          return new byte[MAX_CACHED_LENGTH];
+        }
+      };
+
+  /** Returns the cache that is shared by all {@link StandardMessageCodec}s. */
+  @NonNull
+  public static DecodedStringCache getInstance() {
+    return instance;
+  }
+
+  @NonNull private final AtomicReferenceArray<String> slots;
+  private final int slotMask;
+  @NonNull private final AtomicLong hitCount = new AtomicLong();
+  @NonNull private final AtomicLong missCount = new AtomicLong();
+
+  /** Creates a cache with {@code slotCount} slots, which must be a power of two. */
+  @VisibleForTesting
+  /* package */ DecodedStringCache(int slotCount) {
+    if (slotCount <= 0 || (slotCount & (slotCount - 1)) != 0) {
+      throw new IllegalArgumentException("slotCount must be a power of two: " + slotCount);
+    }
+    this.slots = new AtomicReferenceArray<>(slotCount);
+    this.slotMask = slotCount - 1;
+  }
+
+  /**
+   * Decodes the {@code length} bytes at the position of {@code buffer} as a UTF-8 string, and
+   * advances the buffer past them.
+   */
+  @NonNull
+  String readString(@NonNull ByteBuffer buffer, int length) {
+    if (length > buffer.remaining()) {
+      throw new IllegalArgumentException("Message corrupted");
+    }
+    final int position = buffer.position();
+    if (length > MAX_CACHED_LENGTH) {
+      return decode(buffer, position, length);
+    }
+
+    // For ASCII, this is the hash code of the decoded string.
+    int hash = 0;
+    for (int i = 0; i < length; i++) {
+      final byte b = buffer.get(position + i);
+      if (b < 0) {
+        // Not ASCII, so the string can not be compared against the buffer char by char.
+        return decode(buffer, position, length);
+      }
+      hash = 31 * hash + b;
+    }
+    final int slot = (hash ^ (hash >>> 16)) & slotMask;
+    final String cached = slots.get(slot);
+    if (cached != null && matches(cached, hash, buffer, position, length)) {
+      hitCount.incrementAndGet();
+      buffer.position(position + length);
+      return cached;
+    }
+
+    missCount.incrementAndGet();
+    final String value = decode(buffer, position, length);
+    slots.set(slot, value);
+    return value;
+  }
+
+  /** Returns the number of strings that were found in the cache. */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /** Returns the number of strings short enough to be cached that were not found in the cache. */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Returns true if the ASCII string {@code cached} is the string encoded by the {@code length}
+   * bytes at {@code position}, whose hash code is {@code hash}.
+   */
+  private static boolean matches(
+      @NonNull String cached, int hash, @NonNull ByteBuffer buffer, int position, int length) {
+    if (cached.length() != length || cached.hashCode() != hash) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (cached.charAt(i) != buffer.get(position + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Decodes a string without the cache, straight from the buffer's backing array if it has one. */
+  @NonNull
+  private static String decode(@NonNull ByteBuffer buffer, int position, int length) {
+    if (buffer.hasArray()) {
+      final String value =
+          new String(buffer.array(), buffer.arrayOffset() + position, length, UTF8);
+      buffer.position(position + length);
+      return value;
+    }
+    final byte[] bytes = length <= MAX_CACHED_LENGTH ? scratchBytes.get() : new byte[length];
+    buffer.get(bytes, 0, length);
+    return new String(bytes, 0, length, UTF8);
+  }
+}
@@ -0,0 +1,244 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugin.common;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Static singleton pool of direct {@link ByteBuffer}s used to encode outgoing platform messages.
+ *
+ * <p>Allocating a direct {@link ByteBuffer} is comparatively expensive on Android, and the memory
+ * behind it is only reclaimed once the garbage collector runs the buffer's cleaner. Channels that
+ * send many messages per second therefore produce a steady stream of short-lived native
+ * allocations. {@code DirectByteBufferPool} keeps a small number of buffers in power-of-two size
+ * classes, from {@link #MIN_POOLED_CAPACITY} to {@link #MAX_POOLED_CAPACITY} bytes, so that those
+ * allocations can be reused.
+ *
+ * <p>Buffers are handed out by {@link #acquire(int)} and should be handed back with {@link
+ * #release(ByteBuffer)} once their contents have been consumed. The pool tracks the buffers it has
+ * handed out, so {@link #release(ByteBuffer)} may safely be called with any buffer: buffers that
+ * did not originate from this pool are ignored, and those whose capacity is not one of the pool's
+ * size classes are ignored without taking a lock, see {@link #canBePooled(ByteBuffer)}. Once a
+ * buffer has been released it must not be read or written by its previous owner. Every pooled
+ * buffer is tracked through a single weak reference that is created along with the buffer, so a
+ * buffer that is never released, for example because it was kept by a plugin or sent through a
+ * custom {@link BinaryMessenger}, is reclaimed by the garbage collector like any other buffer.
+ *
+ * <p>{@link StandardMessageCodec#POOLED_INSTANCE} encodes messages into buffers from this pool,
+ * and the Flutter embedding's {@link BinaryMessenger} releases them as soon as the message has been
+ * handed to Flutter's engine.
+ *
+ * <p>{@code DirectByteBufferPool} is thread-safe.
+ */
+public final class DirectByteBufferPool {
+  /** Capacity, in bytes, of the smallest size class held by the pool. */
+  public static final int MIN_POOLED_CAPACITY = 256;
+
+  /**
+   * Capacity, in bytes, of the largest size class held by the pool. Larger requests are served by
+   * a fresh allocation that is never pooled.
+   */
+  public static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+  private static final int MIN_POOLED_CAPACITY_SHIFT = 8;
+  private static final int SIZE_CLASS_COUNT = 9;
+  private static final int DEFAULT_MAX_BUFFERS_PER_SIZE_CLASS = 8;
+
+  private static final DirectByteBufferPool instance =
+      new DirectByteBufferPool(DEFAULT_MAX_BUFFERS_PER_SIZE_CLASS);
+
+  /** Returns the static singleton instance of {@code DirectByteBufferPool}. */
+  @NonNull
+  public static DirectByteBufferPool getInstance() {
+    return instance;
+  }
+
+  /**
+   * Returns true if {@code buffer} could have been handed out by a {@code DirectByteBufferPool},
+   * which is the case for direct buffers whose capacity is one of the pool's size classes.
+   *
+   * <p>This only looks at the buffer itself, so callers can use it to skip {@link
+   * #release(ByteBuffer)} for buffers that are known not to be pooled.
+   */
+  public static boolean canBePooled(@Nullable ByteBuffer buffer) {
+    return buffer != null && buffer.isDirect() && sizeClassOfCapacity(buffer.capacity()) != -1;
+  }
+
+  @NonNull private final SizeClass[] sizeClasses;
+
+  @VisibleForTesting
+  /* package */ DirectByteBufferPool(int maxBuffersPerSizeClass) {
+    this.sizeClasses = new SizeClass[SIZE_CLASS_COUNT];
+    for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+      sizeClasses[i] = new SizeClass(MIN_POOLED_CAPACITY << i, maxBuffersPerSizeClass);
+    }
+  }
+
+  /**
+   * Returns a direct {@link ByteBuffer} with a position of zero and a limit of {@code size}.
+   *
+   * <p>The returned buffer may have a capacity larger than {@code size}, and uses big-endian byte
+   * order, just like a buffer returned from {@link ByteBuffer#allocateDirect(int)}.
+   */
+  @NonNull
+  public ByteBuffer acquire(int size) {
+    if (size > MAX_POOLED_CAPACITY) {
+      return ByteBuffer.allocateDirect(size);
+    }
+    final ByteBuffer buffer = sizeClasses[sizeClassFor(size)].acquire();
+    buffer.clear();
+    buffer.limit(size);
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    return buffer;
+  }
+
+  /**
+   * Returns the given {@code buffer} to this pool, if it was previously obtained from {@link
+   * #acquire(int)} and has not been released yet.
+   *
+   * @return true if the buffer was taken back by the pool, false if the buffer is unknown to the
+   *     pool.
+   */
+  public boolean release(@Nullable ByteBuffer buffer) {
+    if (!canBePooled(buffer)) {
+      return false;
+    }
+    return sizeClasses[sizeClassOfCapacity(buffer.capacity())].release(buffer);
+  }
+
+  /** Returns the number of buffers that are currently available for reuse. */
+  @VisibleForTesting
+  int getFreeBufferCount() {
+    int count = 0;
+    for (SizeClass sizeClass : sizeClasses) {
+      count += sizeClass.getFreeBufferCount();
+    }
+    return count;
+  }
+
+  /** Returns the number of pooled buffers that have been acquired but not yet released. */
+  @VisibleForTesting
+  int getAcquiredBufferCount() {
+    int count = 0;
+    for (SizeClass sizeClass : sizeClasses) {
+      count += sizeClass.getAcquiredBufferCount();
+    }
+    return count;
+  }
+
+  private static int sizeClassFor(int size) {
+    if (size <= MIN_POOLED_CAPACITY) {
+      return 0;
+    }
+    // Index of the smallest power of two that is >= size, relative to MIN_POOLED_CAPACITY.
+    return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_POOLED_CAPACITY_SHIFT;
+  }
+
+  /** Returns the size class whose buffers have the given {@code capacity}, or -1 if none does. */
+  private static int sizeClassOfCapacity(int capacity) {
+    if (capacity < MIN_POOLED_CAPACITY
+        || capacity > MAX_POOLED_CAPACITY
+        || (capacity & (capacity - 1)) != 0) {
+      return -1;
+    }
+    return Integer.numberOfTrailingZeros(capacity) - MIN_POOLED_CAPACITY_SHIFT;
+  }
+
+  /**
+   * The buffers of a single capacity, each with the weak reference that identifies it for as long
+   * as it lives. A size class has its own lock, so that messages of different sizes do not contend.
+   */
+  private static final class SizeClass {
+    private final int capacity;
+    private final int maxFreeBuffers;
+    // The references of released buffers, which are kept alive through freeBuffers.
+    @NonNull private final WeakReference<ByteBuffer>[] freeReferences;
+    @NonNull private final ByteBuffer[] freeBuffers;
+    private int freeCount = 0;
+    // The references of buffers that were handed out and not released yet. These are the only
+    // references the pool keeps to such buffers, so a buffer that is never released can be
+    // collected, after which its cleared reference is dropped by the next scan.
+    @NonNull private WeakReference<ByteBuffer>[] acquiredReferences;
+    private int acquiredCount = 0;
+
+    @SuppressWarnings("unchecked")
+    SizeClass(int capacity, int maxFreeBuffers) {
+      this.capacity = capacity;
+      this.maxFreeBuffers = maxFreeBuffers;
+      this.freeReferences = new WeakReference[maxFreeBuffers];
+      this.freeBuffers = new ByteBuffer[maxFreeBuffers];
+      this.acquiredReferences = new WeakReference[Math.max(4, maxFreeBuffers)];
+    }
+
+    @NonNull
+    synchronized ByteBuffer acquire() {
+      final ByteBuffer buffer;
+      final WeakReference<ByteBuffer> reference;
+      if (freeCount > 0) {
+        freeCount--;
+        buffer = freeBuffers[freeCount];
+        reference = freeReferences[freeCount];
+        freeBuffers[freeCount] = null;
+        freeReferences[freeCount] = null;
+      } else {
+        buffer = ByteBuffer.allocateDirect(capacity);
+        reference = new WeakReference<>(buffer);
+      }
+      if (acquiredCount == acquiredReferences.length) {
+        dropCollectedReferences();
+        if (acquiredCount == acquiredReferences.length) {
+          acquiredReferences = Arrays.copyOf(acquiredReferences, acquiredCount * 2);
+        }
+      }
+      acquiredReferences[acquiredCount++] = reference;
+      return buffer;
+    }
+
+    synchronized boolean release(@NonNull ByteBuffer buffer) {
+      for (int i = 0; i < acquiredCount; i++) {
+        final WeakReference<ByteBuffer> reference = acquiredReferences[i];
+        if (reference.get() != buffer) {
+          continue;
+        }
+        acquiredReferences[i] = acquiredReferences[--acquiredCount];
+        acquiredReferences[acquiredCount] = null;
+        if (freeCount < maxFreeBuffers) {
+          freeBuffers[freeCount] = buffer;
+          freeReferences[freeCount] = reference;
+          freeCount++;
+        }
+        return true;
+      }
+      return false;
+    }
+
+    synchronized int getFreeBufferCount() {
+      return freeCount;
+    }
+
+    synchronized int getAcquiredBufferCount() {
+      dropCollectedReferences();
+      return acquiredCount;
+    }
+
+    /** Forgets the buffers that were never released and have been garbage collected since. */
+    private void dropCollectedReferences() {
+      int kept = 0;
+      for (int i = 0; i < acquiredCount; i++) {
+        if (acquiredReferences[i].get() != null) {
+          acquiredReferences[kept++] = acquiredReferences[i];
+        }
+      }
+      Arrays.fill(acquiredReferences, kept, acquiredCount, null);
+      acquiredCount = kept;
+    }
+  }
+}
@@ -5,17 +5,33 @@
 package io.flutter.plugin.common;
 
 import android.util.Log;
+import androidx.annotation.Nullable;
 import io.flutter.BuildConfig;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
 
 /**
  * MessageCodec using the Flutter standard binary encoding.
@@ -33,7 +49,7 @@ import java.util.Map.Entry;
  *   <li>BigIntegers (see below)
  *   <li>Floats, Doubles
  *   <li>Strings
- *   <li>byte[], int[], long[], double[]
+ *   <li>byte[], int[], long[], float[], double[]
  *   <li>Lists of supported values
  *   <li>Maps with supported keys and values
  * </ul>
@@ -49,6 +65,7 @@ import java.util.Map.Entry;
  *   <li>byte[]: Uint8List
  *   <li>int[]: Int32List
  *   <li>long[]: Int64List
+ *   <li>float[]: Float32List
  *   <li>double[]: Float64List
  *   <li>List: List
  *   <li>Map: Map
@@ -57,22 +74,99 @@ import java.util.Map.Entry;
  * <p>BigIntegers are represented in Dart as strings with the hexadecimal representation of the
  * integer's value.
  *
+ * <p>float[] values are encoded with type 14, which the iOS, desktop and web codecs of this engine
+ * decode as well. The Dart side decodes them only if the app's Flutter framework is recent enough
+ * that its StandardMessageCodec decodes Float32List values. Older frameworks fail to decode such
+ * messages, so plugins that support them should send double[] instead.
+ *
+ * <p>Floats are widened to doubles, as Dart has no single precision scalar type. {@link IntBuffer},
+ * {@link LongBuffer}, {@link FloatBuffer} and {@link DoubleBuffer} values are encoded like the
+ * corresponding arrays, from their position to their limit.
+ *
+ * <p>By default, typed data is decoded into freshly allocated arrays. A codec constructed with
+ * {@code decodeTypedDataAsBuffers} instead decodes int[], long[], float[] and double[] data into
+ * {@link IntBuffer}, {@link LongBuffer}, {@link FloatBuffer} and {@link DoubleBuffer} views of the
+ * decoded message, which avoids copying large arrays. The views share the message's storage and
+ * lifetime: messages received by a {@link BinaryMessenger.DirectBinaryMessageHandler} are only
+ * valid until its {@code onMessage} returns, and so are the views decoded from them.
+ *
+ * <p>A codec constructed with a {@code lazyCollectionThreshold} decodes lists and maps with at
+ * least that many entries lazily: decoding such a collection only validates its encoding and
+ * records where each entry starts, and entries are decoded on first access. Handlers that only
+ * read a few entries of a large message then do not pay for decoding the rest. Lazily decoded
+ * collections are read-only, are not thread-safe, and hold on to the decoded message, with the same
+ * lifetime restrictions as typed data views.
+ *
+ * <p>Short map keys and method names are decoded through the shared {@link DecodedStringCache},
+ * as they recur from one message to the next, and are then not allocated again. Other strings, such
+ * as the values of text input, are never retained by the cache.
+ *
  * <p>To extend the codec, overwrite the writeValue and readValueOfType methods.
+ *
+ * <p>A codec constructed with a {@link DirectByteBufferPool}, such as {@link #POOLED_INSTANCE},
+ * encodes straight into pooled direct buffers, without an intermediate heap array. Buffers
+ * returned by such a codec are owned by the {@link BinaryMessenger} they are sent with, and must
+ * not be accessed after they have been sent.
  */
 public class StandardMessageCodec implements MessageCodec<Object> {
   private static final String TAG = "StandardMessageCodec#";
   public static final StandardMessageCodec INSTANCE = new StandardMessageCodec();
+  public static final StandardMessageCodec POOLED_INSTANCE =
+      new StandardMessageCodec(DirectByteBufferPool.getInstance());
+
+  @Nullable private final DirectByteBufferPool bufferPool;
+  @Nullable private final ThreadLocal<DirectBufferOutputStream> retainedStream;
+  private final boolean decodeTypedDataAsBuffers;
+  private final int lazyCollectionThreshold;
+
+  public StandardMessageCodec() {
+    this(null);
+  }
+
+  /**
+   * Creates a codec that encodes messages into direct buffers obtained from the given {@code
+   * bufferPool}, or into freshly allocated direct buffers if {@code bufferPool} is null.
+   */
+  public StandardMessageCodec(@Nullable DirectByteBufferPool bufferPool) {
+    this(bufferPool, false);
+  }
+
+  /**
+   * Same as {@link #StandardMessageCodec(DirectByteBufferPool)}, but decodes typed data into views
+   * of the decoded message instead of arrays if {@code decodeTypedDataAsBuffers} is true.
+   */
+  public StandardMessageCodec(
+      @Nullable DirectByteBufferPool bufferPool, boolean decodeTypedDataAsBuffers) {
+    this(bufferPool, decodeTypedDataAsBuffers, 0);
+  }
+
+  /**
+   * Same as {@link #StandardMessageCodec(DirectByteBufferPool, boolean)}, but decodes lists and
+   * maps with at least {@code lazyCollectionThreshold} entries lazily, or all of them eagerly if
+   * {@code lazyCollectionThreshold} is 0.
+   */
+  public StandardMessageCodec(
+      @Nullable DirectByteBufferPool bufferPool,
+      boolean decodeTypedDataAsBuffers,
+      int lazyCollectionThreshold) {
+    this.bufferPool = bufferPool;
+    this.retainedStream = bufferPool == null ? null : new ThreadLocal<>();
+    this.decodeTypedDataAsBuffers = decodeTypedDataAsBuffers;
+    this.lazyCollectionThreshold = lazyCollectionThreshold;
+  }
 
   @Override
   public ByteBuffer encodeMessage(Object message) {
     if (message == null) {
       return null;
     }
-    final ExposedByteArrayOutputStream stream = new ExposedByteArrayOutputStream();
-    writeValue(stream, message);
-    final ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
-    buffer.put(stream.buffer(), 0, stream.size());
-    return buffer;
+    final ByteArrayOutputStream stream = obtainStream();
+    try {
+      writeValue(stream, message);
+      return toDirectByteBuffer(stream);
+    } finally {
+      recycleStream(stream);
+    }
   }
 
   @Override
@@ -90,6 +184,7 @@ public class StandardMessageCodec implements MessageCodec<Object> {
 
   private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
   private static final Charset UTF8 = Charset.forName("UTF8");
+  private static final DecodedStringCache STRING_CACHE = DecodedStringCache.getInstance();
   private static final byte NULL = 0;
   private static final byte TRUE = 1;
   private static final byte FALSE = 2;
@@ -104,6 +199,7 @@ public class StandardMessageCodec implements MessageCodec<Object> {
   private static final byte DOUBLE_ARRAY = 11;
   private static final byte LIST = 12;
   private static final byte MAP = 13;
+  private static final byte FLOAT_ARRAY = 14;
 
   /**
    * Writes an int representing a size to the specified stream. Uses an expanding code of 1 to 5
@@ -173,6 +269,11 @@ public class StandardMessageCodec implements MessageCodec<Object> {
     }
   }
 
+  /** Writes the specified float as 4 bytes to the specified stream. */
+  protected static final void writeFloat(ByteArrayOutputStream stream, float value) {
+    writeInt(stream, Float.floatToIntBits(value));
+  }
+
   /** Writes the specified double as 8 bytes to the specified stream. */
   protected static final void writeDouble(ByteArrayOutputStream stream, double value) {
     writeLong(stream, Double.doubleToLongBits(value));
@@ -251,6 +352,14 @@ public class StandardMessageCodec implements MessageCodec<Object> {
       for (final long n : array) {
         writeLong(stream, n);
       }
+    } else if (value instanceof float[]) {
+      stream.write(FLOAT_ARRAY);
+      final float[] array = (float[]) value;
+      writeSize(stream, array.length);
+      writeAlignment(stream, 4);
+      for (final float f : array) {
+        writeFloat(stream, f);
+      }
     } else if (value instanceof double[]) {
       stream.write(DOUBLE_ARRAY);
       final double[] array = (double[]) value;
@@ -259,6 +368,38 @@ public class StandardMessageCodec implements MessageCodec<Object> {
       for (final double d : array) {
         writeDouble(stream, d);
       }
+    } else if (value instanceof IntBuffer) {
+      stream.write(INT_ARRAY);
+      final IntBuffer buffer = (IntBuffer) value;
+      writeSize(stream, buffer.remaining());
+      writeAlignment(stream, 4);
+      for (int i = buffer.position(); i < buffer.limit(); i++) {
+        writeInt(stream, buffer.get(i));
+      }
+    } else if (value instanceof LongBuffer) {
+      stream.write(LONG_ARRAY);
+      final LongBuffer buffer = (LongBuffer) value;
+      writeSize(stream, buffer.remaining());
+      writeAlignment(stream, 8);
+      for (int i = buffer.position(); i < buffer.limit(); i++) {
+        writeLong(stream, buffer.get(i));
+      }
+    } else if (value instanceof FloatBuffer) {
+      stream.write(FLOAT_ARRAY);
+      final FloatBuffer buffer = (FloatBuffer) value;
+      writeSize(stream, buffer.remaining());
+      writeAlignment(stream, 4);
+      for (int i = buffer.position(); i < buffer.limit(); i++) {
+        writeFloat(stream, buffer.get(i));
+      }
+    } else if (value instanceof DoubleBuffer) {
+      stream.write(DOUBLE_ARRAY);
+      final DoubleBuffer buffer = (DoubleBuffer) value;
+      writeSize(stream, buffer.remaining());
+      writeAlignment(stream, 8);
+      for (int i = buffer.position(); i < buffer.limit(); i++) {
+        writeDouble(stream, buffer.get(i));
+      }
     } else if (value instanceof List) {
       stream.write(LIST);
       final List<?> list = (List) value;
@@ -310,6 +451,96 @@ public class StandardMessageCodec implements MessageCodec<Object> {
     }
   }
 
+  /**
+   * Returns a view of the next {@code byteCount} bytes of {@code buffer} in the buffer's byte
+   * order, and advances the buffer past them.
+   */
+  private static ByteBuffer readTypedDataView(ByteBuffer buffer, int byteCount) {
+    if (byteCount > buffer.remaining()) {
+      throw new IllegalArgumentException("Message corrupted");
+    }
+    final ByteBuffer view = buffer.slice();
+    view.limit(byteCount);
+    view.order(buffer.order());
+    buffer.position(buffer.position() + byteCount);
+    return view;
+  }
+
+  /** Advances {@code buffer} by {@code byteCount} bytes. */
+  private static void skipBytes(ByteBuffer buffer, long byteCount) {
+    if (byteCount > buffer.remaining()) {
+      throw new IllegalArgumentException("Message corrupted");
+    }
+    buffer.position(buffer.position() + (int) byteCount);
+  }
+
+  /**
+   * Advances {@code buffer} past a value as written by writeValue, without decoding it. Values of
+   * types that this class does not define are decoded with readValueOfType and dropped.
+   */
+  private void skipValue(ByteBuffer buffer) {
+    if (!buffer.hasRemaining()) {
+      throw new IllegalArgumentException("Message corrupted");
+    }
+    final byte type = buffer.get();
+    switch (type) {
+      case NULL:
+      case TRUE:
+      case FALSE:
+        break;
+      case INT:
+        skipBytes(buffer, 4);
+        break;
+      case LONG:
+        skipBytes(buffer, 8);
+        break;
+      case DOUBLE:
+        readAlignment(buffer, 8);
+        skipBytes(buffer, 8);
+        break;
+      case BIGINT:
+      case STRING:
+      case BYTE_ARRAY:
+        skipBytes(buffer, readSize(buffer));
+        break;
+      case INT_ARRAY:
+      case FLOAT_ARRAY:
+        {
+          final int length = readSize(buffer);
+          readAlignment(buffer, 4);
+          skipBytes(buffer, 4L * length);
+          break;
+        }
+      case LONG_ARRAY:
+      case DOUBLE_ARRAY:
+        {
+          final int length = readSize(buffer);
+          readAlignment(buffer, 8);
+          skipBytes(buffer, 8L * length);
+          break;
+        }
+      case LIST:
+        {
+          final int size = readSize(buffer);
+          for (int i = 0; i < size; i++) {
+            skipValue(buffer);
+          }
+          break;
+        }
+      case MAP:
+        {
+          final int size = readSize(buffer);
+          for (int i = 0; i < size; i++) {
+            skipValue(buffer);
+            skipValue(buffer);
+          }
+          break;
+        }
+      default:
+        readValueOfType(type, buffer);
+    }
+  }
+
   /** Reads a value as written by writeValue. */
   protected final Object readValue(ByteBuffer buffer) {
     if (!buffer.hasRemaining()) {
@@ -319,6 +550,22 @@ public class StandardMessageCodec implements MessageCodec<Object> {
     return readValueOfType(type, buffer);
   }
 
+  /**
+   * Reads a value as written by writeValue, which is a map key or a method name. Short string keys
+   * are decoded through the {@link DecodedStringCache}, which is only used for such keys so that it
+   * does not retain any other strings.
+   */
+  final Object readKey(ByteBuffer buffer) {
+    if (!buffer.hasRemaining()) {
+      throw new IllegalArgumentException("Message corrupted");
+    }
+    final byte type = buffer.get();
+    if (type == STRING) {
+      return STRING_CACHE.readString(buffer, readSize(buffer));
+    }
+    return readValueOfType(type, buffer);
+  }
+
   /**
    * Reads a value of the specified type.
    *
@@ -367,8 +614,12 @@ public class StandardMessageCodec implements MessageCodec<Object> {
       case INT_ARRAY:
         {
           final int length = readSize(buffer);
-          final int[] array = new int[length];
           readAlignment(buffer, 4);
+          if (decodeTypedDataAsBuffers) {
+            result = readTypedDataView(buffer, 4 * length).asIntBuffer();
+            break;
+          }
+          final int[] array = new int[length];
           buffer.asIntBuffer().get(array);
           result = array;
           buffer.position(buffer.position() + 4 * length);
@@ -377,18 +628,40 @@ public class StandardMessageCodec implements MessageCodec<Object> {
       case LONG_ARRAY:
         {
           final int length = readSize(buffer);
-          final long[] array = new long[length];
           readAlignment(buffer, 8);
+          if (decodeTypedDataAsBuffers) {
+            result = readTypedDataView(buffer, 8 * length).asLongBuffer();
+            break;
+          }
+          final long[] array = new long[length];
           buffer.asLongBuffer().get(array);
           result = array;
           buffer.position(buffer.position() + 8 * length);
           break;
         }
+      case FLOAT_ARRAY:
+        {
+          final int length = readSize(buffer);
+          readAlignment(buffer, 4);
+          if (decodeTypedDataAsBuffers) {
+            result = readTypedDataView(buffer, 4 * length).asFloatBuffer();
+            break;
+          }
+          final float[] array = new float[length];
+          buffer.asFloatBuffer().get(array);
+          result = array;
+          buffer.position(buffer.position() + 4 * length);
+          break;
+        }
       case DOUBLE_ARRAY:
         {
           final int length = readSize(buffer);
-          final double[] array = new double[length];
           readAlignment(buffer, 8);
+          if (decodeTypedDataAsBuffers) {
+            result = readTypedDataView(buffer, 8 * length).asDoubleBuffer();
+            break;
+          }
+          final double[] array = new double[length];
           buffer.asDoubleBuffer().get(array);
           result = array;
           buffer.position(buffer.position() + 8 * length);
@@ -397,6 +670,10 @@ public class StandardMessageCodec implements MessageCodec<Object> {
       case LIST:
         {
           final int size = readSize(buffer);
+          if (lazyCollectionThreshold > 0 && size >= lazyCollectionThreshold) {
+            result = new LazyList(this, buffer, size);
+            break;
+          }
           final List<Object> list = new ArrayList<>(size);
           for (int i = 0; i < size; i++) {
             list.add(readValue(buffer));
@@ -407,9 +684,13 @@ public class StandardMessageCodec implements MessageCodec<Object> {
       case MAP:
         {
           final int size = readSize(buffer);
+          if (lazyCollectionThreshold > 0 && size >= lazyCollectionThreshold) {
+            result = new LazyMap(this, buffer, size);
+            break;
+          }
           final Map<Object, Object> map = new HashMap<>();
           for (int i = 0; i < size; i++) {
-            map.put(readValue(buffer), readValue(buffer));
+            map.put(readKey(buffer), readValue(buffer));
           }
           result = map;
           break;
@@ -420,9 +701,496 @@ public class StandardMessageCodec implements MessageCodec<Object> {
     return result;
   }
 
+  /**
+   * Returns an empty stream to encode into. When the codec is pooled, the stream writes straight
+   * into a pooled direct buffer, and this thread's stream object is reused.
+   */
+  final ByteArrayOutputStream obtainStream() {
+    if (bufferPool == null) {
+      return new ExposedByteArrayOutputStream();
+    }
+    DirectBufferOutputStream stream = retainedStream.get();
+    if (stream == null) {
+      stream = new DirectBufferOutputStream(bufferPool);
+    } else {
+      // Clear the slot so that re-entrant encoding on this thread gets a stream of its own.
+      retainedStream.set(null);
+    }
+    stream.open();
+    return stream;
+  }
+
+  /**
+   * Hands a stream obtained from {@link #obtainStream()} back for reuse on this thread. If encoding
+   * failed, the stream's buffer goes back to the pool.
+   */
+  final void recycleStream(ByteArrayOutputStream stream) {
+    if (stream instanceof DirectBufferOutputStream) {
+      final DirectBufferOutputStream directStream = (DirectBufferOutputStream) stream;
+      directStream.releaseBuffer();
+      retainedStream.set(directStream);
+    }
+  }
+
+  /**
+   * Returns the contents of a stream obtained from {@link #obtainStream()} as a direct buffer,
+   * positioned at its end. The buffer of a pooled stream is handed over as is, while the contents
+   * of other streams are copied into a new direct buffer.
+   */
+  final ByteBuffer toDirectByteBuffer(ByteArrayOutputStream stream) {
+    if (stream instanceof DirectBufferOutputStream) {
+      return ((DirectBufferOutputStream) stream).detachBuffer();
+    }
+    final ExposedByteArrayOutputStream heapStream = (ExposedByteArrayOutputStream) stream;
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(heapStream.size());
+    buffer.put(heapStream.buffer(), 0, heapStream.size());
+    return buffer;
+  }
+
+  // Marks the entries of lazily decoded collections that have not been decoded yet.
+  private static final Object UNDECODED = new Object();
+
+  /** Returns a view of {@code buffer} with its own position, in the same byte order. */
+  private static ByteBuffer duplicate(ByteBuffer buffer) {
+    final ByteBuffer duplicate = buffer.duplicate();
+    duplicate.order(buffer.order());
+    return duplicate;
+  }
+
+  /**
+   * Checks that {@code buffer} can hold {@code valueCount} more values, each of which takes at
+   * least one byte, before anything is allocated for them.
+   */
+  private static void checkValueCount(ByteBuffer buffer, long valueCount) {
+    if (valueCount > buffer.remaining()) {
+      throw new IllegalArgumentException("Message corrupted");
+    }
+  }
+
+  /** A list whose elements are decoded from a message on first access. */
+  private static final class LazyList extends AbstractList<Object> implements RandomAccess {
+    private final StandardMessageCodec codec;
+    private final ByteBuffer buffer;
+    private final int[] offsets;
+    private final Object[] values;
+
+    /** Validates the {@code size} elements at the position of {@code buffer} and skips them. */
+    LazyList(StandardMessageCodec codec, ByteBuffer buffer, int size) {
+      checkValueCount(buffer, size);
+      this.codec = codec;
+      this.buffer = duplicate(buffer);
+      this.offsets = new int[size];
+      for (int i = 0; i < size; i++) {
+        offsets[i] = buffer.position();
+        codec.skipValue(buffer);
+      }
+      this.values = new Object[size];
+      Arrays.fill(values, UNDECODED);
+    }
+
+    @Override
+    public Object get(int index) {
+      Object value = values[index];
+      if (value == UNDECODED) {
+        buffer.position(offsets[index]);
+        value = codec.readValue(buffer);
+        values[index] = value;
+      }
+      return value;
+    }
+
+    @Override
+    public int size() {
+      return offsets.length;
+    }
+  }
+
+  /**
+   * A map whose keys and values are decoded from the message on first access.
+   *
+   * <p>Looking a string up does not decode any keys: the UTF-8 encoding of each string key is
+   * hashed while the map is validated, and a lookup compares the string against the encoded bytes
+   * of the keys with the same hash. Keys of other types are decoded and compared with {@link
+   * Object#equals(Object)}.
+   */
+  private static final class LazyMap extends AbstractMap<Object, Object> {
+    private final StandardMessageCodec codec;
+    private final ByteBuffer buffer;
+    // Where each key starts in the message. For string keys, this is where their UTF-8 bytes start.
+    private final int[] keyOffsets;
+    // The number of UTF-8 bytes of each string key, or -1 for keys of other types.
+    private final int[] keyLengths;
+    // The hash of the UTF-8 bytes of each string key, which for ASCII keys is their hash code.
+    private final int[] keyHashes;
+    private final int[] valueOffsets;
+    private final Object[] keys;
+    private final Object[] values;
+    // Built on the first lookup by key: an open-addressing table that holds one plus the index of
+    // each string key, by hash, and the indices of the other keys.
+    @Nullable private int[] stringKeyTable;
+    @Nullable private int[] otherKeyIndices;
+    @Nullable private Set<Entry<Object, Object>> entrySet;
+
+    /** Validates the {@code size} entries at the position of {@code buffer} and skips them. */
+    LazyMap(StandardMessageCodec codec, ByteBuffer buffer, int size) {
+      checkValueCount(buffer, 2L * size);
+      this.codec = codec;
+      this.buffer = duplicate(buffer);
+      this.keyOffsets = new int[size];
+      this.keyLengths = new int[size];
+      this.keyHashes = new int[size];
+      this.valueOffsets = new int[size];
+      for (int i = 0; i < size; i++) {
+        if (buffer.hasRemaining() && buffer.get(buffer.position()) == STRING) {
+          buffer.get();
+          final int length = readSize(buffer);
+          final int offset = buffer.position();
+          skipBytes(buffer, length);
+          int hash = 0;
+          for (int j = 0; j < length; j++) {
+            hash = 31 * hash + buffer.get(offset + j);
+          }
+          keyOffsets[i] = offset;
+          keyLengths[i] = length;
+          keyHashes[i] = hash;
+        } else {
+          keyOffsets[i] = buffer.position();
+          keyLengths[i] = -1;
+          codec.skipValue(buffer);
+        }
+        valueOffsets[i] = buffer.position();
+        codec.skipValue(buffer);
+      }
+      this.keys = new Object[size];
+      Arrays.fill(keys, UNDECODED);
+      this.values = new Object[size];
+      Arrays.fill(values, UNDECODED);
+    }
+
+    @Override
+    public Object get(Object key) {
+      final int index = indexOf(key);
+      return index < 0 ? null : valueAt(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+      return keyOffsets.length;
+    }
+
+    @Override
+    public Set<Entry<Object, Object>> entrySet() {
+      if (entrySet == null) {
+        entrySet =
+            new AbstractSet<Entry<Object, Object>>() {
+              @Override
+              public Iterator<Entry<Object, Object>> iterator() {
+                return new Iterator<Entry<Object, Object>>() {
+                  private int next = 0;
+
+                  @Override
+                  public boolean hasNext() {
+                    return next < keyOffsets.length;
+                  }
+
+                  @Override
+                  public Entry<Object, Object> next() {
+                    if (next >= keyOffsets.length) {
+                      throw new NoSuchElementException();
+                    }
+                    return new LazyEntry(next++);
+                  }
+                };
+              }
+
+              @Override
+              public int size() {
+                return keyOffsets.length;
+              }
+            };
+      }
+      return entrySet;
+    }
+
+    /**
+     * Returns the index of the last entry whose key equals {@code key}, like the entry that a
+     * {@link HashMap} decoded from the same message would keep, or -1 if there is none.
+     */
+    private int indexOf(Object key) {
+      if (stringKeyTable == null) {
+        buildKeyTable();
+      }
+      if (key instanceof String) {
+        final int index = indexOfString((String) key);
+        if (index >= 0) {
+          return index;
+        }
+      }
+      for (int i = otherKeyIndices.length - 1; i >= 0; i--) {
+        final int index = otherKeyIndices[i];
+        final Object candidate = keyAt(index);
+        if (key == null ? candidate == null : key.equals(candidate)) {
+          return index;
+        }
+      }
+      return -1;
+    }
+
+    private int indexOfString(String key) {
+      boolean ascii = true;
+      for (int i = 0; i < key.length() && ascii; i++) {
+        ascii = key.charAt(i) < 0x80;
+      }
+      // A non-ASCII string is compared against the keys in its UTF-8 encoding.
+      final byte[] utf8 = ascii ? null : key.getBytes(UTF8);
+      final int length = ascii ? key.length() : utf8.length;
+      int hash = key.hashCode();
+      if (!ascii) {
+        hash = 0;
+        for (int i = 0; i < length; i++) {
+          hash = 31 * hash + utf8[i];
+        }
+      }
+      final int[] table = stringKeyTable;
+      final int mask = table.length - 1;
+      for (int slot = mixHash(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+        final int index = table[slot] - 1;
+        if (keyHashes[index] != hash || keyLengths[index] != length) {
+          continue;
+        }
+        final int offset = keyOffsets[index];
+        boolean matches = true;
+        for (int i = 0; i < length && matches; i++) {
+          final int expected = ascii ? key.charAt(i) : utf8[i];
+          matches = buffer.get(offset + i) == expected;
+        }
+        if (matches) {
+          return index;
+        }
+      }
+      return -1;
+    }
+
+    private void buildKeyTable() {
+      int stringKeyCount = 0;
+      for (int i = 0; i < keyLengths.length; i++) {
+        if (keyLengths[i] >= 0) {
+          stringKeyCount++;
+        }
+      }
+      int capacity = 2;
+      while (capacity < 2 * stringKeyCount) {
+        capacity <<= 1;
+      }
+      final int[] table = new int[capacity];
+      final int[] others = new int[keyLengths.length - stringKeyCount];
+      int otherCount = 0;
+      for (int i = 0; i < keyLengths.length; i++) {
+        if (keyLengths[i] < 0) {
+          others[otherCount++] = i;
+        }
+      }
+      // Inserted from the last key to the first, so that a lookup finds the last of equal keys.
+      for (int i = keyLengths.length - 1; i >= 0; i--) {
+        if (keyLengths[i] < 0) {
+          continue;
+        }
+        int slot = mixHash(keyHashes[i]) & (capacity - 1);
+        while (table[slot] != 0) {
+          slot = (slot + 1) & (capacity - 1);
+        }
+        table[slot] = i + 1;
+      }
+      otherKeyIndices = others;
+      stringKeyTable = table;
+    }
+
+    private static int mixHash(int hash) {
+      return hash ^ (hash >>> 16);
+    }
+
+    private Object keyAt(int index) {
+      Object key = keys[index];
+      if (key == UNDECODED) {
+        buffer.position(keyOffsets[index]);
+        key =
+            keyLengths[index] < 0
+                ? codec.readKey(buffer)
+                : STRING_CACHE.readString(buffer, keyLengths[index]);
+        keys[index] = key;
+      }
+      return key;
+    }
+
+    private Object valueAt(int index) {
+      Object value = values[index];
+      if (value == UNDECODED) {
+        buffer.position(valueOffsets[index]);
+        value = codec.readValue(buffer);
+        values[index] = value;
+      }
+      return value;
+    }
+
+    /** An entry of the map, whose key and value are decoded when they are first read. */
+    private final class LazyEntry implements Entry<Object, Object> {
+      private final int index;
+
+      LazyEntry(int index) {
+        this.index = index;
+      }
+
+      @Override
+      public Object getKey() {
+        return keyAt(index);
+      }
+
+      @Override
+      public Object getValue() {
+        return valueAt(index);
+      }
+
+      @Override
+      public Object setValue(Object value) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean equals(Object other) {
+        if (!(other instanceof Entry)) {
+          return false;
+        }
+        final Entry<?, ?> entry = (Entry<?, ?>) other;
+        return areEqual(getKey(), entry.getKey()) && areEqual(getValue(), entry.getValue());
+      }
+
+      @Override
+      public int hashCode() {
+        final Object key = getKey();
+        final Object value = getValue();
+        return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+      }
+
+      @Override
+      public String toString() {
+        return getKey() + "=" + getValue();
+      }
+
+      private boolean areEqual(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+      }
+    }
+  }
+
   static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
     byte[] buffer() {
       return buf;
     }
   }
+
+  /**
+   * A {@link ByteArrayOutputStream} that writes into a direct buffer from a {@link
+   * DirectByteBufferPool} instead of a heap array, so that the encoded message does not have to be
+   * copied once encoding is done. When the buffer is full, its contents move into a buffer of the
+   * next size class, and the full buffer goes back to the pool.
+   *
+   * <p>The stream holds a buffer from {@link #open()} until the buffer is handed over by {@link
+   * #detachBuffer()} or returned to the pool by {@link #releaseBuffer()}.
+   */
+  static final class DirectBufferOutputStream extends ByteArrayOutputStream {
+    private final DirectByteBufferPool bufferPool;
+    @Nullable private ByteBuffer buffer;
+
+    DirectBufferOutputStream(DirectByteBufferPool bufferPool) {
+      // The inherited heap array is never used.
+      super(0);
+      this.bufferPool = bufferPool;
+    }
+
+    void open() {
+      buffer = bufferPool.acquire(DirectByteBufferPool.MIN_POOLED_CAPACITY);
+    }
+
+    /** Returns the buffer, positioned and limited at the end of the written bytes. */
+    ByteBuffer detachBuffer() {
+      final ByteBuffer result = buffer;
+      buffer = null;
+      result.limit(result.position());
+      return result;
+    }
+
+    void releaseBuffer() {
+      if (buffer != null) {
+        bufferPool.release(buffer);
+        buffer = null;
+      }
+    }
+
+    @Override
+    public void write(int b) {
+      ensureRemaining(1);
+      buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      if (off < 0 || len < 0 || len > b.length - off) {
+        throw new IndexOutOfBoundsException();
+      }
+      ensureRemaining(len);
+      buffer.put(b, off, len);
+    }
+
+    @Override
+    public int size() {
+      return buffer.position();
+    }
+
+    @Override
+    public void reset() {
+      buffer.position(0);
+    }
+
+    @Override
+    public byte[] toByteArray() {
+      final byte[] bytes = new byte[buffer.position()];
+      final ByteBuffer written = buffer.duplicate();
+      written.flip();
+      written.get(bytes);
+      return bytes;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+      out.write(toByteArray());
+    }
+
+    @Override
+    public String toString() {
+      return new String(toByteArray());
+    }
+
+    @Override
+    public String toString(String charsetName) throws UnsupportedEncodingException {
+      return new String(toByteArray(), charsetName);
+    }
+
+    private void ensureRemaining(int count) {
+      if (buffer.remaining() >= count) {
+        return;
+      }
+      final int size = buffer.position();
+      final ByteBuffer grown = bufferPool.acquire(Math.max(size + count, 2 * buffer.capacity()));
+      grown.limit(grown.capacity());
+      buffer.flip();
+      grown.put(buffer);
+      bufferPool.release(buffer);
+      buffer = grown;
+    }
+  }
 }
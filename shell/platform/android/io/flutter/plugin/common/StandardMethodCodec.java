@@ -4,7 +4,7 @@
 
 package io.flutter.plugin.common;
 
-import io.flutter.plugin.common.StandardMessageCodec.ExposedByteArrayOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
@@ -21,6 +21,8 @@ import java.nio.ByteOrder;
 public final class StandardMethodCodec implements MethodCodec {
   public static final StandardMethodCodec INSTANCE =
       new StandardMethodCodec(StandardMessageCodec.INSTANCE);
+  public static final StandardMethodCodec POOLED_INSTANCE =
+      new StandardMethodCodec(StandardMessageCodec.POOLED_INSTANCE);
   private final StandardMessageCodec messageCodec;
 
   /** Creates a new method codec based on the specified message codec. */
@@ -30,18 +32,20 @@ public final class StandardMethodCodec implements MethodCodec {
 
   @Override
   public ByteBuffer encodeMethodCall(MethodCall methodCall) {
-    final ExposedByteArrayOutputStream stream = new ExposedByteArrayOutputStream();
-    messageCodec.writeValue(stream, methodCall.method);
-    messageCodec.writeValue(stream, methodCall.arguments);
-    final ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
-    buffer.put(stream.buffer(), 0, stream.size());
-    return buffer;
+    final ByteArrayOutputStream stream = messageCodec.obtainStream();
+    try {
+      messageCodec.writeValue(stream, methodCall.method);
+      messageCodec.writeValue(stream, methodCall.arguments);
+      return messageCodec.toDirectByteBuffer(stream);
+    } finally {
+      messageCodec.recycleStream(stream);
+    }
   }
 
   @Override
   public MethodCall decodeMethodCall(ByteBuffer methodCall) {
     methodCall.order(ByteOrder.nativeOrder());
-    final Object method = messageCodec.readValue(methodCall);
+    final Object method = messageCodec.readKey(methodCall);
     final Object arguments = messageCodec.readValue(methodCall);
     if (method instanceof String && !methodCall.hasRemaining()) {
       return new MethodCall((String) method, arguments);
@@ -51,25 +55,29 @@ public final class StandardMethodCodec implements MethodCodec {
 
   @Override
   public ByteBuffer encodeSuccessEnvelope(Object result) {
-    final ExposedByteArrayOutputStream stream = new ExposedByteArrayOutputStream();
-    stream.write(0);
-    messageCodec.writeValue(stream, result);
-    final ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
-    buffer.put(stream.buffer(), 0, stream.size());
-    return buffer;
+    final ByteArrayOutputStream stream = messageCodec.obtainStream();
+    try {
+      stream.write(0);
+      messageCodec.writeValue(stream, result);
+      return messageCodec.toDirectByteBuffer(stream);
+    } finally {
+      messageCodec.recycleStream(stream);
+    }
   }
 
   @Override
   public ByteBuffer encodeErrorEnvelope(
       String errorCode, String errorMessage, Object errorDetails) {
-    final ExposedByteArrayOutputStream stream = new ExposedByteArrayOutputStream();
-    stream.write(1);
-    messageCodec.writeValue(stream, errorCode);
-    messageCodec.writeValue(stream, errorMessage);
-    messageCodec.writeValue(stream, errorDetails);
-    final ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
-    buffer.put(stream.buffer(), 0, stream.size());
-    return buffer;
+    final ByteArrayOutputStream stream = messageCodec.obtainStream();
+    try {
+      stream.write(1);
+      messageCodec.writeValue(stream, errorCode);
+      messageCodec.writeValue(stream, errorMessage);
+      messageCodec.writeValue(stream, errorDetails);
+      return messageCodec.toDirectByteBuffer(stream);
+    } finally {
+      messageCodec.recycleStream(stream);
+    }
   }
 
   @Override
@@ -0,0 +1,39 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.util;
+
+import android.os.Build;
+import android.os.Trace;
+import androidx.annotation.NonNull;
+
+/**
+ * Static convenience methods that mark sections of code in systrace.
+ *
+ * <p>Sections must be ended on the thread that began them, in the reverse order in which they were
+ * begun. Sections are ignored before Android API 18, where systrace sections are not available.
+ */
+public final class TraceSection {
+  // Systrace truncates section names that are longer than this.
+  private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+  private TraceSection() {}
+
+  /** Begins a systrace section named {@code sectionName} on the current thread. */
+  public static void begin(@NonNull String sectionName) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+      Trace.beginSection(
+          sectionName.length() > MAX_SECTION_NAME_LENGTH
+              ? sectionName.substring(0, MAX_SECTION_NAME_LENGTH)
+              : sectionName);
+    }
+  }
+
+  /** Ends the most recently begun systrace section on the current thread. */
+  public static void end() {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+      Trace.endSection();
+    }
+  }
+}
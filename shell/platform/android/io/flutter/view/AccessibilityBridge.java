@@ -14,10 +14,12 @@ import android.opengl.Matrix;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
 import android.provider.Settings;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewParent;
 import android.view.WindowInsets;
 import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityManager;
@@ -26,6 +28,7 @@ import android.view.accessibility.AccessibilityNodeProvider;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
+import androidx.annotation.VisibleForTesting;
 import io.flutter.BuildConfig;
 import io.flutter.embedding.engine.systemchannels.AccessibilityChannel;
 import io.flutter.plugin.platform.PlatformViewsAccessibilityDelegate;
@@ -33,6 +36,10 @@ import io.flutter.util.Predicate;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Bridge between Android's OS accessibility system and Flutter's accessibility system.
@@ -74,6 +81,9 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
   private static final float SCROLL_POSITION_CAP_FOR_INFINITY = 70000.0f;
   private static final int ROOT_NODE_ID = 0;
 
+  // The maximum number of removed SemanticsNodes that are kept for reuse.
+  private static final int MAX_RECYCLED_SEMANTICS_NODES = 512;
+
   // The minimal ID for an engine generated AccessibilityNodeInfo.
   //
   // The AccessibilityNodeInfo node IDs are generated by the framework for most Flutter semantic
@@ -116,7 +126,7 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
   // purposes.
   @NonNull private final ContentResolver contentResolver;
 
-  // The entire Flutter semantics tree of the running Flutter app, stored as a Map
+  // The entire Flutter semantics tree of the running Flutter app, stored as a map
   // from each SemanticsNode's ID to a Java representation of a Flutter SemanticsNode.
   //
   // Flutter's semantics tree is cached here because Android might ask for information about
@@ -128,7 +138,72 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
   //
   // See the Flutter docs on SemanticsNode:
   // https://docs.flutter.io/flutter/semantics/SemanticsNode-class.html
-  @NonNull private final Map<Integer, SemanticsNode> flutterSemanticsTree = new HashMap<>();
+  @NonNull
+  private final IntObjectHashMap<SemanticsNode> flutterSemanticsTree = new IntObjectHashMap<>();
+
+  // SemanticsNodes that were removed from flutterSemanticsTree, kept for reuse so that semantics
+  // updates that replace nodes, e.g., while a list scrolls, do not allocate new ones.
+  @NonNull private final ArrayDeque<SemanticsNode> recycledSemanticsNodes = new ArrayDeque<>();
+
+  // Scratch state of updateSemantics(), reused from one update to the next so that a semantics
+  // update does not allocate in steady state.
+  @NonNull private final ArrayList<SemanticsNode> updatedSemanticsNodes = new ArrayList<>();
+  @NonNull private final ArrayList<SemanticsNode> removedSemanticsNodes = new ArrayList<>();
+
+  // Semantics updates are decoded, laid out and diffed against the previous update by
+  // semanticsUpdateProcessor on semanticsExecutor, and the resulting change sets are applied to
+  // flutterSemanticsTree on the main thread. See updateSemantics().
+  @NonNull
+  private final SemanticsUpdateProcessor semanticsUpdateProcessor = new SemanticsUpdateProcessor();
+
+  @NonNull private final ExecutorService semanticsExecutor;
+
+  // The heap buffer that updateSemantics() copies an update into, handed back by semanticsExecutor
+  // once the copy is decoded. An update that arrives while it is in use gets a buffer of its own.
+  @NonNull private final AtomicReference<ByteBuffer> spareSemanticsBuffer = new AtomicReference<>();
+
+  @NonNull private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  // The hit test rects of flutterSemanticsTree, which answer hit tests without walking the tree, as
+  // long as hitTestGridExact is true. Otherwise, hit tests walk the tree and apply the inverse
+  // transform of every node along the way.
+  @NonNull private final HitTestGrid hitTestGrid = new HitTestGrid();
+  private boolean hitTestGridExact = true;
+  @NonNull private final ArrayList<SemanticsNode> hitTestCandidates = new ArrayList<>();
+
+  // Coalesces the content change, scroll and text selection events of semantics updates.
+  @NonNull
+  private final AccessibilityEventScheduler accessibilityEventScheduler =
+      new AccessibilityEventScheduler(
+          new AccessibilityEventScheduler.Delegate() {
+            @Override
+            public void sendSubtreeChangedEvent(int virtualViewId) {
+              // Nodes that were removed in the meantime are covered by the change of their former
+              // parent, whose children changed.
+              if (flutterSemanticsTree.get(virtualViewId) != null) {
+                sendWindowContentChangeEvent(virtualViewId);
+              }
+            }
+
+            @Override
+            public void sendEvent(@NonNull AccessibilityEvent event) {
+              sendAccessibilityEvent(event);
+            }
+
+            @Override
+            public int getParentId(int virtualViewId) {
+              final SemanticsNode semanticsNode = flutterSemanticsTree.get(virtualViewId);
+              return semanticsNode == null || semanticsNode.parent == null
+                  ? AccessibilityEventScheduler.NO_PARENT
+                  : semanticsNode.parent.id;
+            }
+          },
+          mainHandler,
+          AccessibilityEventScheduler.DEFAULT_INTERVAL_MILLIS);
+
+  // Incremented by reset() and release(), so that change sets that were computed for the tree
+  // before it was cleared are dropped instead of applied.
+  private int semanticsEpoch = 0;
 
   // The set of all custom Flutter accessibility actions that are present in the running
   // Flutter app, stored as a Map from each action's ID to the definition of the custom
@@ -155,8 +230,8 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
   // See the Flutter documentation for the Semantics widget:
   // https://docs.flutter.io/flutter/widgets/Semantics-class.html
   @NonNull
-  private final Map<Integer, CustomAccessibilityAction> customAccessibilityActions =
-      new HashMap<>();
+  private final IntObjectHashMap<CustomAccessibilityAction> customAccessibilityActions =
+      new IntObjectHashMap<>();
 
   // The {@code SemanticsNode} within Flutter that currently has the focus of Android's
   // accessibility system.
@@ -205,21 +280,6 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
   // beneath a stylus or mouse cursor.
   @Nullable private SemanticsNode hoveredObject;
 
-  // A Java/Android cached representation of the Flutter app's navigation stack. The Flutter
-  // navigation stack is tracked so that accessibility announcements can be made during Flutter's
-  // navigation changes.
-  // TODO(mattcarroll): take this cache into account for new routing solution so accessibility does
-  //                    not get left behind.
-  @NonNull private final List<Integer> flutterNavigationStack = new ArrayList<>();
-
-  // TODO(mattcarroll): why do we need previouseRouteId if we have flutterNavigationStack
-  private int previousRouteId = ROOT_NODE_ID;
-
-  // Tracks the left system inset of the screen because Flutter needs to manually adjust
-  // accessibility positioning when in reverse-landscape. This is an Android bug that Flutter
-  // is solving for itself.
-  @NonNull private Integer lastLeftFrameInset = 0;
-
   @Nullable private OnAccessibilityChangeListener onAccessibilityChangeListener;
 
   // Handler for all messages received from Flutter via the {@code accessibilityChannel}
@@ -333,11 +393,29 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
       // TODO(mattcarrol): Add the annotation once the plumbing is done.
       // https://github.com/flutter/flutter/issues/29618
       PlatformViewsAccessibilityDelegate platformViewsAccessibilityDelegate) {
+    this(
+        rootAccessibilityView,
+        accessibilityChannel,
+        accessibilityManager,
+        contentResolver,
+        platformViewsAccessibilityDelegate,
+        Executors.newSingleThreadExecutor());
+  }
+
+  @VisibleForTesting
+  AccessibilityBridge(
+      @NonNull View rootAccessibilityView,
+      @NonNull AccessibilityChannel accessibilityChannel,
+      @NonNull AccessibilityManager accessibilityManager,
+      @NonNull ContentResolver contentResolver,
+      PlatformViewsAccessibilityDelegate platformViewsAccessibilityDelegate,
+      @NonNull ExecutorService semanticsExecutor) {
     this.rootAccessibilityView = rootAccessibilityView;
     this.accessibilityChannel = accessibilityChannel;
     this.accessibilityManager = accessibilityManager;
     this.contentResolver = contentResolver;
     this.platformViewsAccessibilityDelegate = platformViewsAccessibilityDelegate;
+    this.semanticsExecutor = semanticsExecutor;
 
     // Tell Flutter whether accessibility is initially active or not. Then register a listener
     // to be notified of changes in the future.
@@ -414,6 +492,9 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
           touchExplorationStateChangeListener);
     }
     contentResolver.unregisterContentObserver(animationScaleObserver);
+    semanticsEpoch++;
+    semanticsExecutor.shutdown();
+    accessibilityEventScheduler.cancel();
   }
 
   /** Returns true if the Android OS currently has accessibility enabled, false otherwise. */
@@ -426,6 +507,16 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
     return accessibilityManager.isTouchExplorationEnabled();
   }
 
+  /**
+   * Returns the number of content change, scroll and text selection events that were not sent
+   * because a later or enclosing event of the same kind replaced them.
+   */
+  public int getSuppressedAccessibilityEventCount() {
+    return accessibilityEventScheduler.getSuppressedSubtreeChangeCount()
+        + accessibilityEventScheduler.getSuppressedScrollEventCount()
+        + accessibilityEventScheduler.getSuppressedSelectionEventCount();
+  }
+
   /**
    * Sets a listener on this {@code AccessibilityBridge}, which is notified whenever accessibility
    * activation, or touch exploration activation changes.
@@ -520,6 +611,9 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
       result.setViewIdResourceName("");
     }
+    // The parts of the result that only depend on the node itself are computed once per change of
+    // the node, rather than on every query.
+    semanticsNode.ensureNodeInfoCache();
     result.setPackageName(rootAccessibilityView.getContext().getPackageName());
     result.setClassName("android.view.View");
     result.setSource(rootAccessibilityView, virtualViewId);
@@ -627,25 +721,15 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
       result.setParent(rootAccessibilityView);
     }
 
-    Rect bounds = semanticsNode.getGlobalRect();
-    if (semanticsNode.parent != null) {
-      Rect parentBounds = semanticsNode.parent.getGlobalRect();
-      Rect boundsInParent = new Rect(bounds);
-      boundsInParent.offset(-parentBounds.left, -parentBounds.top);
-      result.setBoundsInParent(boundsInParent);
-    } else {
-      result.setBoundsInParent(bounds);
-    }
-    result.setBoundsInScreen(bounds);
+    result.setBoundsInParent(semanticsNode.boundsInParent);
+    result.setBoundsInScreen(semanticsNode.getGlobalRect());
     result.setVisibleToUser(true);
     result.setEnabled(
         !semanticsNode.hasFlag(Flag.HAS_ENABLED_STATE) || semanticsNode.hasFlag(Flag.IS_ENABLED));
 
     if (semanticsNode.hasAction(Action.TAP)) {
       if (Build.VERSION.SDK_INT >= 21 && semanticsNode.onTapOverride != null) {
-        result.addAction(
-            new AccessibilityNodeInfo.AccessibilityAction(
-                AccessibilityNodeInfo.ACTION_CLICK, semanticsNode.onTapOverride.hint));
+        result.addAction(semanticsNode.onTapOverrideAction);
         result.setClickable(true);
       } else {
         result.addAction(AccessibilityNodeInfo.ACTION_CLICK);
@@ -654,9 +738,7 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
     }
     if (semanticsNode.hasAction(Action.LONG_PRESS)) {
       if (Build.VERSION.SDK_INT >= 21 && semanticsNode.onLongPressOverride != null) {
-        result.addAction(
-            new AccessibilityNodeInfo.AccessibilityAction(
-                AccessibilityNodeInfo.ACTION_LONG_CLICK, semanticsNode.onLongPressOverride.hint));
+        result.addAction(semanticsNode.onLongPressOverrideAction);
         result.setLongClickable(true);
       } else {
         result.addAction(AccessibilityNodeInfo.ACTION_LONG_CLICK);
@@ -747,7 +829,7 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
     result.setCheckable(hasCheckedState || hasToggledState);
     if (hasCheckedState) {
       result.setChecked(semanticsNode.hasFlag(Flag.IS_CHECKED));
-      result.setContentDescription(semanticsNode.getValueLabelHint());
+      result.setContentDescription(semanticsNode.valueLabelHint);
       if (semanticsNode.hasFlag(Flag.IS_IN_MUTUALLY_EXCLUSIVE_GROUP)) {
         result.setClassName("android.widget.RadioButton");
       } else {
@@ -756,11 +838,11 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
     } else if (hasToggledState) {
       result.setChecked(semanticsNode.hasFlag(Flag.IS_TOGGLED));
       result.setClassName("android.widget.Switch");
-      result.setContentDescription(semanticsNode.getValueLabelHint());
+      result.setContentDescription(semanticsNode.valueLabelHint);
     } else if (!semanticsNode.hasFlag(Flag.SCOPES_ROUTE)) {
       // Setting the text directly instead of the content description
       // will replace the "checked" or "not-checked" label.
-      result.setText(semanticsNode.getValueLabelHint());
+      result.setText(semanticsNode.valueLabelHint);
     }
 
     result.setSelected(semanticsNode.hasFlag(Flag.IS_SELECTED));
@@ -780,18 +862,15 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
 
     // Actions on the local context menu
     if (Build.VERSION.SDK_INT >= 21) {
-      if (semanticsNode.customAccessibilityActions != null) {
-        for (CustomAccessibilityAction action : semanticsNode.customAccessibilityActions) {
-          result.addAction(
-              new AccessibilityNodeInfo.AccessibilityAction(action.resourceId, action.label));
-        }
+      final List<AccessibilityNodeInfo.AccessibilityAction> customActions =
+          semanticsNode.customAccessibilityActionInfos;
+      for (int i = 0; i < customActions.size(); i++) {
+        result.addAction(customActions.get(i));
       }
     }
 
-    for (SemanticsNode child : semanticsNode.childrenInTraversalOrder) {
-      if (!child.hasFlag(Flag.IS_HIDDEN)) {
-        result.addChild(rootAccessibilityView, child.id);
-      }
+    for (int i = 0; i < semanticsNode.visibleChildCount; i++) {
+      result.addChild(rootAccessibilityView, semanticsNode.visibleChildIds[i]);
     }
 
     return result;
@@ -1113,7 +1192,10 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
   private SemanticsNode getOrCreateSemanticsNode(int id) {
     SemanticsNode semanticsNode = flutterSemanticsTree.get(id);
     if (semanticsNode == null) {
-      semanticsNode = new SemanticsNode(this);
+      semanticsNode = recycledSemanticsNodes.poll();
+      if (semanticsNode == null) {
+        semanticsNode = new SemanticsNode(this);
+      }
       semanticsNode.id = id;
       flutterSemanticsTree.put(id, semanticsNode);
     }
@@ -1160,8 +1242,7 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
       return false;
     }
 
-    SemanticsNode semanticsNodeUnderCursor =
-        getRootSemanticsNode().hitTest(new float[] {event.getX(), event.getY(), 0, 1});
+    SemanticsNode semanticsNodeUnderCursor = hitTest(event.getX(), event.getY());
     if (semanticsNodeUnderCursor.platformViewId != -1) {
       return accessibilityViewEmbedder.onAccessibilityHoverEvent(
           semanticsNodeUnderCursor.id, event);
@@ -1206,8 +1287,7 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
     if (flutterSemanticsTree.isEmpty()) {
       return;
     }
-    SemanticsNode semanticsNodeUnderCursor =
-        getRootSemanticsNode().hitTest(new float[] {x, y, 0, 1});
+    SemanticsNode semanticsNodeUnderCursor = hitTest(x, y);
     if (semanticsNodeUnderCursor != hoveredObject) {
       // sending ENTER before EXIT is how Android wants it
       if (semanticsNodeUnderCursor != null) {
@@ -1221,6 +1301,65 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
     }
   }
 
+  /**
+   * Returns the deepest {@link SemanticsNode} at the given point, in the coordinates of the {@link
+   * #rootAccessibilityView}, that a hit test of the root {@link SemanticsNode} would find, or null
+   * if the point is outside of the root.
+   *
+   * <p>The nodes that contain the point are looked up in {@link #hitTestGrid}. Every such node lies
+   * within its ancestors, so the hit is found by descending from the root, at each level into the
+   * first child in hit test order that contains the point.
+   */
+  private SemanticsNode hitTest(float x, float y) {
+    if (!hitTestGridExact) {
+      return getRootSemanticsNode().hitTest(new float[] {x, y, 0, 1});
+    }
+    return hitTestWithGrid(x, y);
+  }
+
+  /**
+   * Returns the id of the node that a hit test at the given point finds, either in {@link
+   * #hitTestGrid} or by walking the tree, or {@link View#NO_ID} if there is none.
+   */
+  @VisibleForTesting
+  int hitTestForId(float x, float y, boolean useHitTestGrid) {
+    final SemanticsNode hit =
+        useHitTestGrid
+            ? hitTestWithGrid(x, y)
+            : getRootSemanticsNode().hitTest(new float[] {x, y, 0, 1});
+    return hit == null ? View.NO_ID : hit.id;
+  }
+
+  private SemanticsNode hitTestWithGrid(float x, float y) {
+    final ArrayList<SemanticsNode> candidates = hitTestCandidates;
+    SemanticsNode hit = null;
+    final int candidateCount = hitTestGrid.query(x, y);
+    for (int i = 0; i < candidateCount; i++) {
+      final SemanticsNode candidate = flutterSemanticsTree.get(hitTestGrid.queryResultAt(i));
+      if (candidate.id == ROOT_NODE_ID) {
+        hit = candidate;
+      } else {
+        candidates.add(candidate);
+      }
+    }
+    while (hit != null) {
+      SemanticsNode child = null;
+      for (int i = 0; i < candidates.size(); i++) {
+        final SemanticsNode candidate = candidates.get(i);
+        if (candidate.parent == hit
+            && (child == null || candidate.hitTestIndex < child.hitTestIndex)) {
+          child = candidate;
+        }
+      }
+      if (child == null) {
+        break;
+      }
+      hit = child;
+    }
+    candidates.clear();
+    return hit;
+  }
+
   /**
    * Updates the Android cache of Flutter's currently registered custom accessibility actions.
    *
@@ -1240,21 +1379,110 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
       stringIndex = buffer.getInt();
       action.hint = stringIndex == -1 ? null : strings[stringIndex];
     }
+    // The labels and hints of the actions are part of the cached node info of the nodes that use
+    // them.
+    for (int slot = 0; slot < flutterSemanticsTree.capacity(); slot++) {
+      final SemanticsNode semanticsNode = flutterSemanticsTree.valueAt(slot);
+      if (semanticsNode != null) {
+        semanticsNode.nodeInfoDirty = true;
+      }
+    }
   }
 
   /**
    * Updates {@link #flutterSemanticsTree} to reflect the latest state of Flutter's semantics tree.
    *
-   * <p>The latest state of Flutter's semantics tree is encoded in the given {@code buffer}. The
-   * buffer is encoded by PlatformViewAndroid::UpdateSemantics, and the decode logic must be kept in
-   * sync with that method's encoding logic.
+   * <p>The latest state of Flutter's semantics tree is encoded in the given {@code buffer}, which
+   * is only valid during this call. It is copied, then decoded and diffed against the previous
+   * state by {@link #semanticsUpdateProcessor} on {@link #semanticsExecutor}, so that large
+   * semantics trees do not cost frames. The resulting change set is applied on the main thread by
+   * {@link #applySemanticsChangeSet(SemanticsUpdateProcessor.ChangeSet)}.
    */
-  void updateSemantics(@NonNull ByteBuffer buffer, @NonNull String[] strings) {
-    ArrayList<SemanticsNode> updated = new ArrayList<>();
-    while (buffer.hasRemaining()) {
-      int id = buffer.getInt();
-      SemanticsNode semanticsNode = getOrCreateSemanticsNode(id);
-      semanticsNode.updateWith(buffer, strings);
+  void updateSemantics(@NonNull ByteBuffer buffer, @NonNull final String[] strings) {
+    // in android devices API 23 and above, the system nav bar can be placed on the left side
+    // of the screen in landscape mode. We must handle the translation ourselves for the
+    // a11y nodes.
+    int leftInset = 0;
+    if (Build.VERSION.SDK_INT >= 23) {
+      WindowInsets insets = rootAccessibilityView.getRootWindowInsets();
+      if (insets != null) {
+        leftInset = insets.getSystemWindowInsetLeft();
+      }
+    }
+    updateSemantics(buffer, strings, leftInset);
+  }
+
+  @VisibleForTesting
+  void updateSemantics(
+      @NonNull ByteBuffer buffer, @NonNull final String[] strings, final int leftInset) {
+    ByteBuffer spare = spareSemanticsBuffer.getAndSet(null);
+    if (spare == null || spare.capacity() < buffer.remaining()) {
+      spare = ByteBuffer.allocate(buffer.remaining());
+    }
+    final ByteBuffer copy = spare;
+    copy.clear();
+    copy.put(buffer);
+    copy.flip();
+    copy.order(ByteOrder.LITTLE_ENDIAN);
+
+    final int epoch = semanticsEpoch;
+    try {
+      semanticsExecutor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              final SemanticsUpdateProcessor.ChangeSet changeSet;
+              try {
+                changeSet = semanticsUpdateProcessor.process(copy, strings, leftInset);
+              } finally {
+                spareSemanticsBuffer.set(copy);
+              }
+              mainHandler.post(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      if (epoch == semanticsEpoch) {
+                        applySemanticsChangeSet(changeSet);
+                      }
+                      recycleSemanticsChangeSet(changeSet);
+                    }
+                  });
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // This bridge was released.
+    }
+  }
+
+  /**
+   * Hands a change set that was applied or dropped back to {@link #semanticsUpdateProcessor}, on
+   * {@link #semanticsExecutor} as the processor is only used from that thread.
+   */
+  private void recycleSemanticsChangeSet(
+      @NonNull final SemanticsUpdateProcessor.ChangeSet changeSet) {
+    try {
+      semanticsExecutor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              semanticsUpdateProcessor.recycle(changeSet);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // This bridge was released.
+    }
+  }
+
+  /**
+   * Applies a change set computed by {@link #semanticsUpdateProcessor} to {@link
+   * #flutterSemanticsTree}, and sends the accessibility events for it.
+   */
+  private void applySemanticsChangeSet(@NonNull SemanticsUpdateProcessor.ChangeSet changeSet) {
+    final ArrayList<SemanticsNode> updated = updatedSemanticsNodes;
+    for (int i = 0; i < changeSet.updateCount; i++) {
+      final SemanticsUpdateProcessor.NodeUpdate update = changeSet.updates[i];
+      SemanticsNode semanticsNode = getOrCreateSemanticsNode(update.id);
+      semanticsNode.applyUpdate(update);
       if (semanticsNode.hasFlag(Flag.IS_HIDDEN)) {
         continue;
       }
@@ -1266,65 +1494,57 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
       }
     }
 
-    Set<SemanticsNode> visitedObjects = new HashSet<>();
-    SemanticsNode rootObject = getRootSemanticsNode();
-    List<SemanticsNode> newRoutes = new ArrayList<>();
-    if (rootObject != null) {
-      final float[] identity = new float[16];
-      Matrix.setIdentityM(identity, 0);
-      // in android devices API 23 and above, the system nav bar can be placed on the left side
-      // of the screen in landscape mode. We must handle the translation ourselves for the
-      // a11y nodes.
-      if (Build.VERSION.SDK_INT >= 23) {
-        WindowInsets insets = rootAccessibilityView.getRootWindowInsets();
-        if (insets != null) {
-          if (!lastLeftFrameInset.equals(insets.getSystemWindowInsetLeft())) {
-            rootObject.globalGeometryDirty = true;
-            rootObject.inverseTransformDirty = true;
-          }
-          lastLeftFrameInset = insets.getSystemWindowInsetLeft();
-          Matrix.translateM(identity, 0, lastLeftFrameInset, 0, 0);
-        }
-      }
-      rootObject.updateRecursively(identity, visitedObjects, false);
-      rootObject.collectRoutes(newRoutes);
+    final int[] geometryRects = changeSet.geometryRects;
+    for (int i = 0; i < changeSet.geometryIds.length; i++) {
+      flutterSemanticsTree
+          .get(changeSet.geometryIds[i])
+          .applyGeometry(
+              geometryRects[4 * i],
+              geometryRects[4 * i + 1],
+              geometryRects[4 * i + 2],
+              geometryRects[4 * i + 3]);
+    }
+
+    final int[] hitTestRects = changeSet.hitTestRects;
+    for (int i = 0; i < changeSet.hitTestIds.length; i++) {
+      hitTestGrid.put(
+          changeSet.hitTestIds[i],
+          hitTestRects[4 * i],
+          hitTestRects[4 * i + 1],
+          hitTestRects[4 * i + 2],
+          hitTestRects[4 * i + 3]);
     }
+    hitTestGridExact = changeSet.hitTestRectsExact;
 
     // Dispatch a TYPE_WINDOW_STATE_CHANGED event if the most recent route id changed from the
     // previously cached route id.
-    SemanticsNode lastAdded = null;
-    for (SemanticsNode semanticsNode : newRoutes) {
-      if (!flutterNavigationStack.contains(semanticsNode.id)) {
-        lastAdded = semanticsNode;
-      }
-    }
-    if (lastAdded == null && newRoutes.size() > 0) {
-      lastAdded = newRoutes.get(newRoutes.size() - 1);
-    }
-    if (lastAdded != null && lastAdded.id != previousRouteId) {
-      previousRouteId = lastAdded.id;
-      sendWindowChangeEvent(lastAdded);
-    }
-    flutterNavigationStack.clear();
-    for (SemanticsNode semanticsNode : newRoutes) {
-      flutterNavigationStack.add(semanticsNode.id);
+    if (changeSet.routeChangeId != SemanticsUpdateProcessor.NO_ROUTE_CHANGE) {
+      sendWindowChangeEvent(flutterSemanticsTree.get(changeSet.routeChangeId));
     }
 
-    Iterator<Map.Entry<Integer, SemanticsNode>> it = flutterSemanticsTree.entrySet().iterator();
-    while (it.hasNext()) {
-      Map.Entry<Integer, SemanticsNode> entry = it.next();
-      SemanticsNode object = entry.getValue();
-      if (!visitedObjects.contains(object)) {
-        willRemoveSemanticsNode(object);
-        it.remove();
-      }
+    // Nodes that are no longer reachable from the root were removed by Flutter. They are only
+    // recycled once this update is done, as the events below may still refer to them.
+    final ArrayList<SemanticsNode> removed = removedSemanticsNodes;
+    for (int i = 0; i < changeSet.removedIds.length; i++) {
+      final SemanticsNode object = flutterSemanticsTree.get(changeSet.removedIds[i]);
+      willRemoveSemanticsNode(object);
+      flutterSemanticsTree.remove(object.id);
+      hitTestGrid.remove(object.id);
+      removed.add(object);
     }
 
-    // TODO(goderbauer): Send this event only once (!) for changed subtrees,
-    //     see https://github.com/flutter/flutter/issues/14534
-    sendWindowContentChangeEvent(0);
+    // Only the subtrees of nodes that changed are reported as changed. The scheduler coalesces
+    // the change of a node into the change of its nearest changed ancestor, so that a changed
+    // subtree is reported once, see https://github.com/flutter/flutter/issues/14534
+    for (int i = 0; i < changeSet.updateCount; i++) {
+      accessibilityEventScheduler.scheduleSubtreeChanged(changeSet.updates[i].id);
+    }
+    for (int i = 0; i < changeSet.geometryIds.length; i++) {
+      accessibilityEventScheduler.scheduleSubtreeChanged(changeSet.geometryIds[i]);
+    }
 
-    for (SemanticsNode object : updated) {
+    for (int i = 0; i < updated.size(); i++) {
+      final SemanticsNode object = updated.get(i);
       if (object.didScroll()) {
         AccessibilityEvent event =
             obtainAccessibilityEvent(object.id, AccessibilityEvent.TYPE_VIEW_SCROLLED);
@@ -1363,8 +1583,8 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
           event.setFromIndex(object.scrollIndex);
           int visibleChildren = 0;
           // handle hidden children at the beginning and end of the list.
-          for (SemanticsNode child : object.childrenInHitTestOrder) {
-            if (!child.hasFlag(Flag.IS_HIDDEN)) {
+          for (int j = 0; j < object.childrenInHitTestOrder.size(); j++) {
+            if (!object.childrenInHitTestOrder.get(j).hasFlag(Flag.IS_HIDDEN)) {
               visibleChildren += 1;
             }
           }
@@ -1387,7 +1607,7 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
           // index of 2.
           event.setToIndex(object.scrollIndex + visibleChildren - 1);
         }
-        sendAccessibilityEvent(event);
+        accessibilityEventScheduler.scheduleScrollEvent(object.id, event);
       }
       if (object.hasFlag(Flag.IS_LIVE_REGION) && object.didChangeLabel()) {
         sendWindowContentChangeEvent(object.id);
@@ -1444,10 +1664,27 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
           selectionEvent.setFromIndex(object.textSelectionBase);
           selectionEvent.setToIndex(object.textSelectionExtent);
           selectionEvent.setItemCount(newValue.length());
-          sendAccessibilityEvent(selectionEvent);
+          accessibilityEventScheduler.scheduleSelectionEvent(object.id, selectionEvent);
         }
       }
     }
+    updated.clear();
+
+    for (int i = 0; i < removed.size(); i++) {
+      recycleSemanticsNode(removed.get(i));
+    }
+    removed.clear();
+  }
+
+  /** Keeps a {@link SemanticsNode} that was removed from the tree for reuse. */
+  private void recycleSemanticsNode(@NonNull SemanticsNode semanticsNode) {
+    // The last input focused node is compared by id after it is removed, so it must keep its id.
+    if (semanticsNode == lastInputFocusedSemanticsNode
+        || recycledSemanticsNodes.size() >= MAX_RECYCLED_SEMANTICS_NODES) {
+      return;
+    }
+    semanticsNode.recycle();
+    recycledSemanticsNodes.push(semanticsNode);
   }
 
   private AccessibilityEvent createTextChangedEvent(int id, String oldValue, String newValue) {
@@ -1511,7 +1748,12 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
     // https://developer.android.com/reference/android/view/View.html#sendAccessibilityEvent(int)
     // We just want the final part at this point, since the event parameter
     // has already been correctly populated.
-    rootAccessibilityView.getParent().requestSendAccessibilityEvent(rootAccessibilityView, event);
+    final ViewParent parent = rootAccessibilityView.getParent();
+    if (parent == null) {
+      // Events are also sent by accessibilityEventScheduler, possibly after the view was detached.
+      return;
+    }
+    parent.requestSendAccessibilityEvent(rootAccessibilityView, event);
   }
 
   /**
@@ -1608,6 +1850,20 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
   // TODO(mattcarroll): under what conditions is this method expected to be invoked?
   public void reset() {
     flutterSemanticsTree.clear();
+    hitTestGrid.clear();
+    hitTestGridExact = true;
+    semanticsEpoch++;
+    try {
+      semanticsExecutor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              semanticsUpdateProcessor.reset();
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // This bridge was released.
+    }
     if (accessibilityFocusedSemanticsNode != null) {
       sendAccessibilityEvent(
           accessibilityFocusedSemanticsNode.id,
@@ -1615,6 +1871,8 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
     }
     accessibilityFocusedSemanticsNode = null;
     hoveredObject = null;
+    // Pending events refer to the nodes that were just cleared.
+    accessibilityEventScheduler.cancel();
     sendWindowContentChangeEvent(0);
   }
 
@@ -1660,7 +1918,7 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
 
   // Must match SemanticsFlag in semantics.dart
   // https://github.com/flutter/engine/blob/master/lib/ui/semantics.dart
-  private enum Flag {
+  enum Flag {
     HAS_CHECKED_STATE(1 << 0),
     IS_CHECKED(1 << 1),
     IS_SELECTED(1 << 2),
@@ -1826,6 +2084,8 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
     private float[] transform;
 
     private SemanticsNode parent;
+    // The index of this node in the childrenInHitTestOrder of its parent.
+    private int hitTestIndex;
     private List<SemanticsNode> childrenInTraversalOrder = new ArrayList<>();
     private List<SemanticsNode> childrenInHitTestOrder = new ArrayList<>();
     private List<CustomAccessibilityAction> customAccessibilityActions;
@@ -1836,13 +2096,88 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
     private float[] inverseTransform;
 
     private boolean globalGeometryDirty = true;
-    private float[] globalTransform;
     private Rect globalRect;
 
+    // The parts of the AccessibilityNodeInfo of this node that only depend on the node itself, see
+    // ensureNodeInfoCache(). They are recomputed only after the node, its geometry, the visibility
+    // of its children or its custom actions changed.
+    private boolean nodeInfoDirty = true;
+    private String valueLabelHint;
+    private Rect boundsInParent;
+    private int[] visibleChildIds = new int[0];
+    private int visibleChildCount;
+    private AccessibilityNodeInfo.AccessibilityAction onTapOverrideAction;
+    private AccessibilityNodeInfo.AccessibilityAction onLongPressOverrideAction;
+    private final List<AccessibilityNodeInfo.AccessibilityAction> customAccessibilityActionInfos =
+        new ArrayList<>();
+
     SemanticsNode(@NonNull AccessibilityBridge accessibilityBridge) {
       this.accessibilityBridge = accessibilityBridge;
     }
 
+    /**
+     * Resets this {@code SemanticsNode} to the state of a newly created one, so that it can be
+     * reused for another id. Allocated arrays and lists are kept.
+     */
+    private void recycle() {
+      id = -1;
+      flags = 0;
+      actions = 0;
+      maxValueLength = 0;
+      currentValueLength = 0;
+      textSelectionBase = 0;
+      textSelectionExtent = 0;
+      platformViewId = 0;
+      scrollChildren = 0;
+      scrollIndex = 0;
+      scrollPosition = 0;
+      scrollExtentMax = 0;
+      scrollExtentMin = 0;
+      label = null;
+      value = null;
+      increasedValue = null;
+      decreasedValue = null;
+      hint = null;
+      textDirection = null;
+      hadPreviousConfig = false;
+      previousFlags = 0;
+      previousActions = 0;
+      previousTextSelectionBase = 0;
+      previousTextSelectionExtent = 0;
+      previousScrollPosition = 0;
+      previousScrollExtentMax = 0;
+      previousScrollExtentMin = 0;
+      previousValue = null;
+      previousLabel = null;
+      left = 0;
+      top = 0;
+      right = 0;
+      bottom = 0;
+      if (transform != null) {
+        Arrays.fill(transform, 0);
+      }
+      parent = null;
+      hitTestIndex = 0;
+      childrenInTraversalOrder.clear();
+      childrenInHitTestOrder.clear();
+      if (customAccessibilityActions != null) {
+        customAccessibilityActions.clear();
+      }
+      onTapOverride = null;
+      onLongPressOverride = null;
+      inverseTransformDirty = true;
+      globalGeometryDirty = true;
+      if (globalRect != null) {
+        globalRect.setEmpty();
+      }
+      nodeInfoDirty = true;
+      valueLabelHint = null;
+      visibleChildCount = 0;
+      onTapOverrideAction = null;
+      onLongPressOverrideAction = null;
+      customAccessibilityActionInfos.clear();
+    }
+
     /**
      * Returns the ancestor of this {@code SemanticsNode} for which {@link Predicate#test(Object)}
      * returns true, or null if no such ancestor exists.
@@ -1941,7 +2276,8 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
       }
     }
 
-    private void updateWith(@NonNull ByteBuffer buffer, @NonNull String[] strings) {
+    /** Copies the state that Flutter sent for this {@code SemanticsNode} from {@code update}. */
+    private void applyUpdate(@NonNull SemanticsUpdateProcessor.NodeUpdate update) {
       hadPreviousConfig = true;
       previousValue = value;
       previousLabel = label;
@@ -1953,67 +2289,65 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
       previousScrollExtentMax = scrollExtentMax;
       previousScrollExtentMin = scrollExtentMin;
 
-      flags = buffer.getInt();
-      actions = buffer.getInt();
-      maxValueLength = buffer.getInt();
-      currentValueLength = buffer.getInt();
-      textSelectionBase = buffer.getInt();
-      textSelectionExtent = buffer.getInt();
-      platformViewId = buffer.getInt();
-      scrollChildren = buffer.getInt();
-      scrollIndex = buffer.getInt();
-      scrollPosition = buffer.getFloat();
-      scrollExtentMax = buffer.getFloat();
-      scrollExtentMin = buffer.getFloat();
-
-      int stringIndex = buffer.getInt();
-      label = stringIndex == -1 ? null : strings[stringIndex];
-
-      stringIndex = buffer.getInt();
-      value = stringIndex == -1 ? null : strings[stringIndex];
-
-      stringIndex = buffer.getInt();
-      increasedValue = stringIndex == -1 ? null : strings[stringIndex];
-
-      stringIndex = buffer.getInt();
-      decreasedValue = stringIndex == -1 ? null : strings[stringIndex];
-
-      stringIndex = buffer.getInt();
-      hint = stringIndex == -1 ? null : strings[stringIndex];
-
-      textDirection = TextDirection.fromInt(buffer.getInt());
-
-      left = buffer.getFloat();
-      top = buffer.getFloat();
-      right = buffer.getFloat();
-      bottom = buffer.getFloat();
+      flags = update.flags;
+      actions = update.actions;
+      maxValueLength = update.maxValueLength;
+      currentValueLength = update.currentValueLength;
+      textSelectionBase = update.textSelectionBase;
+      textSelectionExtent = update.textSelectionExtent;
+      platformViewId = update.platformViewId;
+      scrollChildren = update.scrollChildren;
+      scrollIndex = update.scrollIndex;
+      scrollPosition = update.scrollPosition;
+      scrollExtentMax = update.scrollExtentMax;
+      scrollExtentMin = update.scrollExtentMin;
+
+      label = update.label;
+      value = update.value;
+      increasedValue = update.increasedValue;
+      decreasedValue = update.decreasedValue;
+      hint = update.hint;
+
+      textDirection = TextDirection.fromInt(update.textDirection);
+
+      left = update.left;
+      top = update.top;
+      right = update.right;
+      bottom = update.bottom;
 
       if (transform == null) {
         transform = new float[16];
       }
-      for (int i = 0; i < 16; ++i) {
-        transform[i] = buffer.getFloat();
-      }
+      System.arraycopy(update.transform, 0, transform, 0, 16);
       inverseTransformDirty = true;
       globalGeometryDirty = true;
+      nodeInfoDirty = true;
+      // The parent only lists children that are not hidden.
+      if (parent != null && ((previousFlags ^ flags) & Flag.IS_HIDDEN.value) != 0) {
+        parent.nodeInfoDirty = true;
+      }
 
-      final int childCount = buffer.getInt();
       childrenInTraversalOrder.clear();
       childrenInHitTestOrder.clear();
-      for (int i = 0; i < childCount; ++i) {
-        SemanticsNode child = accessibilityBridge.getOrCreateSemanticsNode(buffer.getInt());
+      for (int i = 0; i < update.childrenInTraversalOrder.length; ++i) {
+        SemanticsNode child =
+            accessibilityBridge.getOrCreateSemanticsNode(update.childrenInTraversalOrder[i]);
         child.parent = this;
         childrenInTraversalOrder.add(child);
       }
-      for (int i = 0; i < childCount; ++i) {
-        SemanticsNode child = accessibilityBridge.getOrCreateSemanticsNode(buffer.getInt());
+      for (int i = 0; i < update.childrenInHitTestOrder.length; ++i) {
+        SemanticsNode child =
+            accessibilityBridge.getOrCreateSemanticsNode(update.childrenInHitTestOrder[i]);
         child.parent = this;
+        child.hitTestIndex = i;
         childrenInHitTestOrder.add(child);
       }
 
-      final int actionCount = buffer.getInt();
+      final int actionCount = update.customAccessibilityActionIds.length;
       if (actionCount == 0) {
-        customAccessibilityActions = null;
+        if (customAccessibilityActions != null) {
+          customAccessibilityActions.clear();
+        }
       } else {
         if (customAccessibilityActions == null)
           customAccessibilityActions = new ArrayList<>(actionCount);
@@ -2021,7 +2355,8 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
 
         for (int i = 0; i < actionCount; i++) {
           CustomAccessibilityAction action =
-              accessibilityBridge.getOrCreateAccessibilityAction(buffer.getInt());
+              accessibilityBridge.getOrCreateAccessibilityAction(
+                  update.customAccessibilityActionIds[i]);
           if (action.overrideId == Action.TAP.value) {
             onTapOverride = action;
           } else if (action.overrideId == Action.LONG_PRESS.value) {
@@ -2039,6 +2374,69 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
       }
     }
 
+    /** Sets the global rect of this {@code SemanticsNode}, as computed off the main thread. */
+    private void applyGeometry(int left, int top, int right, int bottom) {
+      if (globalRect == null) globalRect = new Rect();
+      globalRect.set(left, top, right, bottom);
+      globalGeometryDirty = false;
+      nodeInfoDirty = true;
+    }
+
+    /**
+     * Recomputes the parts of the {@link AccessibilityNodeInfo} of this {@code SemanticsNode} that
+     * only depend on the node itself, if the node changed since they were last computed.
+     *
+     * <p>The global rect of this node and of its parent must be up to date.
+     */
+    @SuppressLint("NewApi")
+    private void ensureNodeInfoCache() {
+      if (!nodeInfoDirty) {
+        return;
+      }
+      nodeInfoDirty = false;
+
+      valueLabelHint = getValueLabelHint();
+
+      if (boundsInParent == null) boundsInParent = new Rect();
+      boundsInParent.set(getGlobalRect());
+      if (parent != null) {
+        final Rect parentBounds = parent.getGlobalRect();
+        boundsInParent.offset(-parentBounds.left, -parentBounds.top);
+      }
+
+      if (visibleChildIds.length < childrenInTraversalOrder.size()) {
+        visibleChildIds = new int[childrenInTraversalOrder.size()];
+      }
+      visibleChildCount = 0;
+      for (int i = 0; i < childrenInTraversalOrder.size(); i++) {
+        final SemanticsNode child = childrenInTraversalOrder.get(i);
+        if (!child.hasFlag(Flag.IS_HIDDEN)) {
+          visibleChildIds[visibleChildCount++] = child.id;
+        }
+      }
+
+      customAccessibilityActionInfos.clear();
+      if (Build.VERSION.SDK_INT >= 21) {
+        onTapOverrideAction =
+            onTapOverride == null
+                ? null
+                : new AccessibilityNodeInfo.AccessibilityAction(
+                    AccessibilityNodeInfo.ACTION_CLICK, onTapOverride.hint);
+        onLongPressOverrideAction =
+            onLongPressOverride == null
+                ? null
+                : new AccessibilityNodeInfo.AccessibilityAction(
+                    AccessibilityNodeInfo.ACTION_LONG_CLICK, onLongPressOverride.hint);
+        if (customAccessibilityActions != null) {
+          for (int i = 0; i < customAccessibilityActions.size(); i++) {
+            final CustomAccessibilityAction action = customAccessibilityActions.get(i);
+            customAccessibilityActionInfos.add(
+                new AccessibilityNodeInfo.AccessibilityAction(action.resourceId, action.label));
+          }
+        }
+      }
+    }
+
     private void ensureInverseTransform() {
       if (!inverseTransformDirty) {
         return;
@@ -2105,15 +2503,6 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
           || (hint != null && !hint.isEmpty());
     }
 
-    private void collectRoutes(List<SemanticsNode> edges) {
-      if (hasFlag(Flag.SCOPES_ROUTE)) {
-        edges.add(this);
-      }
-      for (SemanticsNode child : childrenInTraversalOrder) {
-        child.collectRoutes(edges);
-      }
-    }
-
     private String getRouteName() {
       // Returns the first non-null and non-empty semantic label of a child
       // with an NamesRoute flag. Otherwise returns null.
@@ -2131,87 +2520,6 @@ public class AccessibilityBridge extends AccessibilityNodeProvider {
       return null;
     }
 
-    private void updateRecursively(
-        float[] ancestorTransform, Set<SemanticsNode> visitedObjects, boolean forceUpdate) {
-      visitedObjects.add(this);
-
-      if (globalGeometryDirty) {
-        forceUpdate = true;
-      }
-
-      if (forceUpdate) {
-        if (globalTransform == null) {
-          globalTransform = new float[16];
-        }
-        Matrix.multiplyMM(globalTransform, 0, ancestorTransform, 0, transform, 0);
-
-        final float[] sample = new float[4];
-        sample[2] = 0;
-        sample[3] = 1;
-
-        final float[] point1 = new float[4];
-        final float[] point2 = new float[4];
-        final float[] point3 = new float[4];
-        final float[] point4 = new float[4];
-
-        sample[0] = left;
-        sample[1] = top;
-        transformPoint(point1, globalTransform, sample);
-
-        sample[0] = right;
-        sample[1] = top;
-        transformPoint(point2, globalTransform, sample);
-
-        sample[0] = right;
-        sample[1] = bottom;
-        transformPoint(point3, globalTransform, sample);
-
-        sample[0] = left;
-        sample[1] = bottom;
-        transformPoint(point4, globalTransform, sample);
-
-        if (globalRect == null) globalRect = new Rect();
-
-        globalRect.set(
-            Math.round(min(point1[0], point2[0], point3[0], point4[0])),
-            Math.round(min(point1[1], point2[1], point3[1], point4[1])),
-            Math.round(max(point1[0], point2[0], point3[0], point4[0])),
-            Math.round(max(point1[1], point2[1], point3[1], point4[1])));
-
-        globalGeometryDirty = false;
-      }
-
-      if (BuildConfig.DEBUG) {
-        if (globalTransform == null) {
-          Log.e(TAG, "Expected globalTransform to not be null.");
-        }
-        if (globalRect == null) {
-          Log.e(TAG, "Expected globalRect to not be null.");
-        }
-      }
-
-      for (SemanticsNode child : childrenInTraversalOrder) {
-        child.updateRecursively(globalTransform, visitedObjects, forceUpdate);
-      }
-    }
-
-    private void transformPoint(float[] result, float[] transform, float[] point) {
-      Matrix.multiplyMV(result, 0, transform, 0, point, 0);
-      final float w = result[3];
-      result[0] /= w;
-      result[1] /= w;
-      result[2] /= w;
-      result[3] = 0;
-    }
-
-    private float min(float a, float b, float c, float d) {
-      return Math.min(a, Math.min(b, Math.min(c, d)));
-    }
-
-    private float max(float a, float b, float c, float d) {
-      return Math.max(a, Math.max(b, Math.max(c, d)));
-    }
-
     private String getValueLabelHint() {
       StringBuilder sb = new StringBuilder();
       String[] array = {value, label, hint};
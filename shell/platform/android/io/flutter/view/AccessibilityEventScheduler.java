@@ -0,0 +1,233 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.view;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.view.accessibility.AccessibilityEvent;
+import androidx.annotation.NonNull;
+
+/**
+ * Throttles and coalesces the recurring {@link AccessibilityEvent}s that {@link
+ * AccessibilityBridge} sends for semantics updates, so that an animated screen does not flood the
+ * accessibility services with events.
+ *
+ * <p>Like Android's own {@link android.view.View}s, {@code AccessibilityEventScheduler} holds these
+ * events back and sends them in batches, at most one batch per interval:
+ *
+ * <ul>
+ *   <li>Subtree content changes are coalesced, a change of a subtree is dropped if the subtree, or
+ *       a subtree that contains it, already has a pending change.
+ *   <li>Scroll events and text selection events are coalesced per node, the latest event of a node
+ *       replaces its pending event.
+ * </ul>
+ *
+ * <p>The first event after a quiet interval is sent right away, on the next turn of the handler's
+ * looper. The number of events that were dropped is kept for diagnostics. Events that tell the user
+ * about a change right away, such as focus changes and live region updates, are not scheduled.
+ *
+ * <p>{@code AccessibilityEventScheduler} is not thread-safe, it must be used on the thread of its
+ * {@link Handler}.
+ */
+final class AccessibilityEventScheduler {
+  /**
+   * The minimum time between two batches of events, which matches {@code
+   * ViewConfiguration.getSendRecurringAccessibilityEventsInterval()}.
+   */
+  static final long DEFAULT_INTERVAL_MILLIS = 100;
+
+  /** Sends the events of an {@code AccessibilityEventScheduler}, and describes the tree. */
+  interface Delegate {
+    /**
+     * Sends an {@link AccessibilityEvent#TYPE_WINDOW_CONTENT_CHANGED} event for the subtree whose
+     * root has the given {@code virtualViewId}.
+     */
+    void sendSubtreeChangedEvent(int virtualViewId);
+
+    /** Sends the given {@code event}. */
+    void sendEvent(@NonNull AccessibilityEvent event);
+
+    /**
+     * Returns the id of the parent of the node with the given {@code virtualViewId}, or {@link
+     * #NO_PARENT} if the node is the root, or is not in the tree.
+     */
+    int getParentId(int virtualViewId);
+  }
+
+  /** The value of {@link Delegate#getParentId(int)} for nodes without a parent. */
+  static final int NO_PARENT = -1;
+
+  @NonNull private final Delegate delegate;
+  @NonNull private final Handler handler;
+  private final long intervalMillis;
+
+  // Ids of the subtrees with a pending content change. Values are unused.
+  @NonNull private final IntObjectHashMap<Boolean> pendingSubtreeChanges = new IntObjectHashMap<>();
+
+  @NonNull
+  private final IntObjectHashMap<AccessibilityEvent> pendingScrollEvents = new IntObjectHashMap<>();
+
+  @NonNull
+  private final IntObjectHashMap<AccessibilityEvent> pendingSelectionEvents =
+      new IntObjectHashMap<>();
+
+  private boolean flushScheduled = false;
+  private long lastFlushMillis = Long.MIN_VALUE / 2;
+
+  private int suppressedSubtreeChangeCount = 0;
+  private int suppressedScrollEventCount = 0;
+  private int suppressedSelectionEventCount = 0;
+
+  @NonNull
+  private final Runnable flushRunnable =
+      new Runnable() {
+        @Override
+        public void run() {
+          flushScheduled = false;
+          flush();
+        }
+      };
+
+  AccessibilityEventScheduler(
+      @NonNull Delegate delegate, @NonNull Handler handler, long intervalMillis) {
+    this.delegate = delegate;
+    this.handler = handler;
+    this.intervalMillis = intervalMillis;
+  }
+
+  /** Schedules a content change event for the subtree rooted at {@code virtualViewId}. */
+  void scheduleSubtreeChanged(int virtualViewId) {
+    if (pendingSubtreeChanges.put(virtualViewId, Boolean.TRUE) != null) {
+      suppressedSubtreeChangeCount++;
+    }
+    scheduleFlush();
+  }
+
+  /**
+   * Schedules the {@link AccessibilityEvent#TYPE_VIEW_SCROLLED} {@code event} of the node with the
+   * given {@code virtualViewId}, replacing its pending scroll event if it has one.
+   */
+  void scheduleScrollEvent(int virtualViewId, @NonNull AccessibilityEvent event) {
+    if (replace(pendingScrollEvents, virtualViewId, event)) {
+      suppressedScrollEventCount++;
+    }
+    scheduleFlush();
+  }
+
+  /**
+   * Schedules the {@link AccessibilityEvent#TYPE_VIEW_TEXT_SELECTION_CHANGED} {@code event} of the
+   * node with the given {@code virtualViewId}, replacing its pending selection event if it has one.
+   */
+  void scheduleSelectionEvent(int virtualViewId, @NonNull AccessibilityEvent event) {
+    if (replace(pendingSelectionEvents, virtualViewId, event)) {
+      suppressedSelectionEventCount++;
+    }
+    scheduleFlush();
+  }
+
+  /** Sends all pending events now. */
+  void flush() {
+    lastFlushMillis = SystemClock.uptimeMillis();
+    if (flushScheduled) {
+      handler.removeCallbacks(flushRunnable);
+      flushScheduled = false;
+    }
+
+    for (int slot = 0; slot < pendingSubtreeChanges.capacity(); slot++) {
+      if (pendingSubtreeChanges.valueAt(slot) == null) {
+        continue;
+      }
+      final int virtualViewId = pendingSubtreeChanges.keyAt(slot);
+      if (hasPendingAncestor(virtualViewId)) {
+        suppressedSubtreeChangeCount++;
+      } else {
+        delegate.sendSubtreeChangedEvent(virtualViewId);
+      }
+    }
+    pendingSubtreeChanges.clear();
+
+    sendAll(pendingScrollEvents);
+    sendAll(pendingSelectionEvents);
+  }
+
+  /** Drops all pending events without sending them. */
+  void cancel() {
+    if (flushScheduled) {
+      handler.removeCallbacks(flushRunnable);
+      flushScheduled = false;
+    }
+    pendingSubtreeChanges.clear();
+    recycleAll(pendingScrollEvents);
+    recycleAll(pendingSelectionEvents);
+  }
+
+  /** Returns the number of subtree content change events that were coalesced into others. */
+  int getSuppressedSubtreeChangeCount() {
+    return suppressedSubtreeChangeCount;
+  }
+
+  /** Returns the number of scroll events that were replaced by a later scroll event. */
+  int getSuppressedScrollEventCount() {
+    return suppressedScrollEventCount;
+  }
+
+  /** Returns the number of text selection events that were replaced by a later one. */
+  int getSuppressedSelectionEventCount() {
+    return suppressedSelectionEventCount;
+  }
+
+  private void scheduleFlush() {
+    if (flushScheduled) {
+      return;
+    }
+    flushScheduled = true;
+    final long delay = lastFlushMillis + intervalMillis - SystemClock.uptimeMillis();
+    handler.postDelayed(flushRunnable, Math.max(0, delay));
+  }
+
+  private boolean hasPendingAncestor(int virtualViewId) {
+    int ancestor = delegate.getParentId(virtualViewId);
+    while (ancestor != NO_PARENT) {
+      if (pendingSubtreeChanges.containsKey(ancestor)) {
+        return true;
+      }
+      ancestor = delegate.getParentId(ancestor);
+    }
+    return false;
+  }
+
+  private void sendAll(@NonNull IntObjectHashMap<AccessibilityEvent> events) {
+    for (int slot = 0; slot < events.capacity(); slot++) {
+      final AccessibilityEvent event = events.valueAt(slot);
+      if (event != null) {
+        delegate.sendEvent(event);
+      }
+    }
+    events.clear();
+  }
+
+  private static void recycleAll(@NonNull IntObjectHashMap<AccessibilityEvent> events) {
+    for (int slot = 0; slot < events.capacity(); slot++) {
+      final AccessibilityEvent event = events.valueAt(slot);
+      if (event != null) {
+        event.recycle();
+      }
+    }
+    events.clear();
+  }
+
+  /** Maps {@code id} to {@code event}, and returns whether it replaced a pending event. */
+  private static boolean replace(
+      @NonNull IntObjectHashMap<AccessibilityEvent> events,
+      int id,
+      @NonNull AccessibilityEvent event) {
+    final AccessibilityEvent replaced = events.put(id, event);
+    if (replaced != null) {
+      replaced.recycle();
+      return true;
+    }
+    return false;
+  }
+}
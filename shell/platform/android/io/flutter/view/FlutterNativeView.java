@@ -133,12 +133,35 @@ public class FlutterNativeView implements BinaryMessenger {
     dartExecutor.getBinaryMessenger().send(channel, message, callback);
   }
 
+  @Override
+  @UiThread
+  public void send(String channel, ByteBuffer message, BinaryReply callback, long timeoutMillis) {
+    if (!isAttached()) {
+      Log.d(TAG, "FlutterView.send called on a detached view, channel=" + channel);
+      return;
+    }
+
+    dartExecutor.getBinaryMessenger().send(channel, message, callback, timeoutMillis);
+  }
+
   @Override
   @UiThread
   public void setMessageHandler(String channel, BinaryMessageHandler handler) {
     dartExecutor.getBinaryMessenger().setMessageHandler(channel, handler);
   }
 
+  @Override
+  @UiThread
+  public TaskQueue makeBackgroundTaskQueue() {
+    return dartExecutor.getBinaryMessenger().makeBackgroundTaskQueue();
+  }
+
+  @Override
+  @UiThread
+  public void setMessageHandler(String channel, BinaryMessageHandler handler, TaskQueue taskQueue) {
+    dartExecutor.getBinaryMessenger().setMessageHandler(channel, handler, taskQueue);
+  }
+
   /*package*/ FlutterJNI getFlutterJNI() {
     return mFlutterJNI;
   }
@@ -445,6 +445,51 @@ public class FlutterView extends SurfaceView implements BinaryMessenger, Texture
         .checkInputConnectionProxy(view);
   }
 
+  /**
+   * Sets whether the historical samples that Android batches into each {@link
+   * MotionEvent#ACTION_MOVE} are sent to Flutter, see {@link
+   * AndroidTouchProcessor#setForwardsHistoricalSamples(boolean)}.
+   */
+  public void setForwardsHistoricalSamples(boolean forwardsHistoricalSamples) {
+    androidTouchProcessor.setForwardsHistoricalSamples(forwardsHistoricalSamples);
+  }
+
+  /**
+   * Returns whether historical {@link MotionEvent} samples are sent to Flutter, see {@link
+   * #setForwardsHistoricalSamples(boolean)}.
+   */
+  public boolean getForwardsHistoricalSamples() {
+    return androidTouchProcessor.getForwardsHistoricalSamples();
+  }
+
+  /**
+   * Sets the {@link AndroidTouchProcessor.PointerCoalescingPolicy} with which pointer data is sent
+   * to Flutter, see {@link AndroidTouchProcessor#setPointerCoalescingPolicy(int)}.
+   */
+  public void setPointerCoalescingPolicy(
+      @AndroidTouchProcessor.PointerCoalescingPolicy int pointerCoalescingPolicy) {
+    androidTouchProcessor.setPointerCoalescingPolicy(pointerCoalescingPolicy);
+  }
+
+  /** Returns the current {@link AndroidTouchProcessor.PointerCoalescingPolicy}. */
+  @AndroidTouchProcessor.PointerCoalescingPolicy
+  public int getPointerCoalescingPolicy() {
+    return androidTouchProcessor.getPointerCoalescingPolicy();
+  }
+
+  /** Returns the number of {@link MotionEvent}s that were sent to Flutter. */
+  public long getReceivedPointerEventCount() {
+    return androidTouchProcessor.getReceivedEventCount();
+  }
+
+  /**
+   * Returns the number of pointer data packets that were sent to Flutter. This is less than {@link
+   * #getReceivedPointerEventCount()} when events are coalesced.
+   */
+  public long getDispatchedPointerPacketCount() {
+    return androidTouchProcessor.getDispatchedPacketCount();
+  }
+
   @Override
   public boolean onTouchEvent(MotionEvent event) {
     if (!isAttached()) {
@@ -773,12 +818,34 @@ public class FlutterView extends SurfaceView implements BinaryMessenger, Texture
     mNativeView.send(channel, message, callback);
   }
 
+  @Override
+  @UiThread
+  public void send(String channel, ByteBuffer message, BinaryReply callback, long timeoutMillis) {
+    if (!isAttached()) {
+      Log.d(TAG, "FlutterView.send called on a detached view, channel=" + channel);
+      return;
+    }
+    mNativeView.send(channel, message, callback, timeoutMillis);
+  }
+
   @Override
   @UiThread
   public void setMessageHandler(String channel, BinaryMessageHandler handler) {
     mNativeView.setMessageHandler(channel, handler);
   }
 
+  @Override
+  @UiThread
+  public TaskQueue makeBackgroundTaskQueue() {
+    return mNativeView.makeBackgroundTaskQueue();
+  }
+
+  @Override
+  @UiThread
+  public void setMessageHandler(String channel, BinaryMessageHandler handler, TaskQueue taskQueue) {
+    mNativeView.setMessageHandler(channel, handler, taskQueue);
+  }
+
   /** Listener will be called on the Android UI thread once when Flutter renders the first frame. */
   public interface FirstFrameListener {
     void onFirstFrame();
@@ -0,0 +1,214 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.view;
+
+import androidx.annotation.NonNull;
+import java.util.Arrays;
+
+/**
+ * A spatial index of rects keyed by {@code int} id, which finds the rects that contain a point
+ * without visiting every rect.
+ *
+ * <p>The plane is divided into square cells of {@link #CELL_SIZE} pixels, and every cell keeps the
+ * ids of the rects that overlap it. A point query only visits the rects of the point's cell, so on
+ * a long list it visits the few items under the point rather than every item. Rects that overlap
+ * more than {@link #MAX_CELLS_PER_RECT} cells, such as the root of a semantics tree or a scrollable
+ * container, are kept in a separate list that every query visits, so that large rects do not make
+ * updates expensive.
+ *
+ * <p>Rects are half-open, a rect contains the points whose coordinates are at least its left and
+ * top, and less than its right and bottom. Adding, moving and removing a rect only touches the
+ * cells that it overlaps, and queries do not allocate.
+ *
+ * <p>{@code HitTestGrid} is not thread-safe.
+ */
+final class HitTestGrid {
+  private static final int CELL_SHIFT = 7;
+
+  /** The width and height of a cell, in pixels. */
+  static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+  /** Rects that overlap more cells than this are not kept in cells. */
+  static final int MAX_CELLS_PER_RECT = 16;
+
+  @NonNull private final IntObjectHashMap<Entry> entries = new IntObjectHashMap<>();
+  @NonNull private final IntObjectHashMap<IdList> cells = new IntObjectHashMap<>();
+  @NonNull private final IdList largeIds = new IdList();
+
+  // The ids found by the last call to query().
+  @NonNull private final IdList queryResult = new IdList();
+
+  /**
+   * Sets the rect of {@code id}, replacing its previous rect if it had one. An empty rect removes
+   * {@code id}, as it can not contain any point.
+   */
+  void put(int id, int left, int top, int right, int bottom) {
+    Entry entry = entries.get(id);
+    if (entry != null) {
+      if (entry.left == left
+          && entry.top == top
+          && entry.right == right
+          && entry.bottom == bottom) {
+        return;
+      }
+      unlink(entry);
+    }
+    if (left >= right || top >= bottom) {
+      if (entry != null) {
+        entries.remove(id);
+      }
+      return;
+    }
+    if (entry == null) {
+      entry = new Entry(id);
+      entries.put(id, entry);
+    }
+    entry.left = left;
+    entry.top = top;
+    entry.right = right;
+    entry.bottom = bottom;
+    link(entry);
+  }
+
+  /** Removes the rect of {@code id}, if it has one. */
+  void remove(int id) {
+    final Entry entry = entries.remove(id);
+    if (entry != null) {
+      unlink(entry);
+    }
+  }
+
+  void clear() {
+    entries.clear();
+    cells.clear();
+    largeIds.clear();
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * Finds the ids of the rects that contain the point ({@code x}, {@code y}), and returns their
+   * number. The ids are returned by {@link #queryResultAt(int)}, in no particular order, until the
+   * next query.
+   */
+  int query(float x, float y) {
+    queryResult.clear();
+    if (Float.isNaN(x) || Float.isNaN(y)) {
+      return 0;
+    }
+    collect(largeIds, x, y);
+    final IdList cell = cells.get(cellKey(cellOf(x), cellOf(y)));
+    if (cell != null) {
+      collect(cell, x, y);
+    }
+    return queryResult.size;
+  }
+
+  /** Returns the {@code index}th id found by the last {@link #query(float, float)}. */
+  int queryResultAt(int index) {
+    return queryResult.ids[index];
+  }
+
+  private void collect(@NonNull IdList ids, float x, float y) {
+    for (int i = 0; i < ids.size; i++) {
+      final Entry entry = entries.get(ids.ids[i]);
+      if (x >= entry.left && x < entry.right && y >= entry.top && y < entry.bottom) {
+        queryResult.add(entry.id);
+      }
+    }
+  }
+
+  private void link(@NonNull Entry entry) {
+    final int minX = entry.left >> CELL_SHIFT;
+    final int minY = entry.top >> CELL_SHIFT;
+    final int maxX = (entry.right - 1) >> CELL_SHIFT;
+    final int maxY = (entry.bottom - 1) >> CELL_SHIFT;
+    if ((long) (maxX - minX + 1) * (maxY - minY + 1) > MAX_CELLS_PER_RECT) {
+      largeIds.add(entry.id);
+      return;
+    }
+    for (int cellX = minX; cellX <= maxX; cellX++) {
+      for (int cellY = minY; cellY <= maxY; cellY++) {
+        final int key = cellKey(cellX, cellY);
+        IdList cell = cells.get(key);
+        if (cell == null) {
+          cell = new IdList();
+          cells.put(key, cell);
+        }
+        cell.add(entry.id);
+      }
+    }
+  }
+
+  private void unlink(@NonNull Entry entry) {
+    final int minX = entry.left >> CELL_SHIFT;
+    final int minY = entry.top >> CELL_SHIFT;
+    final int maxX = (entry.right - 1) >> CELL_SHIFT;
+    final int maxY = (entry.bottom - 1) >> CELL_SHIFT;
+    if ((long) (maxX - minX + 1) * (maxY - minY + 1) > MAX_CELLS_PER_RECT) {
+      largeIds.remove(entry.id);
+      return;
+    }
+    for (int cellX = minX; cellX <= maxX; cellX++) {
+      for (int cellY = minY; cellY <= maxY; cellY++) {
+        final int key = cellKey(cellX, cellY);
+        final IdList cell = cells.get(key);
+        cell.remove(entry.id);
+        if (cell.size == 0) {
+          cells.remove(key);
+        }
+      }
+    }
+  }
+
+  private static int cellOf(float coordinate) {
+    return ((int) Math.floor(coordinate)) >> CELL_SHIFT;
+  }
+
+  // Cells that are 2^16 cells apart share a key, which is harmless as query() checks every rect.
+  private static int cellKey(int cellX, int cellY) {
+    return (cellX << 16) | (cellY & 0xFFFF);
+  }
+
+  private static final class Entry {
+    final int id;
+    int left;
+    int top;
+    int right;
+    int bottom;
+
+    Entry(int id) {
+      this.id = id;
+    }
+  }
+
+  /** An unordered list of ids. */
+  private static final class IdList {
+    @NonNull int[] ids = new int[4];
+    int size;
+
+    void add(int id) {
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      ids[size++] = id;
+    }
+
+    void remove(int id) {
+      for (int i = 0; i < size; i++) {
+        if (ids[i] == id) {
+          ids[i] = ids[--size];
+          return;
+        }
+      }
+    }
+
+    void clear() {
+      size = 0;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.view;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * A map from {@code int} keys to non-null values, stored in open-addressed arrays with linear
+ * probing.
+ *
+ * <p>Unlike a {@code HashMap<Integer, V>}, this map neither boxes keys nor allocates an entry per
+ * mapping, so looking up, replacing and removing mappings does not allocate, and neither does
+ * adding them unless the map has to grow. Unlike {@link android.util.SparseArray}, adding and
+ * removing keys takes constant time on average, regardless of the number of keys.
+ *
+ * <p>The mappings can be visited without allocating an iterator, by calling {@link #valueAt(int)}
+ * and {@link #keyAt(int)} for every slot below {@link #capacity()}. The map must not be modified
+ * during such a visit.
+ *
+ * <p>{@code IntObjectHashMap} is not thread-safe.
+ */
+final class IntObjectHashMap<V> {
+  private static final int MIN_CAPACITY = 16;
+
+  @NonNull private int[] keys;
+  // A null value marks an empty slot.
+  @NonNull private Object[] values;
+  private int size;
+
+  IntObjectHashMap() {
+    keys = new int[MIN_CAPACITY];
+    values = new Object[MIN_CAPACITY];
+  }
+
+  /** Returns the value that is mapped to {@code key}, or null if there is none. */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  V get(int key) {
+    final int slot = slotOf(key);
+    return slot < 0 ? null : (V) values[slot];
+  }
+
+  boolean containsKey(int key) {
+    return slotOf(key) >= 0;
+  }
+
+  /** Maps {@code key} to {@code value}, and returns the value it was mapped to before, if any. */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  V put(int key, @NonNull V value) {
+    final int mask = values.length - 1;
+    int slot = hash(key) & mask;
+    while (values[slot] != null) {
+      if (keys[slot] == key) {
+        final V previous = (V) values[slot];
+        values[slot] = value;
+        return previous;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+    // Keep the load factor at or below 3/4, so that probe sequences stay short.
+    if (size > values.length - (values.length >> 2)) {
+      resize(values.length * 2);
+    }
+    return null;
+  }
+
+  /** Removes the mapping of {@code key}, and returns the value it was mapped to, if any. */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  V remove(int key) {
+    int hole = slotOf(key);
+    if (hole < 0) {
+      return null;
+    }
+    final V removed = (V) values[hole];
+    // Move later entries of the same probe sequence back into the hole, so that lookups do not
+    // stop at it.
+    final int mask = values.length - 1;
+    int next = (hole + 1) & mask;
+    while (values[next] != null) {
+      final int home = hash(keys[next]) & mask;
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        keys[hole] = keys[next];
+        values[hole] = values[next];
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+    values[hole] = null;
+    size--;
+    return removed;
+  }
+
+  void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Returns the number of slots, see {@link #valueAt(int)}. */
+  int capacity() {
+    return values.length;
+  }
+
+  /** Returns the value in the given {@code slot}, or null if the slot is empty. */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  V valueAt(int slot) {
+    return (V) values[slot];
+  }
+
+  /** Returns the key in the given {@code slot}, which must not be empty. */
+  int keyAt(int slot) {
+    return keys[slot];
+  }
+
+  private int slotOf(int key) {
+    final int mask = values.length - 1;
+    int slot = hash(key) & mask;
+    while (values[slot] != null) {
+      if (keys[slot] == key) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private void resize(int capacity) {
+    final int[] oldKeys = keys;
+    final Object[] oldValues = values;
+    keys = new int[capacity];
+    values = new Object[capacity];
+    final int mask = capacity - 1;
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = hash(oldKeys[i]) & mask;
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  // Semantics node ids are mostly sequential, so their bits are spread before masking.
+  private static int hash(int key) {
+    final int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,565 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.view;
+
+import android.opengl.Matrix;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Turns the semantics updates that Flutter sends to {@link AccessibilityBridge} into {@link
+ * ChangeSet}s, so that the costly part of an update can run away from the main thread.
+ *
+ * <p>{@code SemanticsUpdateProcessor} keeps a shadow copy of the geometry and structure of
+ * Flutter's semantics tree. For every update it decodes the updated nodes, recomputes the global
+ * rects of the nodes whose geometry changed, clips them to their ancestors for hit testing, finds
+ * the nodes that are no longer reachable from the root, and diffs the routes of the tree against
+ * the previous update. The resulting {@link
+ * ChangeSet} is applied to {@link AccessibilityBridge}'s own semantics tree on the main thread,
+ * which then only has to copy fields and dispatch accessibility events.
+ *
+ * <p>A {@code ChangeSet} and its {@link NodeUpdate}s are not modified until they are handed back
+ * with {@link #recycle(ChangeSet)}, after which {@link #process(ByteBuffer, String[], int)} reuses
+ * them, so that a steady stream of updates does not allocate a record per node.
+ *
+ * <p>{@code SemanticsUpdateProcessor} is not thread-safe. It must only be used from a single
+ * thread at a time, in the order in which Flutter sent the updates.
+ */
+final class SemanticsUpdateProcessor {
+  /** The value of {@link ChangeSet#routeChangeId} when the current route did not change. */
+  static final int NO_ROUTE_CHANGE = -1;
+
+  private static final int ROOT_NODE_ID = 0;
+  private static final int[] EMPTY_IDS = new int[0];
+
+  @NonNull private final IntObjectHashMap<ShadowNode> nodes = new IntObjectHashMap<>();
+
+  // Ids of the routes of the previous update, in traversal order.
+  @NonNull private int[] navigationStack = EMPTY_IDS;
+  private int navigationStackSize = 0;
+  private int previousRouteId = ROOT_NODE_ID;
+
+  // Tracks the left system inset of the screen because Flutter needs to manually adjust
+  // accessibility positioning when in reverse-landscape.
+  private int lastLeftInset = 0;
+
+  // Incremented by every update, which marks every ShadowNode that is reachable from the root with
+  // the new value. Nodes with an older mark are removed.
+  private int generation = 0;
+
+  // The number of nodes whose global transform rotates, skews or projects their rect, so that
+  // their global rect is only a bounding box.
+  private int nonRectilinearCount = 0;
+
+  // Scratch state of process(), reused from one update to the next.
+  @NonNull private final RectList geometry = new RectList();
+  @NonNull private final RectList hitTestGeometry = new RectList();
+  @NonNull private int[] routeIds = new int[4];
+  private int routeCount = 0;
+  @NonNull private final float[] rootTransform = new float[16];
+  @NonNull private final float[] sample = new float[4];
+  @NonNull private final float[][] corners = new float[4][4];
+
+  // Records that were handed back with recycle(ChangeSet), and are reused by process().
+  @NonNull private final ArrayList<ChangeSet> spareChangeSets = new ArrayList<>();
+  @NonNull private final ArrayList<NodeUpdate> spareNodeUpdates = new ArrayList<>();
+
+  /**
+   * Decodes the semantics update in {@code buffer}, which must use little-endian byte order, and
+   * applies it to the shadow tree.
+   *
+   * <p>The buffer is encoded by PlatformViewAndroid::UpdateSemantics, and the decode logic must be
+   * kept in sync with that method's encoding logic.
+   *
+   * @param leftInset the left system inset of the root view, by which the whole tree is translated
+   */
+  @NonNull
+  ChangeSet process(@NonNull ByteBuffer buffer, @NonNull String[] strings, int leftInset) {
+    final int spareChangeSetCount = spareChangeSets.size();
+    final ChangeSet changeSet =
+        spareChangeSetCount == 0
+            ? new ChangeSet()
+            : spareChangeSets.remove(spareChangeSetCount - 1);
+    while (buffer.hasRemaining()) {
+      final int spareNodeUpdateCount = spareNodeUpdates.size();
+      final NodeUpdate update =
+          spareNodeUpdateCount == 0
+              ? new NodeUpdate()
+              : spareNodeUpdates.remove(spareNodeUpdateCount - 1);
+      update.decode(buffer.getInt(), buffer, strings);
+      changeSet.addUpdate(update);
+      applyToShadowTree(update);
+    }
+
+    generation++;
+    geometry.clear();
+    hitTestGeometry.clear();
+    routeCount = 0;
+    final ShadowNode root = nodes.get(ROOT_NODE_ID);
+    if (root != null) {
+      if (leftInset != lastLeftInset) {
+        root.geometryDirty = true;
+        lastLeftInset = leftInset;
+      }
+      Matrix.setIdentityM(rootTransform, 0);
+      Matrix.translateM(rootTransform, 0, leftInset, 0, 0);
+      updateRecursively(root, null, rootTransform, false);
+    }
+
+    final int routeChangeId = diffRoutes();
+
+    int[] removedIds = EMPTY_IDS;
+    int removedCount = 0;
+    for (int slot = 0; slot < nodes.capacity(); slot++) {
+      final ShadowNode node = nodes.valueAt(slot);
+      if (node != null && node.visitedGeneration != generation) {
+        if (removedCount == removedIds.length) {
+          removedIds = Arrays.copyOf(removedIds, Math.max(16, removedCount * 2));
+        }
+        removedIds[removedCount++] = node.id;
+      }
+    }
+    for (int i = 0; i < removedCount; i++) {
+      if (!nodes.remove(removedIds[i]).rectilinear) {
+        nonRectilinearCount--;
+      }
+    }
+
+    changeSet.geometryIds = geometry.copyIds();
+    changeSet.geometryRects = geometry.copyRects();
+    changeSet.hitTestIds = hitTestGeometry.copyIds();
+    changeSet.hitTestRects = hitTestGeometry.copyRects();
+    changeSet.hitTestRectsExact = nonRectilinearCount == 0;
+    changeSet.removedIds = Arrays.copyOf(removedIds, removedCount);
+    changeSet.routeChangeId = routeChangeId;
+    return changeSet;
+  }
+
+  /**
+   * Hands back a change set returned by {@link #process(ByteBuffer, String[], int)} once it was
+   * applied or dropped, so that later updates can reuse it and its node updates.
+   */
+  void recycle(@NonNull ChangeSet changeSet) {
+    for (int i = 0; i < changeSet.updateCount; i++) {
+      spareNodeUpdates.add(changeSet.updates[i]);
+      changeSet.updates[i] = null;
+    }
+    changeSet.updateCount = 0;
+    spareChangeSets.add(changeSet);
+  }
+
+  /**
+   * Forgets the shadow tree, to match an {@link AccessibilityBridge} whose semantics tree was
+   * cleared.
+   */
+  void reset() {
+    nodes.clear();
+    nonRectilinearCount = 0;
+  }
+
+  private void applyToShadowTree(@NonNull NodeUpdate update) {
+    final ShadowNode node = getOrCreateNode(update.id);
+    node.flags = update.flags;
+    node.left = update.left;
+    node.top = update.top;
+    node.right = update.right;
+    node.bottom = update.bottom;
+    System.arraycopy(update.transform, 0, node.transform, 0, 16);
+    node.geometryDirty = true;
+    // The update is reused once it was applied, so the node keeps its own copy of the ids.
+    final int childCount = update.childrenInTraversalOrder.length;
+    if (node.childrenInTraversalOrder.length != childCount) {
+      node.childrenInTraversalOrder = childCount == 0 ? EMPTY_IDS : new int[childCount];
+    }
+    System.arraycopy(
+        update.childrenInTraversalOrder, 0, node.childrenInTraversalOrder, 0, childCount);
+    // AccessibilityBridge creates a node for every child it is told about, so the shadow tree does
+    // too, and both remove the same unreachable nodes.
+    for (int i = 0; i < update.childrenInTraversalOrder.length; i++) {
+      getOrCreateNode(update.childrenInTraversalOrder[i]);
+    }
+    for (int i = 0; i < update.childrenInHitTestOrder.length; i++) {
+      getOrCreateNode(update.childrenInHitTestOrder[i]);
+    }
+  }
+
+  @NonNull
+  private ShadowNode getOrCreateNode(int id) {
+    ShadowNode node = nodes.get(id);
+    if (node == null) {
+      node = new ShadowNode(id);
+      nodes.put(id, node);
+    }
+    return node;
+  }
+
+  private void updateRecursively(
+      @NonNull ShadowNode node,
+      @Nullable ShadowNode parent,
+      @NonNull float[] ancestorTransform,
+      boolean forceUpdate) {
+    node.visitedGeneration = generation;
+    if ((node.flags & AccessibilityBridge.Flag.SCOPES_ROUTE.value) != 0) {
+      if (routeCount == routeIds.length) {
+        routeIds = Arrays.copyOf(routeIds, routeCount * 2);
+      }
+      routeIds[routeCount++] = node.id;
+    }
+
+    if (node.geometryDirty) {
+      forceUpdate = true;
+    }
+    if (forceUpdate) {
+      Matrix.multiplyMM(node.globalTransform, 0, ancestorTransform, 0, node.transform, 0);
+
+      // The scratch vectors are not used across the recursive calls below.
+      sample[2] = 0;
+      sample[3] = 1;
+
+      final float[] point1 = corners[0];
+      final float[] point2 = corners[1];
+      final float[] point3 = corners[2];
+      final float[] point4 = corners[3];
+
+      sample[0] = node.left;
+      sample[1] = node.top;
+      transformPoint(point1, node.globalTransform, sample);
+
+      sample[0] = node.right;
+      sample[1] = node.top;
+      transformPoint(point2, node.globalTransform, sample);
+
+      sample[0] = node.right;
+      sample[1] = node.bottom;
+      transformPoint(point3, node.globalTransform, sample);
+
+      sample[0] = node.left;
+      sample[1] = node.bottom;
+      transformPoint(point4, node.globalTransform, sample);
+
+      node.globalLeft = Math.round(min(point1[0], point2[0], point3[0], point4[0]));
+      node.globalTop = Math.round(min(point1[1], point2[1], point3[1], point4[1]));
+      node.globalRight = Math.round(max(point1[0], point2[0], point3[0], point4[0]));
+      node.globalBottom = Math.round(max(point1[1], point2[1], point3[1], point4[1]));
+      geometry.add(node.id, node.globalLeft, node.globalTop, node.globalRight, node.globalBottom);
+
+      final float[] m = node.globalTransform;
+      final boolean rectilinear = m[1] == 0 && m[4] == 0 && m[3] == 0 && m[7] == 0;
+      if (rectilinear != node.rectilinear) {
+        nonRectilinearCount += rectilinear ? -1 : 1;
+        node.rectilinear = rectilinear;
+      }
+
+      node.geometryDirty = false;
+    }
+    updateHitTestRect(node, parent);
+
+    final int[] children = node.childrenInTraversalOrder;
+    for (int i = 0; i < children.length; i++) {
+      updateRecursively(nodes.get(children[i]), node, node.globalTransform, forceUpdate);
+    }
+  }
+
+  /**
+   * Updates the rect in which {@code node} can be hit, which is its global rect clipped to that of
+   * its parent, as a hit test only looks for children within their parent. Hidden nodes, other
+   * than the root, can not be hit.
+   *
+   * <p>Hit tests are given points in the coordinates of the root view, which the left inset does
+   * not apply to, so the hit test rect is the global rect without the left inset.
+   */
+  private void updateHitTestRect(@NonNull ShadowNode node, @Nullable ShadowNode parent) {
+    int left = node.globalLeft - lastLeftInset;
+    int top = node.globalTop;
+    int right = node.globalRight - lastLeftInset;
+    int bottom = node.globalBottom;
+    if (parent != null) {
+      if ((node.flags & AccessibilityBridge.Flag.IS_HIDDEN.value) != 0) {
+        right = left;
+      } else {
+        left = Math.max(left, parent.hitLeft);
+        top = Math.max(top, parent.hitTop);
+        right = Math.min(right, parent.hitRight);
+        bottom = Math.min(bottom, parent.hitBottom);
+      }
+    }
+    if (left >= right || top >= bottom) {
+      left = top = right = bottom = 0;
+    }
+    if (left != node.hitLeft
+        || top != node.hitTop
+        || right != node.hitRight
+        || bottom != node.hitBottom) {
+      node.hitLeft = left;
+      node.hitTop = top;
+      node.hitRight = right;
+      node.hitBottom = bottom;
+      hitTestGeometry.add(node.id, left, top, right, bottom);
+    }
+  }
+
+  /**
+   * Returns the id of the route that was pushed or popped to since the previous update, or {@link
+   * #NO_ROUTE_CHANGE} if the current route is the same.
+   */
+  private int diffRoutes() {
+    int lastAdded = NO_ROUTE_CHANGE;
+    for (int i = 0; i < routeCount; i++) {
+      if (!isInNavigationStack(routeIds[i])) {
+        lastAdded = routeIds[i];
+      }
+    }
+    if (lastAdded == NO_ROUTE_CHANGE && routeCount > 0) {
+      lastAdded = routeIds[routeCount - 1];
+    }
+
+    if (navigationStack.length < routeCount) {
+      navigationStack = new int[routeIds.length];
+    }
+    System.arraycopy(routeIds, 0, navigationStack, 0, routeCount);
+    navigationStackSize = routeCount;
+
+    if (lastAdded != NO_ROUTE_CHANGE && lastAdded != previousRouteId) {
+      previousRouteId = lastAdded;
+      return lastAdded;
+    }
+    return NO_ROUTE_CHANGE;
+  }
+
+  private boolean isInNavigationStack(int routeId) {
+    for (int i = 0; i < navigationStackSize; i++) {
+      if (navigationStack[i] == routeId) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void transformPoint(float[] result, float[] transform, float[] point) {
+    Matrix.multiplyMV(result, 0, transform, 0, point, 0);
+    final float w = result[3];
+    result[0] /= w;
+    result[1] /= w;
+    result[2] /= w;
+    result[3] = 0;
+  }
+
+  private static float min(float a, float b, float c, float d) {
+    return Math.min(a, Math.min(b, Math.min(c, d)));
+  }
+
+  private static float max(float a, float b, float c, float d) {
+    return Math.max(a, Math.max(b, Math.max(c, d)));
+  }
+
+  /** The changes that a single semantics update makes to Flutter's semantics tree. */
+  static final class ChangeSet {
+    /**
+     * The nodes that Flutter updated, in the order in which Flutter sent them, in the first {@link
+     * #updateCount} slots.
+     */
+    @NonNull NodeUpdate[] updates = new NodeUpdate[16];
+
+    /** The number of nodes in {@link #updates}. */
+    int updateCount;
+
+    /** The ids of the nodes whose global rect changed. */
+    @NonNull int[] geometryIds = EMPTY_IDS;
+
+    /**
+     * The new global rects of the nodes in {@link #geometryIds}, as four consecutive values left,
+     * top, right and bottom per node.
+     */
+    @NonNull int[] geometryRects = EMPTY_IDS;
+
+    /** The ids of the nodes whose hit test rect changed. */
+    @NonNull int[] hitTestIds = EMPTY_IDS;
+
+    /**
+     * The new hit test rects of the nodes in {@link #hitTestIds}, laid out like {@link
+     * #geometryRects}. A node can only be hit within its hit test rect, which is empty for nodes
+     * that can not be hit at all. Unlike global rects, hit test rects are not translated by the
+     * left inset, as the points of hit tests are not either.
+     */
+    @NonNull int[] hitTestRects = EMPTY_IDS;
+
+    /**
+     * Whether every global transform of the tree keeps rects axis-aligned, so that a node can be
+     * hit exactly at the points of its hit test rect.
+     */
+    boolean hitTestRectsExact;
+
+    /** The ids of the nodes that are no longer reachable from the root. */
+    @NonNull int[] removedIds = EMPTY_IDS;
+
+    /** The id of the route to announce, or {@link #NO_ROUTE_CHANGE}. */
+    int routeChangeId = NO_ROUTE_CHANGE;
+
+    private void addUpdate(@NonNull NodeUpdate update) {
+      if (updateCount == updates.length) {
+        updates = Arrays.copyOf(updates, updateCount * 2);
+      }
+      updates[updateCount++] = update;
+    }
+  }
+
+  /** The decoded state of a single semantics node, as sent by Flutter. */
+  static final class NodeUpdate {
+    int id;
+    int flags;
+    int actions;
+    int maxValueLength;
+    int currentValueLength;
+    int textSelectionBase;
+    int textSelectionExtent;
+    int platformViewId;
+    int scrollChildren;
+    int scrollIndex;
+    float scrollPosition;
+    float scrollExtentMax;
+    float scrollExtentMin;
+    @Nullable String label;
+    @Nullable String value;
+    @Nullable String increasedValue;
+    @Nullable String decreasedValue;
+    @Nullable String hint;
+    int textDirection;
+    float left;
+    float top;
+    float right;
+    float bottom;
+    @NonNull final float[] transform = new float[16];
+    @NonNull int[] childrenInTraversalOrder = EMPTY_IDS;
+    @NonNull int[] childrenInHitTestOrder = EMPTY_IDS;
+    @NonNull int[] customAccessibilityActionIds = EMPTY_IDS;
+
+    /**
+     * Decodes the node with the given {@code id}, whose fields follow in {@code buffer}, into this
+     * update, reusing its arrays where they fit.
+     */
+    void decode(int id, @NonNull ByteBuffer buffer, @NonNull String[] strings) {
+      this.id = id;
+      flags = buffer.getInt();
+      actions = buffer.getInt();
+      maxValueLength = buffer.getInt();
+      currentValueLength = buffer.getInt();
+      textSelectionBase = buffer.getInt();
+      textSelectionExtent = buffer.getInt();
+      platformViewId = buffer.getInt();
+      scrollChildren = buffer.getInt();
+      scrollIndex = buffer.getInt();
+      scrollPosition = buffer.getFloat();
+      scrollExtentMax = buffer.getFloat();
+      scrollExtentMin = buffer.getFloat();
+
+      label = readString(buffer, strings);
+      value = readString(buffer, strings);
+      increasedValue = readString(buffer, strings);
+      decreasedValue = readString(buffer, strings);
+      hint = readString(buffer, strings);
+
+      textDirection = buffer.getInt();
+
+      left = buffer.getFloat();
+      top = buffer.getFloat();
+      right = buffer.getFloat();
+      bottom = buffer.getFloat();
+
+      for (int i = 0; i < 16; ++i) {
+        transform[i] = buffer.getFloat();
+      }
+
+      final int childCount = buffer.getInt();
+      childrenInTraversalOrder = readIds(buffer, childCount, childrenInTraversalOrder);
+      childrenInHitTestOrder = readIds(buffer, childCount, childrenInHitTestOrder);
+
+      final int actionCount = buffer.getInt();
+      customAccessibilityActionIds = readIds(buffer, actionCount, customAccessibilityActionIds);
+    }
+
+    @Nullable
+    private static String readString(@NonNull ByteBuffer buffer, @NonNull String[] strings) {
+      final int stringIndex = buffer.getInt();
+      return stringIndex == -1 ? null : strings[stringIndex];
+    }
+
+    @NonNull
+    private static int[] readIds(@NonNull ByteBuffer buffer, int count, @NonNull int[] reuse) {
+      if (count == 0) {
+        return EMPTY_IDS;
+      }
+      final int[] ids = reuse.length == count ? reuse : new int[count];
+      for (int i = 0; i < count; i++) {
+        ids[i] = buffer.getInt();
+      }
+      return ids;
+    }
+  }
+
+  /** The part of a semantics node that determines its global rect and whether it is reachable. */
+  private static final class ShadowNode {
+    final int id;
+    int flags;
+    float left;
+    float top;
+    float right;
+    float bottom;
+    @NonNull final float[] transform = new float[16];
+    @NonNull int[] childrenInTraversalOrder = EMPTY_IDS;
+    boolean geometryDirty = true;
+    @NonNull final float[] globalTransform = new float[16];
+    boolean rectilinear = true;
+    int globalLeft;
+    int globalTop;
+    int globalRight;
+    int globalBottom;
+    int hitLeft;
+    int hitTop;
+    int hitRight;
+    int hitBottom;
+    int visitedGeneration;
+
+    ShadowNode(int id) {
+      this.id = id;
+    }
+  }
+
+  /** A growable list of ids, each with a rect. */
+  private static final class RectList {
+    @NonNull private int[] ids = new int[16];
+    @NonNull private int[] rects = new int[4 * 16];
+    private int size = 0;
+
+    void add(int id, int left, int top, int right, int bottom) {
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+        rects = Arrays.copyOf(rects, 4 * size * 2);
+      }
+      final int offset = 4 * size;
+      ids[size++] = id;
+      rects[offset] = left;
+      rects[offset + 1] = top;
+      rects[offset + 2] = right;
+      rects[offset + 3] = bottom;
+    }
+
+    void clear() {
+      size = 0;
+    }
+
+    @NonNull
+    int[] copyIds() {
+      return Arrays.copyOf(ids, size);
+    }
+
+    @NonNull
+    int[] copyRects() {
+      return Arrays.copyOf(rects, 4 * size);
+    }
+  }
+}
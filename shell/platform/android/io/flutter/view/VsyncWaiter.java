@@ -4,52 +4,158 @@
 
 package io.flutter.view;
 
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
 import android.view.Choreographer;
+import android.view.Display;
 import android.view.WindowManager;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import io.flutter.embedding.engine.FlutterJNI;
+import java.util.ArrayDeque;
 
-// TODO(mattcarroll): add javadoc.
+/**
+ * Delivers vsync signals from the Android {@link Choreographer} to the Flutter engine, along with
+ * the refresh rate of the default display.
+ *
+ * <p>The engine requests a vsync signal for every frame that it wants to produce. To avoid
+ * allocating per frame, the {@link Choreographer.FrameCallback}s that deliver these signals are
+ * recycled. The refresh rate is cached, and on API 17 and above it is kept current with a {@link
+ * DisplayManager.DisplayListener}, so that frame deadlines stay correct when a display switches
+ * between refresh rates, e.g., between 60Hz and 90Hz.
+ *
+ * <p>All methods must be called on the main thread.
+ */
 public class VsyncWaiter {
   private static VsyncWaiter instance;
 
+  // The number of recycled frame callbacks that are kept. The engine rarely waits for more than one
+  // vsync signal at a time.
+  private static final int MAX_POOLED_FRAME_CALLBACKS = 4;
+
+  private static final long NANOS_PER_SECOND = 1000000000L;
+  private static final float DEFAULT_REFRESH_RATE_FPS = 60.0f;
+
   @NonNull
   public static VsyncWaiter getInstance(@NonNull WindowManager windowManager) {
     if (instance == null) {
-      instance = new VsyncWaiter(windowManager);
+      instance = new VsyncWaiter(windowManager, null);
+    }
+    return instance;
+  }
+
+  /**
+   * Same as {@link #getInstance(WindowManager)}, but also tracks changes to the refresh rate of the
+   * default display on API 17 and above.
+   */
+  @NonNull
+  public static VsyncWaiter getInstance(@NonNull Context context) {
+    if (instance == null) {
+      DisplayManager displayManager = null;
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+        displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+      }
+      instance =
+          new VsyncWaiter(
+              (WindowManager) context.getSystemService(Context.WINDOW_SERVICE), displayManager);
     }
     return instance;
   }
 
   @NonNull private final WindowManager windowManager;
+  @Nullable private final DisplayManager displayManager;
+  @NonNull private final ArrayDeque<VsyncFrameCallback> framePool = new ArrayDeque<>();
+  @Nullable private Choreographer choreographer;
+  private float refreshRateFPS = 0.0f;
+  private long refreshPeriodNanos = (long) (NANOS_PER_SECOND / DEFAULT_REFRESH_RATE_FPS);
+  private boolean isInitialized = false;
 
   private final FlutterJNI.AsyncWaitForVsyncDelegate asyncWaitForVsyncDelegate =
       new FlutterJNI.AsyncWaitForVsyncDelegate() {
         @Override
         public void asyncWaitForVsync(long cookie) {
-          Choreographer.getInstance()
-              .postFrameCallback(
-                  new Choreographer.FrameCallback() {
-                    @Override
-                    public void doFrame(long frameTimeNanos) {
-                      float fps = windowManager.getDefaultDisplay().getRefreshRate();
-                      long refreshPeriodNanos = (long) (1000000000.0 / fps);
-                      FlutterJNI.nativeOnVsync(
-                          frameTimeNanos, frameTimeNanos + refreshPeriodNanos, cookie);
-                    }
-                  });
+          if (choreographer == null) {
+            choreographer = Choreographer.getInstance();
+          }
+          VsyncFrameCallback frameCallback = framePool.poll();
+          if (frameCallback == null) {
+            frameCallback = new VsyncFrameCallback();
+          }
+          frameCallback.cookie = cookie;
+          choreographer.postFrameCallback(frameCallback);
         }
       };
 
-  private VsyncWaiter(@NonNull WindowManager windowManager) {
+  private VsyncWaiter(
+      @NonNull WindowManager windowManager, @Nullable DisplayManager displayManager) {
     this.windowManager = windowManager;
+    this.displayManager = displayManager;
   }
 
   public void init() {
     FlutterJNI.setAsyncWaitForVsyncDelegate(asyncWaitForVsyncDelegate);
 
     // TODO(mattcarroll): look into moving FPS reporting to a plugin
+    updateRefreshRate();
+
+    if (!isInitialized
+        && displayManager != null
+        && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+      registerDisplayListener();
+    }
+    isInitialized = true;
+  }
+
+  /** Returns the refresh rate of the default display, as last reported to the engine. */
+  public float getRefreshRateFPS() {
+    return refreshRateFPS;
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+  private void registerDisplayListener() {
+    // A null Handler delivers display events on the calling thread, which is the main thread.
+    displayManager.registerDisplayListener(
+        new DisplayManager.DisplayListener() {
+          @Override
+          public void onDisplayAdded(int displayId) {}
+
+          @Override
+          public void onDisplayRemoved(int displayId) {}
+
+          @Override
+          public void onDisplayChanged(int displayId) {
+            if (displayId == Display.DEFAULT_DISPLAY) {
+              updateRefreshRate();
+            }
+          }
+        },
+        null);
+  }
+
+  // Reads the refresh rate of the default display, and reports it to the engine if it changed.
+  private void updateRefreshRate() {
     float fps = windowManager.getDefaultDisplay().getRefreshRate();
+    if (fps == refreshRateFPS) {
+      return;
+    }
+    refreshRateFPS = fps;
+    refreshPeriodNanos = (long) (NANOS_PER_SECOND / (fps > 0.0f ? fps : DEFAULT_REFRESH_RATE_FPS));
     FlutterJNI.setRefreshRateFPS(fps);
   }
+
+  /** Delivers a single vsync signal to the engine, and then returns itself to the pool. */
+  private final class VsyncFrameCallback implements Choreographer.FrameCallback {
+    private long cookie;
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      long cookie = this.cookie;
+      if (framePool.size() < MAX_POOLED_FRAME_CALLBACKS) {
+        framePool.push(this);
+      }
+      FlutterJNI.nativeOnVsync(frameTimeNanos, frameTimeNanos + refreshPeriodNanos, cookie);
+    }
+  }
 }
@@ -172,22 +172,31 @@ void PlatformViewAndroid::HandlePlatformMessage(
   }
   auto java_channel = fml::jni::StringToJavaString(env, message->channel());
   if (message->hasData()) {
-    fml::jni::ScopedJavaLocalRef<jbyteArray> message_array(
-        env, env->NewByteArray(message->data().size()));
-    env->SetByteArrayRegion(
-        message_array.obj(), 0, message->data().size(),
-        reinterpret_cast<const jbyte*>(message->data().data()));
+    // The message data is handed to Java as a direct ByteBuffer without
+    // copying it. The extra reference keeps the message alive until Java calls
+    // FlutterJNI.cleanupMessageData() with the pointer passed along below.
+    // JNI does not accept a null address, which an empty vector may report.
+    static uint8_t empty_message_data = 0;
+    const std::vector<uint8_t>& data = message->data();
+    uint8_t* address = data.empty() ? &empty_message_data
+                                    : const_cast<uint8_t*>(data.data());
+    fml::jni::ScopedJavaLocalRef<jobject> message_buffer(
+        env,
+        env->NewDirectByteBuffer(address, static_cast<jlong>(data.size())));
+    PlatformMessage* message_data = message.get();
+    message_data->AddRef();
     message = nullptr;
 
     // This call can re-enter in InvokePlatformMessageXxxResponseCallback.
     FlutterViewHandlePlatformMessage(env, view.obj(), java_channel.obj(),
-                                     message_array.obj(), response_id);
+                                     message_buffer.obj(), response_id,
+                                     reinterpret_cast<jlong>(message_data));
   } else {
     message = nullptr;
 
     // This call can re-enter in InvokePlatformMessageXxxResponseCallback.
     FlutterViewHandlePlatformMessage(env, view.obj(), java_channel.obj(),
-                                     nullptr, response_id);
+                                     nullptr, response_id, 0);
   }
 }
 
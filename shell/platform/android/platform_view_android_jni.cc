@@ -70,9 +70,10 @@ void FlutterViewHandlePlatformMessage(JNIEnv* env,
                                       jobject obj,
                                       jstring channel,
                                       jobject message,
-                                      jint responseId) {
+                                      jint responseId,
+                                      jlong messageData) {
   env->CallVoidMethod(obj, g_handle_platform_message_method, channel, message,
-                      responseId);
+                      responseId, messageData);
   FML_CHECK(CheckException(env));
 }
 
@@ -388,6 +389,13 @@ static void DispatchEmptyPlatformMessage(JNIEnv* env,
   );
 }
 
+static void CleanupMessageData(JNIEnv* env,
+                               jobject jcaller,
+                               jlong message_data) {
+  // Balances the reference taken in PlatformViewAndroid::HandlePlatformMessage.
+  reinterpret_cast<PlatformMessage*>(message_data)->Release();
+}
+
 static void DispatchPointerDataPacket(JNIEnv* env,
                                       jobject jcaller,
                                       jlong shell_holder,
@@ -525,6 +533,11 @@ bool RegisterApi(JNIEnv* env) {
           .fnPtr = reinterpret_cast<void*>(
               &InvokePlatformMessageEmptyResponseCallback),
       },
+      {
+          .name = "nativeCleanupMessageData",
+          .signature = "(J)V",
+          .fnPtr = reinterpret_cast<void*>(&CleanupMessageData),
+      },
 
       // Start of methods from FlutterView
       {
@@ -609,7 +622,7 @@ bool RegisterApi(JNIEnv* env) {
 
   g_handle_platform_message_method =
       env->GetMethodID(g_flutter_jni_class->obj(), "handlePlatformMessage",
-                       "(Ljava/lang/String;[BI)V");
+                       "(Ljava/lang/String;Ljava/nio/ByteBuffer;IJ)V");
 
   if (g_handle_platform_message_method == nullptr) {
     FML_LOG(ERROR) << "Could not locate handlePlatformMessage method";
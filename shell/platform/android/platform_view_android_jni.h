@@ -15,7 +15,8 @@ void FlutterViewHandlePlatformMessage(JNIEnv* env,
                                       jobject obj,
                                       jstring channel,
                                       jobject message,
-                                      jint responseId);
+                                      jint responseId,
+                                      jlong messageData);
 
 void FlutterViewHandlePlatformMessageResponse(JNIEnv* env,
                                               jobject obj,
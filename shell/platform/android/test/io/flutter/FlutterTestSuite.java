@@ -4,25 +4,39 @@
 
 package io.flutter;
 
+import io.flutter.embedding.android.AndroidTouchProcessorTest;
 import io.flutter.embedding.android.FlutterActivityAndFragmentDelegateTest;
 import io.flutter.embedding.android.FlutterActivityTest;
 import io.flutter.embedding.android.FlutterAndroidComponentTest;
 import io.flutter.embedding.android.FlutterFragmentTest;
 import io.flutter.embedding.android.FlutterViewTest;
+import io.flutter.embedding.engine.FlutterEngineBuilderTest;
 import io.flutter.embedding.engine.FlutterEngineCacheTest;
 import io.flutter.embedding.engine.FlutterEnginePluginRegistryTest;
+import io.flutter.embedding.engine.FlutterEnginePoolTest;
 import io.flutter.embedding.engine.FlutterJNITest;
 import io.flutter.embedding.engine.RenderingComponentTest;
+import io.flutter.embedding.engine.StartupTraceTest;
+import io.flutter.embedding.engine.dart.DartMessengerTest;
+import io.flutter.embedding.engine.dart.PendingRepliesTest;
+import io.flutter.embedding.engine.loader.ResourceExtractorTest;
 import io.flutter.embedding.engine.plugins.shim.ShimPluginRegistryTest;
 import io.flutter.embedding.engine.renderer.FlutterRendererTest;
 import io.flutter.embedding.engine.systemchannels.PlatformChannelTest;
 import io.flutter.external.FlutterLaunchTests;
+import io.flutter.plugin.common.DecodedStringCacheTest;
+import io.flutter.plugin.common.DirectByteBufferPoolTest;
 import io.flutter.plugin.common.StandardMessageCodecTest;
 import io.flutter.plugin.editing.InputConnectionAdaptorTest;
 import io.flutter.plugin.editing.TextInputPluginTest;
 import io.flutter.plugin.platform.PlatformPluginTest;
 import io.flutter.plugin.platform.SingleViewPresentationTest;
 import io.flutter.util.PreconditionsTest;
+import io.flutter.view.AccessibilityBridgeTest;
+import io.flutter.view.AccessibilityEventSchedulerTest;
+import io.flutter.view.HitTestGridTest;
+import io.flutter.view.IntObjectHashMapTest;
+import io.flutter.view.SemanticsUpdateProcessorTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
@@ -33,12 +47,20 @@ import test.io.flutter.embedding.engine.dart.DartExecutorTest;
 
 @RunWith(Suite.class)
 @SuiteClasses({
+  AccessibilityBridgeTest.class,
+  AccessibilityEventSchedulerTest.class,
+  AndroidTouchProcessorTest.class,
   DartExecutorTest.class,
+  DartMessengerTest.class,
+  DecodedStringCacheTest.class,
+  DirectByteBufferPoolTest.class,
   FlutterActivityAndFragmentDelegateTest.class,
   FlutterActivityTest.class,
   FlutterAndroidComponentTest.class,
+  FlutterEngineBuilderTest.class,
   FlutterEngineCacheTest.class,
   FlutterEnginePluginRegistryTest.class,
+  FlutterEnginePoolTest.class,
   FlutterEngineTest.class,
   FlutterFragmentTest.class,
   FlutterJNITest.class,
@@ -47,11 +69,18 @@ import test.io.flutter.embedding.engine.dart.DartExecutorTest;
   FlutterRendererTest.class,
   FlutterViewTest.class,
   InputConnectionAdaptorTest.class,
+  HitTestGridTest.class,
+  IntObjectHashMapTest.class,
+  LogTest.class,
+  PendingRepliesTest.class,
   PlatformChannelTest.class,
   PlatformPluginTest.class,
   PluginComponentTest.class,
   PreconditionsTest.class,
   RenderingComponentTest.class,
+  ResourceExtractorTest.class,
+  SemanticsUpdateProcessorTest.class,
+  StartupTraceTest.class,
   StandardMessageCodecTest.class,
   ShimPluginRegistryTest.class,
   SingleViewPresentationTest.class,
@@ -0,0 +1,39 @@
+package io.flutter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class LogTest {
+  @After
+  public void tearDown() {
+    Log.setLogLevel(android.util.Log.DEBUG);
+  }
+
+  @Test
+  public void itAlwaysLogsWarningsAndErrors() {
+    Log.setLogLevel(android.util.Log.ASSERT);
+
+    assertTrue(Log.isLoggable(android.util.Log.WARN));
+    assertTrue(Log.isLoggable(android.util.Log.ERROR));
+  }
+
+  @Test
+  public void itFiltersVerboseAndDebugMessagesByLogLevel() {
+    Log.setLogLevel(android.util.Log.INFO);
+    assertFalse(Log.isLoggable(android.util.Log.VERBOSE));
+    assertFalse(Log.isLoggable(android.util.Log.DEBUG));
+    assertEquals(BuildConfig.DEBUG, Log.isLoggable(android.util.Log.INFO));
+
+    Log.setLogLevel(android.util.Log.VERBOSE);
+    assertEquals(BuildConfig.DEBUG, Log.isLoggable(android.util.Log.VERBOSE));
+  }
+}
@@ -0,0 +1,239 @@
+package io.flutter.embedding.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import android.view.InputDevice;
+import android.view.MotionEvent;
+import io.flutter.embedding.engine.renderer.FlutterRenderer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class AndroidTouchProcessorTest {
+  private static final int BYTES_PER_POINTER = 28 * 8;
+  private static final int TIME_STAMP_OFFSET = 0;
+  private static final int CHANGE_OFFSET = 1 * 8;
+  private static final int PHYSICAL_X_OFFSET = 6 * 8;
+  private static final int PLATFORM_DATA_OFFSET = 25 * 8;
+
+  private final List<ByteBuffer> dispatchedBuffers = new ArrayList<>();
+  private final List<byte[]> dispatchedPackets = new ArrayList<>();
+
+  private FlutterRenderer createRecordingRenderer() {
+    FlutterRenderer renderer = mock(FlutterRenderer.class);
+    doAnswer(
+            new Answer<Void>() {
+              @Override
+              public Void answer(InvocationOnMock invocation) {
+                ByteBuffer buffer = (ByteBuffer) invocation.getArguments()[0];
+                int position = (Integer) invocation.getArguments()[1];
+                // The processor reuses its buffer, so copy what the engine would have copied.
+                byte[] packet = new byte[position];
+                ByteBuffer view = buffer.duplicate();
+                view.position(0);
+                view.get(packet);
+                dispatchedBuffers.add(buffer);
+                dispatchedPackets.add(packet);
+                return null;
+              }
+            })
+        .when(renderer)
+        .dispatchPointerDataPacket(any(ByteBuffer.class), anyInt());
+    return renderer;
+  }
+
+  @Test
+  public void itReusesThePacketBufferAcrossEvents() {
+    // Setup test.
+    AndroidTouchProcessor processor = new AndroidTouchProcessor(createRecordingRenderer());
+
+    // Execute the behavior under test with a synthetic gesture.
+    processor.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 10f, 20f, 0));
+    for (int i = 1; i <= 50; i++) {
+      processor.onTouchEvent(
+          MotionEvent.obtain(0, i, MotionEvent.ACTION_MOVE, 10f + i, 20f + i, 0));
+    }
+    processor.onTouchEvent(MotionEvent.obtain(0, 51, MotionEvent.ACTION_UP, 60f, 70f, 0));
+
+    // Verify results: every event produced one single-pointer packet from the same buffer, so the
+    // steady state of a gesture does not allocate direct buffers.
+    assertEquals(52, dispatchedPackets.size());
+    for (int i = 0; i < dispatchedBuffers.size(); i++) {
+      assertSame(dispatchedBuffers.get(0), dispatchedBuffers.get(i));
+      assertEquals(BYTES_PER_POINTER, dispatchedPackets.get(i).length);
+    }
+    ByteBuffer lastMove = ByteBuffer.wrap(dispatchedPackets.get(50)).order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(60.0, lastMove.getDouble(PHYSICAL_X_OFFSET), 0.0001);
+  }
+
+  @Test
+  public void itGrowsThePacketForAdditionalPointers() {
+    // Setup test.
+    AndroidTouchProcessor processor = new AndroidTouchProcessor(createRecordingRenderer());
+    MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[3];
+    MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[3];
+    for (int i = 0; i < 3; i++) {
+      properties[i] = new MotionEvent.PointerProperties();
+      properties[i].id = i;
+      properties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+      coords[i] = new MotionEvent.PointerCoords();
+      coords[i].x = 100f * i;
+      coords[i].y = 50f;
+    }
+
+    // Execute the behavior under test.
+    processor.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 0f, 50f, 0));
+    processor.onTouchEvent(
+        MotionEvent.obtain(
+            0, 1, MotionEvent.ACTION_MOVE, 3, properties, coords, 0, 0, 1f, 1f, 0, 0, 0, 0));
+
+    // Verify results.
+    assertEquals(2, dispatchedPackets.size());
+    assertEquals(3 * BYTES_PER_POINTER, dispatchedPackets.get(1).length);
+    ByteBuffer move = ByteBuffer.wrap(dispatchedPackets.get(1)).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(100.0 * i, move.getDouble(i * BYTES_PER_POINTER + PHYSICAL_X_OFFSET), 0.0001);
+    }
+  }
+
+  @Test
+  public void itOnlySendsTheCurrentSampleByDefault() {
+    // Setup test.
+    AndroidTouchProcessor processor = new AndroidTouchProcessor(createRecordingRenderer());
+    MotionEvent move = MotionEvent.obtain(0, 10, MotionEvent.ACTION_MOVE, 1f, 1f, 0);
+    move.addBatch(20, 2f, 2f, 1f, 1f, 0);
+    move.addBatch(30, 3f, 3f, 1f, 1f, 0);
+
+    // Execute the behavior under test.
+    processor.onTouchEvent(move);
+
+    // Verify results.
+    assertEquals(1, dispatchedPackets.size());
+    assertEquals(BYTES_PER_POINTER, dispatchedPackets.get(0).length);
+    ByteBuffer packet = ByteBuffer.wrap(dispatchedPackets.get(0)).order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(3.0, packet.getDouble(PHYSICAL_X_OFFSET), 0.0001);
+  }
+
+  @Test
+  public void itSendsHistoricalSamplesOldestFirstWhenEnabled() {
+    // Setup test.
+    AndroidTouchProcessor processor = new AndroidTouchProcessor(createRecordingRenderer());
+    processor.setForwardsHistoricalSamples(true);
+    MotionEvent move = MotionEvent.obtain(0, 10, MotionEvent.ACTION_MOVE, 1f, 1f, 0);
+    move.addBatch(20, 2f, 2f, 1f, 1f, 0);
+    move.addBatch(30, 3f, 3f, 1f, 1f, 0);
+
+    // Execute the behavior under test.
+    processor.onTouchEvent(move);
+
+    // Verify results: two historical samples flagged as batched, then the current sample.
+    assertEquals(1, dispatchedPackets.size());
+    assertEquals(3 * BYTES_PER_POINTER, dispatchedPackets.get(0).length);
+    ByteBuffer packet = ByteBuffer.wrap(dispatchedPackets.get(0)).order(ByteOrder.LITTLE_ENDIAN);
+    long[] expectedTimeStamps = {10000, 20000, 30000};
+    long[] expectedPlatformData = {1, 1, 0};
+    for (int i = 0; i < 3; i++) {
+      int offset = i * BYTES_PER_POINTER;
+      assertEquals(expectedTimeStamps[i], packet.getLong(offset + TIME_STAMP_OFFSET));
+      assertEquals(i + 1.0, packet.getDouble(offset + PHYSICAL_X_OFFSET), 0.0001);
+      assertEquals(expectedPlatformData[i], packet.getLong(offset + PLATFORM_DATA_OFFSET));
+    }
+  }
+
+  @Test
+  public void itBatchesMovesUntilTheNextBoundaryEvent() {
+    // Setup test.
+    AndroidTouchProcessor processor = new AndroidTouchProcessor(createRecordingRenderer());
+    processor.setPointerCoalescingPolicy(AndroidTouchProcessor.PointerCoalescingPolicy.BATCH_MOVES);
+
+    // Execute the behavior under test.
+    processor.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 0f, 0f, 0));
+    processor.onTouchEvent(MotionEvent.obtain(0, 1, MotionEvent.ACTION_MOVE, 1f, 0f, 0));
+    processor.onTouchEvent(MotionEvent.obtain(0, 2, MotionEvent.ACTION_MOVE, 2f, 0f, 0));
+    processor.onTouchEvent(MotionEvent.obtain(0, 3, MotionEvent.ACTION_MOVE, 3f, 0f, 0));
+
+    // Verify results: the down was sent right away, the moves are held back.
+    assertEquals(1, dispatchedPackets.size());
+
+    processor.onTouchEvent(MotionEvent.obtain(0, 4, MotionEvent.ACTION_UP, 3f, 0f, 0));
+
+    // Verify results: the moves and the up were sent together, in order.
+    assertEquals(2, dispatchedPackets.size());
+    assertEquals(4 * BYTES_PER_POINTER, dispatchedPackets.get(1).length);
+    ByteBuffer packet = ByteBuffer.wrap(dispatchedPackets.get(1)).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(
+          AndroidTouchProcessor.PointerChange.MOVE,
+          packet.getLong(i * BYTES_PER_POINTER + CHANGE_OFFSET));
+    }
+    assertEquals(
+        AndroidTouchProcessor.PointerChange.UP,
+        packet.getLong(3 * BYTES_PER_POINTER + CHANGE_OFFSET));
+    assertEquals(5, processor.getReceivedEventCount());
+    assertEquals(2, processor.getDispatchedPacketCount());
+  }
+
+  @Test
+  public void itOnlySendsTheLatestMoveWithLatestMovePolicy() {
+    // Setup test.
+    AndroidTouchProcessor processor = new AndroidTouchProcessor(createRecordingRenderer());
+    processor.setPointerCoalescingPolicy(
+        AndroidTouchProcessor.PointerCoalescingPolicy.LATEST_MOVE);
+    processor.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 0f, 0f, 0));
+
+    // Execute the behavior under test.
+    processor.onTouchEvent(MotionEvent.obtain(0, 1, MotionEvent.ACTION_MOVE, 1f, 0f, 0));
+    processor.onTouchEvent(MotionEvent.obtain(0, 2, MotionEvent.ACTION_MOVE, 2f, 0f, 0));
+    processor.flushPendingPointerData();
+
+    // Verify results.
+    assertEquals(2, dispatchedPackets.size());
+    assertEquals(BYTES_PER_POINTER, dispatchedPackets.get(1).length);
+    ByteBuffer packet = ByteBuffer.wrap(dispatchedPackets.get(1)).order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(2.0, packet.getDouble(PHYSICAL_X_OFFSET), 0.0001);
+    assertEquals(3, processor.getReceivedEventCount());
+    assertEquals(2, processor.getDispatchedPacketCount());
+  }
+
+  @Test
+  public void itOnlyReplacesMovesOfTheSamePointerWithLatestMovePolicy() {
+    // Setup test.
+    AndroidTouchProcessor processor = new AndroidTouchProcessor(createRecordingRenderer());
+    processor.setPointerCoalescingPolicy(
+        AndroidTouchProcessor.PointerCoalescingPolicy.LATEST_MOVE);
+    processor.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 0f, 0f, 0));
+    MotionEvent hover = MotionEvent.obtain(0, 2, MotionEvent.ACTION_HOVER_MOVE, 5f, 0f, 0);
+    hover.setSource(InputDevice.SOURCE_MOUSE);
+
+    // Execute the behavior under test.
+    processor.onTouchEvent(MotionEvent.obtain(0, 1, MotionEvent.ACTION_MOVE, 1f, 0f, 0));
+    processor.onGenericMotionEvent(hover);
+    processor.onTouchEvent(MotionEvent.obtain(0, 3, MotionEvent.ACTION_MOVE, 3f, 0f, 0));
+    processor.flushPendingPointerData();
+
+    // Verify results.
+    assertEquals(2, dispatchedPackets.size());
+    assertEquals(2 * BYTES_PER_POINTER, dispatchedPackets.get(1).length);
+    ByteBuffer packet = ByteBuffer.wrap(dispatchedPackets.get(1)).order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(AndroidTouchProcessor.PointerChange.HOVER, packet.getLong(CHANGE_OFFSET));
+    assertEquals(5.0, packet.getDouble(PHYSICAL_X_OFFSET), 0.0001);
+    assertEquals(
+        AndroidTouchProcessor.PointerChange.MOVE,
+        packet.getLong(BYTES_PER_POINTER + CHANGE_OFFSET));
+    assertEquals(3.0, packet.getDouble(BYTES_PER_POINTER + PHYSICAL_X_OFFSET), 0.0001);
+  }
+}
@@ -1,7 +1,9 @@
 package io.flutter.embedding.android;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -11,12 +13,14 @@ import static org.mockito.Mockito.when;
 import android.content.Context;
 import android.content.res.Configuration;
 import android.content.res.Resources;
+import android.view.MotionEvent;
 import io.flutter.embedding.engine.FlutterEngine;
 import io.flutter.embedding.engine.FlutterJNI;
 import io.flutter.embedding.engine.loader.FlutterLoader;
 import io.flutter.embedding.engine.renderer.FlutterRenderer;
 import io.flutter.embedding.engine.systemchannels.SettingsChannel;
 import io.flutter.plugin.platform.PlatformViewsController;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Before;
 import org.junit.Test;
@@ -82,6 +86,31 @@ public class FlutterViewTest {
     verify(flutterRenderer, times(1)).setSemanticsEnabled(false);
   }
 
+  @Test
+  public void itAppliesPointerOptionsToTheEnginesItAttachesTo() {
+    FlutterView flutterView = new FlutterView(RuntimeEnvironment.application);
+    FlutterEngine flutterEngine =
+        spy(new FlutterEngine(RuntimeEnvironment.application, mockFlutterLoader, mockFlutterJni));
+    when(flutterEngine.getPlatformViewsController()).thenReturn(platformViewsController);
+
+    flutterView.setForwardsHistoricalSamples(true);
+    flutterView.setPointerCoalescingPolicy(
+        AndroidTouchProcessor.PointerCoalescingPolicy.LATEST_MOVE);
+    flutterView.attachToFlutterEngine(flutterEngine);
+    flutterView.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 0f, 0f, 0));
+    flutterView.onTouchEvent(MotionEvent.obtain(0, 1, MotionEvent.ACTION_MOVE, 1f, 0f, 0));
+    flutterView.onTouchEvent(MotionEvent.obtain(0, 2, MotionEvent.ACTION_MOVE, 2f, 0f, 0));
+
+    assertTrue(flutterView.getForwardsHistoricalSamples());
+    assertEquals(
+        AndroidTouchProcessor.PointerCoalescingPolicy.LATEST_MOVE,
+        flutterView.getPointerCoalescingPolicy());
+    // The moves are held back until the next frame.
+    assertEquals(3, flutterView.getReceivedPointerEventCount());
+    assertEquals(1, flutterView.getDispatchedPointerPacketCount());
+    verify(mockFlutterJni, times(1)).dispatchPointerDataPacket(any(ByteBuffer.class), anyInt());
+  }
+
   @Test
   public void onConfigurationChanged_fizzlesWhenNullEngine() {
     FlutterView flutterView = new FlutterView(RuntimeEnvironment.application);
@@ -0,0 +1,140 @@
+package io.flutter.embedding.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.os.Handler;
+import androidx.annotation.NonNull;
+import io.flutter.embedding.engine.loader.FlutterLoader;
+import io.flutter.plugins.GeneratedPluginRegistrant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class FlutterEngineBuilderTest {
+  private final List<Runnable> backgroundTasks = new ArrayList<>();
+  private final List<Runnable> loaderCallbacks = new ArrayList<>();
+  private final List<FlutterEngine> builtEngines = new ArrayList<>();
+  private FlutterLoader flutterLoader;
+  private FlutterEngineBuilder builder;
+
+  private final FlutterEngineBuilder.Callback callback =
+      new FlutterEngineBuilder.Callback() {
+        @Override
+        public void onFlutterEngineBuilt(@NonNull FlutterEngine flutterEngine) {
+          builtEngines.add(flutterEngine);
+        }
+      };
+
+  @Before
+  public void setUp() {
+    GeneratedPluginRegistrant.clearRegisteredEngines();
+    flutterLoader = mock(FlutterLoader.class);
+    // Hold back the loader's completion, so that the test decides when it happens.
+    doAnswer(
+            new Answer<Void>() {
+              @Override
+              public Void answer(InvocationOnMock invocation) {
+                final Handler handler = (Handler) invocation.getArguments()[2];
+                final Runnable runnable = (Runnable) invocation.getArguments()[3];
+                loaderCallbacks.add(
+                    new Runnable() {
+                      @Override
+                      public void run() {
+                        handler.post(runnable);
+                      }
+                    });
+                return null;
+              }
+            })
+        .when(flutterLoader)
+        .ensureInitializationCompleteAsync(
+            any(Context.class), any(String[].class), any(Handler.class), any(Runnable.class));
+
+    Executor backgroundExecutor =
+        new Executor() {
+          @Override
+          public void execute(@NonNull Runnable command) {
+            backgroundTasks.add(command);
+          }
+        };
+    FlutterEngineBuilder.FlutterJNIFactory flutterJNIFactory =
+        new FlutterEngineBuilder.FlutterJNIFactory() {
+          @NonNull
+          @Override
+          public FlutterJNI createFlutterJNI() {
+            FlutterJNI flutterJNI = mock(FlutterJNI.class);
+            when(flutterJNI.isAttached()).thenReturn(true);
+            return flutterJNI;
+          }
+        };
+    builder =
+        new FlutterEngineBuilder(
+                RuntimeEnvironment.application, backgroundExecutor, flutterJNIFactory)
+            .setFlutterLoader(flutterLoader);
+  }
+
+  @After
+  public void tearDown() {
+    GeneratedPluginRegistrant.clearRegisteredEngines();
+  }
+
+  @Test
+  public void itBuildsTheEngineOnlyAfterTheLoaderAndThePreloadingAreDone() {
+    // --- Execute Test ---
+    builder.setDartVmArgs(new String[] {"--trace-startup"}).build(callback);
+
+    // --- Verify Results ---
+    verify(flutterLoader).startInitialization(any(Context.class));
+    verify(flutterLoader)
+        .ensureInitializationCompleteAsync(
+            any(Context.class),
+            eq(new String[] {"--trace-startup"}),
+            any(Handler.class),
+            any(Runnable.class));
+    assertEquals(1, backgroundTasks.size());
+    assertEquals(1, loaderCallbacks.size());
+
+    // The engine is not built while the loader is still busy.
+    backgroundTasks.get(0).run();
+    ShadowLooper.idleMainLooper();
+    assertTrue(builtEngines.isEmpty());
+
+    loaderCallbacks.get(0).run();
+    ShadowLooper.idleMainLooper();
+    assertEquals(1, builtEngines.size());
+    assertEquals(1, GeneratedPluginRegistrant.getRegisteredEngines().size());
+  }
+
+  @Test
+  public void itCanBuildEnginesWithoutRegisteringPlugins() {
+    // --- Execute Test ---
+    builder.setAutomaticallyRegisterPlugins(false).build(callback);
+    loaderCallbacks.get(0).run();
+    backgroundTasks.get(0).run();
+    ShadowLooper.idleMainLooper();
+
+    // --- Verify Results ---
+    assertEquals(1, builtEngines.size());
+    assertTrue(GeneratedPluginRegistrant.getRegisteredEngines().isEmpty());
+  }
+}
@@ -6,6 +6,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
+import java.util.Arrays;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
@@ -55,4 +56,36 @@ public class FlutterEngineCacheTest {
     // --- Verify Results ---
     assertNull(cache.get("my_flutter_engine"));
   }
+
+  @Test
+  public void itCountsHitsAndMisses() {
+    // --- Test Setup ---
+    FlutterEngineCache cache = new FlutterEngineCache();
+    cache.put("my_flutter_engine", mock(FlutterEngine.class));
+
+    // --- Execute Test ---
+    cache.get("my_flutter_engine");
+    cache.get("my_flutter_engine");
+    cache.get("other_flutter_engine");
+
+    // --- Verify Results ---
+    assertEquals(2, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void itOrdersFlutterEnginesByLeastRecentUse() {
+    // --- Test Setup ---
+    FlutterEngineCache cache = new FlutterEngineCache();
+    cache.put("first", mock(FlutterEngine.class));
+    cache.put("second", mock(FlutterEngine.class));
+    cache.put("third", mock(FlutterEngine.class));
+
+    // --- Execute Test ---
+    cache.get("first");
+    cache.peek("second");
+
+    // --- Verify Results ---
+    assertEquals(Arrays.asList("second", "third", "first"), cache.getEngineIdsByLeastRecentUse());
+  }
 }
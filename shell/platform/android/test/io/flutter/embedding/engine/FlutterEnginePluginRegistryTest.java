@@ -3,16 +3,29 @@ package io.flutter.embedding.engine;
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import android.app.Activity;
 import android.content.Context;
 import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import io.flutter.embedding.engine.dart.DartExecutor;
 import io.flutter.embedding.engine.loader.FlutterLoader;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
+import io.flutter.embedding.engine.plugins.LazyFlutterPlugin;
+import io.flutter.embedding.engine.plugins.activity.ActivityAware;
+import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
 import io.flutter.plugin.platform.PlatformViewsController;
+import java.util.Collections;
+import java.util.Set;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
@@ -58,6 +71,126 @@ public class FlutterEnginePluginRegistryTest {
     assertEquals(0, fakePlugin2.detachmentCallCount);
   }
 
+  @Test
+  public void itInstantiatesLazyPluginsOnTheFirstMessageToTheirChannel() {
+    FlutterEngine flutterEngine = mockFlutterEngine();
+    DartExecutor dartExecutor = flutterEngine.getDartExecutor();
+    FlutterEnginePluginRegistry registry =
+        new FlutterEnginePluginRegistry(
+            mock(Context.class), flutterEngine, mock(FlutterLoader.class));
+    FakeLazyFlutterPlugin lazyPlugin =
+        new FakeLazyFlutterPlugin(new FakeFlutterPlugin(), "fake_channel");
+
+    registry.add(lazyPlugin);
+
+    // The plugin is registered, but not constructed or attached yet.
+    assertTrue(registry.has(FakeFlutterPlugin.class));
+    assertTrue(registry.isLazyPluginPending(FakeFlutterPlugin.class));
+    assertEquals(0, lazyPlugin.createCallCount);
+
+    // Simulate the first message from Dart on the plugin's channel.
+    ArgumentCaptor<Runnable> initializerCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(dartExecutor)
+        .setMessageHandlerInitializer(eq("fake_channel"), initializerCaptor.capture());
+    initializerCaptor.getValue().run();
+
+    assertEquals(1, lazyPlugin.createCallCount);
+    assertEquals(1, lazyPlugin.plugin.attachmentCallCount);
+    assertFalse(registry.isLazyPluginPending(FakeFlutterPlugin.class));
+    assertSame(lazyPlugin.plugin, registry.get(FakeFlutterPlugin.class));
+    verify(dartExecutor).setMessageHandlerInitializer("fake_channel", null);
+  }
+
+  @Test
+  public void itInstantiatesLazyActivityAwarePluginsWhenAttachedToAnActivity() {
+    FlutterEnginePluginRegistry registry =
+        new FlutterEnginePluginRegistry(
+            mock(Context.class), mockFlutterEngine(), mock(FlutterLoader.class));
+    FakeActivityAwarePlugin plugin = new FakeActivityAwarePlugin();
+    FakeLazyFlutterPlugin lazyPlugin = new FakeLazyFlutterPlugin(plugin, "fake_channel");
+    registry.add(lazyPlugin);
+    assertEquals(0, lazyPlugin.createCallCount);
+
+    registry.attachToActivity(mock(Activity.class), mock(Lifecycle.class));
+
+    assertEquals(1, lazyPlugin.createCallCount);
+    assertEquals(1, plugin.attachmentCallCount);
+    assertEquals(1, plugin.activityAttachmentCallCount);
+  }
+
+  @Test
+  public void itDropsLazyPluginsThatAreRemovedBeforeTheyAreInstantiated() {
+    FlutterEnginePluginRegistry registry =
+        new FlutterEnginePluginRegistry(
+            mock(Context.class), mockFlutterEngine(), mock(FlutterLoader.class));
+    FakeLazyFlutterPlugin lazyPlugin =
+        new FakeLazyFlutterPlugin(new FakeFlutterPlugin(), "fake_channel");
+    registry.add(lazyPlugin);
+
+    registry.remove(FakeFlutterPlugin.class);
+
+    assertFalse(registry.has(FakeFlutterPlugin.class));
+    assertNull(registry.get(FakeFlutterPlugin.class));
+    assertEquals(0, lazyPlugin.createCallCount);
+  }
+
+  @NonNull
+  private static FlutterEngine mockFlutterEngine() {
+    FlutterEngine flutterEngine = mock(FlutterEngine.class);
+    PlatformViewsController platformViewsController = mock(PlatformViewsController.class);
+    when(flutterEngine.getPlatformViewsController()).thenReturn(platformViewsController);
+    when(flutterEngine.getDartExecutor()).thenReturn(mock(DartExecutor.class));
+    return flutterEngine;
+  }
+
+  private static class FakeLazyFlutterPlugin implements LazyFlutterPlugin {
+    final FakeFlutterPlugin plugin;
+    final String channel;
+    int createCallCount = 0;
+
+    FakeLazyFlutterPlugin(@NonNull FakeFlutterPlugin plugin, @NonNull String channel) {
+      this.plugin = plugin;
+      this.channel = channel;
+    }
+
+    @NonNull
+    @Override
+    public Class<? extends FlutterPlugin> getPluginClass() {
+      return plugin.getClass();
+    }
+
+    @NonNull
+    @Override
+    public Set<String> getChannelNames() {
+      return Collections.singleton(channel);
+    }
+
+    @NonNull
+    @Override
+    public FlutterPlugin createPlugin() {
+      createCallCount += 1;
+      return plugin;
+    }
+  }
+
+  private static class FakeActivityAwarePlugin extends FakeFlutterPlugin implements ActivityAware {
+    public int activityAttachmentCallCount = 0;
+
+    @Override
+    public void onAttachedToActivity(@NonNull ActivityPluginBinding binding) {
+      activityAttachmentCallCount += 1;
+    }
+
+    @Override
+    public void onDetachedFromActivityForConfigChanges() {}
+
+    @Override
+    public void onReattachedToActivityForConfigChanges(@NonNull ActivityPluginBinding binding) {}
+
+    @Override
+    public void onDetachedFromActivity() {}
+  }
+
   private static class FakeFlutterPlugin implements FlutterPlugin {
     public int attachmentCallCount = 0;
     public int detachmentCallCount = 0;
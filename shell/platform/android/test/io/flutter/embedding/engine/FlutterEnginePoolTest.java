@@ -0,0 +1,146 @@
+package io.flutter.embedding.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import androidx.annotation.NonNull;
+import io.flutter.embedding.engine.dart.DartExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class FlutterEnginePoolTest {
+  private final List<FlutterEngine> createdEngines = new ArrayList<>();
+  private FlutterEngineCache cache;
+
+  private final FlutterEnginePool.EngineFactory engineFactory =
+      new FlutterEnginePool.EngineFactory() {
+        @NonNull
+        @Override
+        public FlutterEngine createEngine(@NonNull Context context) {
+          FlutterEngine engine = mock(FlutterEngine.class);
+          when(engine.getDartExecutor()).thenReturn(mock(DartExecutor.class));
+          createdEngines.add(engine);
+          return engine;
+        }
+      };
+
+  @Before
+  public void setUp() {
+    cache = new FlutterEngineCache();
+  }
+
+  @Test
+  public void itDefersEngineCreation() {
+    // --- Test Setup ---
+    FlutterEnginePool pool =
+        new FlutterEnginePool(RuntimeEnvironment.application, cache, engineFactory, 2);
+    DartExecutor.DartEntrypoint entrypoint = new DartExecutor.DartEntrypoint("bundle", "main");
+
+    // --- Execute Test ---
+    pool.prewarm("first", entrypoint);
+    pool.prewarm("second", null);
+    assertTrue(createdEngines.isEmpty());
+    pool.prewarmNow();
+
+    // --- Verify Results ---
+    assertEquals(2, createdEngines.size());
+    assertNotNull(cache.peek("first"));
+    assertNotNull(cache.peek("second"));
+    verify(createdEngines.get(0).getDartExecutor()).executeDartEntrypoint(entrypoint);
+    assertEquals(2, pool.getEngineCount());
+  }
+
+  @Test
+  public void itDoesNotKeepMoreIdleEnginesThanItsMaximum() {
+    // --- Test Setup ---
+    FlutterEnginePool pool =
+        new FlutterEnginePool(RuntimeEnvironment.application, cache, engineFactory, 1);
+
+    // --- Execute Test ---
+    pool.prewarm("first", null);
+    pool.prewarm("second", null);
+    pool.prewarmNow();
+
+    // --- Verify Results ---
+    assertFalse(cache.contains("first"));
+    assertTrue(cache.contains("second"));
+    verify(createdEngines.get(0)).destroy();
+    assertEquals(1, pool.getEvictedEngineCount());
+    assertEquals(0, pool.getTrimmedEngineCount());
+  }
+
+  @Test
+  public void itEvictsLeastRecentlyUsedIdleEnginesOnTrimMemory() {
+    // --- Test Setup ---
+    FlutterEnginePool pool =
+        new FlutterEnginePool(RuntimeEnvironment.application, cache, engineFactory, 3);
+    pool.prewarm("first", null);
+    pool.prewarm("second", null);
+    pool.prewarm("third", null);
+    pool.prewarmNow();
+    cache.get("first");
+
+    // --- Execute Test ---
+    pool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+    // --- Verify Results ---
+    assertTrue(cache.contains("first"));
+    assertFalse(cache.contains("second"));
+    assertFalse(cache.contains("third"));
+    assertEquals(2, pool.getEvictedEngineCount());
+    assertEquals(2, pool.getTrimmedEngineCount());
+    assertEquals(1, pool.getIdleEngineCount());
+    assertEquals(1, pool.getHitCount());
+  }
+
+  @Test
+  public void itNeverEvictsEnginesThatAreInUse() {
+    // --- Test Setup ---
+    FlutterEnginePool pool =
+        new FlutterEnginePool(RuntimeEnvironment.application, cache, engineFactory, 2);
+    pool.prewarm("in_use", null);
+    pool.prewarm("idle", null);
+    pool.prewarmNow();
+    when(createdEngines.get(0).isAttachedToComponent()).thenReturn(true);
+
+    // --- Execute Test ---
+    pool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+
+    // --- Verify Results ---
+    assertTrue(cache.contains("in_use"));
+    assertFalse(cache.contains("idle"));
+    verify(createdEngines.get(0), never()).destroy();
+  }
+
+  @Test
+  public void itNeverEvictsEnginesThatItDidNotCreate() {
+    // --- Test Setup ---
+    FlutterEngine appEngine = mock(FlutterEngine.class);
+    cache.put("app", appEngine);
+    FlutterEnginePool pool =
+        new FlutterEnginePool(RuntimeEnvironment.application, cache, engineFactory, 2);
+
+    // --- Execute Test ---
+    pool.onLowMemory();
+
+    // --- Verify Results ---
+    assertTrue(cache.contains("app"));
+    verify(appEngine, never()).destroy();
+  }
+}
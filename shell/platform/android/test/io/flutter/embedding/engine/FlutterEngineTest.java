@@ -12,6 +12,7 @@ import static org.mockito.Mockito.when;
 import android.content.Context;
 import io.flutter.embedding.engine.FlutterEngine;
 import io.flutter.embedding.engine.FlutterJNI;
+import io.flutter.embedding.engine.StartupTrace;
 import io.flutter.embedding.engine.loader.FlutterLoader;
 import io.flutter.plugin.platform.PlatformViewsController;
 import io.flutter.plugins.GeneratedPluginRegistrant;
@@ -137,4 +138,27 @@ public class FlutterEngineTest {
 
     verify(context, atLeast(1)).getApplicationContext();
   }
+
+  @Test
+  public void itRecordsItsStartupPhases() {
+    FlutterEngine flutterEngine =
+        new FlutterEngine(RuntimeEnvironment.application, mock(FlutterLoader.class), flutterJNI);
+
+    StartupTrace startupTrace = flutterEngine.getStartupTrace();
+    String[] expectedPhases = {
+      StartupTrace.ENGINE_CONSTRUCTION,
+      StartupTrace.FLUTTER_LOADER,
+      StartupTrace.ATTACH_TO_JNI,
+      StartupTrace.SYSTEM_CHANNELS,
+      StartupTrace.PLATFORM_VIEWS_CONTROLLER,
+      StartupTrace.PLUGIN_REGISTRY,
+      StartupTrace.PLUGIN_REGISTRATION
+    };
+    List<StartupTrace.Phase> phases = startupTrace.getPhases();
+    assertEquals(expectedPhases.length, phases.size());
+    for (int i = 0; i < expectedPhases.length; i++) {
+      assertEquals(expectedPhases[i], phases.get(i).getName());
+      assertTrue(phases.get(i).isComplete());
+    }
+  }
 }
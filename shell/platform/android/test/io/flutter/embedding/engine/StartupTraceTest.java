@@ -0,0 +1,60 @@
+package io.flutter.embedding.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.os.SystemClock;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class StartupTraceTest {
+  @Test
+  public void itRecordsPhasesInTheOrderTheyBegan() {
+    StartupTrace trace = new StartupTrace();
+
+    trace.beginPhase("outer");
+    trace.beginPhase("inner");
+    SystemClock.sleep(5);
+    trace.endPhase("inner");
+    trace.endPhase("outer");
+
+    List<StartupTrace.Phase> phases = trace.getPhases();
+    assertEquals(2, phases.size());
+    assertEquals("outer", phases.get(0).getName());
+    assertEquals("inner", phases.get(1).getName());
+    assertTrue(phases.get(0).isComplete());
+    assertTrue(phases.get(0).getDurationMillis() >= phases.get(1).getDurationMillis());
+  }
+
+  @Test
+  public void itReportsPhasesThatAreStillRunning() {
+    StartupTrace trace = new StartupTrace();
+
+    trace.beginPhase("running");
+
+    StartupTrace.Phase phase = trace.getPhase("running");
+    assertFalse(phase.isComplete());
+    assertEquals(-1, phase.getDurationMillis());
+    assertNull(trace.getPhase("unknown"));
+  }
+
+  @Test
+  public void itRecordsPhasesThatStartedEarlier() {
+    StartupTrace trace = new StartupTrace();
+    long startMillis = SystemClock.uptimeMillis();
+    SystemClock.sleep(5);
+
+    trace.recordPhase("recorded", startMillis);
+
+    StartupTrace.Phase phase = trace.getPhase("recorded");
+    assertEquals(startMillis, phase.getStartMillis());
+    assertTrue(phase.getDurationMillis() >= 5);
+  }
+}
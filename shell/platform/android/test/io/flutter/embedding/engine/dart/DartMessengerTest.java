@@ -0,0 +1,463 @@
+package io.flutter.embedding.engine.dart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.flutter.embedding.engine.FlutterJNI;
+import io.flutter.plugin.common.BinaryMessenger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class DartMessengerTest {
+  @Test
+  public void itCopiesMessagesForRegularHandlers() {
+    // Setup test.
+    FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    final ByteBuffer[] received = new ByteBuffer[1];
+    messenger.setMessageHandler(
+        "test_channel",
+        new BinaryMessenger.BinaryMessageHandler() {
+          @Override
+          public void onMessage(ByteBuffer message, BinaryMessenger.BinaryReply reply) {
+            received[0] = message;
+          }
+        });
+    ByteBuffer nativeMessage = ByteBuffer.allocateDirect(4);
+    nativeMessage.put(new byte[] {1, 2, 3, 4});
+    nativeMessage.flip();
+
+    // Execute the behavior under test.
+    messenger.handleMessageFromDart("test_channel", nativeMessage, 1, 1234L);
+
+    // Verify results.
+    assertNotNull(received[0]);
+    assertFalse(received[0].isDirect());
+    assertEquals(4, received[0].remaining());
+    assertEquals(3, received[0].get(2));
+    verify(fakeFlutterJni, times(1)).cleanupMessageData(1234L);
+  }
+
+  @Test
+  public void itPassesNativeMessagesToDirectHandlersAndReleasesThemAfterwards() {
+    // Setup test.
+    final FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    final ByteBuffer[] received = new ByteBuffer[1];
+    messenger.setMessageHandler(
+        "test_channel",
+        new BinaryMessenger.DirectBinaryMessageHandler() {
+          @Override
+          public void onMessage(ByteBuffer message, BinaryMessenger.BinaryReply reply) {
+            received[0] = message;
+            // The message must still be alive while the handler runs.
+            verify(fakeFlutterJni, never()).cleanupMessageData(anyLong());
+            reply.reply(null);
+          }
+        });
+    ByteBuffer nativeMessage = ByteBuffer.allocateDirect(4);
+
+    // Execute the behavior under test.
+    messenger.handleMessageFromDart("test_channel", nativeMessage, 1, 1234L);
+
+    // Verify results.
+    assertNotNull(received[0]);
+    assertTrue(received[0].isDirect());
+    assertTrue(received[0].isReadOnly());
+    InOrder inOrder = inOrder(fakeFlutterJni);
+    inOrder.verify(fakeFlutterJni).invokePlatformMessageEmptyResponseCallback(1);
+    inOrder.verify(fakeFlutterJni).cleanupMessageData(1234L);
+  }
+
+  @Test
+  public void itReleasesMessagesWithoutAHandler() {
+    // Setup test.
+    FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+
+    // Execute the behavior under test.
+    messenger.handleMessageFromDart("unhandled_channel", ByteBuffer.allocateDirect(4), 7, 1234L);
+
+    // Verify results.
+    verify(fakeFlutterJni, times(1)).invokePlatformMessageEmptyResponseCallback(7);
+    verify(fakeFlutterJni, times(1)).cleanupMessageData(1234L);
+  }
+
+  @Test
+  public void itRunsTheHandlerInitializerOnTheFirstMessageToAChannel() {
+    // Setup test.
+    FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    final DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    final List<ByteBuffer> received = new ArrayList<>();
+    final int[] initializerCallCount = new int[1];
+    messenger.setMessageHandlerInitializer(
+        "lazy_channel",
+        new Runnable() {
+          @Override
+          public void run() {
+            initializerCallCount[0]++;
+            messenger.setMessageHandler(
+                "lazy_channel",
+                new BinaryMessenger.BinaryMessageHandler() {
+                  @Override
+                  public void onMessage(ByteBuffer message, BinaryMessenger.BinaryReply reply) {
+                    received.add(message);
+                  }
+                });
+          }
+        });
+
+    // Execute the behavior under test.
+    messenger.handleMessageFromDart("lazy_channel", ByteBuffer.allocateDirect(4), 1, 1L);
+    messenger.handleMessageFromDart("lazy_channel", ByteBuffer.allocateDirect(4), 2, 2L);
+
+    // Verify results.
+    assertEquals(1, initializerCallCount[0]);
+    assertEquals(2, received.size());
+    verify(fakeFlutterJni, never()).invokePlatformMessageEmptyResponseCallback(1);
+  }
+
+  @Test
+  public void itRecordsChannelMetricsOnlyWhileEnabled() {
+    // Setup test.
+    FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    messenger.setMessageHandler(
+        "handled_channel",
+        new BinaryMessenger.BinaryMessageHandler() {
+          @Override
+          public void onMessage(ByteBuffer message, BinaryMessenger.BinaryReply reply) {
+            ByteBuffer replyBuffer = ByteBuffer.allocateDirect(8);
+            replyBuffer.position(3);
+            reply.reply(replyBuffer);
+          }
+        });
+    final List<ByteBuffer> replies = new ArrayList<>();
+    BinaryMessenger.BinaryReply callback =
+        new BinaryMessenger.BinaryReply() {
+          @Override
+          public void reply(ByteBuffer reply) {
+            replies.add(reply);
+          }
+        };
+
+    // Traffic while metrics are disabled is not recorded.
+    messenger.handleMessageFromDart("handled_channel", ByteBuffer.allocateDirect(4), 1, 1L);
+    assertTrue(messenger.getChannelMetrics().isEmpty());
+
+    // Execute the behavior under test.
+    messenger.setChannelMetricsEnabled(true);
+    messenger.handleMessageFromDart("handled_channel", ByteBuffer.allocateDirect(4), 2, 2L);
+    ByteBuffer outgoing = ByteBuffer.allocateDirect(16);
+    outgoing.position(10);
+    messenger.send("sending_channel", outgoing, callback);
+    messenger.handlePlatformMessageResponse(1, new byte[] {1, 2, 3, 4, 5});
+
+    // Verify results.
+    assertEquals(1, replies.size());
+    Map<String, ChannelMetrics> metrics = messenger.getChannelMetrics();
+    assertEquals(2, metrics.size());
+
+    ChannelMetrics handled = metrics.get("handled_channel");
+    assertEquals(1, handled.getReceivedMessageCount());
+    assertEquals(4, handled.getReceivedBytes());
+    assertEquals(0, handled.getSentMessageCount());
+    assertEquals(3, handled.getSentBytes());
+    assertEquals(1, handled.getHandlerTime().getCount());
+
+    ChannelMetrics sending = metrics.get("sending_channel");
+    assertEquals(1, sending.getSentMessageCount());
+    assertEquals(10, sending.getSentBytes());
+    assertEquals(5, sending.getReceivedBytes());
+    assertEquals(1, sending.getReplyLatency().getCount());
+
+    messenger.setChannelMetricsEnabled(false);
+    assertTrue(messenger.getChannelMetrics().isEmpty());
+  }
+
+  @Test
+  public void itRepliesWithNullWhenTheReplyTimesOut() {
+    // Setup test.
+    FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    final List<ByteBuffer> replies = new ArrayList<>();
+    BinaryMessenger.BinaryReply callback =
+        new BinaryMessenger.BinaryReply() {
+          @Override
+          public void reply(ByteBuffer reply) {
+            replies.add(reply);
+          }
+        };
+    messenger.setReplyTimeout("test_channel", 100);
+
+    // Execute the behavior under test.
+    messenger.send("test_channel", null, callback);
+    ShadowLooper.idleMainLooper(50, TimeUnit.MILLISECONDS);
+    assertTrue(replies.isEmpty());
+    ShadowLooper.idleMainLooper(50, TimeUnit.MILLISECONDS);
+
+    // Verify results.
+    assertEquals(1, replies.size());
+    assertNull(replies.get(0));
+    assertEquals(0, messenger.getPendingChannelResponseCount());
+
+    // A reply that arrives after the timeout is dropped.
+    messenger.handlePlatformMessageResponse(1, new byte[] {1});
+    assertEquals(1, replies.size());
+  }
+
+  @Test
+  public void itCancelsTheTimeoutOfRepliesThatArriveInTime() {
+    // Setup test.
+    FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    BinaryMessenger.BinaryReply callback = mock(BinaryMessenger.BinaryReply.class);
+    messenger.setReplyTimeout("test_channel", 100);
+
+    // Execute the behavior under test.
+    messenger.send("test_channel", null, callback);
+    ShadowLooper.idleMainLooper();
+    assertEquals(1, ShadowLooper.getShadowMainLooper().getScheduler().size());
+    messenger.handlePlatformMessageResponse(1, new byte[] {1});
+
+    // Verify results.
+    verify(callback, times(1)).reply(any(ByteBuffer.class));
+    assertEquals(0, ShadowLooper.getShadowMainLooper().getScheduler().size());
+  }
+
+  @Test
+  public void itHoldsBackMessagesWhileTooManyRepliesArePending() {
+    // Setup test.
+    FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    BinaryMessenger.BinaryReply callback = mock(BinaryMessenger.BinaryReply.class);
+    messenger.setMaxPendingReplies("test_channel", 1);
+
+    // Execute the behavior under test.
+    messenger.send("test_channel", null, callback);
+    messenger.send("test_channel", null, callback);
+    messenger.send("test_channel", null);
+
+    // Verify results.
+    verify(fakeFlutterJni, times(1)).dispatchEmptyPlatformMessage("test_channel", 1);
+    verify(fakeFlutterJni, never()).dispatchEmptyPlatformMessage("test_channel", 0);
+    assertTrue(
+        messenger.getPendingReplyDiagnostics(10).contains("test_channel: 1 pending, 2 queued"));
+
+    messenger.handlePlatformMessageResponse(1, null);
+    InOrder inOrder = inOrder(fakeFlutterJni);
+    inOrder.verify(fakeFlutterJni).dispatchEmptyPlatformMessage("test_channel", 2);
+    inOrder.verify(fakeFlutterJni).dispatchEmptyPlatformMessage("test_channel", 0);
+  }
+
+  @Test
+  public void itOnlyFreesSlotsForRepliesToMessagesThatTookOne() {
+    // Setup test.
+    FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    BinaryMessenger.BinaryReply callback = mock(BinaryMessenger.BinaryReply.class);
+    messenger.send("test_channel", null, callback);
+    messenger.send("test_channel", null, callback);
+
+    // Execute the behavior under test.
+    messenger.setMaxPendingReplies("test_channel", 1);
+    messenger.send("test_channel", null, callback);
+    messenger.send("test_channel", null, callback);
+
+    // Verify results.
+    verify(fakeFlutterJni, times(1)).dispatchEmptyPlatformMessage("test_channel", 3);
+    // Replies to messages that were sent before the limit was set do not free a slot.
+    messenger.handlePlatformMessageResponse(1, null);
+    messenger.handlePlatformMessageResponse(2, null);
+    verify(fakeFlutterJni, never()).dispatchEmptyPlatformMessage("test_channel", 4);
+    messenger.handlePlatformMessageResponse(3, null);
+    verify(fakeFlutterJni, times(1)).dispatchEmptyPlatformMessage("test_channel", 4);
+  }
+
+  @Test
+  public void itDoesNotFreeSlotsOfALimitThatWasSetAgainForRepliesToEarlierMessages() {
+    // Setup test.
+    FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    BinaryMessenger.BinaryReply callback = mock(BinaryMessenger.BinaryReply.class);
+    messenger.setMaxPendingReplies("test_channel", 1);
+    messenger.send("test_channel", null, callback);
+
+    // Execute the behavior under test.
+    messenger.setMaxPendingReplies("test_channel", 0);
+    messenger.setMaxPendingReplies("test_channel", 1);
+    messenger.send("test_channel", null, callback);
+    messenger.send("test_channel", null, callback);
+
+    // Verify results.
+    verify(fakeFlutterJni, times(1)).dispatchEmptyPlatformMessage("test_channel", 2);
+    messenger.handlePlatformMessageResponse(1, null);
+    verify(fakeFlutterJni, never()).dispatchEmptyPlatformMessage("test_channel", 3);
+    messenger.handlePlatformMessageResponse(2, null);
+    verify(fakeFlutterJni, times(1)).dispatchEmptyPlatformMessage("test_channel", 3);
+  }
+
+  @Test
+  public void itReportsTheOldestPendingReplies() {
+    // Setup test.
+    FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    BinaryMessenger.BinaryReply callback = mock(BinaryMessenger.BinaryReply.class);
+
+    // Execute the behavior under test.
+    messenger.send("first_channel", null, callback);
+    messenger.send("second_channel", null, callback);
+    messenger.send("second_channel", null, callback);
+    String diagnostics = messenger.getPendingReplyDiagnostics(1);
+
+    // Verify results.
+    assertTrue(diagnostics.startsWith("3 pending replies\n"));
+    assertTrue(diagnostics.contains("first_channel: 1 pending\n"));
+    assertTrue(diagnostics.contains("second_channel: 2 pending\n"));
+    assertTrue(diagnostics.contains("#1 on first_channel"));
+    assertFalse(diagnostics.contains("#2 on second_channel"));
+  }
+
+  @Test
+  public void itBucketsDurationsExponentially() {
+    assertEquals(0, ChannelMetrics.Histogram.bucketFor(999));
+    assertEquals(1, ChannelMetrics.Histogram.bucketFor(1000));
+    assertEquals(2, ChannelMetrics.Histogram.bucketFor(3999));
+    assertEquals(3, ChannelMetrics.Histogram.bucketFor(4000));
+    int lastBucket = ChannelMetrics.Histogram.BUCKET_COUNT - 1;
+    assertEquals(lastBucket, ChannelMetrics.Histogram.bucketFor(Long.MAX_VALUE));
+
+    long[] buckets = new long[ChannelMetrics.Histogram.BUCKET_COUNT];
+    buckets[1] = 99; // [1us, 2us)
+    buckets[10] = 1; // [512us, 1024us)
+    ChannelMetrics.Histogram histogram =
+        new ChannelMetrics.Histogram(buckets, 100, 99 * 1500 + 800000, 800000);
+    assertEquals(2000, histogram.getPercentileNanos(50));
+    assertEquals(2000, histogram.getPercentileNanos(99));
+    assertEquals(800000, histogram.getPercentileNanos(100));
+  }
+
+  @Test
+  public void itDispatchesTaskQueueHandlersInOrderOnTheExecutor() {
+    // Setup test.
+    FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    final List<Runnable> scheduled = new ArrayList<>();
+    Executor fakeExecutor =
+        new Executor() {
+          @Override
+          public void execute(Runnable runnable) {
+            scheduled.add(runnable);
+          }
+        };
+    DartMessenger messenger = new DartMessenger(fakeFlutterJni, fakeExecutor);
+    final List<Byte> received = new ArrayList<>();
+    BinaryMessenger.TaskQueue taskQueue = messenger.makeBackgroundTaskQueue();
+    messenger.setMessageHandler(
+        "test_channel",
+        new BinaryMessenger.BinaryMessageHandler() {
+          @Override
+          public void onMessage(ByteBuffer message, BinaryMessenger.BinaryReply reply) {
+            received.add(message.get(0));
+            reply.reply(null);
+          }
+        },
+        taskQueue);
+
+    // Execute the behavior under test.
+    for (byte i = 0; i < 3; i++) {
+      ByteBuffer nativeMessage = ByteBuffer.allocateDirect(1);
+      nativeMessage.put(0, i);
+      messenger.handleMessageFromDart("test_channel", nativeMessage, i + 1, 0L);
+    }
+
+    // Verify results.
+    assertTrue(received.isEmpty());
+    verify(fakeFlutterJni, never()).invokePlatformMessageEmptyResponseCallback(1);
+    while (!scheduled.isEmpty()) {
+      scheduled.remove(0).run();
+    }
+    assertEquals(3, received.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, (int) received.get(i));
+      verify(fakeFlutterJni, times(1)).invokePlatformMessageEmptyResponseCallback(i + 1);
+    }
+  }
+
+  @Test
+  public void itSubmitsABurstOfTaskQueueMessagesToTheExecutorOnce() {
+    // Setup test.
+    FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    final List<Runnable> scheduled = new ArrayList<>();
+    Executor fakeExecutor =
+        new Executor() {
+          @Override
+          public void execute(Runnable runnable) {
+            // Like AsyncTask.THREAD_POOL_EXECUTOR on older API levels, with a tiny work queue.
+            if (scheduled.size() >= 2) {
+              throw new RejectedExecutionException();
+            }
+            scheduled.add(runnable);
+          }
+        };
+    DartMessenger messenger = new DartMessenger(fakeFlutterJni, fakeExecutor);
+    final List<Integer> received = new ArrayList<>();
+    messenger.setMessageHandler(
+        "test_channel",
+        new BinaryMessenger.BinaryMessageHandler() {
+          @Override
+          public void onMessage(ByteBuffer message, BinaryMessenger.BinaryReply reply) {
+            received.add(message.getInt(0));
+            reply.reply(null);
+          }
+        },
+        messenger.makeBackgroundTaskQueue());
+
+    // Execute the behavior under test.
+    for (int i = 0; i < 500; i++) {
+      ByteBuffer nativeMessage = ByteBuffer.allocateDirect(4);
+      nativeMessage.putInt(0, i);
+      messenger.handleMessageFromDart("test_channel", nativeMessage, i + 1, 0L);
+    }
+
+    // Verify results.
+    assertEquals(1, scheduled.size());
+    scheduled.remove(0).run();
+    assertTrue(scheduled.isEmpty());
+    assertEquals(500, received.size());
+    for (int i = 0; i < 500; i++) {
+      assertEquals(i, (int) received.get(i));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void itRejectsForeignTaskQueues() {
+    DartMessenger messenger = new DartMessenger(mock(FlutterJNI.class));
+    messenger.setMessageHandler(
+        "test_channel",
+        mock(BinaryMessenger.BinaryMessageHandler.class),
+        new BinaryMessenger.TaskQueue() {});
+  }
+}
@@ -0,0 +1,96 @@
+package io.flutter.embedding.engine.dart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import android.os.SystemClock;
+import io.flutter.plugin.common.BinaryMessenger;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class PendingRepliesTest {
+  @Test
+  public void itHandsOutUniqueNonZeroIds() {
+    PendingReplies pendingReplies = new PendingReplies();
+    Set<Integer> ids = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      int id = pendingReplies.add("test_channel", mock(BinaryMessenger.BinaryReply.class));
+      assertNotEquals(0, id);
+      ids.add(id);
+    }
+    assertEquals(100, ids.size());
+    assertEquals(100, pendingReplies.size());
+  }
+
+  @Test
+  public void itRemovesRepliesExactlyOnce() {
+    PendingReplies pendingReplies = new PendingReplies();
+    BinaryMessenger.BinaryReply reply = mock(BinaryMessenger.BinaryReply.class);
+    int id = pendingReplies.add("test_channel", reply);
+
+    PendingReplies.PendingReply pendingReply = pendingReplies.remove(id);
+    assertSame(reply, pendingReply.callback);
+    assertEquals("test_channel", pendingReply.channel);
+    assertNull(pendingReplies.remove(id));
+    assertEquals(0, pendingReplies.size());
+  }
+
+  @Test
+  public void itListsTheOldestRepliesFirst() {
+    PendingReplies pendingReplies = new PendingReplies();
+    int first = pendingReplies.add("first", mock(BinaryMessenger.BinaryReply.class));
+    SystemClock.sleep(5);
+    pendingReplies.add("second", mock(BinaryMessenger.BinaryReply.class));
+    SystemClock.sleep(5);
+    pendingReplies.add("third", mock(BinaryMessenger.BinaryReply.class));
+
+    List<PendingReplies.PendingReply> oldest = pendingReplies.getOldest(2);
+    assertEquals(2, oldest.size());
+    assertEquals(first, oldest.get(0).replyId);
+    assertEquals("second", oldest.get(1).channel);
+  }
+
+  @Test
+  public void itAcceptsRepliesFromManyThreads() throws InterruptedException {
+    final PendingReplies pendingReplies = new PendingReplies();
+    final Set<Integer> ids = new HashSet<>();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  for (int i = 0; i < 250; i++) {
+                    BinaryMessenger.BinaryReply reply = mock(BinaryMessenger.BinaryReply.class);
+                    int id = pendingReplies.add("test_channel", reply);
+                    synchronized (ids) {
+                      ids.add(id);
+                    }
+                  }
+                }
+              });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(1000, ids.size());
+    assertEquals(1000, pendingReplies.size());
+    for (int id : ids) {
+      pendingReplies.remove(id);
+    }
+    assertEquals(0, pendingReplies.size());
+  }
+}
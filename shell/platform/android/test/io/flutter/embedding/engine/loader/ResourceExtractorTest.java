@@ -0,0 +1,84 @@
+package io.flutter.embedding.engine.loader;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.AssetManager;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class ResourceExtractorTest {
+  private static final String PACKAGE_NAME = "io.flutter.test";
+  private static final String ASSET = "isolate_snapshot_data";
+
+  @Rule public TemporaryFolder dataDir = new TemporaryFolder();
+
+  private final PackageInfo packageInfo = new PackageInfo();
+  private PackageManager packageManager;
+  private AssetManager assetManager;
+
+  @Before
+  public void setUp() throws Exception {
+    packageInfo.versionCode = 1;
+    packageInfo.lastUpdateTime = 1000;
+    packageManager = mock(PackageManager.class);
+    when(packageManager.getPackageInfo(PACKAGE_NAME, 0)).thenReturn(packageInfo);
+    assetManager = mock(AssetManager.class);
+    // Assets are compressed, so they can not be opened as file descriptors.
+    when(assetManager.openFd(anyString())).thenThrow(new FileNotFoundException());
+  }
+
+  @Test
+  public void itDeletesExtractedFilesOfAssetsThatLeftTheApk() throws Exception {
+    givenAsset(ASSET, "snapshot");
+    extract();
+    File output = new File(dataDir.getRoot(), ASSET);
+    assertTrue(output.exists());
+
+    // The next version of the APK no longer has the asset.
+    packageInfo.lastUpdateTime = 2000;
+    when(assetManager.open(ASSET)).thenThrow(new FileNotFoundException());
+    extract();
+
+    assertFalse(output.exists());
+    // The stale file is not extracted again on later launches either.
+    extract();
+    assertFalse(output.exists());
+  }
+
+  private void givenAsset(String asset, final String contents) throws Exception {
+    when(assetManager.open(asset))
+        .thenAnswer(
+            new Answer<InputStream>() {
+              @Override
+              public InputStream answer(InvocationOnMock invocation) {
+                return new ByteArrayInputStream(contents.getBytes());
+              }
+            });
+  }
+
+  private void extract() {
+    new ResourceExtractor(dataDir.getRoot().getPath(), PACKAGE_NAME, packageManager, assetManager)
+        .addResource(ASSET)
+        .start()
+        .waitForCompletion();
+  }
+}
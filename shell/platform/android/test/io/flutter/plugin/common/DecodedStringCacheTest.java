@@ -0,0 +1,101 @@
+package io.flutter.plugin.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class DecodedStringCacheTest {
+  private static final Charset UTF8 = Charset.forName("UTF8");
+
+  @Test
+  public void itReturnsCachedStringsForRecurringBytes() {
+    DecodedStringCache cache = new DecodedStringCache(16);
+
+    String first = cache.readString(directBufferOf("keymap"), 6);
+    ByteBuffer buffer = directBufferOf("keymap");
+    String second = cache.readString(buffer, 6);
+
+    assertEquals("keymap", first);
+    assertSame(first, second);
+    assertEquals(6, buffer.position());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void itDecodesFromTheBufferPosition() {
+    DecodedStringCache cache = new DecodedStringCache(16);
+    ByteBuffer buffer = ByteBuffer.wrap("typeflags".getBytes(UTF8));
+
+    assertEquals("type", cache.readString(buffer, 4));
+    assertEquals("flags", cache.readString(buffer, 5));
+    assertEquals(9, buffer.position());
+  }
+
+  @Test
+  public void itDoesNotCacheLongStrings() {
+    DecodedStringCache cache = new DecodedStringCache(16);
+    String longString = "a string that is longer than the longest cached string";
+    int length = longString.length();
+
+    String first = cache.readString(ByteBuffer.wrap(longString.getBytes(UTF8)), length);
+    String second = cache.readString(directBufferOf(longString), length);
+
+    assertEquals(longString, first);
+    assertEquals(longString, second);
+    assertNotSame(first, second);
+    assertEquals(0, cache.getHitCount());
+    assertEquals(0, cache.getMissCount());
+  }
+
+  @Test
+  public void itDoesNotCacheNonAsciiStrings() {
+    DecodedStringCache cache = new DecodedStringCache(16);
+    int length = "cl\u00e9".getBytes(UTF8).length;
+
+    String first = cache.readString(directBufferOf("cl\u00e9"), length);
+    String second = cache.readString(directBufferOf("cl\u00e9"), length);
+
+    assertEquals("cl\u00e9", first);
+    assertEquals("cl\u00e9", second);
+    assertNotSame(first, second);
+    assertEquals(0, cache.getMissCount());
+  }
+
+  @Test
+  public void itReplacesStringsThatShareASlot() {
+    // A single slot holds at most one string.
+    DecodedStringCache cache = new DecodedStringCache(1);
+
+    String first = cache.readString(directBufferOf("type"), 4);
+    assertEquals("flags", cache.readString(directBufferOf("flags"), 5));
+    String second = cache.readString(directBufferOf("type"), 4);
+
+    assertEquals("type", second);
+    assertNotSame(first, second);
+    assertEquals(0, cache.getHitCount());
+    assertEquals(3, cache.getMissCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void itRejectsLengthsBeyondTheBuffer() {
+    new DecodedStringCache(16).readString(directBufferOf("type"), 5);
+  }
+
+  private static ByteBuffer directBufferOf(String value) {
+    byte[] bytes = value.getBytes(UTF8);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes);
+    buffer.flip();
+    return buffer;
+  }
+}
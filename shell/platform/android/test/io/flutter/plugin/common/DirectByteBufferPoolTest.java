@@ -0,0 +1,163 @@
+package io.flutter.plugin.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class DirectByteBufferPoolTest {
+  @Test
+  public void itReusesReleasedBuffers() {
+    DirectByteBufferPool pool = new DirectByteBufferPool(2);
+
+    ByteBuffer first = pool.acquire(100);
+    assertTrue(first.isDirect());
+    assertEquals(0, first.position());
+    assertEquals(100, first.limit());
+    assertEquals(DirectByteBufferPool.MIN_POOLED_CAPACITY, first.capacity());
+    assertEquals(1, pool.getAcquiredBufferCount());
+
+    assertTrue(pool.release(first));
+    assertEquals(0, pool.getAcquiredBufferCount());
+    assertEquals(1, pool.getFreeBufferCount());
+
+    ByteBuffer second = pool.acquire(200);
+    assertSame(first, second);
+    assertEquals(200, second.limit());
+  }
+
+  @Test
+  public void itIgnoresBuffersItDidNotHandOut() {
+    DirectByteBufferPool pool = new DirectByteBufferPool(2);
+
+    assertFalse(pool.release(ByteBuffer.allocateDirect(256)));
+    assertFalse(pool.release(null));
+
+    ByteBuffer buffer = pool.acquire(10);
+    assertTrue(pool.release(buffer));
+    // A second release of the same buffer must not place it in the pool twice.
+    assertFalse(pool.release(buffer));
+    assertEquals(1, pool.getFreeBufferCount());
+  }
+
+  @Test
+  public void itDoesNotKeepBuffersThatAreNeverReleasedAlive() {
+    DirectByteBufferPool pool = new DirectByteBufferPool(2);
+
+    WeakReference<ByteBuffer> leaked = new WeakReference<>(pool.acquire(100));
+    ByteBuffer kept = pool.acquire(100);
+    for (int i = 0; i < 10 && leaked.get() != null; i++) {
+      System.gc();
+    }
+
+    assertNull(leaked.get());
+    assertEquals(1, pool.getAcquiredBufferCount());
+    assertTrue(pool.release(kept));
+    assertEquals(0, pool.getAcquiredBufferCount());
+  }
+
+  @Test
+  public void itDoesNotPoolOversizedBuffers() {
+    DirectByteBufferPool pool = new DirectByteBufferPool(2);
+
+    ByteBuffer buffer = pool.acquire(DirectByteBufferPool.MAX_POOLED_CAPACITY + 1);
+    assertEquals(DirectByteBufferPool.MAX_POOLED_CAPACITY + 1, buffer.capacity());
+    assertFalse(pool.release(buffer));
+    assertEquals(0, pool.getFreeBufferCount());
+  }
+
+  @Test
+  public void itOnlyConsidersDirectBuffersOfPooledCapacitiesPoolable() {
+    DirectByteBufferPool pool = new DirectByteBufferPool(2);
+
+    assertTrue(DirectByteBufferPool.canBePooled(pool.acquire(300)));
+    assertTrue(DirectByteBufferPool.canBePooled(ByteBuffer.allocateDirect(1024)));
+    assertFalse(DirectByteBufferPool.canBePooled(ByteBuffer.allocate(1024)));
+    assertFalse(DirectByteBufferPool.canBePooled(ByteBuffer.allocateDirect(1000)));
+    assertFalse(DirectByteBufferPool.canBePooled(ByteBuffer.allocateDirect(128)));
+    assertFalse(
+        DirectByteBufferPool.canBePooled(
+            pool.acquire(DirectByteBufferPool.MAX_POOLED_CAPACITY + 1)));
+    assertFalse(DirectByteBufferPool.canBePooled(null));
+  }
+
+  @Test
+  public void itBoundsTheNumberOfFreeBuffersPerSizeClass() {
+    DirectByteBufferPool pool = new DirectByteBufferPool(1);
+
+    ByteBuffer first = pool.acquire(1000);
+    ByteBuffer second = pool.acquire(1000);
+    assertNotSame(first, second);
+    assertTrue(pool.release(first));
+    assertTrue(pool.release(second));
+
+    assertEquals(1, pool.getFreeBufferCount());
+  }
+
+  @Test
+  public void pooledCodecEncodesSameBytesAsUnpooledCodec() {
+    DirectByteBufferPool pool = new DirectByteBufferPool(2);
+    StandardMessageCodec pooledCodec = new StandardMessageCodec(pool);
+    StandardMessageCodec codec = new StandardMessageCodec();
+
+    Map<String, Object> message = new HashMap<>();
+    message.put("name", "pointer");
+    message.put("x", 1.5);
+    List<Object> values = new ArrayList<>();
+    values.add(42);
+    values.add(new long[] {1L, 2L});
+    message.put("values", values);
+
+    ByteBuffer expected = codec.encodeMessage(message);
+    expected.flip();
+    for (int i = 0; i < 3; i++) {
+      ByteBuffer actual = pooledCodec.encodeMessage(message);
+      assertEquals(expected.limit(), actual.position());
+      actual.flip();
+      assertEquals(expected, actual);
+      assertTrue(pool.release(actual));
+    }
+    assertEquals(1, pool.getFreeBufferCount());
+  }
+
+  @Test
+  public void pooledCodecGrowsIntoLargerBuffersWhileEncoding() {
+    DirectByteBufferPool pool = new DirectByteBufferPool(2);
+    StandardMessageCodec pooledCodec = new StandardMessageCodec(pool);
+    StandardMessageCodec codec = new StandardMessageCodec();
+
+    List<Object> message = new ArrayList<>();
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 300; i++) {
+      text.append("text");
+    }
+    message.add(text.toString());
+    message.add(new double[] {1.0, 2.0, 3.0});
+
+    ByteBuffer expected = codec.encodeMessage(message);
+    ByteBuffer actual = pooledCodec.encodeMessage(message);
+    assertTrue(actual.isDirect());
+    assertEquals(expected.position(), actual.position());
+    expected.flip();
+    actual.flip();
+    assertEquals(expected, actual);
+    // The smaller buffer that the encoding started in went back to the pool.
+    assertEquals(1, pool.getFreeBufferCount());
+    assertTrue(pool.release(actual));
+  }
+}
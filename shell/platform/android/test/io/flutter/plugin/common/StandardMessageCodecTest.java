@@ -1,9 +1,21 @@
 package io.flutter.plugin.common;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
@@ -28,6 +40,7 @@ public class StandardMessageCodecTest {
   private static final byte DOUBLE_ARRAY = 11;
   private static final byte LIST = 12;
   private static final byte MAP = 13;
+  private static final byte FLOAT_ARRAY = 14;
 
   @Test
   public void itEncodesNullLiterals() {
@@ -75,4 +88,165 @@ public class StandardMessageCodecTest {
     expected.flip();
     assertEquals(expected, message);
   }
+
+  @Test
+  public void itEncodesFloatArraysAsFloat32Lists() {
+    // Setup message codec
+    StandardMessageCodec codec = new StandardMessageCodec();
+
+    // Execute the behavior under test.
+    ByteBuffer message = codec.encodeMessage(new float[] {1.0f, 0.5f});
+    message.flip();
+
+    // Verify results.
+    // The type, the length and two bytes of padding, followed by the two floats.
+    assertEquals(12, message.remaining());
+    assertEquals(FLOAT_ARRAY, message.get(0));
+    assertEquals(2, message.get(1));
+    message.order(ByteOrder.nativeOrder());
+    assertEquals(1.0f, message.getFloat(4), 0.0f);
+    assertEquals(0.5f, message.getFloat(8), 0.0f);
+    assertArrayEquals(
+        new float[] {1.0f, 0.5f}, (float[]) codec.decodeMessage(message.duplicate()), 0.0f);
+  }
+
+  @Test
+  public void itDecodesTypedDataAsBuffersWhenRequested() {
+    // Setup message codec
+    StandardMessageCodec codec = new StandardMessageCodec(null, true);
+    ArrayList<Object> messageContent = new ArrayList<>();
+    messageContent.add(new int[] {1, 2, 3});
+    messageContent.add(new float[] {1.5f});
+    messageContent.add(new double[] {2.5, 3.5});
+    ByteBuffer message = codec.encodeMessage(messageContent);
+    message.flip();
+
+    // Execute the behavior under test.
+    List<?> decoded = (List<?>) codec.decodeMessage(message);
+
+    // Verify results.
+    IntBuffer ints = (IntBuffer) decoded.get(0);
+    assertEquals(3, ints.remaining());
+    assertEquals(3, ints.get(2));
+    FloatBuffer floats = (FloatBuffer) decoded.get(1);
+    assertEquals(1, floats.remaining());
+    assertEquals(1.5f, floats.get(0), 0.0f);
+    DoubleBuffer doubles = (DoubleBuffer) decoded.get(2);
+    assertEquals(2, doubles.remaining());
+    assertEquals(3.5, doubles.get(1), 0.0);
+
+    // The buffers are encoded like the arrays they were decoded from.
+    ByteBuffer reencoded = codec.encodeMessage(decoded);
+    reencoded.flip();
+    message.rewind();
+    assertTrue(message.equals(reencoded));
+  }
+
+  @Test
+  public void itDecodesLargeCollectionsLazily() {
+    // Setup message codec
+    StandardMessageCodec eagerCodec = new StandardMessageCodec();
+    StandardMessageCodec lazyCodec = new StandardMessageCodec(null, false, 3);
+    Map<String, Object> messageContent = new HashMap<>();
+    ArrayList<Object> list = new ArrayList<>();
+    list.add(1);
+    list.add("two");
+    list.add(3.0);
+    messageContent.put("list", list);
+    messageContent.put("long", Long.MAX_VALUE);
+    messageContent.put("ints", new int[] {4, 5});
+    messageContent.put("null", null);
+    ByteBuffer message = eagerCodec.encodeMessage(messageContent);
+    message.flip();
+
+    // Execute the behavior under test.
+    Map<?, ?> decoded = (Map<?, ?>) lazyCodec.decodeMessage(message);
+
+    // Verify results.
+    assertFalse(decoded instanceof HashMap);
+    assertEquals(4, decoded.size());
+    assertEquals(Long.MAX_VALUE, decoded.get("long"));
+    assertTrue(decoded.containsKey("null"));
+    assertEquals(null, decoded.get("null"));
+    assertFalse(decoded.containsKey("missing"));
+    List<?> decodedList = (List<?>) decoded.get("list");
+    assertFalse(decodedList instanceof ArrayList);
+    assertEquals("two", decodedList.get(1));
+    assertEquals(list, decodedList);
+    assertArrayEquals(new int[] {4, 5}, (int[]) decoded.get("ints"));
+
+    message.rewind();
+    Map<?, ?> eagerlyDecoded = (Map<?, ?>) eagerCodec.decodeMessage(message);
+    assertEquals(eagerlyDecoded.keySet(), decoded.keySet());
+    assertEquals(eagerlyDecoded.get("list"), decoded.get("list"));
+  }
+
+  @Test
+  public void itDoesNotDecodeLazyMapValuesUntilTheyAreRead() {
+    // Setup message codec
+    final int[] decodedValues = new int[1];
+    StandardMessageCodec lazyCodec =
+        new StandardMessageCodec(null, false, 3) {
+          @Override
+          protected Object readValueOfType(byte type, ByteBuffer buffer) {
+            // Only the map itself and its values are counted, not its int key.
+            if (type != 3) {
+              decodedValues[0]++;
+            }
+            return super.readValueOfType(type, buffer);
+          }
+        };
+    Map<Object, Object> messageContent = new HashMap<>();
+    messageContent.put("a", true);
+    messageContent.put("b", "two");
+    messageContent.put("caf\u00e9", 3.0);
+    messageContent.put(4, "four");
+    ByteBuffer message = StandardMessageCodec.INSTANCE.encodeMessage(messageContent);
+    message.flip();
+
+    // Execute the behavior under test.
+    Map<?, ?> decoded = (Map<?, ?>) lazyCodec.decodeMessage(message);
+
+    // Verify results.
+    assertEquals(1, decodedValues[0]);
+    assertTrue(decoded.containsKey("b"));
+    assertTrue(decoded.containsKey("caf\u00e9"));
+    assertFalse(decoded.containsKey("c"));
+    assertEquals(messageContent.keySet(), decoded.keySet());
+    assertEquals(1, decodedValues[0]);
+    assertEquals("two", decoded.get("b"));
+    assertEquals(2, decodedValues[0]);
+    assertEquals(3.0, decoded.get("caf\u00e9"));
+    assertEquals("four", decoded.get(4));
+    assertEquals(messageContent, decoded);
+  }
+
+  @Test
+  public void itOnlySharesDecodedMapKeys() {
+    StandardMessageCodec codec = new StandardMessageCodec();
+    Map<String, Object> messageContent = new HashMap<>();
+    messageContent.put("password", "hunter2");
+    ByteBuffer message = codec.encodeMessage(messageContent);
+    message.flip();
+
+    Map<?, ?> first = (Map<?, ?>) codec.decodeMessage(message);
+    message.rewind();
+    Map<?, ?> second = (Map<?, ?>) codec.decodeMessage(message);
+
+    assertSame(first.keySet().iterator().next(), second.keySet().iterator().next());
+    assertEquals("hunter2", first.get("password"));
+    // Values, such as the text of a password field, are not retained by the string cache.
+    assertNotSame(first.get("password"), second.get("password"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void itRejectsCorruptedCollectionsWhenDecodingLazily() {
+    StandardMessageCodec codec = new StandardMessageCodec(null, false, 1);
+    ByteBuffer message = ByteBuffer.allocateDirect(6);
+    // A list of two elements, whose second element is truncated.
+    message.put(new byte[] {LIST, 2, NULL, INT, 1, 2});
+    message.flip();
+
+    codec.decodeMessage(message);
+  }
 }
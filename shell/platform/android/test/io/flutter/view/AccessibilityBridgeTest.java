@@ -0,0 +1,291 @@
+package io.flutter.view;
+
+import static io.flutter.view.FakeSemanticsUpdate.customAction;
+import static io.flutter.view.FakeSemanticsUpdate.node;
+import static io.flutter.view.FakeSemanticsUpdate.update;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityManager;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.widget.FrameLayout;
+import io.flutter.embedding.engine.systemchannels.AccessibilityChannel;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+@Config(manifest = Config.NONE, sdk = 27)
+@RunWith(RobolectricTestRunner.class)
+public class AccessibilityBridgeTest {
+  private static final int IS_HIDDEN = 1 << 13;
+  private static final String[] STRINGS = {"root", "child"};
+
+  @Test
+  public void itHitTestsTheSameNodesWithTheGridAndTheTreeWithALeftInset() {
+    AccessibilityBridge accessibilityBridge = createAccessibilityBridge();
+    accessibilityBridge.updateSemantics(
+        update(
+            node(0, 0, 0, 0, 0, 400, 300, 1, 2),
+            node(1, 0, 1, 10, 10, 100, 100, 3),
+            node(2, 0, 1, 200, 0, 100, 100),
+            node(3, 0, 1, 20, 20, 10, 10)),
+        STRINGS,
+        48);
+    ShadowLooper.idleMainLooper();
+
+    // The points of hit tests are in the coordinates of the root view, which the inset does not
+    // apply to.
+    assertEquals(3, accessibilityBridge.hitTestForId(35, 35, true));
+    assertEquals(2, accessibilityBridge.hitTestForId(250, 50, true));
+    assertEquals(View.NO_ID, accessibilityBridge.hitTestForId(420, 50, true));
+    for (int x = -60; x < 460; x += 5) {
+      for (int y = -20; y < 320; y += 5) {
+        assertEquals(
+            "hit test at (" + x + ", " + y + ")",
+            accessibilityBridge.hitTestForId(x, y, false),
+            accessibilityBridge.hitTestForId(x, y, true));
+      }
+    }
+  }
+
+  @Test
+  public void itReportsContentChangesOfChangedSubtreesOnly() {
+    Context context = RuntimeEnvironment.application;
+    View rootAccessibilityView = new View(context);
+    EventRecordingLayout parent = new EventRecordingLayout(context);
+    parent.addView(rootAccessibilityView);
+    AccessibilityBridge accessibilityBridge = createAccessibilityBridge(rootAccessibilityView);
+    accessibilityBridge.updateSemantics(
+        update(
+            node(0, 0, 0, 0, 0, 400, 300, 1, 2),
+            node(1, 0, 1, 10, 10, 100, 100, 3),
+            node(2, 0, 1, 200, 0, 100, 100),
+            node(3, 0, 1, 20, 20, 10, 10)),
+        STRINGS,
+        0);
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    parent.contentChangedEvents = 0;
+
+    // Node 3 changes within the changed subtree of node 1, node 2 is a subtree of its own.
+    accessibilityBridge.updateSemantics(
+        update(
+            node(1, 0, 1, 10, 20, 100, 100, 3),
+            node(2, 0, 0, 200, 0, 100, 100),
+            node(3, 0, 0, 20, 20, 10, 10)),
+        STRINGS,
+        0);
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+    assertEquals(2, parent.contentChangedEvents);
+  }
+
+  @Test
+  public void itDropsScheduledEventsOfADetachedView() {
+    Context context = RuntimeEnvironment.application;
+    View rootAccessibilityView = new View(context);
+    EventRecordingLayout parent = new EventRecordingLayout(context);
+    parent.addView(rootAccessibilityView);
+    AccessibilityBridge accessibilityBridge = createAccessibilityBridge(rootAccessibilityView);
+    accessibilityBridge.updateSemantics(update(node(0, 0, 0, 0, 0, 400, 300)), STRINGS, 0);
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    parent.contentChangedEvents = 0;
+
+    accessibilityBridge.updateSemantics(update(node(0, 0, 1, 0, 0, 400, 300)), STRINGS, 0);
+    parent.removeView(rootAccessibilityView);
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+    assertEquals(0, parent.contentChangedEvents);
+  }
+
+  @Test
+  public void itReusesTheNodeInfoOfNodesThatDidNotChange() {
+    AccessibilityBridge accessibilityBridge = createAccessibilityBridge();
+    accessibilityBridge.updateCustomAccessibilityActions(customAction(5, -1, 0, -1), STRINGS);
+    accessibilityBridge.updateSemantics(
+        update(
+            node(0, 0, 0, 0, 0, 0, 400, 300, new int[] {1}, new int[0]),
+            node(1, 0, 0, 1, 10, 10, 100, 100, new int[0], new int[] {5})),
+        STRINGS,
+        0);
+    ShadowLooper.idleMainLooper();
+
+    AccessibilityNodeInfo.AccessibilityAction action =
+        findCustomAction(accessibilityBridge.createAccessibilityNodeInfo(1));
+    assertSame(action, findCustomAction(accessibilityBridge.createAccessibilityNodeInfo(1)));
+  }
+
+  @Test
+  public void itRecomputesTheNodeInfoOfUpdatedNodes() {
+    AccessibilityBridge accessibilityBridge = createAccessibilityBridge();
+    accessibilityBridge.updateSemantics(
+        update(node(0, 0, 0, 0, 0, 400, 300, 1), node(1, 0, 1, 10, 10, 100, 100)), STRINGS, 0);
+    ShadowLooper.idleMainLooper();
+    assertEquals("child", accessibilityBridge.createAccessibilityNodeInfo(1).getText().toString());
+
+    accessibilityBridge.updateSemantics(update(node(1, 0, 0, 10, 10, 100, 100)), STRINGS, 0);
+    ShadowLooper.idleMainLooper();
+
+    assertEquals("root", accessibilityBridge.createAccessibilityNodeInfo(1).getText().toString());
+  }
+
+  @Test
+  public void itRecomputesTheNodeInfoOfNodesWhoseGeometryChanged() {
+    AccessibilityBridge accessibilityBridge = createAccessibilityBridge();
+    accessibilityBridge.updateSemantics(
+        update(node(0, 0, 0, 0, 0, 400, 300, 1), node(1, 0, 1, 10, 10, 100, 100)), STRINGS, 0);
+    ShadowLooper.idleMainLooper();
+    assertEquals(new Rect(0, 0, 400, 300), boundsInParent(accessibilityBridge, 0));
+
+    // A change of the left inset moves the root, although the root itself is not updated.
+    accessibilityBridge.updateSemantics(update(node(1, 0, 1, 10, 10, 100, 100)), STRINGS, 48);
+    ShadowLooper.idleMainLooper();
+
+    assertEquals(new Rect(48, 0, 448, 300), boundsInParent(accessibilityBridge, 0));
+    assertEquals(new Rect(10, 10, 110, 110), boundsInParent(accessibilityBridge, 1));
+  }
+
+  @Test
+  public void itRecomputesTheNodeInfoOfParentsWhoseChildrenWereHidden() {
+    AccessibilityBridge accessibilityBridge = createAccessibilityBridge();
+    accessibilityBridge.updateSemantics(
+        update(
+            node(0, 0, 0, 0, 0, 400, 300, 1, 2),
+            node(1, 0, 1, 0, 0, 100, 100),
+            node(2, 0, 1, 200, 0, 100, 100)),
+        STRINGS,
+        0);
+    ShadowLooper.idleMainLooper();
+    assertEquals(2, accessibilityBridge.createAccessibilityNodeInfo(0).getChildCount());
+
+    // Only the child is updated, its parent lists its visible children.
+    accessibilityBridge.updateSemantics(
+        update(node(2, IS_HIDDEN, 1, 200, 0, 100, 100)), STRINGS, 0);
+    ShadowLooper.idleMainLooper();
+
+    assertEquals(1, accessibilityBridge.createAccessibilityNodeInfo(0).getChildCount());
+  }
+
+  @Test
+  public void itRecomputesTheNodeInfoOfNodesWhoseCustomActionsChanged() {
+    AccessibilityBridge accessibilityBridge = createAccessibilityBridge();
+    accessibilityBridge.updateCustomAccessibilityActions(customAction(5, -1, 0, -1), STRINGS);
+    accessibilityBridge.updateSemantics(
+        update(
+            node(0, 0, 0, 0, 0, 0, 400, 300, new int[] {1}, new int[0]),
+            node(1, 0, 0, 1, 10, 10, 100, 100, new int[0], new int[] {5})),
+        STRINGS,
+        0);
+    ShadowLooper.idleMainLooper();
+    assertEquals(
+        "root",
+        findCustomAction(accessibilityBridge.createAccessibilityNodeInfo(1)).getLabel().toString());
+
+    accessibilityBridge.updateCustomAccessibilityActions(customAction(5, -1, 1, -1), STRINGS);
+
+    assertEquals(
+        "child",
+        findCustomAction(accessibilityBridge.createAccessibilityNodeInfo(1)).getLabel().toString());
+  }
+
+  private static AccessibilityBridge createAccessibilityBridge() {
+    return createAccessibilityBridge(new View(RuntimeEnvironment.application));
+  }
+
+  private static AccessibilityBridge createAccessibilityBridge(View rootAccessibilityView) {
+    Context context = RuntimeEnvironment.application;
+    AccessibilityManager accessibilityManager =
+        (AccessibilityManager) context.getSystemService(Context.ACCESSIBILITY_SERVICE);
+    shadowOf(accessibilityManager).setEnabled(true);
+    return new AccessibilityBridge(
+        rootAccessibilityView,
+        mock(AccessibilityChannel.class),
+        accessibilityManager,
+        context.getContentResolver(),
+        null,
+        new DirectExecutorService());
+  }
+
+  private static Rect boundsInParent(AccessibilityBridge accessibilityBridge, int virtualViewId) {
+    Rect bounds = new Rect();
+    accessibilityBridge.createAccessibilityNodeInfo(virtualViewId).getBoundsInParent(bounds);
+    return bounds;
+  }
+
+  // Returns the first action of the given node info that is not a standard action.
+  private static AccessibilityNodeInfo.AccessibilityAction findCustomAction(
+      AccessibilityNodeInfo nodeInfo) {
+    for (AccessibilityNodeInfo.AccessibilityAction action : nodeInfo.getActionList()) {
+      if (action.getLabel() != null) {
+        return action;
+      }
+    }
+    return null;
+  }
+
+  // Counts the content change events that its child sends.
+  private static final class EventRecordingLayout extends FrameLayout {
+    int contentChangedEvents = 0;
+
+    EventRecordingLayout(Context context) {
+      super(context);
+    }
+
+    @Override
+    public boolean requestSendAccessibilityEvent(View child, AccessibilityEvent event) {
+      if (event.getEventType() == AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED) {
+        contentChangedEvents++;
+      }
+      return true;
+    }
+  }
+
+  // Runs semantics updates right away, so that tests only need to idle the main looper for them
+  // to be applied.
+  private static final class DirectExecutorService extends AbstractExecutorService {
+    private boolean shutdown = false;
+
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+
+    @Override
+    public void shutdown() {
+      shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      shutdown = true;
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package io.flutter.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.accessibility.AccessibilityEvent;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class AccessibilityEventSchedulerTest {
+  private final Map<Integer, Integer> parents = new HashMap<>();
+  private final List<Integer> changedSubtrees = new ArrayList<>();
+  private final List<AccessibilityEvent> sentEvents = new ArrayList<>();
+  private AccessibilityEventScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    // 0 -> 1 -> 2, and 0 -> 3.
+    parents.put(1, 0);
+    parents.put(2, 1);
+    parents.put(3, 0);
+    scheduler =
+        new AccessibilityEventScheduler(
+            new AccessibilityEventScheduler.Delegate() {
+              @Override
+              public void sendSubtreeChangedEvent(int virtualViewId) {
+                changedSubtrees.add(virtualViewId);
+              }
+
+              @Override
+              public void sendEvent(@NonNull AccessibilityEvent event) {
+                sentEvents.add(event);
+              }
+
+              @Override
+              public int getParentId(int virtualViewId) {
+                Integer parent = parents.get(virtualViewId);
+                return parent == null ? AccessibilityEventScheduler.NO_PARENT : parent;
+              }
+            },
+            new Handler(Looper.getMainLooper()),
+            100);
+  }
+
+  @Test
+  public void itCoalescesContentChangesIntoEnclosingSubtrees() {
+    scheduler.scheduleSubtreeChanged(2);
+    scheduler.scheduleSubtreeChanged(1);
+    scheduler.scheduleSubtreeChanged(3);
+    scheduler.scheduleSubtreeChanged(3);
+    assertEquals(0, changedSubtrees.size());
+
+    ShadowLooper.idleMainLooper();
+
+    assertEquals(2, changedSubtrees.size());
+    assertTrue(changedSubtrees.contains(1));
+    assertTrue(changedSubtrees.contains(3));
+    assertEquals(2, scheduler.getSuppressedSubtreeChangeCount());
+  }
+
+  @Test
+  public void itSendsOnlyTheLatestScrollEventOfANodePerInterval() {
+    scheduler.scheduleScrollEvent(1, obtainScrollEvent());
+    ShadowLooper.idleMainLooper();
+    assertEquals(1, sentEvents.size());
+
+    // Within the interval, events are held back and replaced.
+    scheduler.scheduleScrollEvent(1, obtainScrollEvent());
+    AccessibilityEvent latest = obtainScrollEvent();
+    scheduler.scheduleScrollEvent(1, latest);
+    AccessibilityEvent other = obtainScrollEvent();
+    scheduler.scheduleScrollEvent(3, other);
+    ShadowLooper.idleMainLooper(50, TimeUnit.MILLISECONDS);
+    assertEquals(1, sentEvents.size());
+
+    ShadowLooper.idleMainLooper(50, TimeUnit.MILLISECONDS);
+    assertEquals(3, sentEvents.size());
+    assertTrue(sentEvents.contains(latest));
+    assertTrue(sentEvents.contains(other));
+    assertEquals(1, scheduler.getSuppressedScrollEventCount());
+  }
+
+  @Test
+  public void itCoalescesSelectionEventsPerNode() {
+    scheduler.scheduleSelectionEvent(
+        2, AccessibilityEvent.obtain(AccessibilityEvent.TYPE_VIEW_TEXT_SELECTION_CHANGED));
+    AccessibilityEvent latest =
+        AccessibilityEvent.obtain(AccessibilityEvent.TYPE_VIEW_TEXT_SELECTION_CHANGED);
+    scheduler.scheduleSelectionEvent(2, latest);
+
+    ShadowLooper.idleMainLooper();
+
+    assertEquals(1, sentEvents.size());
+    assertSame(latest, sentEvents.get(0));
+    assertEquals(1, scheduler.getSuppressedSelectionEventCount());
+  }
+
+  @Test
+  public void itDropsPendingEventsOnCancel() {
+    scheduler.scheduleSubtreeChanged(0);
+    scheduler.scheduleScrollEvent(1, obtainScrollEvent());
+
+    scheduler.cancel();
+    ShadowLooper.idleMainLooper(200, TimeUnit.MILLISECONDS);
+
+    assertEquals(0, changedSubtrees.size());
+    assertEquals(0, sentEvents.size());
+  }
+
+  private static AccessibilityEvent obtainScrollEvent() {
+    return AccessibilityEvent.obtain(AccessibilityEvent.TYPE_VIEW_SCROLLED);
+  }
+}
@@ -0,0 +1,98 @@
+package io.flutter.view;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Encodes semantics updates like PlatformViewAndroid::UpdateSemantics does, so that tests can feed
+// them to SemanticsUpdateProcessor and AccessibilityBridge.
+final class FakeSemanticsUpdate {
+  private FakeSemanticsUpdate() {}
+
+  static ByteBuffer update(ByteBuffer... nodes) {
+    int size = 0;
+    for (ByteBuffer node : nodes) {
+      size += node.remaining();
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    for (ByteBuffer node : nodes) {
+      buffer.put(node);
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Encodes a node without actions, with a translation transform and a rect from the origin to
+   * ({@code width}, {@code height}).
+   */
+  static ByteBuffer node(
+      int id, int flags, int label, float x, float y, float width, float height, int... children) {
+    return node(id, flags, 0, label, x, y, width, height, children, new int[0]);
+  }
+
+  static ByteBuffer node(
+      int id,
+      int flags,
+      int actions,
+      int label,
+      float x,
+      float y,
+      float width,
+      float height,
+      int[] children,
+      int[] customActions) {
+    ByteBuffer buffer =
+        ByteBuffer.allocate(4 * (41 + 2 * children.length + customActions.length))
+            .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(id);
+    buffer.putInt(flags);
+    buffer.putInt(actions);
+    // maxValueLength, currentValueLength, textSelectionBase, textSelectionExtent, platformViewId,
+    // scrollChildren, scrollIndex.
+    buffer.putInt(-1);
+    buffer.putInt(0);
+    buffer.putInt(-1);
+    buffer.putInt(-1);
+    buffer.putInt(-1);
+    buffer.putInt(0);
+    buffer.putInt(0);
+    buffer.putFloat(Float.NaN);
+    buffer.putFloat(Float.NaN);
+    buffer.putFloat(Float.NaN);
+    buffer.putInt(label);
+    // value, increasedValue, decreasedValue, hint.
+    for (int i = 0; i < 4; i++) {
+      buffer.putInt(-1);
+    }
+    buffer.putInt(0);
+    buffer.putFloat(0);
+    buffer.putFloat(0);
+    buffer.putFloat(width);
+    buffer.putFloat(height);
+    float[] transform = {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, x, y, 0, 1};
+    for (float value : transform) {
+      buffer.putFloat(value);
+    }
+    buffer.putInt(children.length);
+    for (int child : children) {
+      buffer.putInt(child);
+    }
+    for (int child : children) {
+      buffer.putInt(child);
+    }
+    buffer.putInt(customActions.length);
+    for (int action : customActions) {
+      buffer.putInt(action);
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /** Encodes a custom action like PlatformViewAndroid::UpdateSemantics does. */
+  static ByteBuffer customAction(int id, int overrideId, int label, int hint) {
+    ByteBuffer buffer = ByteBuffer.allocate(4 * 4).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(id).putInt(overrideId).putInt(label).putInt(hint);
+    buffer.flip();
+    return buffer;
+  }
+}
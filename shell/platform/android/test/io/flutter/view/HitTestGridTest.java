@@ -0,0 +1,96 @@
+package io.flutter.view;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class HitTestGridTest {
+  @Test
+  public void itFindsTheRectsThatContainAPoint() {
+    HitTestGrid grid = new HitTestGrid();
+    grid.put(0, 0, 0, 1000, 2000);
+    grid.put(1, 10, 10, 20, 20);
+    grid.put(2, 15, 15, 300, 30);
+
+    assertArrayEquals(new int[] {0, 1}, query(grid, 10, 10));
+    assertArrayEquals(new int[] {0, 1, 2}, query(grid, 19.5f, 19.5f));
+    // Rects do not contain their right and bottom edges.
+    assertArrayEquals(new int[] {0, 2}, query(grid, 20, 20));
+    assertArrayEquals(new int[] {}, query(grid, -1, 10));
+  }
+
+  @Test
+  public void itMovesAndRemovesRects() {
+    HitTestGrid grid = new HitTestGrid();
+    grid.put(1, 10, 10, 20, 20);
+    grid.put(2, -500, -500, 500, 500);
+
+    grid.put(1, 400, 10, 410, 20);
+    assertArrayEquals(new int[] {2}, query(grid, 15, 15));
+    assertArrayEquals(new int[] {1, 2}, query(grid, 405, 15));
+
+    grid.remove(2);
+    grid.put(1, 0, 0, 0, 0);
+    assertEquals(0, grid.size());
+    assertArrayEquals(new int[] {}, query(grid, 405, 15));
+  }
+
+  @Test
+  public void itAgreesWithALinearScanOnALargeTree() {
+    // A synthetic tree of 10k nodes: long scrolled lists of small items, with a few large
+    // containers on top.
+    final int nodeCount = 10000;
+    int[][] rects = new int[nodeCount][];
+    HitTestGrid grid = new HitTestGrid();
+    Random random = new Random(42);
+    for (int id = 0; id < nodeCount; id++) {
+      rects[id] = randomRect(random, id);
+      grid.put(id, rects[id][0], rects[id][1], rects[id][2], rects[id][3]);
+    }
+    // Scroll a third of the items.
+    for (int id = 0; id < nodeCount; id += 3) {
+      rects[id] = randomRect(random, id);
+      grid.put(id, rects[id][0], rects[id][1], rects[id][2], rects[id][3]);
+    }
+
+    for (int i = 0; i < 2000; i++) {
+      float x = random.nextFloat() * 1200 - 100;
+      float y = random.nextFloat() * 50000 - 100;
+      int[] expected = new int[nodeCount];
+      int expectedCount = 0;
+      for (int id = 0; id < nodeCount; id++) {
+        int[] rect = rects[id];
+        if (x >= rect[0] && x < rect[2] && y >= rect[1] && y < rect[3]) {
+          expected[expectedCount++] = id;
+        }
+      }
+      assertArrayEquals(Arrays.copyOf(expected, expectedCount), query(grid, x, y));
+    }
+  }
+
+  private static int[] randomRect(Random random, int id) {
+    if (id % 1000 == 0) {
+      return new int[] {0, 0, 1080, 50000};
+    }
+    int left = random.nextInt(1000);
+    int top = random.nextInt(50000);
+    return new int[] {left, top, left + 1 + random.nextInt(200), top + 1 + random.nextInt(150)};
+  }
+
+  private static int[] query(HitTestGrid grid, float x, float y) {
+    int[] ids = new int[grid.query(x, y)];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = grid.queryResultAt(i);
+    }
+    Arrays.sort(ids);
+    return ids;
+  }
+}
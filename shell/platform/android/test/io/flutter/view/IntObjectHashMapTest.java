@@ -0,0 +1,81 @@
+package io.flutter.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class IntObjectHashMapTest {
+  @Test
+  public void itMapsKeysToValues() {
+    IntObjectHashMap<String> map = new IntObjectHashMap<>();
+
+    assertNull(map.put(1, "one"));
+    assertNull(map.put(-1, "minus one"));
+    assertEquals("one", map.put(1, "uno"));
+
+    assertEquals(2, map.size());
+    assertEquals("uno", map.get(1));
+    assertEquals("minus one", map.get(-1));
+    assertNull(map.get(2));
+    assertTrue(map.containsKey(-1));
+    assertFalse(map.containsKey(2));
+  }
+
+  @Test
+  public void itRemovesKeys() {
+    IntObjectHashMap<String> map = new IntObjectHashMap<>();
+    map.put(1, "one");
+    map.put(2, "two");
+
+    assertEquals("one", map.remove(1));
+    assertNull(map.remove(1));
+
+    assertEquals(1, map.size());
+    assertFalse(map.containsKey(1));
+    assertEquals("two", map.get(2));
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertNull(map.get(2));
+  }
+
+  @Test
+  public void itBehavesLikeAHashMapUnderRandomUpdates() {
+    IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+    Map<Integer, Integer> expected = new HashMap<>();
+    Random random = new Random(42);
+
+    for (int i = 0; i < 10000; i++) {
+      // A small key range makes removals hit long probe sequences.
+      int key = random.nextInt(512);
+      if (random.nextBoolean()) {
+        assertEquals(expected.put(key, i), map.put(key, i));
+      } else {
+        assertEquals(expected.remove(key), map.remove(key));
+      }
+    }
+
+    assertEquals(expected.size(), map.size());
+    int visited = 0;
+    for (int slot = 0; slot < map.capacity(); slot++) {
+      if (map.valueAt(slot) != null) {
+        visited++;
+      }
+    }
+    assertEquals(expected.size(), visited);
+    for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), map.get(entry.getKey()));
+    }
+  }
+}
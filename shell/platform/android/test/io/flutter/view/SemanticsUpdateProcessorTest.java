@@ -0,0 +1,224 @@
+package io.flutter.view;
+
+import static io.flutter.view.FakeSemanticsUpdate.node;
+import static io.flutter.view.FakeSemanticsUpdate.update;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class SemanticsUpdateProcessorTest {
+  private static final int SCOPES_ROUTE = 1 << 11;
+  private static final int IS_HIDDEN = 1 << 13;
+  private static final String[] STRINGS = {"root", "child"};
+
+  @Test
+  public void itDecodesNodeUpdates() {
+    SemanticsUpdateProcessor processor = new SemanticsUpdateProcessor();
+
+    SemanticsUpdateProcessor.ChangeSet changeSet =
+        processor.process(
+            update(node(0, 0, 0, 0, 0, 100, 100, 1), node(1, 0, 1, 0, 0, 10, 10)), STRINGS, 0);
+
+    assertEquals(2, changeSet.updateCount);
+    assertEquals(0, changeSet.updates[0].id);
+    assertEquals("root", changeSet.updates[0].label);
+    assertNull(changeSet.updates[0].hint);
+    assertArrayEquals(new int[] {1}, changeSet.updates[0].childrenInTraversalOrder);
+    assertArrayEquals(new int[] {1}, changeSet.updates[0].childrenInHitTestOrder);
+    assertEquals("child", changeSet.updates[1].label);
+    assertEquals(10f, changeSet.updates[1].right, 0f);
+  }
+
+  @Test
+  public void itComputesGlobalRectsOfChangedSubtreesOnly() {
+    SemanticsUpdateProcessor processor = new SemanticsUpdateProcessor();
+
+    SemanticsUpdateProcessor.ChangeSet changeSet =
+        processor.process(
+            update(
+                node(0, 0, 0, 0, 0, 100, 100, 1),
+                node(1, 0, 1, 20, 30, 10, 10, 2),
+                node(2, 0, -1, 5, 5, 6, 6)),
+            STRINGS,
+            0);
+    assertArrayEquals(new int[] {0, 1, 2}, changeSet.geometryIds);
+    assertArrayEquals(
+        new int[] {0, 0, 100, 100, 20, 30, 30, 40, 25, 35, 31, 41}, changeSet.geometryRects);
+
+    // Moving node 1 moves its descendants, but not its parent.
+    changeSet = processor.process(update(node(1, 0, 1, 40, 30, 10, 10, 2)), STRINGS, 0);
+    assertArrayEquals(new int[] {1, 2}, changeSet.geometryIds);
+    assertArrayEquals(new int[] {40, 30, 50, 40, 45, 35, 51, 41}, changeSet.geometryRects);
+  }
+
+  @Test
+  public void itClipsHitTestRectsToTheirParents() {
+    SemanticsUpdateProcessor processor = new SemanticsUpdateProcessor();
+
+    SemanticsUpdateProcessor.ChangeSet changeSet =
+        processor.process(
+            update(
+                node(0, 0, 0, 0, 0, 100, 100, 1, 3),
+                node(1, 0, 1, 90, 90, 20, 20, 2),
+                node(2, 0, -1, 0, 0, 5, 5),
+                node(3, IS_HIDDEN, -1, 0, 0, 10, 10)),
+            STRINGS,
+            0);
+
+    // Node 3 is hidden, so it can not be hit and is left out.
+    assertArrayEquals(new int[] {0, 1, 2}, changeSet.hitTestIds);
+    assertArrayEquals(
+        new int[] {0, 0, 100, 100, 90, 90, 100, 100, 90, 90, 95, 95}, changeSet.hitTestRects);
+    assertTrue(changeSet.hitTestRectsExact);
+
+    // Moving node 1 out of the root leaves no room to hit it or its child.
+    changeSet = processor.process(update(node(1, 0, 1, 100, 90, 20, 20, 2)), STRINGS, 0);
+    assertArrayEquals(new int[] {1, 2}, changeSet.hitTestIds);
+    assertArrayEquals(new int[] {0, 0, 0, 0, 0, 0, 0, 0}, changeSet.hitTestRects);
+  }
+
+  @Test
+  public void itReportsWhetherHitTestRectsAreExact() {
+    SemanticsUpdateProcessor processor = new SemanticsUpdateProcessor();
+    processor.process(
+        update(node(0, 0, 0, 0, 0, 100, 100, 1), node(1, 0, 1, 0, 0, 10, 10)), STRINGS, 0);
+
+    ByteBuffer rotated = node(1, 0, 1, 0, 0, 10, 10);
+    // Rotate node 1 by 90 degrees.
+    rotated.putFloat(4 * 23, 0).putFloat(4 * 24, 1).putFloat(4 * 27, -1).putFloat(4 * 28, 0);
+    SemanticsUpdateProcessor.ChangeSet changeSet =
+        processor.process(update(rotated), STRINGS, 0);
+    assertFalse(changeSet.hitTestRectsExact);
+
+    changeSet = processor.process(update(node(0, 0, 0, 0, 0, 100, 100)), STRINGS, 0);
+    assertTrue(changeSet.hitTestRectsExact);
+  }
+
+  @Test
+  public void itTranslatesTheWholeTreeByTheLeftInset() {
+    SemanticsUpdateProcessor processor = new SemanticsUpdateProcessor();
+    processor.process(
+        update(node(0, 0, 0, 0, 0, 100, 100, 1), node(1, 0, 1, 0, 0, 10, 10)), STRINGS, 0);
+
+    SemanticsUpdateProcessor.ChangeSet changeSet =
+        processor.process(update(node(1, 0, 1, 0, 0, 10, 10)), STRINGS, 48);
+
+    assertArrayEquals(new int[] {0, 1}, changeSet.geometryIds);
+    assertArrayEquals(new int[] {48, 0, 148, 100, 48, 0, 58, 10}, changeSet.geometryRects);
+  }
+
+  @Test
+  public void itLeavesTheLeftInsetOutOfHitTestRects() {
+    SemanticsUpdateProcessor processor = new SemanticsUpdateProcessor();
+
+    SemanticsUpdateProcessor.ChangeSet changeSet =
+        processor.process(
+            update(node(0, 0, 0, 0, 0, 100, 100, 1), node(1, 0, 1, 20, 30, 10, 10)), STRINGS, 48);
+    assertArrayEquals(new int[] {48, 0, 148, 100, 68, 30, 78, 40}, changeSet.geometryRects);
+    assertArrayEquals(new int[] {0, 1}, changeSet.hitTestIds);
+    assertArrayEquals(new int[] {0, 0, 100, 100, 20, 30, 30, 40}, changeSet.hitTestRects);
+
+    // A change of the inset moves every global rect, but no hit test rect.
+    changeSet = processor.process(update(node(1, 0, 1, 20, 30, 10, 10)), STRINGS, 0);
+    assertArrayEquals(new int[] {0, 1}, changeSet.geometryIds);
+    assertEquals(0, changeSet.hitTestIds.length);
+  }
+
+  @Test
+  public void itReportsNodesThatAreNoLongerReachable() {
+    SemanticsUpdateProcessor processor = new SemanticsUpdateProcessor();
+    SemanticsUpdateProcessor.ChangeSet changeSet =
+        processor.process(
+            update(
+                node(0, 0, 0, 0, 0, 100, 100, 1),
+                node(1, 0, 1, 0, 0, 10, 10, 2),
+                node(2, 0, -1, 0, 0, 5, 5)),
+            STRINGS,
+            0);
+    assertEquals(0, changeSet.removedIds.length);
+
+    changeSet = processor.process(update(node(0, 0, 0, 0, 0, 100, 100)), STRINGS, 0);
+
+    assertArrayEquals(new int[] {0}, changeSet.geometryIds);
+    int[] removedIds = changeSet.removedIds.clone();
+    Arrays.sort(removedIds);
+    assertArrayEquals(new int[] {1, 2}, removedIds);
+  }
+
+  @Test
+  public void itReportsTheRouteThatWasPushedOrPopped() {
+    SemanticsUpdateProcessor processor = new SemanticsUpdateProcessor();
+
+    SemanticsUpdateProcessor.ChangeSet changeSet =
+        processor.process(
+            update(node(0, 0, -1, 0, 0, 100, 100, 1), node(1, SCOPES_ROUTE, -1, 0, 0, 100, 100)),
+            STRINGS,
+            0);
+    assertEquals(1, changeSet.routeChangeId);
+
+    changeSet = processor.process(update(node(1, SCOPES_ROUTE, 1, 0, 0, 100, 100)), STRINGS, 0);
+    assertEquals(SemanticsUpdateProcessor.NO_ROUTE_CHANGE, changeSet.routeChangeId);
+
+    changeSet =
+        processor.process(
+            update(
+                node(0, 0, -1, 0, 0, 100, 100, 1, 2), node(2, SCOPES_ROUTE, -1, 0, 0, 100, 100)),
+            STRINGS,
+            0);
+    assertEquals(2, changeSet.routeChangeId);
+
+    changeSet = processor.process(update(node(0, 0, -1, 0, 0, 100, 100, 1)), STRINGS, 0);
+    assertEquals(1, changeSet.routeChangeId);
+    assertArrayEquals(new int[] {2}, changeSet.removedIds);
+  }
+
+  @Test
+  public void itReusesRecycledChangeSetsAndNodeUpdates() {
+    SemanticsUpdateProcessor processor = new SemanticsUpdateProcessor();
+    SemanticsUpdateProcessor.ChangeSet first =
+        processor.process(
+            update(node(1, 0, 1, 0, 0, 10, 10), node(0, 0, 0, 0, 0, 100, 100, 1)), STRINGS, 0);
+    SemanticsUpdateProcessor.NodeUpdate rootUpdate = first.updates[1];
+    int[] rootChildren = rootUpdate.childrenInTraversalOrder;
+
+    processor.recycle(first);
+    SemanticsUpdateProcessor.ChangeSet second =
+        processor.process(
+            update(node(1, 0, 1, 20, 30, 10, 10, 2), node(2, 0, 1, 0, 0, 5, 5)), STRINGS, 0);
+
+    assertSame(first, second);
+    assertEquals(2, second.updateCount);
+    assertSame(rootUpdate, second.updates[0]);
+    assertSame(rootChildren, second.updates[0].childrenInTraversalOrder);
+    assertArrayEquals(new int[] {2}, second.updates[0].childrenInTraversalOrder);
+    // The root keeps its own child ids, although the record it was decoded from was reused.
+    assertArrayEquals(new int[] {1, 2}, second.geometryIds);
+    assertEquals(0, second.removedIds.length);
+  }
+
+  @Test
+  public void itForgetsTheTreeOnReset() {
+    SemanticsUpdateProcessor processor = new SemanticsUpdateProcessor();
+    processor.process(
+        update(node(0, 0, 0, 0, 0, 100, 100, 1), node(1, 0, 1, 0, 0, 10, 10)), STRINGS, 0);
+
+    processor.reset();
+    SemanticsUpdateProcessor.ChangeSet changeSet =
+        processor.process(update(node(0, 0, 0, 0, 0, 100, 100)), STRINGS, 0);
+
+    assertArrayEquals(new int[] {0}, changeSet.geometryIds);
+    assertEquals(0, changeSet.removedIds.length);
+  }
+}
@@ -26,6 +26,7 @@ void VerifyType(EncodableValue& value,
   EXPECT_EQ(value.IsIntList(), type == EncodableValue::Type::kIntList);
   EXPECT_EQ(value.IsLongList(), type == EncodableValue::Type::kLongList);
   EXPECT_EQ(value.IsDoubleList(), type == EncodableValue::Type::kDoubleList);
+  EXPECT_EQ(value.IsFloatList(), type == EncodableValue::Type::kFloatList);
   EXPECT_EQ(value.IsList(), type == EncodableValue::Type::kList);
   EXPECT_EQ(value.IsMap(), type == EncodableValue::Type::kMap);
 }
@@ -146,6 +147,21 @@ TEST(EncodableValueTest, DoubleList) {
   EXPECT_EQ(list_value[2], std::numeric_limits<double>::max());
 }
 
+TEST(EncodableValueTest, FloatList) {
+  std::vector<float> data = {-10.0f, 2.0f};
+  EncodableValue value(data);
+  VerifyType(value, EncodableValue::Type::kFloatList);
+
+  std::vector<float>& list_value = value.FloatListValue();
+  list_value.push_back(std::numeric_limits<float>::max());
+  EXPECT_EQ(list_value[0], -10.0f);
+  EXPECT_EQ(list_value[1], 2.0f);
+
+  ASSERT_EQ(list_value.size(), 3u);
+  EXPECT_EQ(data.size(), 2u);
+  EXPECT_EQ(list_value[2], std::numeric_limits<float>::max());
+}
+
 TEST(EncodableValueTest, List) {
   EncodableList encodables = {
       EncodableValue(1),
@@ -209,6 +225,9 @@ TEST(EncodableValueTest, EmptyTypeConstructor) {
                 .DoubleListValue()
                 .size(),
             0u);
+  EXPECT_EQ(
+      EncodableValue(EncodableValue::Type::kFloatList).FloatListValue().size(),
+      0u);
   EXPECT_EQ(EncodableValue(EncodableValue::Type::kList).ListValue().size(), 0u);
   EXPECT_EQ(EncodableValue(EncodableValue::Type::kMap).MapValue().size(), 0u);
 }
@@ -59,6 +59,7 @@ class EncodableValue {
     kDoubleList,  // A list of 64-bit floating point numbers.
     kList,        // A list of EncodableValues.
     kMap,         // A mapping from EncodableValues to EncodableValues.
+    kFloatList,   // A list of 32-bit floating point numbers.
   };
 
   // Creates an instance representing a null value.
@@ -105,6 +106,11 @@ class EncodableValue {
       : double_list_(new std::vector<double>(std::move(list))),
         type_(Type::kDoubleList) {}
 
+  // Creates an instance representing a list of 32-bit floating point values.
+  explicit EncodableValue(std::vector<float> list)
+      : float_list_(new std::vector<float>(std::move(list))),
+        type_(Type::kFloatList) {}
+
   // Creates an instance representing a list of EncodableValues.
   explicit EncodableValue(EncodableList list)
       : list_(new EncodableList(std::move(list))), type_(Type::kList) {}
@@ -150,6 +156,9 @@ class EncodableValue {
       case Type::kDoubleList:
         double_list_ = new std::vector<double>();
         break;
+      case Type::kFloatList:
+        float_list_ = new std::vector<float>();
+        break;
       case Type::kList:
         list_ = new std::vector<EncodableValue>();
         break;
@@ -195,6 +204,9 @@ class EncodableValue {
       case Type::kDoubleList:
         double_list_ = new std::vector<double>(*other.double_list_);
         break;
+      case Type::kFloatList:
+        float_list_ = new std::vector<float>(*other.float_list_);
+        break;
       case Type::kList:
         list_ = new std::vector<EncodableValue>(*other.list_);
         break;
@@ -253,6 +265,9 @@ class EncodableValue {
       case Type::kDoubleList:
         double_list_ = other.double_list_;
         break;
+      case Type::kFloatList:
+        float_list_ = other.float_list_;
+        break;
       case Type::kList:
         list_ = other.list_;
         break;
@@ -301,6 +316,7 @@ class EncodableValue {
       case Type::kIntList:
       case Type::kLongList:
       case Type::kDoubleList:
+      case Type::kFloatList:
       case Type::kList:
       case Type::kMap:
         return this < &other;
@@ -422,6 +438,22 @@ class EncodableValue {
     return *double_list_;
   }
 
+  // Returns the float list this object represents.
+  //
+  // It is a programming error to call this unless IsFloatList() is true.
+  const std::vector<float>& FloatListValue() const {
+    assert(IsFloatList());
+    return *float_list_;
+  }
+
+  // Returns the float list this object represents.
+  //
+  // It is a programming error to call this unless IsFloatList() is true.
+  std::vector<float>& FloatListValue() {
+    assert(IsFloatList());
+    return *float_list_;
+  }
+
   // Returns the list of EncodableValues this object represents.
   //
   // It is a programming error to call this unless IsList() is true.
@@ -486,6 +518,9 @@ class EncodableValue {
   // Returns true if this represents a list of doubles.
   bool IsDoubleList() const { return type_ == Type::kDoubleList; }
 
+  // Returns true if this represents a list of floats.
+  bool IsFloatList() const { return type_ == Type::kFloatList; }
+
   // Returns true if this represents a list of EncodableValues.
   bool IsList() const { return type_ == Type::kList; }
 
@@ -527,6 +562,9 @@ class EncodableValue {
       case Type::kDoubleList:
         delete double_list_;
         break;
+      case Type::kFloatList:
+        delete float_list_;
+        break;
       case Type::kList:
         delete list_;
         break;
@@ -556,6 +594,7 @@ class EncodableValue {
     std::vector<int32_t>* int_list_;
     std::vector<int64_t>* long_list_;
     std::vector<double>* double_list_;
+    std::vector<float>* float_list_;
     std::vector<EncodableValue>* list_;
     std::map<EncodableValue, EncodableValue>* map_;
   };
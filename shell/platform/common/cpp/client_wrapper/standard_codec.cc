@@ -40,6 +40,7 @@ enum class EncodedType {
   kFloat64List,
   kList,
   kMap,
+  kFloat32List,
 };
 
 // Returns the encoded type that should be written when serializing |value|.
@@ -69,6 +70,8 @@ EncodedType EncodedTypeForValue(const EncodableValue& value) {
       return EncodedType::kList;
     case EncodableValue::Type::kMap:
       return EncodedType::kMap;
+    case EncodableValue::Type::kFloatList:
+      return EncodedType::kFloat32List;
   }
   assert(false);
   return EncodedType::kNull;
@@ -123,6 +126,8 @@ EncodableValue StandardCodecSerializer::ReadValue(
       return ReadVector<int64_t>(stream);
     case EncodedType::kFloat64List:
       return ReadVector<double>(stream);
+    case EncodedType::kFloat32List:
+      return ReadVector<float>(stream);
     case EncodedType::kList: {
       size_t length = ReadSize(stream);
       EncodableList list_value;
@@ -194,6 +199,9 @@ void StandardCodecSerializer::WriteValue(const EncodableValue& value,
     case EncodableValue::Type::kDoubleList:
       WriteVector(value.DoubleListValue(), stream);
       break;
+    case EncodableValue::Type::kFloatList:
+      WriteVector(value.FloatListValue(), stream);
+      break;
     case EncodableValue::Type::kList:
       WriteSize(value.ListValue().size(), stream);
       for (const auto& item : value.ListValue()) {
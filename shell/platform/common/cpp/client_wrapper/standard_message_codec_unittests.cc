@@ -170,4 +170,11 @@ TEST(StandardMessageCodec, CanEncodeAndDecodeFloat64Array) {
   CheckEncodeDecode(value, bytes);
 }
 
+TEST(StandardMessageCodec, CanEncodeAndDecodeFloat32Array) {
+  std::vector<uint8_t> bytes = {0x0e, 0x02, 0x00, 0x00, 0xdb, 0x0f,
+                                0x49, 0x40, 0x00, 0x00, 0x7a, 0x44};
+  EncodableValue value(std::vector<float>{3.1415927f, 1000.0f});
+  CheckEncodeDecode(value, bytes);
+}
+
 }  // namespace flutter
@@ -36,6 +36,8 @@ bool EncodableValuesAreEqual(const EncodableValue& a, const EncodableValue& b) {
       return a.LongListValue() == b.LongListValue();
     case EncodableValue::Type::kDoubleList:
       return a.DoubleListValue() == b.DoubleListValue();
+    case EncodableValue::Type::kFloatList:
+      return a.FloatListValue() == b.FloatListValue();
     case EncodableValue::Type::kList: {
       const auto& a_list = a.ListValue();
       const auto& b_list = b.ListValue();
@@ -276,21 +276,24 @@ FLUTTER_EXPORT
  * - FlutterStandardDataTypeInt32: 32-bit signed integers
  * - FlutterStandardDataTypeInt64: 64-bit signed integers
  * - FlutterStandardDataTypeFloat64: 64-bit floats
+ * - FlutterStandardDataTypeFloat32: 32-bit floats
  */
 typedef NS_ENUM(NSInteger, FlutterStandardDataType) {
   FlutterStandardDataTypeUInt8,
   FlutterStandardDataTypeInt32,
   FlutterStandardDataTypeInt64,
   FlutterStandardDataTypeFloat64,
+  FlutterStandardDataTypeFloat32,
 };
 
 /**
- * A byte buffer holding `UInt8`, `SInt32`, `SInt64`, or `Float64` values, used
- * with `FlutterStandardMessageCodec` and `FlutterStandardMethodCodec`.
+ * A byte buffer holding `UInt8`, `SInt32`, `SInt64`, `Float64`, or `Float32`
+ * values, used with `FlutterStandardMessageCodec` and
+ * `FlutterStandardMethodCodec`.
  *
  * Two's complement encoding is used for signed integers. IEEE754
- * double-precision representation is used for floats. The platform's native
- * endianness is assumed.
+ * double-precision and single-precision representations are used for floats.
+ * The platform's native endianness is assumed.
  */
 FLUTTER_EXPORT
 @interface FlutterStandardTypedData : NSObject
@@ -326,6 +329,17 @@ FLUTTER_EXPORT
  */
 + (instancetype)typedDataWithFloat64:(NSData*)data;
 
+/**
+ * Creates a `FlutterStandardTypedData` which interprets the specified data
+ * as 32-bit floats.
+ *
+ * Float32 data is only understood by Flutter frameworks whose
+ * `StandardMessageCodec` decodes `Float32List` values.
+ *
+ * @param data the byte data. The length must be divisible by 4.
+ */
++ (instancetype)typedDataWithFloat32:(NSData*)data;
+
 /**
  * The raw underlying data buffer.
  */
@@ -166,6 +166,10 @@ using namespace flutter;
   return [FlutterStandardTypedData typedDataWithData:data type:FlutterStandardDataTypeFloat64];
 }
 
++ (instancetype)typedDataWithFloat32:(NSData*)data {
+  return [FlutterStandardTypedData typedDataWithData:data type:FlutterStandardDataTypeFloat32];
+}
+
 + (instancetype)typedDataWithData:(NSData*)data type:(FlutterStandardDataType)type {
   return [[[FlutterStandardTypedData alloc] initWithData:data type:type] autorelease];
 }
@@ -444,6 +448,7 @@ using namespace flutter;
     case FlutterStandardFieldInt32Data:
     case FlutterStandardFieldInt64Data:
     case FlutterStandardFieldFloat64Data:
+    case FlutterStandardFieldFloat32Data:
       return [self readTypedDataOfType:FlutterStandardDataTypeForField(field)];
     case FlutterStandardFieldList: {
       UInt32 length = [self readSize];
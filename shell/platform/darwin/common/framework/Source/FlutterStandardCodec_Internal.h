@@ -16,21 +16,45 @@ typedef NS_ENUM(NSInteger, FlutterStandardField) {
   FlutterStandardFieldIntHex,
   FlutterStandardFieldFloat64,
   FlutterStandardFieldString,
-  // The following must match the corresponding order from `FlutterStandardDataType`.
   FlutterStandardFieldUInt8Data,
   FlutterStandardFieldInt32Data,
   FlutterStandardFieldInt64Data,
   FlutterStandardFieldFloat64Data,
   FlutterStandardFieldList,
   FlutterStandardFieldMap,
+  FlutterStandardFieldFloat32Data,
 };
 
 namespace flutter {
 FlutterStandardField FlutterStandardFieldForDataType(FlutterStandardDataType type) {
-  return (FlutterStandardField)(type + FlutterStandardFieldUInt8Data);
+  switch (type) {
+    case FlutterStandardDataTypeUInt8:
+      return FlutterStandardFieldUInt8Data;
+    case FlutterStandardDataTypeInt32:
+      return FlutterStandardFieldInt32Data;
+    case FlutterStandardDataTypeInt64:
+      return FlutterStandardFieldInt64Data;
+    case FlutterStandardDataTypeFloat64:
+      return FlutterStandardFieldFloat64Data;
+    case FlutterStandardDataTypeFloat32:
+      return FlutterStandardFieldFloat32Data;
+  }
 }
 FlutterStandardDataType FlutterStandardDataTypeForField(FlutterStandardField field) {
-  return (FlutterStandardDataType)(field - FlutterStandardFieldUInt8Data);
+  switch (field) {
+    case FlutterStandardFieldUInt8Data:
+      return FlutterStandardDataTypeUInt8;
+    case FlutterStandardFieldInt32Data:
+      return FlutterStandardDataTypeInt32;
+    case FlutterStandardFieldInt64Data:
+      return FlutterStandardDataTypeInt64;
+    case FlutterStandardFieldFloat64Data:
+      return FlutterStandardDataTypeFloat64;
+    case FlutterStandardFieldFloat32Data:
+      return FlutterStandardDataTypeFloat32;
+    default:
+      return FlutterStandardDataTypeUInt8;
+  }
 }
 UInt8 elementSizeForFlutterStandardDataType(FlutterStandardDataType type) {
   switch (type) {
@@ -42,6 +66,8 @@ UInt8 elementSizeForFlutterStandardDataType(FlutterStandardDataType type) {
       return 8;
     case FlutterStandardDataTypeFloat64:
       return 8;
+    case FlutterStandardDataTypeFloat32:
+      return 4;
   }
 }
 }  // namespace flutter
@@ -177,6 +177,16 @@ TEST(FlutterStandardCodec, CanEncodeAndDecodeFloat64Array) {
   checkEncodeDecode(value);
 }
 
+TEST(FlutterStandardCodec, CanEncodeAndDecodeFloat32Array) {
+  uint8_t bytes[8] = {0xd8, 0x0f, 0x49, 0x40, 0x00, 0x00, 0x7a, 0x44};
+  NSData* data = [NSData dataWithBytes:bytes length:8];
+  FlutterStandardTypedData* value = [FlutterStandardTypedData typedDataWithFloat32:data];
+  // Type 14, two elements, and padding to align the elements to 4 bytes.
+  uint8_t expectedBytes[12] = {0x0e, 0x02, 0x00, 0x00, 0xd8, 0x0f,
+                               0x49, 0x40, 0x00, 0x00, 0x7a, 0x44};
+  checkEncodeDecode(value, [NSData dataWithBytes:expectedBytes length:12]);
+}
+
 TEST(FlutterStandardCodec, HandlesMethodCallsWithNilArguments) {
   FlutterStandardMethodCodec* codec = [FlutterStandardMethodCodec sharedInstance];
   FlutterMethodCall* call = [FlutterMethodCall methodCallWithMethodName:@"hello" arguments:nil];